@@ -164,6 +164,34 @@ default XDOM getPreparedXDOM()
         return getXDOM();
     }
 
+    /**
+     * Return the document content as {@link XDOM}, without copying it. The returned {@link XDOM} is shared and must
+     * not be modified: the blocks which need to be modified (for example to execute transformations on them) have to
+     * be cloned first.
+     * 
+     * @return the XDOM for the document
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default XDOM getReadOnlyXDOM()
+    {
+        return getXDOM();
+    }
+
+    /**
+     * Return the prepared document content as {@link XDOM}, without copying it. The returned {@link XDOM} is shared
+     * and must not be modified: the blocks which need to be modified (for example to execute transformations on them)
+     * have to be cloned first.
+     * 
+     * @return the prepared version of the XDOM
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default XDOM getReadOnlyPreparedXDOM()
+    {
+        return getPreparedXDOM();
+    }
+
     /**
      * @return the document's content author user reference
      * @since 7.2M1
@@ -31,9 +31,14 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -49,6 +54,7 @@
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.eventstream.EntityEvent;
@@ -98,6 +104,11 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
 {
     private static final Map<String, SearchFieldMapping> SEARCH_FIELD_MAPPING = new HashMap<>();
 
+    /**
+     * The number of events to get from Solr at a time when navigating a big result with a cursor.
+     */
+    private static final int CURSOR_PAGE_SIZE = 1000;
+
     private static class SearchFieldMapping
     {
         String solrFieldName;
@@ -121,6 +132,65 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
         }
     }
 
+    /**
+     * Navigate the pages of a Solr result using a cursor (see
+     * <a href="https://solr.apache.org/guide/solr/latest/query-guide/pagination-of-results.html">Solr deep
+     * paging</a>) so that only one page is in memory at a time and the cost of getting a page does not depend on its
+     * position in the result.
+     */
+    private final class CursorIterator implements Iterator<SolrDocument>
+    {
+        private final SolrQuery solrQuery;
+
+        private Iterator<SolrDocument> page;
+
+        private boolean lastPage;
+
+        CursorIterator(SolrQuery solrQuery, QueryResponse response)
+        {
+            this.solrQuery = solrQuery;
+
+            setPage(response);
+        }
+
+        private void setPage(QueryResponse response)
+        {
+            SolrDocumentList documents = response.getResults();
+            String nextCursorMark = response.getNextCursorMark();
+
+            this.page = documents.iterator();
+            // Solr returns the same cursor mark when the end of the result was reached
+            this.lastPage = documents.size() < this.solrQuery.getRows() || nextCursorMark == null
+                || nextCursorMark.equals(this.solrQuery.get(CursorMarkParams.CURSOR_MARK_PARAM));
+
+            this.solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, nextCursorMark);
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (!this.page.hasNext() && !this.lastPage) {
+                try {
+                    setPage(query(this.solrQuery));
+                } catch (EventStreamException e) {
+                    throw new IllegalStateException("Failed to get the next page of events", e);
+                }
+            }
+
+            return this.page.hasNext();
+        }
+
+        @Override
+        public SolrDocument next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return this.page.next();
+        }
+    }
+
     static {
         SEARCH_FIELD_MAPPING.put(Event.FIELD_DOCUMENT,
             new SearchFieldMapping(EventsSolrCoreInitializer.FIELD_DOCUMENT_INDEX));
@@ -838,16 +908,65 @@ public EventSearchResult search(EventQuery query, Set<String> fields) throws Eve
     {
         SolrQuery solrQuery = toSolrQuery(query, fields);
 
-        QueryResponse response;
-        try {
-            response = this.client.query(solrQuery);
-        } catch (Exception e) {
-            throw new EventStreamException("Failed to execute Solr query", e);
+        if (isCursorAllowed(query)) {
+            return searchWithCursor(solrQuery, ((PageableEventQuery) query).getLimit());
         }
 
+        QueryResponse response = query(solrQuery);
+
         SolrDocumentList documents = response.getResults();
 
         return new StreamEventSearchResult(documents.getNumFound(), documents.getStart(), documents.size(),
             documents.stream().map(this::toEvent));
     }
+
+    private QueryResponse query(SolrQuery solrQuery) throws EventStreamException
+    {
+        try {
+            return this.client.query(solrQuery);
+        } catch (Exception e) {
+            throw new EventStreamException("Failed to execute Solr query", e);
+        }
+    }
+
+    private boolean isCursorAllowed(EventQuery query)
+    {
+        if (query instanceof PageableEventQuery) {
+            PageableEventQuery pageableQuery = (PageableEventQuery) query;
+
+            // Solr does not support combining a cursor with an offset, and it's not worth it for small results
+            return pageableQuery.getOffset() <= 0
+                && (pageableQuery.getLimit() < 0 || pageableQuery.getLimit() > CURSOR_PAGE_SIZE);
+        }
+
+        return false;
+    }
+
+    private EventSearchResult searchWithCursor(SolrQuery solrQuery, long limit) throws EventStreamException
+    {
+        solrQuery.setStart(null);
+        solrQuery.setRows(CURSOR_PAGE_SIZE);
+
+        // Solr requires the sort to include the unique key when using a cursor
+        if (solrQuery.getSorts().stream()
+            .noneMatch(sort -> sort.getItem().equals(EventsSolrCoreInitializer.SOLR_FIELD_ID))) {
+            solrQuery.addSort(EventsSolrCoreInitializer.SOLR_FIELD_ID, ORDER.asc);
+        }
+
+        solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, CursorMarkParams.CURSOR_MARK_START);
+
+        QueryResponse response = query(solrQuery);
+
+        long totalHits = response.getResults().getNumFound();
+        long size = limit >= 0 ? Math.min(limit, totalHits) : totalHits;
+
+        Stream<SolrDocument> documents = StreamSupport.stream(Spliterators
+            .spliteratorUnknownSize(new CursorIterator(solrQuery, response), Spliterator.ORDERED | Spliterator.NONNULL),
+            false);
+        if (limit >= 0) {
+            documents = documents.limit(limit);
+        }
+
+        return new StreamEventSearchResult(totalHits, 0, size, documents.map(this::toEvent));
+    }
 }
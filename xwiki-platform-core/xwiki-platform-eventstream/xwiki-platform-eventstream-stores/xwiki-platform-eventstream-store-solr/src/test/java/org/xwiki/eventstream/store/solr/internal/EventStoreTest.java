@@ -639,6 +639,38 @@ void searchDate() throws EventStreamException, InterruptedException, ExecutionEx
         assertEquals(2, result.getTotalHits());
     }
 
+    @Test
+    void searchWithCursor() throws EventStreamException, InterruptedException, ExecutionException
+    {
+        Set<Event> events = new HashSet<>();
+        for (int i = 0; i < 2100; ++i) {
+            DefaultEvent event = event("cursor" + i, new Date(i));
+            event.setType("cursor");
+            events.add(event);
+            this.eventStore.saveEvent(event);
+        }
+        this.eventStore.saveEvent(EVENT1).get();
+
+        SimpleEventQuery query = new SimpleEventQuery();
+        query.eq(Event.FIELD_TYPE, "cursor");
+        EventSearchResult result = assertSearch(events, query);
+        assertEquals(0, result.getOffset());
+        assertEquals(2100, result.getSize());
+        assertEquals(2100, result.getTotalHits());
+
+        query = new SimpleEventQuery();
+        query.eq(Event.FIELD_TYPE, "cursor");
+        query.addSort(Event.FIELD_DATE, Order.DESC);
+        query.setLimit(1500);
+        result = this.eventStore.search(query);
+        assertEquals(1500, result.getSize());
+        assertEquals(2100, result.getTotalHits());
+        List<Event> found = result.stream().collect(Collectors.toList());
+        assertEquals(1500, found.size());
+        assertEquals("cursor2099", found.get(0).getId());
+        assertEquals("cursor600", found.get(1499).getId());
+    }
+
     private void searchReference() throws EventStreamException, InterruptedException, ExecutionException
     {
         DocumentReference document1 = new DocumentReference("document1", SPACE_REFERENCE);
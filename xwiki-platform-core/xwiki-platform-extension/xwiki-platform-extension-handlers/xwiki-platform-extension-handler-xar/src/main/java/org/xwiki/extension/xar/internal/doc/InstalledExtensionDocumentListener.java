@@ -195,7 +195,7 @@ private Set<DocumentReference> getExtensionDocuments(XarInstalledExtension xarIn
             PackageConfiguration configuration = new PackageConfiguration();
             configuration.setWiki(XarHandlerUtils.getWikiFromNamespace(namespace));
             return new HashSet<>(this.packagerProvider.get()
-                .getDocumentReferences(xarInstalledExtension.getXarPackage().getEntries(), configuration));
+                .getDocumentReferences(xarInstalledExtension.getXarEntries(), configuration));
         } catch (UnsupportedNamespaceException e) {
             this.logger.warn("Unsupported namespace [{}].", namespace);
         } catch (Exception e) {
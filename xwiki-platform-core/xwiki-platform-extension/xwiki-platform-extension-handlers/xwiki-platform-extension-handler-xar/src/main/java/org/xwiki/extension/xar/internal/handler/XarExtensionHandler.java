@@ -232,7 +232,7 @@ public void uninstall(InstalledExtension installedExtension, String namespace, R
                 try {
                     XarInstalledExtension xarLocalExtension =
                         (XarInstalledExtension) this.xarRepository.resolve(installedExtension.getId());
-                    Collection<XarEntry> pages = xarLocalExtension.getXarPackage().getEntries();
+                    Collection<XarEntry> pages = xarLocalExtension.getXarEntries();
                     this.packager.unimportPages(pages, configuration);
                 } catch (Exception e) {
                     // Not supposed to be possible
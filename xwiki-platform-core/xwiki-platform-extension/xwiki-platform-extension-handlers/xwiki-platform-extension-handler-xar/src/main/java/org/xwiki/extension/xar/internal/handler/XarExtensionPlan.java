@@ -100,7 +100,7 @@ public XarExtensionPlan(ExtensionPlan plan, InstalledExtensionRepository xarRepo
                             planEntry.put(previousXARExtension.getId(), xarPlanEntry);
                         }
 
-                        for (XarEntry entry : previousXARExtension.getXarPackage().getEntries()) {
+                        for (XarEntry entry : previousXARExtension.getXarEntries()) {
                             String wiki;
                             try {
                                 wiki = XarHandlerUtils.getWikiFromNamespace(action.getNamespace());
@@ -21,10 +21,15 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xwiki.extension.InstalledExtension;
 import org.xwiki.extension.repository.ExtensionRepository;
 import org.xwiki.extension.wrap.WrappingInstalledExtension;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.xar.XarEntry;
 import org.xwiki.xar.XarException;
 import org.xwiki.xar.XarPackage;
 
@@ -34,9 +39,16 @@
  */
 public class XarInstalledExtension extends WrappingInstalledExtension<InstalledExtension>
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(XarInstalledExtension.class);
+
     private XarInstalledExtensionRepository repository;
 
-    private XarPackage xarPackage;
+    private volatile XarPackage xarPackage;
+
+    /**
+     * The entries of the package when they were found in the index, used until the package is actually read.
+     */
+    private XarPackage indexedPackage;
 
     public XarInstalledExtension(InstalledExtension installedExtension, XarInstalledExtensionRepository repository)
         throws IOException, XarException
@@ -44,7 +56,27 @@ public XarInstalledExtension(InstalledExtension installedExtension, XarInstalled
         super(installedExtension);
 
         this.repository = repository;
-        this.xarPackage = new XarPackage(new File(getFile().getAbsolutePath()));
+        this.xarPackage = new XarPackage(getXarFile());
+    }
+
+    /**
+     * @param installedExtension the wrapped installed extension
+     * @param repository the repository
+     * @param entries the entries of the XAR package, the package itself is only read when actually needed
+     * @since 16.8.0RC1
+     */
+    public XarInstalledExtension(InstalledExtension installedExtension, XarInstalledExtensionRepository repository,
+        Collection<XarEntry> entries)
+    {
+        super(installedExtension);
+
+        this.repository = repository;
+        this.indexedPackage = new XarPackage(entries);
+    }
+
+    private File getXarFile()
+    {
+        return new File(getFile().getAbsolutePath());
     }
 
     /**
@@ -52,7 +84,61 @@ public XarInstalledExtension(InstalledExtension installedExtension, XarInstalled
      */
     public XarPackage getXarPackage()
     {
-        return this.xarPackage;
+        XarPackage result = this.xarPackage;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.xarPackage;
+
+                if (result == null) {
+                    try {
+                        result = new XarPackage(getXarFile());
+                    } catch (Exception e) {
+                        LOGGER.error("Failed to read the XAR package of extension [{}], only its indexed entries will"
+                            + " be available", getId(), e);
+
+                        result = this.indexedPackage;
+                    }
+
+                    this.xarPackage = result;
+                    this.indexedPackage = null;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the entries of the XAR package, without reading the package if they were indexed
+     * @since 16.8.0RC1
+     */
+    public Collection<XarEntry> getXarEntries()
+    {
+        return getIndexedXarPackage().getEntries();
+    }
+
+    /**
+     * @param reference the reference of the document
+     * @return the entry associated to the passed reference, without reading the package if the entries were indexed
+     * @since 16.8.0RC1
+     */
+    public XarEntry getXarEntry(LocalDocumentReference reference)
+    {
+        return getIndexedXarPackage().getEntry(reference);
+    }
+
+    private XarPackage getIndexedXarPackage()
+    {
+        XarPackage result = this.xarPackage;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.xarPackage != null ? this.xarPackage : this.indexedPackage;
+            }
+        }
+
+        return result;
     }
 
     // ExtensionRepository
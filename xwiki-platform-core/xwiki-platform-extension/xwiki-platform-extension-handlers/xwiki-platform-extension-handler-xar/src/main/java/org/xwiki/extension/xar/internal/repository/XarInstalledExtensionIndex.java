@@ -0,0 +1,241 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.LocaleUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.xar.XarEntry;
+
+/**
+ * Store on disk the entries of the installed XAR extensions so that the packages don't have to be read again at each
+ * startup. An index file is only reused if the size and the last modification date of the XAR file did not change
+ * since it was written.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = XarInstalledExtensionIndex.class)
+@Singleton
+public class XarInstalledExtensionIndex
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String INDEX_EXTENSION = ".index";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    private Path getIndexDirectory()
+    {
+        File permanentDirectory = this.environment.getPermanentDirectory();
+
+        // Stored next to the local extension repository (extension/repository by default)
+        return permanentDirectory != null ? permanentDirectory.toPath().resolve("extension/xar/index") : null;
+    }
+
+    private Path getIndexFile(Path directory, File xarFile)
+    {
+        return directory.resolve(DigestUtils.sha256Hex(xarFile.getAbsolutePath()) + INDEX_EXTENSION);
+    }
+
+    /**
+     * @param xarFile the XAR file
+     * @return the indexed entries of the passed XAR file or {@code null} if they are not indexed or if the file
+     *         changed since they were indexed
+     */
+    public Collection<XarEntry> get(File xarFile)
+    {
+        Path directory = getIndexDirectory();
+        if (directory == null) {
+            return null;
+        }
+
+        Path indexFile = getIndexFile(directory, xarFile);
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+
+        try (DataInputStream stream =
+            new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (stream.readInt() != FORMAT_VERSION || stream.readLong() != xarFile.length()
+                || stream.readLong() != xarFile.lastModified()) {
+                return null;
+            }
+
+            int size = stream.readInt();
+            List<XarEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                entries.add(readEntry(stream));
+            }
+
+            return entries;
+        } catch (Exception e) {
+            this.logger.warn("Failed to read the index file [{}], the XAR file [{}] will be read instead: {}",
+                indexFile, xarFile, e.getMessage());
+
+            return null;
+        }
+    }
+
+    private XarEntry readEntry(DataInputStream stream) throws IOException
+    {
+        EntityReference parent = null;
+        int spaces = stream.readInt();
+        for (int i = 0; i < spaces; ++i) {
+            parent = new EntityReference(stream.readUTF(), EntityType.SPACE, parent);
+        }
+        String name = stream.readUTF();
+        String locale = readNullableString(stream);
+
+        LocalDocumentReference reference = new LocalDocumentReference(
+            new EntityReference(name, EntityType.DOCUMENT, parent), LocaleUtils.toLocale(locale));
+
+        String entryName = readNullableString(stream);
+        int defaultAction = stream.readInt();
+        String entryType = readNullableString(stream);
+
+        return new XarEntry(reference, entryName, defaultAction, entryType);
+    }
+
+    private String readNullableString(DataInputStream stream) throws IOException
+    {
+        return stream.readBoolean() ? stream.readUTF() : null;
+    }
+
+    /**
+     * @param xarFile the XAR file
+     * @param entries the entries of the XAR file
+     */
+    public void set(File xarFile, Collection<XarEntry> entries)
+    {
+        Path directory = getIndexDirectory();
+        if (directory == null) {
+            return;
+        }
+
+        Path indexFile = getIndexFile(directory, xarFile);
+
+        try {
+            Files.createDirectories(directory);
+
+            // Write in a temporary file first to make sure an incomplete index is never read
+            Path temporaryFile = Files.createTempFile(directory, null, ".tmp");
+            try {
+                try (DataOutputStream stream =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                    stream.writeInt(FORMAT_VERSION);
+                    stream.writeLong(xarFile.length());
+                    stream.writeLong(xarFile.lastModified());
+
+                    stream.writeInt(entries.size());
+                    for (XarEntry entry : entries) {
+                        writeEntry(stream, entry);
+                    }
+                }
+
+                Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to write the index of the XAR file [{}]: {}", xarFile, e.getMessage());
+        }
+    }
+
+    private void writeEntry(DataOutputStream stream, XarEntry entry) throws IOException
+    {
+        List<EntityReference> spaces = entry.getParent().getReversedReferenceChain();
+        stream.writeInt(spaces.size());
+        for (EntityReference space : spaces) {
+            stream.writeUTF(space.getName());
+        }
+        stream.writeUTF(entry.getName());
+        writeNullableString(stream, entry.getLocale() != null ? entry.getLocale().toString() : null);
+
+        writeNullableString(stream, entry.getEntryName());
+        stream.writeInt(entry.getDefaultAction());
+        writeNullableString(stream, entry.getEntryType());
+    }
+
+    private void writeNullableString(DataOutputStream stream, String value) throws IOException
+    {
+        stream.writeBoolean(value != null);
+        if (value != null) {
+            stream.writeUTF(value);
+        }
+    }
+
+    /**
+     * Remove the index files which are not associated with any of the passed XAR files.
+     *
+     * @param xarFiles the XAR files to keep in the index
+     */
+    public void retain(Collection<File> xarFiles)
+    {
+        Path directory = getIndexDirectory();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        Set<Path> indexFiles = new HashSet<>();
+        for (File xarFile : xarFiles) {
+            indexFiles.add(getIndexFile(directory, xarFile));
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, '*' + INDEX_EXTENSION)) {
+            for (Path file : files) {
+                if (!indexFiles.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to clean the XAR extensions index: {}", e.getMessage());
+        }
+    }
+}
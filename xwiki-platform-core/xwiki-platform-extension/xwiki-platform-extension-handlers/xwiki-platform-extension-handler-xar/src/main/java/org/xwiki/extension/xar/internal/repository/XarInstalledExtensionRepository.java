@@ -19,6 +19,7 @@
  */
 package org.xwiki.extension.xar.internal.repository;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,11 +30,16 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
@@ -81,6 +87,9 @@ public class XarInstalledExtensionRepository extends AbstractInstalledExtensionR
     @Inject
     private EntityReferenceFactory referenceFactory;
 
+    @Inject
+    private XarInstalledExtensionIndex index;
+
     /**
      * Index used to find extensions owners of a document installed on a specific wiki.
      */
@@ -122,7 +131,7 @@ private void pagesUpdated(XarInstalledExtension installedExtension, String names
         throws UnsupportedNamespaceException
     {
         if (installedExtension != null) {
-            for (XarEntry xarEntry : installedExtension.getXarPackage().getEntries()) {
+            for (XarEntry xarEntry : installedExtension.getXarEntries()) {
                 if (namespace != null) {
                     DocumentReference reference = new DocumentReference(xarEntry,
                         new WikiReference(XarHandlerUtils.getWikiFromNamespace(namespace)));
@@ -183,13 +192,31 @@ void updateCachedXarExtension(ExtensionId extensionId)
     private XarInstalledExtension addCacheXarExtension(InstalledExtension installedExtension)
         throws IOException, XarException
     {
-        XarInstalledExtension xarExtension = new XarInstalledExtension(installedExtension, this);
+        XarInstalledExtension xarExtension = createXarExtension(installedExtension);
 
         addCachedExtension(xarExtension);
 
         return xarExtension;
     }
 
+    private XarInstalledExtension createXarExtension(InstalledExtension installedExtension)
+        throws IOException, XarException
+    {
+        File file = new File(installedExtension.getFile().getAbsolutePath());
+
+        // Avoid reading the whole package when its entries were already indexed
+        Collection<XarEntry> entries = this.index.get(file);
+        if (entries != null) {
+            return new XarInstalledExtension(installedExtension, this, entries);
+        }
+
+        XarInstalledExtension xarExtension = new XarInstalledExtension(installedExtension, this);
+
+        this.index.set(file, xarExtension.getXarPackage().getEntries());
+
+        return xarExtension;
+    }
+
     protected void removeCachedXarExtension(ExtensionId extensionId)
     {
         XarInstalledExtension extension = (XarInstalledExtension) getInstalledExtension(extensionId);
@@ -201,26 +228,65 @@ protected void removeCachedXarExtension(ExtensionId extensionId)
 
     private void loadExtensions()
     {
+        List<InstalledExtension> localExtensions = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (InstalledExtension localExtension : this.installedRepository.getInstalledExtensions()) {
             if (XarExtensionHandler.TYPE.equalsIgnoreCase(localExtension.getType())) {
-                try {
-                    // Add XAR extension to the cache
-                    XarInstalledExtension xarInstalledExtension = addCacheXarExtension(localExtension);
-
-                    // Add extension pages to the index
-                    if (xarInstalledExtension.getNamespaces() == null) {
-                        pagesUpdated(xarInstalledExtension, null, true);
-                    } else {
-                        for (String namespace : localExtension.getNamespaces()) {
-                            pagesUpdated(xarInstalledExtension, namespace, true);
-                        }
-                    }
-                } catch (Exception e) {
-                    this.logger.error("Failed to parse extension [{}]", localExtension.getId(), e);
+                localExtensions.add(localExtension);
+                files.add(new File(localExtension.getFile().getAbsolutePath()));
+            }
+        }
+
+        // Reading the packages which are not indexed (or changed since they were indexed) is expensive, so it's done
+        // in parallel
+        if (!localExtensions.isEmpty()) {
+            List<Future<XarInstalledExtension>> futures = new ArrayList<>(localExtensions.size());
+            ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(localExtensions.size(), Runtime.getRuntime().availableProcessors()),
+                new BasicThreadFactory.Builder().namingPattern("XWiki XAR extension loading thread %d").daemon(true)
+                    .build());
+            try {
+                for (InstalledExtension localExtension : localExtensions) {
+                    futures.add(executor.submit(() -> createXarExtension(localExtension)));
+                }
+
+                // Register the extensions in the same order as before
+                for (int i = 0; i < localExtensions.size(); ++i) {
+                    loadExtension(localExtensions.get(i), futures.get(i));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        // Forget about the extensions which are not installed anymore
+        this.index.retain(files);
+    }
 
-                    continue;
+    private void loadExtension(InstalledExtension localExtension, Future<XarInstalledExtension> future)
+    {
+        try {
+            XarInstalledExtension xarInstalledExtension = future.get();
+
+            // Add XAR extension to the cache
+            addCachedExtension(xarInstalledExtension);
+
+            // Add extension pages to the index
+            if (xarInstalledExtension.getNamespaces() == null) {
+                pagesUpdated(xarInstalledExtension, null, true);
+            } else {
+                for (String namespace : localExtension.getNamespaces()) {
+                    pagesUpdated(xarInstalledExtension, namespace, true);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            this.logger.error("Interrupted while loading extension [{}]", localExtension.getId());
+        } catch (ExecutionException e) {
+            this.logger.error("Failed to parse extension [{}]", localExtension.getId(), e.getCause());
+        } catch (Exception e) {
+            this.logger.error("Failed to parse extension [{}]", localExtension.getId(), e);
         }
     }
 
@@ -278,7 +344,7 @@ public boolean isAllowed(DocumentReference documentReference, Right right)
         }
 
         for (XarInstalledExtension extension : extensions) {
-            XarEntry entry = extension.getXarPackage().getEntry(localDocumentReference);
+            XarEntry entry = extension.getXarEntry(localDocumentReference);
 
             XarEntryType type = this.typeResolver.resolve(entry, true);
 
@@ -45,7 +45,6 @@
 import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 import org.xwiki.xar.XarEntry;
-import org.xwiki.xar.XarPackage;
 
 import com.xpn.xwiki.doc.XWikiDocument;
 
@@ -134,11 +133,8 @@ public void onApplicationReady() throws Exception
         when(this.xarRepositoryProvider.get().getInstalledExtensions("wiki:test"))
             .thenReturn(Collections.singleton(xarInstalledExtension));
 
-        XarPackage xarPackage = mock(XarPackage.class);
-        when(xarInstalledExtension.getXarPackage()).thenReturn(xarPackage);
-
         XarEntry xarEntry = mock(XarEntry.class);
-        when(xarPackage.getEntries()).thenReturn(Collections.singleton(xarEntry));
+        when(xarInstalledExtension.getXarEntries()).thenReturn(Collections.singleton(xarEntry));
 
         DocumentReference documentReference = new DocumentReference("test", "Some", "Page");
         DocumentReference documentReferenceWithLocale = new DocumentReference(documentReference, Locale.FRENCH);
@@ -156,12 +152,9 @@ public void onApplicationReady() throws Exception
     public void onExtensionUninstalled() throws Exception
     {
         XarInstalledExtension xarInstalledExtension = mock(XarInstalledExtension.class);
-        XarPackage xarPackage = mock(XarPackage.class);
-        when(xarInstalledExtension.getXarPackage()).thenReturn(xarPackage);
-
         XarEntry firstXAREntry = mock(XarEntry.class, "first");
         XarEntry secondXAREntry = mock(XarEntry.class, "second");
-        when(xarPackage.getEntries()).thenReturn(Arrays.asList(firstXAREntry, secondXAREntry));
+        when(xarInstalledExtension.getXarEntries()).thenReturn(Arrays.asList(firstXAREntry, secondXAREntry));
 
         DocumentReference alice = new DocumentReference("test", "Users", "Alice");
         DocumentReference aliceWithLocale = new DocumentReference(alice, Locale.FRENCH);
@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.repository;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.xar.XarEntry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link XarInstalledExtensionIndex}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class XarInstalledExtensionIndexTest
+{
+    @MockComponent
+    private Environment environment;
+
+    @InjectMockComponents
+    private XarInstalledExtensionIndex index;
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    private File xarFile;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(new File(this.tmpDir, "permanent"));
+
+        this.xarFile = new File(this.tmpDir, "extension.xar");
+        Files.writeString(this.xarFile.toPath(), "content", StandardCharsets.UTF_8);
+    }
+
+    private void assertEntryEquals(XarEntry expected, XarEntry actual)
+    {
+        assertEquals(expected, actual);
+        assertEquals(expected.getLocale(), actual.getLocale());
+        assertEquals(expected.getEntryName(), actual.getEntryName());
+        assertEquals(expected.getDefaultAction(), actual.getDefaultAction());
+        assertEquals(expected.getEntryType(), actual.getEntryType());
+    }
+
+    @Test
+    void setAndGet() throws Exception
+    {
+        assertNull(this.index.get(this.xarFile));
+
+        XarEntry entry1 =
+            new XarEntry(new LocalDocumentReference("Space", "Page", Locale.ROOT), "Space/Page.xml", 0, "home");
+        XarEntry entry2 = new XarEntry(
+            new LocalDocumentReference(new LocalDocumentReference(Arrays.asList("A", "B"), "Page"), Locale.FRENCH),
+            "A/B/Page.fr.xml", 1, null);
+        XarEntry entry3 = new XarEntry(new LocalDocumentReference("Space", "Other", Locale.ROOT));
+
+        this.index.set(this.xarFile, Arrays.asList(entry1, entry2, entry3));
+
+        List<XarEntry> entries = (List<XarEntry>) this.index.get(this.xarFile);
+        assertEquals(3, entries.size());
+        assertEntryEquals(entry1, entries.get(0));
+        assertEntryEquals(entry2, entries.get(1));
+        assertEntryEquals(entry3, entries.get(2));
+
+        // The index is not used anymore when the file changes
+        Files.writeString(this.xarFile.toPath(), "other content", StandardCharsets.UTF_8);
+
+        assertNull(this.index.get(this.xarFile));
+    }
+
+    @Test
+    void retain()
+    {
+        File otherXarFile = new File(this.tmpDir, "other.xar");
+
+        Collection<XarEntry> entries = Arrays.asList(new XarEntry(new LocalDocumentReference("Space", "Page")));
+        this.index.set(this.xarFile, entries);
+        this.index.set(otherXarFile, entries);
+
+        this.index.retain(Arrays.asList(otherXarFile));
+
+        assertNull(this.index.get(this.xarFile));
+        assertEquals(1, this.index.get(otherXarFile).size());
+    }
+}
@@ -24,6 +24,7 @@
 import org.xwiki.properties.annotation.PropertyDescription;
 import org.xwiki.properties.annotation.PropertyName;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * @version $Id$
@@ -56,6 +57,11 @@ public class DocumentInstanceOutputProperties extends EntityInstanceOutputProper
      */
     private boolean stoppedWhenSaveFail = true;
 
+    /**
+     * @see #getSaveThreads()
+     */
+    private int saveThreads = 1;
+
     /**
      * @return The base reference to use to resolve reference from events
      */
@@ -151,4 +157,31 @@ public void setStoppedWhenSaveFail(boolean stoppedWhenSaveFail)
     {
         this.stoppedWhenSaveFail = stoppedWhenSaveFail;
     }
+
+    /**
+     * @return the number of threads saving the documents in parallel, the documents are saved in the thread reading
+     *         the input when lower or equal to 1 or when the import is part of a bigger operation (a fold event, like
+     *         an extension install) which listeners need to see in the thread doing the save
+     * @since 16.8.0RC1
+     */
+    @PropertyName("Save threads")
+    @PropertyDescription("The number of threads saving the documents in parallel while the input is being read."
+        + " The documents are saved one by one in the reading thread when lower or equal to 1 or when the import is"
+        + " part of a bigger operation (like an extension install).")
+    @Unstable
+    public int getSaveThreads()
+    {
+        return this.saveThreads;
+    }
+
+    /**
+     * @param saveThreads the number of threads saving the documents in parallel, the documents are saved in the
+     *            thread reading the input when lower or equal to 1
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    public void setSaveThreads(int saveThreads)
+    {
+        this.saveThreads = saveThreads;
+    }
 }
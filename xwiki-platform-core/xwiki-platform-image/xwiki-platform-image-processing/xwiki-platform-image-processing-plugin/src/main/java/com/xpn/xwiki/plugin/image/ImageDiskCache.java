@@ -0,0 +1,292 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Store the transformed images on disk so that they survive restarts and don't use any heap. Concurrent requests for
+ * the same transformed image are de-duplicated: only the first one actually transforms the image, the others wait for
+ * it to finish.
+ * <p>
+ * The total size of the stored images is limited. When the limit is reached, the least recently used images are
+ * removed. An image returned by {@link #get(String, Generator)} is never removed during the following minute, to leave
+ * the caller the time to open it.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+class ImageDiskCache
+{
+    /**
+     * Write a transformed image.
+     *
+     * @version $Id$
+     */
+    @FunctionalInterface
+    interface Generator
+    {
+        /**
+         * @param output the stream where to write the transformed image
+         * @return {@code false} if no transformation is needed and the original image should be used instead
+         * @throws Exception when failing to transform the image
+         */
+        boolean generate(OutputStream output) throws Exception;
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageDiskCache.class);
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Once the limit is reached, remove the oldest images until the cache is back to this ratio of the limit, to avoid
+     * cleaning the cache each time a new image is stored.
+     */
+    private static final double CLEANUP_RATIO = 0.9;
+
+    /**
+     * The time during which an image that has just been returned cannot be removed.
+     */
+    private static final long PROTECTION_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final ConcurrentMap<String, CompletableFuture<File>> inProgress = new ConcurrentHashMap<>();
+
+    /**
+     * Make sure an image is not removed between the moment it's found and the moment it's marked as used.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param directory the directory where to store the images
+     * @param maxSize the maximum number of bytes to store
+     */
+    ImageDiskCache(File directory, long maxSize)
+    {
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        this.size.set(getFiles().stream().mapToLong(File::length).sum());
+    }
+
+    /**
+     * @param key the key of the transformed image
+     * @param generator called to transform the image if it's not already stored
+     * @return the file containing the transformed image, or {@code null} if the original image should be used instead
+     * @throws Exception when failing to transform the image
+     */
+    File get(String key, Generator generator) throws Exception
+    {
+        File file = getFile(key);
+        File result = getExisting(file);
+        if (result != null) {
+            return toResult(result);
+        }
+
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> current = this.inProgress.putIfAbsent(key, future);
+        if (current != null) {
+            // Another thread is already transforming the same image
+            try {
+                return toResult(current.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            // The file might have been stored between the first check and the registration of the future
+            if (getExisting(file) == null) {
+                store(file, generator);
+            }
+
+            future.complete(file);
+
+            return toResult(file);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            this.inProgress.remove(key, future);
+        }
+    }
+
+    /**
+     * @return the file if it exists, in which case it's marked as just used, {@code null} otherwise
+     */
+    private File getExisting(File file)
+    {
+        this.lock.readLock().lock();
+        try {
+            // Fails when the file does not exist (anymore)
+            return file.setLastModified(System.currentTimeMillis()) ? file : null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private File toResult(File file)
+    {
+        // An empty file indicates that the original image is used as is
+        return file.length() > 0 ? file : null;
+    }
+
+    private void store(File file, Generator generator) throws Exception
+    {
+        Files.createDirectories(file.getParentFile().toPath());
+
+        Path temporary = Files.createTempFile(file.getParentFile().toPath(), file.getName(), TEMPORARY_SUFFIX);
+        try {
+            boolean transformed;
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                transformed = generator.generate(output);
+            }
+            if (!transformed) {
+                Files.write(temporary, new byte[0]);
+            }
+
+            // The file may be replaced if it was stored by another process in the meantime (0 if it does not exist)
+            long replacedLength = file.length();
+
+            // Make sure other threads and processes never see a partially written image
+            Files.move(temporary, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            if (this.size.addAndGet(file.length() - replacedLength) > this.maxSize) {
+                cleanup();
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private synchronized void cleanup()
+    {
+        if (this.size.get() <= this.maxSize) {
+            // Another thread already did the cleanup
+            return;
+        }
+
+        List<File> files = getFiles();
+        // Sort on a snapshot of the dates since they are modified when the images are used
+        List<Pair<File, Long>> dates = new ArrayList<>(files.size());
+        files.forEach(file -> dates.add(new ImmutablePair<>(file, file.lastModified())));
+        dates.sort(Comparator.comparing(Pair::getRight));
+
+        long target = (long) (this.maxSize * CLEANUP_RATIO);
+        long protectedSince = System.currentTimeMillis() - PROTECTION_DELAY;
+        for (Pair<File, Long> date : dates) {
+            if (this.size.get() <= target || date.getRight() >= protectedSince) {
+                // Either enough space was freed or the remaining images are too recent to be removed
+                break;
+            }
+
+            delete(date.getLeft(), protectedSince);
+        }
+    }
+
+    /**
+     * Remove all the stored images.
+     */
+    synchronized void clear()
+    {
+        for (File file : getFiles()) {
+            delete(file, Long.MAX_VALUE);
+        }
+    }
+
+    private void delete(File file, long protectedSince)
+    {
+        this.lock.writeLock().lock();
+        try {
+            // The image might have been used since the files were listed
+            if (file.lastModified() < protectedSince) {
+                long length = file.length();
+                if (file.delete()) {
+                    this.size.addAndGet(-length);
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private List<File> getFiles()
+    {
+        List<File> files = new ArrayList<>();
+
+        if (this.directory.exists()) {
+            try (Stream<Path> paths = Files.walk(this.directory.toPath())) {
+                paths.filter(Files::isRegularFile).filter(path -> !path.toString().endsWith(TEMPORARY_SUFFIX))
+                    .forEach(path -> files.add(path.toFile()));
+            } catch (IOException | UncheckedIOException e) {
+                // Files can be removed while the directory is walked
+                LOGGER.warn("Failed to list the images stored in [{}]", this.directory, e);
+            }
+        }
+
+        return files;
+    }
+
+    private File getFile(String key)
+    {
+        String hash = DigestUtils.sha256Hex(key);
+
+        // Spread the files in sub directories to avoid very big directories
+        return new File(new File(this.directory, hash.substring(0, 2)), hash);
+    }
+
+    /**
+     * @return the number of bytes currently stored
+     */
+    long getSize()
+    {
+        return this.size.get();
+    }
+}
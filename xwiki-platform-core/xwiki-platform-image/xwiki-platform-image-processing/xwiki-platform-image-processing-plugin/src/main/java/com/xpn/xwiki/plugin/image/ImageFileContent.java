@@ -0,0 +1,108 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.AutoCloseInputStream;
+import org.xwiki.store.UnexpectedException;
+
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+/**
+ * The content of a transformed image stored by the {@link ImageDiskCache}. The content is read from the file each time
+ * it's needed and never loaded in memory.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+class ImageFileContent extends XWikiAttachmentContent
+{
+    private final File file;
+
+    /**
+     * @param file the file containing the transformed image
+     * @param attachment the attachment to associate this content with
+     */
+    ImageFileContent(File file, XWikiAttachment attachment)
+    {
+        super(attachment);
+
+        this.file = file;
+    }
+
+    private ImageFileContent(ImageFileContent content)
+    {
+        super(content);
+
+        this.file = content.file;
+    }
+
+    @Override
+    public ImageFileContent clone()
+    {
+        return new ImageFileContent(this);
+    }
+
+    @Override
+    public boolean exists()
+    {
+        return this.file.exists();
+    }
+
+    @Override
+    @Deprecated
+    public byte[] getContent()
+    {
+        try {
+            return FileUtils.readFileToByteArray(this.file);
+        } catch (IOException e) {
+            throw new UnexpectedException("Failed to read the image", e);
+        }
+    }
+
+    @Override
+    public InputStream getContentInputStream()
+    {
+        try {
+            return new AutoCloseInputStream(new FileInputStream(this.file));
+        } catch (IOException e) {
+            throw new UnexpectedException("Failed to get InputStream", e);
+        }
+    }
+
+    @Override
+    public long copyContent(long offset, long length, OutputStream output) throws IOException
+    {
+        return copyContent(this.file, offset, length, output);
+    }
+
+    @Override
+    public long getLongSize()
+    {
+        return this.file.length();
+    }
+}
@@ -21,12 +21,15 @@
 
 import java.awt.Image;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.cache.Cache;
@@ -35,6 +38,8 @@
 import org.xwiki.cache.config.CacheConfiguration;
 import org.xwiki.cache.eviction.EntryEvictionConfiguration;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.environment.Environment;
+import org.xwiki.observation.ObservationManager;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -73,6 +78,29 @@ public class ImagePlugin extends XWikiDefaultPlugin
      */
     private int capacity = 50;
 
+    /**
+     * Persistent cache for already served images, used instead of {@link #imageCache} when enabled. It can be
+     * disabled using the key {@code xwiki.plugin.image.cache.disk}.
+     */
+    private ImageDiskCache diskCache;
+
+    /**
+     * The maximum size of the disk cache, in megabytes. This parameter can be configured using the key
+     * {@code xwiki.plugin.image.cache.disk.maxSize}.
+     */
+    private long diskCacheMaxSize = 1024;
+
+    /**
+     * Generate in the background the images for the default sizes of the image styles, when enabled.
+     */
+    private ImageStylePregenerator pregenerator;
+
+    /**
+     * Indicate if the images for the default sizes of the image styles should be generated in the background. This
+     * parameter can be configured using the key {@code xwiki.plugin.image.cache.disk.pregenerate}.
+     */
+    private boolean pregenerate;
+
     /**
      * Default JPEG image quality.
      */
@@ -115,6 +143,7 @@ public void init(XWikiContext context)
     {
         super.init(context);
 
+        initDiskCache(context);
         initCache(context);
 
         String imageProcessorHint = context.getWiki().Param("xwiki.plugin.image.processorHint", "thumbnailator");
@@ -132,13 +161,14 @@ public void init(XWikiContext context)
     }
 
     /**
-     * Tries to initialize the image cache. If the initialization fails the image cache remains {@code null}.
+     * Tries to initialize the in-memory image cache, unless the disk cache is used. If the initialization fails the
+     * image cache remains {@code null}.
      *
      * @param context the XWiki context
      */
     private void initCache(XWikiContext context)
     {
-        if (this.imageCache == null) {
+        if (this.imageCache == null && this.diskCache == null) {
             CacheConfiguration configuration = new CacheConfiguration();
 
             configuration.setConfigurationId("xwiki.plugin.image");
@@ -167,6 +197,51 @@ private void initCache(XWikiContext context)
         }
     }
 
+    /**
+     * Tries to initialize the disk cache. If the initialization fails the disk cache remains {@code null} and the
+     * in-memory image cache is used instead.
+     *
+     * @param context the XWiki context
+     */
+    private void initDiskCache(XWikiContext context)
+    {
+        if (this.diskCache == null && "1".equals(context.getWiki().Param("xwiki.plugin.image.cache.disk", "1"))) {
+            String maxSizeParam = context.getWiki().Param("xwiki.plugin.image.cache.disk.maxSize");
+            if (!StringUtils.isBlank(maxSizeParam)) {
+                try {
+                    this.diskCacheMaxSize = Long.parseLong(maxSizeParam.trim());
+                } catch (NumberFormatException e) {
+                    LOG.warn("Failed to parse xwiki.plugin.image.cache.disk.maxSize configuration parameter. "
+                        + "Using {} as the disk cache maximum size.", this.diskCacheMaxSize);
+                }
+            }
+
+            try {
+                File directory =
+                    new File(Utils.getComponent(Environment.class).getPermanentDirectory(), "cache/image");
+                this.diskCache = new ImageDiskCache(directory, this.diskCacheMaxSize * 1024 * 1024);
+            } catch (Exception e) {
+                LOG.error("Error initializing the image disk cache.", e);
+            }
+
+            this.pregenerate = "1".equals(context.getWiki().Param("xwiki.plugin.image.cache.disk.pregenerate", "0"));
+        }
+
+        initPregenerator();
+    }
+
+    /**
+     * Starts generating in the background the images for the default sizes of the image styles, if enabled and not
+     * already started.
+     */
+    private void initPregenerator()
+    {
+        if (this.pregenerate && this.diskCache != null && this.pregenerator == null) {
+            this.pregenerator = new ImageStylePregenerator(this);
+            Utils.getComponent(ObservationManager.class).addListener(this.pregenerator);
+        }
+    }
+
     @Override
     public void flushCache()
     {
@@ -174,6 +249,17 @@ public void flushCache()
             this.imageCache.dispose();
         }
         this.imageCache = null;
+
+        if (this.pregenerator != null) {
+            Utils.getComponent(ObservationManager.class).removeListener(this.pregenerator.getName());
+            this.pregenerator.dispose();
+        }
+        this.pregenerator = null;
+
+        // Keep using the disk cache, only remove what it contains
+        if (this.diskCache != null) {
+            this.diskCache.clear();
+        }
     }
 
     private int parseIntIgnoringException(String parameter)
@@ -246,12 +332,18 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
         XWikiContext context) throws Exception
     {
         initCache(context);
+        initPregenerator();
 
         boolean keepAspectRatio = Boolean.valueOf(context.getRequest().getParameter("keepAspectRatio"));
 
-        XWikiAttachment thumbnail = (this.imageCache == null)
-            ? shrinkImage(image, width, height, keepAspectRatio, quality, context)
-            : downloadImageFromCache(image, width, height, keepAspectRatio, quality, context);
+        XWikiAttachment thumbnail;
+        if (this.diskCache != null) {
+            thumbnail = downloadImageFromDiskCache(image, width, height, keepAspectRatio, quality, context);
+        } else if (this.imageCache != null) {
+            thumbnail = downloadImageFromCache(image, width, height, keepAspectRatio, quality, context);
+        } else {
+            thumbnail = shrinkImage(image, width, height, keepAspectRatio, quality, context);
+        }
 
         // If the image has been transformed, update the file name extension to match the image format.
         String fileName = thumbnail.getFilename();
@@ -281,8 +373,7 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
     private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width, int height,
         boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
     {
-        String key = String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
-            width, height, keepAspectRatio, quality);
+        String key = getCacheKey(image, width, height, keepAspectRatio, quality);
 
         XWikiAttachment thumbnail = this.imageCache.get(key);
         if (thumbnail == null) {
@@ -292,6 +383,81 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
         return thumbnail;
     }
 
+    /**
+     * Downloads the given image from the disk cache, transforming and storing it first if needed.
+     *
+     * @param image the image to be downloaded
+     * @param width the desired image width; this value is taken into account only if it is greater than zero and
+     *     less than the current image width
+     * @param height the desired image height; this value is taken into account only if it is greater than zero and
+     *     less than the current image height
+     * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false}
+     *     otherwise
+     * @param quality the desired compression quality
+     * @param context the XWiki context
+     * @return the transformed image
+     * @throws Exception if transforming the image fails
+     */
+    private XWikiAttachment downloadImageFromDiskCache(XWikiAttachment image, int width, int height,
+        boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
+    {
+        File file = generateImage(image, width, height, keepAspectRatio, quality, context);
+        if (file == null) {
+            return image;
+        }
+
+        XWikiAttachment thumbnail = image.clone();
+        thumbnail.setAttachment_content(new ImageFileContent(file, thumbnail));
+        thumbnail.setLongSize(file.length());
+
+        return thumbnail;
+    }
+
+    /**
+     * Make sure the transformed image is stored in the disk cache.
+     *
+     * @param image the image to transform
+     * @param width the desired image width
+     * @param height the desired image height
+     * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false}
+     *     otherwise
+     * @param quality the desired compression quality
+     * @param context the XWiki context
+     * @return the file containing the transformed image or {@code null} if the original image should be used
+     * @throws Exception if transforming the image fails
+     */
+    File generateImage(XWikiAttachment image, int width, int height, boolean keepAspectRatio, float quality,
+        XWikiContext context) throws Exception
+    {
+        String key = getCacheKey(image, width, height, keepAspectRatio, quality);
+
+        return this.diskCache.get(key, output -> {
+            Pair<RenderedImage, Float> scaled = scaleImage(image, width, height, keepAspectRatio, quality, context);
+            if (scaled == null) {
+                return false;
+            }
+
+            this.imageProcessor.writeImage(scaled.getLeft(), image.getMimeType(context), scaled.getRight(), output);
+
+            return true;
+        });
+    }
+
+    private String getCacheKey(XWikiAttachment image, int width, int height, boolean keepAspectRatio, float quality)
+    {
+        return String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
+            width, height, keepAspectRatio, quality);
+    }
+
+    /**
+     * @param mimeType the mime type of an attachment
+     * @return {@code true} if the image can be transformed by this plugin
+     */
+    boolean isMimeTypeSupported(String mimeType)
+    {
+        return this.imageProcessor.isMimeTypeSupported(mimeType);
+    }
+
     /**
      * Reduces the size (i.e. the number of bytes) of an image by scaling its width and height and by reducing its
      * compression quality. This helps decreasing the time needed to download the image attachment.
@@ -311,6 +477,46 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
      */
     private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
         boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
+    {
+        Pair<RenderedImage, Float> scaled =
+            scaleImage(attachment, requestedWidth, requestedHeight, keepAspectRatio, requestedQuality, context);
+        if (scaled == null) {
+            return attachment;
+        }
+
+        // Create an image attachment for the shrunk image.
+        XWikiAttachment thumbnail = attachment.clone();
+        thumbnail.loadAttachmentContent(context);
+
+        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
+        this.imageProcessor.writeImage(scaled.getLeft(),
+            attachment.getMimeType(context),
+            scaled.getRight(),
+            acos);
+
+        IOUtils.closeQuietly(acos);
+
+        return thumbnail;
+    }
+
+    /**
+     * Scales the width and height of an image.
+     *
+     * @param attachment the image to be scaled
+     * @param requestedWidth the desired image width; this value is taken into account only if it is greater than
+     *     zero and less than the current image width
+     * @param requestedHeight the desired image height; this value is taken into account only if it is greater than
+     *     zero and less than the current image height
+     * @param keepAspectRatio {@code true} to preserve the image aspect ratio even when both requested dimensions
+     *     are properly specified, {@code false} otherwise
+     * @param requestedQuality the desired compression quality
+     * @param context the XWiki context
+     * @return the scaled image and the compression quality to use when writing it, or {@code null} if the original
+     *     image should be used as is
+     * @throws Exception if scaling the image fails
+     */
+    private Pair<RenderedImage, Float> scaleImage(XWikiAttachment attachment, int requestedWidth,
+        int requestedHeight, boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
     {
         Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
 
@@ -324,7 +530,7 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         if (quality < 0) {
             // If no scaling is needed and the quality parameter is not specified, return the original image.
             if (dimensions[0] == currentWidth && dimensions[1] == currentHeight) {
-                return attachment;
+                return null;
             }
             quality = this.defaultQuality;
         }
@@ -332,19 +538,7 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         // Scale the image to the new dimensions.
         RenderedImage shrunkImage = this.imageProcessor.scaleImage(image, dimensions[0], dimensions[1]);
 
-        // Create an image attachment for the shrunk image.
-        XWikiAttachment thumbnail = attachment.clone();
-        thumbnail.loadAttachmentContent(context);
-
-        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
-        this.imageProcessor.writeImage(shrunkImage,
-            attachment.getMimeType(context),
-            quality,
-            acos);
-
-        IOUtils.closeQuietly(acos);
-
-        return thumbnail;
+        return new ImmutablePair<>(shrunkImage, quality);
     }
 
     /**
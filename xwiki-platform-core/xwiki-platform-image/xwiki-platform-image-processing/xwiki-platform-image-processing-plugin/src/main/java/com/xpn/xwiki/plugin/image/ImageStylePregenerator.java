@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.image.style.ImageStyleManager;
+import org.xwiki.image.style.model.ImageStyle;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+import com.xpn.xwiki.util.AbstractXWikiRunnable;
+import com.xpn.xwiki.web.Utils;
+
+/**
+ * Generate in the background, and store in the disk cache, the images corresponding to the default sizes of the image
+ * styles of the wiki when an image is uploaded, so that the first view of a page displaying it does not have to wait
+ * for the transformation.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+class ImageStylePregenerator implements EventListener
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageStylePregenerator.class);
+
+    private static final List<Event> EVENTS = Arrays.asList(new AttachmentAddedEvent(), new AttachmentUpdatedEvent());
+
+    private final ImagePlugin plugin;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+        new BasicThreadFactory.Builder().namingPattern("XWiki image pregeneration thread").daemon(true)
+            .priority(Thread.MIN_PRIORITY).build());
+
+    /**
+     * @param plugin the plugin in charge of transforming the images
+     */
+    ImageStylePregenerator(ImagePlugin plugin)
+    {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public String getName()
+    {
+        return ImageStylePregenerator.class.getName();
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return EVENTS;
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument document = (XWikiDocument) source;
+        XWikiContext xcontext = (XWikiContext) data;
+
+        XWikiAttachment attachment = document.getAttachment(((AbstractAttachmentEvent) event).getName());
+        if (attachment == null || !this.plugin.isMimeTypeSupported(attachment.getMimeType(xcontext))) {
+            return;
+        }
+
+        String wiki = document.getDocumentReference().getWikiReference().getName();
+        Set<Pair<Integer, Integer>> sizes = getSizes(wiki);
+        if (!sizes.isEmpty()) {
+            // Don't share the attachment of the document with the background thread
+            XWikiAttachment image = attachment.clone();
+            this.executor.execute(new AbstractXWikiRunnable()
+            {
+                @Override
+                protected void runInternal()
+                {
+                    generate(image, sizes, wiki);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop generating the images. The images waiting to be generated are discarded.
+     */
+    void dispose()
+    {
+        this.executor.shutdownNow();
+    }
+
+    private Set<Pair<Integer, Integer>> getSizes(String wiki)
+    {
+        Set<Pair<Integer, Integer>> sizes = new LinkedHashSet<>();
+
+        if (Utils.getComponentManager().hasComponent(ImageStyleManager.class)) {
+            try {
+                for (ImageStyle style : Utils.getComponent(ImageStyleManager.class).getImageStyles(wiki)) {
+                    int width = toDimension(style.getDefaultWidth());
+                    int height = toDimension(style.getDefaultHeight());
+                    if (width > 0 || height > 0) {
+                        sizes.add(new ImmutablePair<>(width, height));
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Failed to get the image styles of wiki [{}]", wiki, e);
+            }
+        }
+
+        return sizes;
+    }
+
+    private int toDimension(Long value)
+    {
+        // Use the same value as the one used when the dimension is missing from the request
+        return value != null && value > 0 && value <= Integer.MAX_VALUE ? value.intValue() : -1;
+    }
+
+    private void generate(XWikiAttachment image, Set<Pair<Integer, Integer>> sizes, String wiki)
+    {
+        Provider<XWikiContext> contextProvider = Utils.getComponent(XWikiContext.TYPE_PROVIDER);
+        XWikiContext xcontext = contextProvider.get();
+        xcontext.setWikiId(wiki);
+
+        for (Pair<Integer, Integer> size : sizes) {
+            try {
+                // Use the same parameters as a request only indicating the width and the height
+                this.plugin.generateImage(image, size.getLeft(), size.getRight(), false, -1, xcontext);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to generate the image [{}] for the size [{}]", image.getReference(), size, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link ImageDiskCache}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+class ImageDiskCacheTest
+{
+    @XWikiTempDir
+    private File tmpDir;
+
+    @Test
+    void get() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 1000);
+
+        File file = cache.get("key", output -> {
+            output.write(new byte[] { 1, 2, 3 });
+            return true;
+        });
+
+        assertArrayEquals(new byte[] { 1, 2, 3 }, FileUtils.readFileToByteArray(file));
+        assertEquals(3, cache.getSize());
+
+        // The image is not generated again
+        assertEquals(file, cache.get("key", output -> {
+            throw new Exception("Should not be called");
+        }));
+
+        // The stored images are found again after a restart
+        assertEquals(3, new ImageDiskCache(this.tmpDir, 1000).getSize());
+    }
+
+    @Test
+    void getWhenOriginalImage() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 1000);
+
+        assertNull(cache.get("key", output -> false));
+        assertNull(cache.get("key", output -> {
+            throw new Exception("Should not be called");
+        }));
+    }
+
+    @Test
+    void getWhenGenerationFails() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 1000);
+
+        Exception exception = new Exception("failed");
+        assertSame(exception, assertThrows(Exception.class, () -> cache.get("key", output -> {
+            throw exception;
+        })));
+
+        // Nothing is stored so the next call tries again
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get("key", output -> false));
+    }
+
+    @Test
+    void getConcurrently() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 1000);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger generations = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<File> first = executor.submit(() -> cache.get("key", output -> {
+                generations.incrementAndGet();
+                started.countDown();
+                release.await();
+                output.write(1);
+                return true;
+            }));
+            started.await();
+            Future<File> second = executor.submit(() -> cache.get("key", output -> {
+                generations.incrementAndGet();
+                output.write(2);
+                return true;
+            }));
+
+            release.countDown();
+
+            assertEquals(first.get(), second.get());
+            assertEquals(1, generations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cleanup() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 10);
+
+        File first = cache.get("first", output -> {
+            output.write(new byte[6]);
+            return true;
+        });
+        // Make sure the first file is the oldest one
+        assertTrue(first.setLastModified(0));
+        File second = cache.get("second", output -> {
+            output.write(new byte[6]);
+            return true;
+        });
+
+        assertFalse(first.exists());
+        assertTrue(second.exists());
+        assertEquals(6, cache.getSize());
+    }
+
+    @Test
+    void cleanupKeepsRecentlyUsedImages() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 10);
+
+        File first = cache.get("first", output -> {
+            output.write(new byte[6]);
+            return true;
+        });
+        assertTrue(first.setLastModified(0));
+        // The image is used again so it's not the oldest one anymore
+        assertEquals(first, cache.get("first", output -> {
+            throw new Exception("Should not be called");
+        }));
+        File second = cache.get("second", output -> {
+            output.write(new byte[6]);
+            return true;
+        });
+
+        // The images were just returned so the callers might not have opened them yet
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+        assertEquals(12, cache.getSize());
+    }
+
+    @Test
+    void getWhenRemovedByAnotherProcess() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 1000);
+
+        File file = cache.get("key", output -> {
+            output.write(new byte[] { 1, 2, 3 });
+            return true;
+        });
+        assertTrue(file.delete());
+
+        // The image is generated again instead of being considered as not transformed
+        assertEquals(file, cache.get("key", output -> {
+            output.write(new byte[] { 4, 5 });
+            return true;
+        }));
+        assertArrayEquals(new byte[] { 4, 5 }, FileUtils.readFileToByteArray(file));
+    }
+
+    @Test
+    void clear() throws Exception
+    {
+        ImageDiskCache cache = new ImageDiskCache(this.tmpDir, 1000);
+
+        File file = cache.get("key", output -> {
+            output.write(new byte[] { 1, 2, 3 });
+            return true;
+        });
+
+        cache.clear();
+
+        assertFalse(file.exists());
+        assertEquals(0, cache.getSize());
+
+        // The cache can still be used
+        assertEquals(file, cache.get("key", output -> {
+            output.write(new byte[] { 4, 5 });
+            return true;
+        }));
+        assertEquals(2, cache.getSize());
+    }
+}
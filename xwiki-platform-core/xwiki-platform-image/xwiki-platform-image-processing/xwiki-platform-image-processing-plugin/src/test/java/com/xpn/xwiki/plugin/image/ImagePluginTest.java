@@ -22,18 +22,24 @@
 import java.awt.Image;
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Date;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheManager;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
@@ -44,11 +50,16 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 import com.xpn.xwiki.web.XWikiServletRequest;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -114,6 +125,7 @@ void configure() throws Exception
     {
         XWiki xwiki = this.oldCore.getSpyXWiki();
         doReturn("10").when(xwiki).Param("xwiki.plugin.image.cache.capacity");
+        doReturn("0").when(xwiki).Param("xwiki.plugin.image.cache.disk", "1");
         doReturn("test").when(xwiki).Param(eq("xwiki.plugin.image.processorHint"),
             ArgumentMatchers.anyString());
 
@@ -188,6 +200,84 @@ void cacheOfScaledAttachment() throws Exception
         verify(imageCache, times(1)).set(cacheKey, attachment);
     }
 
+    @Test
+    void diskCacheOfScaledAttachment() throws Exception
+    {
+        // Start from an empty disk cache
+        FileUtils.deleteDirectory(new File(this.oldCore.getPermanentDirectory(), "cache/image"));
+        doReturn("1").when(this.oldCore.getSpyXWiki()).Param("xwiki.plugin.image.cache.disk", "1");
+        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
+        clearInvocations(cacheManager);
+        this.plugin = new ImagePlugin("image", ImagePlugin.class.getName(), this.oldCore.getXWikiContext());
+
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getMimeType(xcontext)).thenReturn("image/png");
+        InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
+        when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
+        when(attachment.getDate()).thenReturn(new Date(0));
+        when(attachment.getFilename()).thenReturn("image.png");
+        XWikiAttachment thumbnail = mock(XWikiAttachment.class);
+        when(thumbnail.getFilename()).thenReturn("image.png");
+        when(attachment.clone()).thenReturn(thumbnail);
+
+        XWikiServletRequest request = mock(XWikiServletRequest.class);
+        when(request.getParameter("width")).thenReturn("30");
+        xcontext.setRequest(request);
+
+        Image image = mock(Image.class);
+        when(image.getWidth(null)).thenReturn(400);
+        when(image.getHeight(null)).thenReturn(300);
+        when(this.imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
+        RenderedImage renderedImage = mock(RenderedImage.class);
+        when(this.imageProcessor.scaleImage(image, 30, 22)).thenReturn(renderedImage);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(new byte[] { 1, 2, 3 });
+            return null;
+        }).when(this.imageProcessor).writeImage(eq(renderedImage), eq("image/png"), eq(.5F), any());
+
+        assertSame(thumbnail, this.plugin.downloadAttachment(attachment, xcontext));
+        // Load again, this time from the disk cache.
+        assertSame(thumbnail, this.plugin.downloadAttachment(attachment, xcontext));
+
+        verify(this.imageProcessor, times(1)).writeImage(eq(renderedImage), eq("image/png"), eq(.5F), any());
+        ArgumentCaptor<XWikiAttachmentContent> contentCaptor = ArgumentCaptor.forClass(XWikiAttachmentContent.class);
+        verify(thumbnail, times(2)).setAttachment_content(contentCaptor.capture());
+        assertArrayEquals(new byte[] { 1, 2, 3 },
+            IOUtils.toByteArray(contentCaptor.getValue().getContentInputStream()));
+        verify(thumbnail, times(2)).setLongSize(3);
+
+        // The in-memory cache is not needed when the disk cache is used
+        verify(cacheManager, never()).createNewLocalCache(any());
+    }
+
+    @Test
+    void flushCache() throws Exception
+    {
+        // Simulate an image stored before a restart
+        File directory = new File(this.oldCore.getPermanentDirectory(), "cache/image");
+        FileUtils.deleteDirectory(directory);
+        File image = new File(directory, "ab/abcdef");
+        FileUtils.writeByteArrayToFile(image, new byte[] { 1, 2, 3 });
+
+        ObservationManager observationManager =
+            this.oldCore.getMocker().registerMockComponent(ObservationManager.class);
+        XWiki xwiki = this.oldCore.getSpyXWiki();
+        doReturn("1").when(xwiki).Param("xwiki.plugin.image.cache.disk", "1");
+        doReturn("1").when(xwiki).Param("xwiki.plugin.image.cache.disk.pregenerate", "0");
+        this.plugin = new ImagePlugin("image", ImagePlugin.class.getName(), this.oldCore.getXWikiContext());
+
+        ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+        verify(observationManager).addListener(listenerCaptor.capture());
+        assertTrue(image.exists());
+
+        this.plugin.flushCache(this.oldCore.getXWikiContext());
+
+        assertFalse(image.exists());
+        verify(observationManager).removeListener(listenerCaptor.getValue().getName());
+    }
+
     @ParameterizedTest
     @CsvSource({
         "100, 500, false, 60, 300",
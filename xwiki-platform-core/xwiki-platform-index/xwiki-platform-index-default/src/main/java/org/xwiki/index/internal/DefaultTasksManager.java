@@ -19,8 +19,11 @@
  */
 package org.xwiki.index.internal;
 
+import java.util.ArrayDeque;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -28,19 +31,25 @@
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.context.ExecutionContext;
 import org.xwiki.context.ExecutionContextException;
 import org.xwiki.context.ExecutionContextManager;
@@ -70,6 +79,13 @@ public class DefaultTasksManager implements TaskManager, Initializable, Disposab
 {
     private static final String MBEAN_NAME = "name=index";
 
+    /**
+     * The name of the property containing the number of threads executing the tasks.
+     */
+    private static final String PROPERTY_THREADS = "index.tasks.threads";
+
+    private static final int DEFAULT_THREADS = 1;
+
     private PriorityBlockingQueue<TaskData> queue;
 
     /**
@@ -96,9 +112,33 @@ public class DefaultTasksManager implements TaskManager, Initializable, Disposab
     @Inject
     private ExecutionContextManager executionContextManager;
 
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
     @Inject
     private Logger logger;
 
+    private final TasksStatistics statistics = new TasksStatistics();
+
+    /**
+     * The threads executing the tasks when more than one thread is configured, {@code null} if the tasks are executed
+     * by the consumer thread itself.
+     */
+    private ExecutorService workers;
+
+    /**
+     * The number of workers not executing any task. The consumer thread waits for a worker to be available before
+     * taking the next task from the queue so that the queue stays the source of truth regarding the order of the tasks.
+     */
+    private Semaphore availableWorkers;
+
+    /**
+     * The documents for which a task is currently executed, with the tasks of the same document waiting for it to
+     * finish. Two tasks for the same document are never executed at the same time.
+     */
+    private final Map<String, Deque<TaskData>> runningDocuments = new HashMap<>();
+
     /**
      * When {@code true}, indicates that the {@link #run()} method should stop.
      */
@@ -155,13 +195,41 @@ public CompletableFuture<TaskData> addTask(String wikiId, long docId, String ver
     @Override
     public void initialize()
     {
+        Integer configuredThreads = this.configuration.getProperty(PROPERTY_THREADS, DEFAULT_THREADS);
+        int threads = configuredThreads != null ? Math.max(configuredThreads, 1) : DEFAULT_THREADS;
+        if (threads > 1) {
+            this.workers = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+                .namingPattern("task-manager-worker-%d").daemon(true).priority(NORM_PRIORITY - 1).build());
+            this.availableWorkers = new Semaphore(threads);
+        }
+
         this.jmxRegistration.registerMBean(new JMXTasks(this::getQueueSize,
-                () -> this.queue.stream().collect(Collectors.groupingBy(TaskData::getType, Collectors.counting()))),
+                () -> this.queue.stream().collect(Collectors.groupingBy(TaskData::getType, Collectors.counting())),
+                this::getLag, threads, this.statistics),
             MBEAN_NAME);
         this.queue = new PriorityBlockingQueue<>(11, Comparator.comparingLong(TaskData::getTimestamp));
         this.latestTimestampTasksMap = new ConcurrentHashMap<>();
     }
 
+    /**
+     * @return the time (in milliseconds) since the oldest task in the queue was added, 0 if the queue is empty
+     */
+    private long getLag()
+    {
+        TaskData oldestTask = this.queue.peek();
+
+        return oldestTask != null && !oldestTask.isStop() ? System.currentTimeMillis() - oldestTask.getTimestamp() : 0;
+    }
+
+    /**
+     * @return the counters about the execution of the tasks
+     * @since 16.8.0RC1
+     */
+    public TasksStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
     @Override
     public void dispose()
     {
@@ -210,6 +278,10 @@ public void run()
             }
         } catch (InitializationException e) {
             this.logger.error("Failed to initialize the tasks consumer thread.", e);
+        } finally {
+            if (this.workers != null) {
+                this.workers.shutdown();
+            }
         }
     }
 
@@ -217,29 +289,91 @@ private void consume()
     {
         TaskData task = null;
         try {
+            if (this.workers != null) {
+                this.availableWorkers.acquire();
+            }
             task = this.queue.take();
-            task.increaseAttempts();
             if (task.isStop()) {
                 this.halt = true;
+            } else if (this.workers != null) {
+                dispatch(task);
             } else {
-                if (isTimestampValid(task)) {
-                    this.taskExecutor.execute(task);
-                    task.getFuture().complete(task);
-                } else {
-                    task.getFuture().cancel(false);
-                }
-                deleteTask(task);
+                process(task);
             }
         } catch (InterruptedException e) {
             this.logger.warn("The task manager consumer thread was interrupted while processing task [{}] for "
                 + "document [{}]. Cause: [{}].", task, getTaskDocumentReferenceForLogging(task),
                 getRootCauseMessage(e));
             Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(TaskData task)
+    {
+        String documentKey = task.getWikiId() + ':' + task.getDocId();
+
+        synchronized (this.runningDocuments) {
+            Deque<TaskData> waitingTasks = this.runningDocuments.get(documentKey);
+            if (waitingTasks != null) {
+                // A task is already running for this document, the worker executing it will take care of this one
+                waitingTasks.add(task);
+                this.availableWorkers.release();
+
+                return;
+            }
+
+            this.runningDocuments.put(documentKey, new ArrayDeque<>());
+        }
+
+        this.workers.execute(() -> work(documentKey, task));
+    }
+
+    private void work(String documentKey, TaskData firstTask)
+    {
+        try {
+            TaskData task = firstTask;
+            while (task != null) {
+                process(task);
+
+                synchronized (this.runningDocuments) {
+                    task = this.runningDocuments.get(documentKey).poll();
+                    if (task == null) {
+                        this.runningDocuments.remove(documentKey);
+                    }
+                }
+            }
+        } finally {
+            // Don't lose the waiting tasks and don't block the document if the processing failed unexpectedly (e.g.
+            // with an Error)
+            synchronized (this.runningDocuments) {
+                Deque<TaskData> waitingTasks = this.runningDocuments.remove(documentKey);
+                if (waitingTasks != null) {
+                    this.queue.addAll(waitingTasks);
+                }
+            }
+            this.availableWorkers.release();
+        }
+    }
+
+    private void process(TaskData task)
+    {
+        try {
+            task.increaseAttempts();
+            if (isTimestampValid(task)) {
+                long start = System.nanoTime();
+                this.taskExecutor.execute(task);
+                this.statistics.executed(System.nanoTime() - start);
+                task.getFuture().complete(task);
+            } else {
+                task.getFuture().cancel(false);
+            }
+            deleteTask(task);
         } catch (Exception e) {
+            this.statistics.failed();
             this.logger.warn("Error during the execution of task [{}] for document [{}]. Cause: [{}].", task,
                 getTaskDocumentReferenceForLogging(task), getRootCauseMessage(e));
             this.logger.debug("Stack trace for previous error: ", e);
-            if (task != null && isTimestampValid(task)) {
+            if (isTimestampValid(task)) {
                 if (!task.tooManyAttempts()) {
                     // Push back the failed task at the beginning of the queue by resetting its timestamp.
                     long newTimestamp = System.currentTimeMillis();
@@ -251,10 +385,10 @@ private void consume()
                     deleteTask(task);
                     task.getFuture().cancel(false);
                 }
-            } else if (task != null) {
+            } else {
                 task.getFuture().cancel(false);
             }
-        } 
+        }
     }
 
     private void initQueue() throws InitializationException
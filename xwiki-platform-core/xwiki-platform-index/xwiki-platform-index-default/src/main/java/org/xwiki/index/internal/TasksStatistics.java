@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters about the execution of the tasks, mostly useful to monitor the throughput of the tasks consumers.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class TasksStatistics
+{
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder executionTime = new LongAdder();
+
+    /**
+     * A task was successfully executed.
+     *
+     * @param nanos the time it took to execute the task, in nanoseconds
+     */
+    public void executed(long nanos)
+    {
+        this.executed.increment();
+        this.executionTime.add(nanos);
+    }
+
+    /**
+     * The execution of a task failed.
+     */
+    public void failed()
+    {
+        this.failed.increment();
+    }
+
+    /**
+     * @return the number of tasks successfully executed
+     */
+    public long getExecuted()
+    {
+        return this.executed.sum();
+    }
+
+    /**
+     * @return the number of task executions which failed
+     */
+    public long getFailed()
+    {
+        return this.failed.sum();
+    }
+
+    /**
+     * @return the average time it took to execute a task, in milliseconds
+     */
+    public long getAverageExecutionTime()
+    {
+        long count = getExecuted();
+
+        return count > 0 ? this.executionTime.sum() / count / 1000000 : 0;
+    }
+}
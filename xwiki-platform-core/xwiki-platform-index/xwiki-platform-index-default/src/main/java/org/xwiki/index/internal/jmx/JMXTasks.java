@@ -23,6 +23,8 @@
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+import org.xwiki.index.internal.TasksStatistics;
+
 /**
  * Implementation of the JMXTasks MBean.
  *
@@ -35,16 +37,30 @@ public class JMXTasks implements JMXTasksMBean
 
     private final Supplier<Map<String, Long>> queueSizePerType;
 
+    private final LongSupplier lag;
+
+    private final int threads;
+
+    private final TasksStatistics statistics;
+
     /**
      * Default constructor, let the method initializing the MBean provide the suppliers for the MBean operations.
      *
      * @param queueSize the queue size supplier
      * @param queueSizePerType the queue size per type supplier
+     * @param lag the supplier of the age of the oldest task in the queue
+     * @param threads the number of threads executing the tasks
+     * @param statistics the counters about the execution of the tasks
+     * @since 16.8.0RC1
      */
-    public JMXTasks(LongSupplier queueSize, Supplier<Map<String, Long>> queueSizePerType)
+    public JMXTasks(LongSupplier queueSize, Supplier<Map<String, Long>> queueSizePerType, LongSupplier lag,
+        int threads, TasksStatistics statistics)
     {
         this.queueSize = queueSize;
         this.queueSizePerType = queueSizePerType;
+        this.lag = lag;
+        this.threads = threads;
+        this.statistics = statistics;
     }
 
     @Override
@@ -58,4 +74,34 @@ public Map<String, Long> getQueueSizePerType()
     {
         return this.queueSizePerType.get();
     }
+
+    @Override
+    public long getLag()
+    {
+        return this.lag.getAsLong();
+    }
+
+    @Override
+    public int getThreads()
+    {
+        return this.threads;
+    }
+
+    @Override
+    public long getExecutedTaskCount()
+    {
+        return this.statistics.getExecuted();
+    }
+
+    @Override
+    public long getFailedTaskCount()
+    {
+        return this.statistics.getFailed();
+    }
+
+    @Override
+    public long getAverageExecutionTime()
+    {
+        return this.statistics.getAverageExecutionTime();
+    }
 }
@@ -39,4 +39,34 @@
      * @return the total number of tasks in the queue, grouped per type of tasks
      */
     Map<String, Long> getQueueSizePerType();
+
+    /**
+     * @return the time (in milliseconds) since the oldest task in the queue was added, 0 if the queue is empty
+     * @since 16.8.0RC1
+     */
+    long getLag();
+
+    /**
+     * @return the number of threads executing the tasks
+     * @since 16.8.0RC1
+     */
+    int getThreads();
+
+    /**
+     * @return the number of tasks successfully executed since the server started
+     * @since 16.8.0RC1
+     */
+    long getExecutedTaskCount();
+
+    /**
+     * @return the number of task executions which failed since the server started
+     * @since 16.8.0RC1
+     */
+    long getFailedTaskCount();
+
+    /**
+     * @return the average time (in milliseconds) it took to execute a task
+     * @since 16.8.0RC1
+     */
+    long getAverageExecutionTime();
 }
@@ -24,14 +24,20 @@
 import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.inject.Named;
 import javax.inject.Provider;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.Mock;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.doc.tasks.XWikiDocumentIndexingTask;
 import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
@@ -51,8 +57,10 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.matchesPattern;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
@@ -98,6 +106,10 @@
     @MockComponent
     private TaskExecutor taskExecutor;
 
+    @MockComponent
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
     @Mock
     private TasksStore tasksStore;
 
@@ -283,6 +295,74 @@ void addTaskConcurrently() throws Exception
         verify(this.tasksStore).deleteTask("wikiA", 42, "1.2", "concurrent");
     }
 
+    @Test
+    void addTaskWithSeveralThreads() throws Exception
+    {
+        when(this.configuration.getProperty("index.tasks.threads", 1)).thenReturn(2);
+        this.tasksManager.initialize();
+        this.tasksManager.startThread();
+
+        CountDownLatch page43Executed = new CountDownLatch(1);
+        AtomicBoolean executedInParallel = new AtomicBoolean();
+        AtomicInteger page42Running = new AtomicInteger();
+        AtomicBoolean page42Concurrent = new AtomicBoolean();
+        doAnswer(invocation -> {
+            TaskData task = invocation.getArgument(0);
+            if (task.getDocId() == 42) {
+                if (page42Running.incrementAndGet() > 1) {
+                    page42Concurrent.set(true);
+                }
+                // The task of the other document can only be executed by the other worker
+                if (page43Executed.await(10, TimeUnit.SECONDS)) {
+                    executedInParallel.set(true);
+                }
+                page42Running.decrementAndGet();
+            } else {
+                page43Executed.countDown();
+            }
+            return null;
+        }).when(this.taskExecutor).execute(any());
+
+        CompletableFuture<TaskData> future1 = this.tasksManager.addTask("wikiId", 42, "1.3", "task1");
+        CompletableFuture<TaskData> future2 = this.tasksManager.addTask("wikiId", 42, "1.3", "task2");
+        CompletableFuture<TaskData> future3 = this.tasksManager.addTask("wikiId", 43, "1.3", "task3");
+
+        assertNotNull(future1.get());
+        assertNotNull(future2.get());
+        assertNotNull(future3.get());
+
+        assertTrue(executedInParallel.get());
+        assertFalse(page42Concurrent.get());
+        assertEquals(3, this.tasksManager.getStatistics().getExecuted());
+        assertEquals(0, this.tasksManager.getStatistics().getFailed());
+    }
+
+    @Test
+    void addTaskWithSeveralThreadsWhenWorkerFailsWithError() throws Exception
+    {
+        when(this.configuration.getProperty("index.tasks.threads", 1)).thenReturn(2);
+        this.tasksManager.initialize();
+        this.tasksManager.startThread();
+
+        doAnswer(invocation -> {
+            // Wait for the next task of the same document to be waiting for this worker
+            long timeout = System.currentTimeMillis() + 10000;
+            while (this.tasksManager.getQueueSize() > 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(1);
+            }
+            throw new OutOfMemoryError("Test");
+        }).doAnswer(invocation -> null).when(this.taskExecutor).execute(any());
+
+        this.tasksManager.addTask("wikiId", 42, "1.3", "task1");
+        CompletableFuture<TaskData> future2 = this.tasksManager.addTask("wikiId", 42, "1.3", "task2");
+
+        // The waiting task is executed even if the worker died
+        assertNotNull(future2.get(10, TimeUnit.SECONDS));
+        // The document is not blocked by the failed worker
+        assertNotNull(this.tasksManager.addTask("wikiId", 42, "1.3", "task3").get(10, TimeUnit.SECONDS));
+        verify(this.taskExecutor, times(3)).execute(any());
+    }
+
     @Test
     void getQueueSizePerType()
     {
@@ -53,6 +53,28 @@
     void set(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorThemeName,
         T object);
 
+    /**
+     * @param lessResourceReference reference of the code to compile
+     * @param skin reference of the skin
+     * @param colorTheme reference of the color theme
+     * @return the key under which the object corresponding to the passed references is cached in the current context
+     * @since 16.8.0RC1
+     */
+    String getCacheKey(LESSResourceReference lessResourceReference, SkinReference skin,
+        ColorThemeReference colorTheme);
+
+    /**
+     * Replace an object in the cache, only if the cache still contains an object for the passed key.
+     *
+     * @param cacheKey the key returned by {@link #getCacheKey(LESSResourceReference, SkinReference,
+     *            ColorThemeReference)}
+     * @param object the object to cache
+     * @return true if the object was replaced, false if there was nothing to replace (e.g. because the cache was
+     *         cleared in the meantime)
+     * @since 16.8.0RC1
+     */
+    boolean replace(String cacheKey, T object);
+
     /**
      * Clear the cache.
      */
@@ -56,4 +56,14 @@ public boolean isGenerateInlineSourceMaps()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "generateInlineSourceMaps", false);
     }
+
+    /**
+     * @return whether the compiled CSS should be stored in the permanent directory so that it can be served right
+     *         away after a restart
+     * @since 16.8.0RC1
+     */
+    public boolean isPersistentCacheEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "persistentCache", true);
+    }
 }
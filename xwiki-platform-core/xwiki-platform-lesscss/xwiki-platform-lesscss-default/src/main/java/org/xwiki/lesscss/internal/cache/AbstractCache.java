@@ -98,6 +98,25 @@ public void set(LESSResourceReference lessResourceReference, SkinReference skin,
         registerCacheKey(cachedFilesKeysMapPerLESSResource, cacheKey, lessResourceReference);
     }
 
+    @Override
+    public String getCacheKey(LESSResourceReference lessResourceReference, SkinReference skin,
+        ColorThemeReference colorTheme)
+    {
+        return cacheKeyFactory.getCacheKey(lessResourceReference, skin, colorTheme, isContextHandled);
+    }
+
+    @Override
+    public boolean replace(String cacheKey, T content)
+    {
+        if (cache.get(cacheKey) == null) {
+            return false;
+        }
+
+        cache.set(cacheKey, content);
+
+        return true;
+    }
+
     /**
      * Add the cache key in the specified map (cachedFilesKeysMapPerSkin or cachedFilesKeysMapPerColorTheme), to be
      * able to clear the cache when one skin or one color theme is modified.
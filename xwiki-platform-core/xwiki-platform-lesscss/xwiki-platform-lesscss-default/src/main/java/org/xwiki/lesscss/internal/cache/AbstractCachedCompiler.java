@@ -130,11 +130,21 @@ public T getResult(LESSResourceReference lessResourceReference, boolean includeS
                     }
                     return cloneResult(result);
                 }
+
+                // Check if a result was stored by a previous execution
+                result = getStoredResult(lessResourceReference, includeSkinStyle, useVelocity, skin, skinReference,
+                    colorThemeReference);
+                if (result != null) {
+                    cache.set(lessResourceReference, skinReference, colorThemeReference, result);
+                    return cloneResult(result);
+                }
             }
 
             // Either the result was in the cache or the force flag is set to true, we need to compile
             try {
                 result = compiler.compute(lessResourceReference, includeSkinStyle, useVelocity, true, skin);
+
+                storeResult(lessResourceReference, skinReference, colorThemeReference, result);
             } catch (LESSCompilerException e) {
                 logger.error("Error during the compilation of the resource [{}].", lessResourceReference, e);
                 // We must cache the result, even if the compilation have failed, to prevent re-compiling again and
@@ -149,6 +159,40 @@ public T getResult(LESSResourceReference lessResourceReference, boolean includeS
         return cloneResult(result);
     }
 
+    /**
+     * Get a result which survived a restart of the instance. Called when the result is not in the in-memory cache.
+     * Does nothing by default.
+     *
+     * @param lessResourceReference reference to the LESS content
+     * @param includeSkinStyle include the main LESS file of the skin
+     * @param useVelocity either or not the resource be parsed by Velocity before compiling it
+     * @param skin name of the skin used for the context
+     * @param skinReference reference of the skin used for the context
+     * @param colorThemeReference reference of the color theme used for the context
+     * @return the stored result or {@code null} if none is available
+     * @since 16.8.0RC1
+     */
+    protected T getStoredResult(LESSResourceReference lessResourceReference, boolean includeSkinStyle,
+        boolean useVelocity, String skin, SkinReference skinReference, ColorThemeReference colorThemeReference)
+    {
+        return null;
+    }
+
+    /**
+     * Store a successfully computed result so that it survives a restart of the instance. Does nothing by default.
+     *
+     * @param lessResourceReference reference to the LESS content
+     * @param skinReference reference of the skin used for the context
+     * @param colorThemeReference reference of the color theme used for the context
+     * @param result the result to store
+     * @since 16.8.0RC1
+     */
+    protected void storeResult(LESSResourceReference lessResourceReference, SkinReference skinReference,
+        ColorThemeReference colorThemeReference, T result)
+    {
+        // Nothing is stored by default
+    }
+
     /**
      * Returns a clone of the result to avoid returning the instance stored in the cache. Need to be implemented by
      * subclasses.
@@ -30,6 +30,9 @@
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
+import org.xwiki.lesscss.internal.skin.SkinReference;
+import org.xwiki.lesscss.resources.LESSResourceReference;
 
 /**
  * Default implementation for {@link org.xwiki.lesscss.internal.cache.LESSResourcesCache}.
@@ -49,6 +52,9 @@ public class DefaultLESSResourcesCache extends AbstractCache<String> implements
     @Inject
     private CacheManager cacheManager;
 
+    @Inject
+    private PersistentLESSResourcesCache persistentCache;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -61,4 +67,36 @@ public void initialize() throws InitializationException
                     String.format("Failed to initialize LESS skin files cache [%s].", LESS_FILES_CACHE_ID), e);
         }
     }
+
+    @Override
+    public void clear()
+    {
+        super.clear();
+
+        this.persistentCache.clear();
+    }
+
+    @Override
+    public void clearFromSkin(SkinReference skin)
+    {
+        super.clearFromSkin(skin);
+
+        this.persistentCache.clearFromSkin(skin);
+    }
+
+    @Override
+    public void clearFromColorTheme(ColorThemeReference colorTheme)
+    {
+        super.clearFromColorTheme(colorTheme);
+
+        this.persistentCache.clearFromColorTheme(colorTheme);
+    }
+
+    @Override
+    public void clearFromLESSResource(LESSResourceReference lessResourceReference)
+    {
+        super.clearFromLESSResource(lessResourceReference);
+
+        this.persistentCache.clearFromLESSResource(lessResourceReference);
+    }
 }
@@ -0,0 +1,236 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
+import org.xwiki.lesscss.internal.skin.SkinReference;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Store the compiled LESS resources in the permanent directory so that they survive a restart and can be shared
+ * between cluster nodes using the same permanent directory.
+ * <p>
+ * The files are named after a hash of everything the compilation depends on: the key of the in-memory cache (which
+ * contains the LESS resource, the skin, the color theme and the relevant parts of the context), the XWiki version (so
+ * that an upgrade of the skin templates is taken into account) and the compiler options. They are stored in a
+ * {@code <skin>/<color theme>/<LESS resource>/} hierarchy so that they can be removed when one of these elements is
+ * modified.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = PersistentLESSResourcesCache.class)
+@Singleton
+public class PersistentLESSResourcesCache
+{
+    private static final String CACHE_DIRECTORY = "cache/lesscss";
+
+    private static final String CSS_EXTENSION = ".css";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private LESSConfiguration lessConfiguration;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * @param lessResourceReference reference of the compiled code
+     * @param skin reference of the skin
+     * @param colorTheme reference of the color theme
+     * @param cacheKey the key of the in-memory cache
+     * @return the stored CSS or {@code null} if none could be found
+     */
+    public String get(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme,
+        String cacheKey)
+    {
+        Path file = getFile(lessResourceReference, skin, colorTheme, cacheKey);
+
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            this.logger.warn("Failed to read the compiled LESS resource [{}] from [{}]: {}", lessResourceReference,
+                file, ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+    }
+
+    /**
+     * @param lessResourceReference reference of the compiled code
+     * @param skin reference of the skin
+     * @param colorTheme reference of the color theme
+     * @param cacheKey the key of the in-memory cache
+     * @param css the compiled CSS to store
+     */
+    public void set(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme,
+        String cacheKey, String css)
+    {
+        Path file = getFile(lessResourceReference, skin, colorTheme, cacheKey);
+
+        try {
+            Files.createDirectories(file.getParent());
+
+            // Write the file atomically since it can be read by other threads (or cluster nodes) at the same time
+            Path temporaryFile = Files.createTempFile(file.getParent(), null, ".tmp");
+            try {
+                Files.writeString(temporaryFile, css, StandardCharsets.UTF_8);
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to store the compiled LESS resource [{}] in [{}]: {}", lessResourceReference,
+                file, ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * Remove all the stored resources.
+     */
+    public void clear()
+    {
+        delete(getRootDirectory());
+    }
+
+    /**
+     * Remove all the stored resources related to a skin.
+     *
+     * @param skin reference of the skin
+     */
+    public void clearFromSkin(SkinReference skin)
+    {
+        delete(getRootDirectory().resolve(hash(skin.serialize())));
+    }
+
+    /**
+     * Remove all the stored resources related to a color theme.
+     *
+     * @param colorTheme reference of the color theme
+     */
+    public void clearFromColorTheme(ColorThemeReference colorTheme)
+    {
+        String colorThemeDirectory = hash(colorTheme.serialize());
+
+        for (Path skinDirectory : list(getRootDirectory())) {
+            delete(skinDirectory.resolve(colorThemeDirectory));
+        }
+    }
+
+    /**
+     * Remove all the stored resources related to a LESS resource.
+     *
+     * @param lessResourceReference reference of a LESS resource
+     */
+    public void clearFromLESSResource(LESSResourceReference lessResourceReference)
+    {
+        String resourceDirectory = hash(lessResourceReference.serialize());
+
+        for (Path skinDirectory : list(getRootDirectory())) {
+            for (Path colorThemeDirectory : list(skinDirectory)) {
+                delete(colorThemeDirectory.resolve(resourceDirectory));
+            }
+        }
+    }
+
+    private Path getRootDirectory()
+    {
+        return this.environment.getPermanentDirectory().toPath().resolve(CACHE_DIRECTORY);
+    }
+
+    private Path getFile(LESSResourceReference lessResourceReference, SkinReference skin,
+        ColorThemeReference colorTheme, String cacheKey)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        String key = String.format("%s\n%s\n%s", cacheKey, xcontext.getWiki().getVersion(),
+            this.lessConfiguration.isGenerateInlineSourceMaps());
+
+        return getRootDirectory().resolve(hash(skin.serialize())).resolve(hash(colorTheme.serialize()))
+            .resolve(hash(lessResourceReference.serialize())).resolve(hash(key) + CSS_EXTENSION);
+    }
+
+    private String hash(String value)
+    {
+        return DigestUtils.sha256Hex(value);
+    }
+
+    private List<Path> list(Path directory)
+    {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(children::add);
+        } catch (IOException e) {
+            this.logger.warn("Failed to list the content of [{}]: {}", directory,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return children;
+    }
+
+    private void delete(Path directory)
+    {
+        File file = directory.toFile();
+        if (file.exists()) {
+            try {
+                FileUtils.deleteDirectory(file);
+            } catch (IOException e) {
+                this.logger.warn("Failed to delete the compiled LESS resources stored in [{}]: {}", directory,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+}
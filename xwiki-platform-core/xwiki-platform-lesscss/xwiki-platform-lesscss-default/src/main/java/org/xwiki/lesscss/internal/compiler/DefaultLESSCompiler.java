@@ -25,13 +25,18 @@
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.lesscss.internal.cache.LESSResourcesCache;
 import org.xwiki.lesscss.compiler.LESSCompiler;
 import org.xwiki.lesscss.compiler.LESSCompilerException;
+import org.xwiki.lesscss.internal.LESSConfiguration;
 import org.xwiki.lesscss.internal.cache.AbstractCachedCompiler;
+import org.xwiki.lesscss.internal.cache.PersistentLESSResourcesCache;
+import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
+import org.xwiki.lesscss.internal.skin.SkinReference;
 import org.xwiki.lesscss.resources.LESSResourceReference;
 
 /**
@@ -52,6 +57,15 @@ public class DefaultLESSCompiler extends AbstractCachedCompiler<String> implemen
     @Inject
     private CachedLESSCompiler cachedLESSCompiler;
 
+    @Inject
+    private PersistentLESSResourcesCache persistentCache;
+
+    @Inject
+    private LESSRecompilationExecutor recompilationExecutor;
+
+    @Inject
+    private LESSConfiguration lessConfiguration;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -73,6 +87,63 @@ public String compile(LESSResourceReference lessResourceReference, boolean inclu
         return super.getResult(lessResourceReference, includeSkinStyle, useVelocity, skin, force);
     }
 
+    @Override
+    protected String getStoredResult(LESSResourceReference lessResourceReference, boolean includeSkinStyle,
+        boolean useVelocity, String skin, SkinReference skinReference, ColorThemeReference colorThemeReference)
+    {
+        if (!isPersistentCacheEnabled()) {
+            return null;
+        }
+
+        String cacheKey = this.cache.getCacheKey(lessResourceReference, skinReference, colorThemeReference);
+        String result = this.persistentCache.get(lessResourceReference, skinReference, colorThemeReference, cacheKey);
+
+        if (result != null) {
+            // The stored result was produced before the restart (or by another cluster node) so make sure it's still
+            // up to date, without making the current request wait for it
+            this.recompilationExecutor.submit(cacheKey, () -> recompile(lessResourceReference, includeSkinStyle,
+                useVelocity, skin, skinReference, colorThemeReference, cacheKey, result));
+        }
+
+        return result;
+    }
+
+    private void recompile(LESSResourceReference lessResourceReference, boolean includeSkinStyle, boolean useVelocity,
+        String skin, SkinReference skinReference, ColorThemeReference colorThemeReference, String cacheKey,
+        String storedResult)
+    {
+        String result;
+        try {
+            result = this.cachedLESSCompiler.compute(lessResourceReference, includeSkinStyle, useVelocity, true, skin);
+        } catch (LESSCompilerException e) {
+            // Keep the stored result, it's more useful than an error
+            this.logger.warn("Failed to recompile the resource [{}]: {}", lessResourceReference,
+                ExceptionUtils.getRootCauseMessage(e));
+            return;
+        }
+
+        // Only update the caches if they were not cleared in the meantime
+        if (!result.equals(storedResult) && this.cache.replace(cacheKey, result)) {
+            this.persistentCache.set(lessResourceReference, skinReference, colorThemeReference, cacheKey, result);
+        }
+    }
+
+    @Override
+    protected void storeResult(LESSResourceReference lessResourceReference, SkinReference skinReference,
+        ColorThemeReference colorThemeReference, String result)
+    {
+        if (isPersistentCacheEnabled()) {
+            String cacheKey = this.cache.getCacheKey(lessResourceReference, skinReference, colorThemeReference);
+            this.persistentCache.set(lessResourceReference, skinReference, colorThemeReference, cacheKey, result);
+        }
+    }
+
+    private boolean isPersistentCacheEnabled()
+    {
+        // The HTML export needs to execute the Velocity code to know which resources to export
+        return !this.lessContext.isHtmlExport() && this.lessConfiguration.isPersistentCacheEnabled();
+    }
+
     @Override
     protected String cloneResult(String toClone)
     {
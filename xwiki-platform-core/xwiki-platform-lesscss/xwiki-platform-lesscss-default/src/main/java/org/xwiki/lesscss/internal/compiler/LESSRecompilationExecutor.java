@@ -0,0 +1,150 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.compiler;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.context.concurrent.ContextStoreManager;
+
+import com.xpn.xwiki.internal.context.XWikiContextContextStore;
+
+/**
+ * Recompile LESS resources in a background thread, in a context similar to the one of the request which needed them,
+ * so that requests never wait for a recompilation of a resource which already has a usable (possibly outdated)
+ * result.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = LESSRecompilationExecutor.class)
+@Singleton
+public class LESSRecompilationExecutor implements Initializable, Disposable
+{
+    /**
+     * The context elements which can have an impact on the result of the compilation.
+     */
+    private static final List<String> CONTEXT_ENTRIES = Arrays.asList(XWikiContextContextStore.PROP_WIKI,
+        XWikiContextContextStore.PROP_USER, XWikiContextContextStore.PROP_LOCALE,
+        XWikiContextContextStore.PROP_REQUEST_BASE, XWikiContextContextStore.PROP_REQUEST_URL,
+        XWikiContextContextStore.PROP_REQUEST_CONTEXTPATH, XWikiContextContextStore.PROP_REQUEST_PARAMETERS,
+        XWikiContextContextStore.PROP_REQUEST_WIKI);
+
+    @Inject
+    private ContextStoreManager contextStore;
+
+    @Inject
+    private ExecutionContextManager contextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    private ExecutorService executor;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
+            .namingPattern("XWiki LESS recompilation thread").daemon(true).priority(Thread.NORM_PRIORITY - 1).build());
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Execute the passed recompilation in a background thread.
+     *
+     * @param id the identifier of the recompilation, it's ignored if another recompilation with the same identifier
+     *            is already waiting to be executed
+     * @param recompilation the recompilation to execute
+     */
+    public void submit(String id, Runnable recompilation)
+    {
+        if (!this.pending.add(id)) {
+            return;
+        }
+
+        Map<String, Serializable> savedContext;
+        try {
+            savedContext = this.contextStore.save(CONTEXT_ENTRIES);
+        } catch (ComponentLookupException e) {
+            this.logger.error("Failed to save the context of the LESS recompilation", e);
+            this.pending.remove(id);
+
+            return;
+        }
+
+        try {
+            this.executor.execute(() -> run(id, recompilation, savedContext));
+        } catch (RejectedExecutionException e) {
+            // The component is being disposed
+            this.pending.remove(id);
+        }
+    }
+
+    private void run(String id, Runnable recompilation, Map<String, Serializable> savedContext)
+    {
+        try {
+            // Initialize a new context for the recompilation
+            this.contextManager.initialize(new ExecutionContext());
+            this.contextStore.restore(savedContext);
+
+            recompilation.run();
+        } catch (Exception e) {
+            this.logger.warn("Failed to recompile the LESS resource [{}] in the background: {}", id,
+                ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            this.pending.remove(id);
+
+            // Remove any remaining context
+            this.execution.removeContext();
+        }
+    }
+}
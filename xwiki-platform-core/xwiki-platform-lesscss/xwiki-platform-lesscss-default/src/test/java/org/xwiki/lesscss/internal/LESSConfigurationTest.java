@@ -25,6 +25,7 @@
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -55,4 +56,11 @@ public void generateSourceMaps() throws Exception
         lessConfiguration.isGenerateInlineSourceMaps();
         verify(configurationSource).getProperty("lesscss.generateInlineSourceMaps", false);
     }
+
+    @Test
+    public void persistentCache() throws Exception
+    {
+        when(configurationSource.getProperty("lesscss.persistentCache", true)).thenReturn(false);
+        assertFalse(lessConfiguration.isPersistentCacheEnabled());
+    }
 }
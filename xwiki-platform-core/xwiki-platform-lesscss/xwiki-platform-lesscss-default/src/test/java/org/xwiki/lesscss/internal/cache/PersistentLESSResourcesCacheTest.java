@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.io.File;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
+import org.xwiki.lesscss.internal.colortheme.NamedColorThemeReference;
+import org.xwiki.lesscss.internal.resources.LESSSkinFileResourceReference;
+import org.xwiki.lesscss.internal.skin.FSSkinReference;
+import org.xwiki.lesscss.internal.skin.SkinReference;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link PersistentLESSResourcesCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class PersistentLESSResourcesCacheTest
+{
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @InjectMockComponents
+    private PersistentLESSResourcesCache persistentCache;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private LESSConfiguration lessConfiguration;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWiki xwiki = mock(XWiki.class);
+
+    private LESSResourceReference resource = new LESSSkinFileResourceReference("style.less", null, null);
+
+    private SkinReference skin = new FSSkinReference("flamingo");
+
+    private ColorThemeReference colorTheme = new NamedColorThemeReference("iceberg");
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+
+        XWikiContext xcontext = mock(XWikiContext.class);
+        when(this.xcontextProvider.get()).thenReturn(xcontext);
+        when(xcontext.getWiki()).thenReturn(this.xwiki);
+        when(this.xwiki.getVersion()).thenReturn("16.8.0");
+    }
+
+    @Test
+    void setAndGet()
+    {
+        assertNull(this.persistentCache.get(this.resource, this.skin, this.colorTheme, "key"));
+
+        this.persistentCache.set(this.resource, this.skin, this.colorTheme, "key", "css");
+
+        assertEquals("css", this.persistentCache.get(this.resource, this.skin, this.colorTheme, "key"));
+        assertNull(this.persistentCache.get(this.resource, this.skin, this.colorTheme, "otherkey"));
+
+        // The stored results of a different version are ignored
+        when(this.xwiki.getVersion()).thenReturn("16.9.0");
+
+        assertNull(this.persistentCache.get(this.resource, this.skin, this.colorTheme, "key"));
+    }
+
+    @Test
+    void clearFromSkin()
+    {
+        SkinReference otherSkin = new FSSkinReference("other");
+        this.persistentCache.set(this.resource, this.skin, this.colorTheme, "key", "css");
+        this.persistentCache.set(this.resource, otherSkin, this.colorTheme, "key", "other css");
+
+        this.persistentCache.clearFromSkin(this.skin);
+
+        assertNull(this.persistentCache.get(this.resource, this.skin, this.colorTheme, "key"));
+        assertEquals("other css", this.persistentCache.get(this.resource, otherSkin, this.colorTheme, "key"));
+    }
+
+    @Test
+    void clearFromColorTheme()
+    {
+        ColorThemeReference otherColorTheme = new NamedColorThemeReference("other");
+        this.persistentCache.set(this.resource, this.skin, this.colorTheme, "key", "css");
+        this.persistentCache.set(this.resource, this.skin, otherColorTheme, "key", "other css");
+
+        this.persistentCache.clearFromColorTheme(this.colorTheme);
+
+        assertNull(this.persistentCache.get(this.resource, this.skin, this.colorTheme, "key"));
+        assertEquals("other css", this.persistentCache.get(this.resource, this.skin, otherColorTheme, "key"));
+    }
+
+    @Test
+    void clearFromLESSResource()
+    {
+        LESSResourceReference otherResource = new LESSSkinFileResourceReference("other.less", null, null);
+        this.persistentCache.set(this.resource, this.skin, this.colorTheme, "key", "css");
+        this.persistentCache.set(otherResource, this.skin, this.colorTheme, "key", "other css");
+
+        this.persistentCache.clearFromLESSResource(this.resource);
+
+        assertNull(this.persistentCache.get(this.resource, this.skin, this.colorTheme, "key"));
+        assertEquals("other css", this.persistentCache.get(otherResource, this.skin, this.colorTheme, "key"));
+
+        this.persistentCache.clear();
+
+        assertNull(this.persistentCache.get(otherResource, this.skin, this.colorTheme, "key"));
+    }
+}
@@ -25,9 +25,12 @@
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.xwiki.lesscss.compiler.LESSCompilerException;
+import org.xwiki.lesscss.internal.LESSConfiguration;
 import org.xwiki.lesscss.internal.LESSContext;
 import org.xwiki.lesscss.internal.cache.LESSResourcesCache;
+import org.xwiki.lesscss.internal.cache.PersistentLESSResourcesCache;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReferenceFactory;
 import org.xwiki.lesscss.internal.colortheme.CurrentColorThemeGetter;
@@ -217,4 +220,57 @@ public void compileWhenError() throws Exception
                 eq(lessResourceReference), eq(expectedException));
     }
 
+    @Test
+    public void compileWhenStored() throws Exception
+    {
+        // Mocks
+        LESSConfiguration lessConfiguration = mocker.getInstance(LESSConfiguration.class);
+        when(lessConfiguration.isPersistentCacheEnabled()).thenReturn(true);
+        when(cache.getCacheKey(lessResourceReference, skinReference, colorThemeReference)).thenReturn("key");
+        PersistentLESSResourcesCache persistentCache = mocker.getInstance(PersistentLESSResourcesCache.class);
+        when(persistentCache.get(lessResourceReference, skinReference, colorThemeReference, "key"))
+            .thenReturn("stored output");
+
+        // Test
+        assertEquals("stored output",
+            mocker.getComponentUnderTest().compile(lessResourceReference, false, false, false));
+
+        // Verify that the request did not wait for the compilation
+        verify(cache).set(lessResourceReference, skinReference, colorThemeReference, "stored output");
+        verify(cachedLESSCompiler, never()).compute(any(), anyBoolean(), anyBoolean(), anyBoolean(), any());
+
+        // Execute the recompilation
+        LESSRecompilationExecutor recompilationExecutor = mocker.getInstance(LESSRecompilationExecutor.class);
+        ArgumentCaptor<Runnable> recompilation = ArgumentCaptor.forClass(Runnable.class);
+        verify(recompilationExecutor).submit(eq("key"), recompilation.capture());
+
+        when(cachedLESSCompiler.compute(lessResourceReference, false, false, true, "skin"))
+            .thenReturn("compiled output");
+        when(cache.replace("key", "compiled output")).thenReturn(true);
+
+        recompilation.getValue().run();
+
+        verify(persistentCache).set(lessResourceReference, skinReference, colorThemeReference, "key",
+            "compiled output");
+    }
+
+    @Test
+    public void compileWhenNotInCacheStoresTheResult() throws Exception
+    {
+        // Mocks
+        LESSConfiguration lessConfiguration = mocker.getInstance(LESSConfiguration.class);
+        when(lessConfiguration.isPersistentCacheEnabled()).thenReturn(true);
+        when(cache.getCacheKey(lessResourceReference, skinReference, colorThemeReference)).thenReturn("key");
+        when(cachedLESSCompiler.compute(lessResourceReference, false, false, true, "skin"))
+            .thenReturn("compiled output");
+
+        // Test
+        assertEquals("compiled output",
+            mocker.getComponentUnderTest().compile(lessResourceReference, false, false, false));
+
+        // Verify
+        PersistentLESSResourcesCache persistentCache = mocker.getInstance(PersistentLESSResourcesCache.class);
+        verify(persistentCache).set(lessResourceReference, skinReference, colorThemeReference, "key",
+            "compiled output");
+    }
 }
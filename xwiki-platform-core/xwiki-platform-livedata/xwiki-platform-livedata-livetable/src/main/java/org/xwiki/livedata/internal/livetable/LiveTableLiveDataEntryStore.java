@@ -85,6 +85,9 @@ public class LiveTableLiveDataEntryStore extends WithParameters implements LiveD
     @Inject
     private ModelBridge modelBridge;
 
+    @Inject
+    private LiveTableLiveDataNativeResults nativeResults;
+
     @Inject
     @Named(ROLE_HINT)
     private Provider<LiveDataConfiguration> liveDataConfigurationProvider;
@@ -99,6 +102,11 @@ public Optional<Map<String, Object>> get(Object entryId)
     public LiveData get(LiveDataQuery query) throws LiveDataException
     {
         try {
+            Optional<LiveData> nativeLiveData = getNativeLiveData(query);
+            if (nativeLiveData.isPresent()) {
+                return nativeLiveData.get();
+            }
+
             // We need to allow backslash escaping because some live table sources are generating the JSON by hand
             // instead of serializing a map.
             ObjectMapper objectMapper =
@@ -116,9 +124,27 @@ public LiveData get(LiveDataQuery query) throws LiveDataException
         }
     }
 
-    private JsonNode getLiveTableResultsJSON(LiveDataQuery query, ObjectMapper objectMapper) throws Exception
+    private Optional<LiveData> getNativeLiveData(LiveDataQuery query) throws Exception
+    {
+        Source originalSource = mergeSourceParameters(query);
+
+        try {
+            // Avoid the Velocity rendering of the default live table results page when the query can be computed
+            // directly in Java.
+            return this.nativeResults.get(query);
+        } finally {
+            // Restore the original query source.
+            query.setSource(originalSource);
+        }
+    }
+
+    /**
+     * Merge the parameters of this live data source with the parameters from the given query.
+     *
+     * @return the original query source
+     */
+    private Source mergeSourceParameters(LiveDataQuery query)
     {
-        // Merge the parameters of this live data source with the parameters from the given query.
         Source originalSource = query.getSource();
         query.setSource(new Source(ROLE_HINT));
         query.getSource().getParameters().putAll(getParameters());
@@ -126,6 +152,13 @@ private JsonNode getLiveTableResultsJSON(LiveDataQuery query, ObjectMapper objec
             query.getSource().getParameters().putAll(originalSource.getParameters());
         }
 
+        return originalSource;
+    }
+
+    private JsonNode getLiveTableResultsJSON(LiveDataQuery query, ObjectMapper objectMapper) throws Exception
+    {
+        Source originalSource = mergeSourceParameters(query);
+
         try {
             Object template = query.getSource().getParameters().get(LiveTableRequestHandler.TEMPLATE);
             Object resultPage = query.getSource().getParameters().get(LiveTableRequestHandler.RESULT_PAGE);
@@ -0,0 +1,941 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.livedata.internal.livetable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.extension.xar.internal.doc.InstalledExtensionDocumentTree;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.livedata.LiveDataQuery.Constraint;
+import org.xwiki.livedata.LiveDataQuery.Filter;
+import org.xwiki.livedata.LiveDataQuery.SortEntry;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.user.CurrentUserReference;
+import org.xwiki.user.GuestUserReference;
+import org.xwiki.user.UserPropertiesResolver;
+import org.xwiki.user.UserReference;
+import org.xwiki.user.UserReferenceSerializer;
+import org.xwiki.user.UserType;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.BaseProperty;
+import com.xpn.xwiki.objects.classes.BaseClass;
+import com.xpn.xwiki.objects.classes.BooleanClass;
+import com.xpn.xwiki.objects.classes.DateClass;
+import com.xpn.xwiki.objects.classes.EmailClass;
+import com.xpn.xwiki.objects.classes.GroupsClass;
+import com.xpn.xwiki.objects.classes.LevelsClass;
+import com.xpn.xwiki.objects.classes.ListClass;
+import com.xpn.xwiki.objects.classes.NumberClass;
+import com.xpn.xwiki.objects.classes.PasswordClass;
+import com.xpn.xwiki.objects.classes.PropertyClass;
+import com.xpn.xwiki.objects.classes.TextAreaClass;
+import com.xpn.xwiki.objects.classes.UsersClass;
+
+/**
+ * Compute the live table results of the common "documents with an object of a given class" source directly in Java,
+ * instead of rendering the {@code XWiki.LiveTableResults} page and parsing back the produced JSON.
+ * <p>
+ * The queries and the entries are computed the same way as {@code XWiki.LiveTableResultsMacros} does. Only the
+ * features which can be supported with the exact same behavior are handled: when the query relies on something else
+ * (custom result page or template, location or tag filtering, special columns, etc.) or when the default live table
+ * results pages have been customized in the current wiki, {@link Optional#empty()} is returned and the caller is
+ * expected to fallback on the Velocity implementation.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = LiveTableLiveDataNativeResults.class)
+@Singleton
+public class LiveTableLiveDataNativeResults
+{
+    private static final String CLASS_NAME = "className";
+
+    private static final String TRANSLATION_PREFIX = "translationPrefix";
+
+    private static final String QUERY_FILTERS = "queryFilters";
+
+    /**
+     * The source parameters supported by this implementation.
+     */
+    private static final Set<String> SUPPORTED_SOURCE_PARAMETERS =
+        Set.of(CLASS_NAME, TRANSLATION_PREFIX, QUERY_FILTERS);
+
+    private static final String DOC_PREFIX = "doc.";
+
+    private static final String PROPERTY_ALIAS_PREFIX = "prop_";
+
+    private static final String NON_WORD = "\\W";
+
+    private static final String OBJECT_ALIAS = "obj";
+
+    private static final String DOC_LOCATION = "doc.location";
+
+    /**
+     * The document fields which have to be ordered as raw values and not as strings.
+     */
+    private static final Set<String> RAW_DOCUMENT_FIELDS =
+        Set.of("translation", "date", "contentUpdateDate", "creationDate", "elements", "minorEdit1", "hidden");
+
+    /**
+     * The document fields which are filtered as dates.
+     */
+    private static final Set<String> DATE_DOCUMENT_FIELDS = Set.of("doc.date", "doc.creationDate",
+        "doc.contentUpdateDate");
+
+    private static final String STRING_PROPERTY = "StringProperty";
+
+    private static final String LARGE_STRING_PROPERTY = "LargeStringProperty";
+
+    private static final String INTEGER_PROPERTY = "IntegerProperty";
+
+    private static final String LONG_PROPERTY = "LongProperty";
+
+    private static final String MATCH_EXACT = "exact";
+
+    private static final String MATCH_PARTIAL = "partial";
+
+    private static final String MATCH_PREFIX = "prefix";
+
+    private static final String MATCH_EMPTY = "empty";
+
+    private static final String AND = "AND";
+
+    private static final String LIKE = "%";
+
+    private static final String AND_WHERE = " and ";
+
+    private static final String ASC = "asc";
+
+    private static final String DESC = "desc";
+
+    private static final String DOC_VIEWABLE = "doc.viewable";
+
+    private static final String DOC_FULLNAME = "doc.fullName";
+
+    private static final String VIEW = "view";
+
+    private static final int DEFAULT_LIMIT = 15;
+
+    private static final String XWIKI_SPACE = "XWiki";
+
+    /**
+     * The pages implementing the Velocity version of the results, which this class mimics.
+     */
+    private static final List<LocalDocumentReference> LIVE_TABLE_RESULTS_PAGES =
+        List.of(new LocalDocumentReference(XWIKI_SPACE, "LiveTableResults"),
+            new LocalDocumentReference(XWIKI_SPACE, "LiveTableResultsMacros"));
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private ContextualLocalizationManager localization;
+
+    @Inject
+    @Named("all")
+    private UserPropertiesResolver allUserPropertiesResolver;
+
+    @Inject
+    private UserReferenceSerializer<String> userReferenceSerializer;
+
+    @Inject
+    @Named("document")
+    private UserReferenceSerializer<DocumentReference> documentUserReferenceSerializer;
+
+    @Inject
+    private InstalledExtensionDocumentTree installedExtensionDocumentTree;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * The HQL query matching a live data query, as built by {@code #gridresultwithfilter_buildQuery}.
+     */
+    static final class LiveTableQuery
+    {
+        private final StringBuilder from = new StringBuilder();
+
+        private final StringBuilder where = new StringBuilder();
+
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+        private final List<String> filteredProperties = new ArrayList<>();
+
+        private String order = "";
+
+        /**
+         * @return the HQL statement (in short form)
+         */
+        String getStatement()
+        {
+            return ", BaseObject as obj " + this.from + " where obj.name=doc.fullName and obj.className = :className"
+                + " and doc.fullName not in (:classTemplate1, :classTemplate2) " + this.where + this.order;
+        }
+
+        /**
+         * @return the values to bind to the query
+         */
+        Map<String, Object> getParameters()
+        {
+            return this.parameters;
+        }
+    }
+
+    /**
+     * @param query the live data query, with the source parameters already merged
+     * @return the live data matching the query or {@link Optional#empty()} if the query is not supported
+     * @throws XWikiException when failing to load the documents
+     * @throws QueryException when failing to execute the query
+     */
+    public Optional<LiveData> get(LiveDataQuery query) throws XWikiException, QueryException
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        Optional<BaseClass> xclass = getXClass(query, xcontext);
+        if (xclass.isEmpty() || isLiveTableResultsCustomized(xcontext)) {
+            return Optional.empty();
+        }
+
+        Optional<LiveTableQuery> liveTableQuery = buildQuery(query, xclass.get());
+        if (liveTableQuery.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(execute(liveTableQuery.get(), query, xclass.get(), xcontext));
+    }
+
+    private Optional<BaseClass> getXClass(LiveDataQuery query, XWikiContext xcontext) throws XWikiException
+    {
+        Map<String, Object> parameters = query.getSource() != null ? query.getSource().getParameters() : Map.of();
+
+        // Only handle the default live table results page...
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            if (!SUPPORTED_SOURCE_PARAMETERS.contains(parameter.getKey())
+                && StringUtils.isNotEmpty(Objects.toString(parameter.getValue(), null))) {
+                return Optional.empty();
+            }
+        }
+
+        // ... for a given class
+        Object className = parameters.get(CLASS_NAME);
+        if (!(className instanceof String) || StringUtils.isBlank((String) className)
+            || query.getProperties() == null) {
+            return Optional.empty();
+        }
+
+        BaseClass xclass = xcontext.getWiki()
+            .getXClass(this.currentDocumentReferenceResolver.resolve((String) className), xcontext);
+        if (xclass == null || xclass.getPropertyList().isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(xclass);
+    }
+
+    /**
+     * @return {@code true} if the pages producing the Velocity results don't come unmodified from an installed
+     *         extension, in which case they might not behave anymore like this class
+     */
+    private boolean isLiveTableResultsCustomized(XWikiContext xcontext)
+    {
+        for (LocalDocumentReference page : LIVE_TABLE_RESULTS_PAGES) {
+            DocumentReference pageReference = new DocumentReference(page, xcontext.getWikiReference());
+            if (!this.installedExtensionDocumentTree.isExtensionPage(pageReference)
+                || this.installedExtensionDocumentTree.isCustomizedExtensionPage(pageReference)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Build the query the same way {@code #gridresultwithfilter_buildQuery} does.
+     *
+     * @param query the live data query
+     * @param xclass the class of the objects to list
+     * @return the HQL query or {@link Optional#empty()} if the query is not supported
+     */
+    Optional<LiveTableQuery> buildQuery(LiveDataQuery query, BaseClass xclass)
+    {
+        LiveTableQuery liveTableQuery = new LiveTableQuery();
+
+        String className = (String) query.getSource().getParameters().get(CLASS_NAME);
+        liveTableQuery.parameters.put(CLASS_NAME, className);
+        liveTableQuery.parameters.put("classTemplate1", className + "Template");
+        liveTableQuery.parameters.put("classTemplate2", className.replaceAll("Class$", "Template"));
+
+        for (String property : query.getProperties()) {
+            if (!isSupportedProperty(property, xclass)) {
+                return Optional.empty();
+            }
+
+            // Passwords can't be filtered
+            if (!(xclass.get(property) instanceof PasswordClass)) {
+                Filter filter = getFilter(query, property);
+                if (filter != null && !addFilter(filter, xclass, liveTableQuery)) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        if (!addOrder(query, xclass, liveTableQuery)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(liveTableQuery);
+    }
+
+    private boolean isSupportedProperty(String property, BaseClass xclass)
+    {
+        if (property.startsWith(DOC_PREFIX)) {
+            // The location is displayed with the #hierarchy Velocity macro
+            return !property.equals(DOC_LOCATION);
+        }
+
+        PropertyClass propertyClass = (PropertyClass) xclass.get(property);
+
+        // Special columns (_actions, _avatar, etc.) and properties of other classes are not supported. Email
+        // properties are not supported either since they may need to be obfuscated.
+        return propertyClass != null && !(propertyClass instanceof EmailClass);
+    }
+
+    private Filter getFilter(LiveDataQuery query, String property)
+    {
+        if (query.getFilters() != null) {
+            for (Filter filter : query.getFilters()) {
+                if (property.equals(filter.getProperty()) && !getFilterValues(filter).isEmpty()) {
+                    return filter;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Same as {@code LiveTableRequestHandler#addFilterRequestParameters}: the values of the "empty" constraints are
+     * replaced with a non empty value.
+     */
+    private List<String> getFilterValues(Filter filter)
+    {
+        List<String> values = new ArrayList<>();
+        for (Constraint constraint : getConstraints(filter)) {
+            values.add(MATCH_EMPTY.equals(constraint.getOperator()) ? "-" : constraint.getValue().toString());
+        }
+
+        return values;
+    }
+
+    private List<String> getMatchTypes(Filter filter)
+    {
+        List<String> matchTypes = new ArrayList<>();
+        for (Constraint constraint : getConstraints(filter)) {
+            String operator = constraint.getOperator();
+            if ("contains".equals(operator)) {
+                matchTypes.add(MATCH_PARTIAL);
+            } else if ("startsWith".equals(operator)) {
+                matchTypes.add(MATCH_PREFIX);
+            } else if (MATCH_EMPTY.equals(operator)) {
+                matchTypes.add(MATCH_EMPTY);
+            } else {
+                // Any other operator ends up being an exact match in #livetable_getFilterQuery
+                matchTypes.add(MATCH_EXACT);
+            }
+        }
+
+        return matchTypes;
+    }
+
+    /**
+     * The constraints without value are ignored, both for the filter values and their match types, so that each value
+     * keeps its own match type.
+     */
+    private List<Constraint> getConstraints(Filter filter)
+    {
+        return filter.getConstraints().stream()
+            .filter(constraint -> constraint != null && constraint.getValue() != null).collect(Collectors.toList());
+    }
+
+    private boolean addFilter(Filter filter, BaseClass xclass, LiveTableQuery liveTableQuery)
+    {
+        String property = filter.getProperty();
+        List<String> values = getFilterValues(filter);
+
+        if (property.startsWith(DOC_PREFIX)) {
+            if (DATE_DOCUMENT_FIELDS.contains(property)) {
+                // Date ranges are parsed with the #parseDateRange Velocity macro
+                return false;
+            }
+
+            liveTableQuery.filteredProperties.add(property);
+
+            // Only the first value is taken into account for document fields
+            String safeColName = property.replaceAll("[^a-zA-Z0-9_.]", "").replace('_', '.');
+            String parameter = safeColName.replace('.', '_') + "_filter";
+            liveTableQuery.where.append(" and upper(str(").append(safeColName).append(")) like upper(:")
+                .append(parameter).append(')');
+            liveTableQuery.parameters.put(parameter, LIKE + values.get(0) + LIKE);
+
+            return true;
+        }
+
+        PropertyClass propertyClass = (PropertyClass) xclass.get(property);
+        String tableName = getTableName(propertyClass);
+        String alias = PROPERTY_ALIAS_PREFIX + property.replaceAll(NON_WORD, "");
+
+        StringBuilder where = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+        boolean supported;
+        if (INTEGER_PROPERTY.equals(tableName) || LONG_PROPERTY.equals(tableName)) {
+            supported = addIntegerFilter(values.get(0), alias, tableName, where, parameters);
+        } else if ("FloatProperty".equals(tableName) || "DoubleProperty".equals(tableName)) {
+            supported = addDecimalFilter(values.get(0), alias, tableName, where, parameters);
+        } else if (STRING_PROPERTY.equals(tableName) || LARGE_STRING_PROPERTY.equals(tableName)) {
+            addStringFilter(filter, values, alias, where, parameters);
+            supported = true;
+        } else {
+            // Dates and lists of values are not supported yet
+            supported = false;
+        }
+
+        if (supported) {
+            liveTableQuery.filteredProperties.add(property);
+            liveTableQuery.from.append(", ").append(tableName).append(" as ").append(alias);
+            liveTableQuery.where.append(" and obj.id = ").append(alias).append(".id.id and ").append(alias)
+                .append(".id.name = :").append(alias).append("_id_name");
+            liveTableQuery.parameters.put(alias + "_id_name", property);
+            liveTableQuery.where.append(where);
+            liveTableQuery.parameters.putAll(parameters);
+        }
+
+        return supported;
+    }
+
+    private boolean addIntegerFilter(String value, String alias, String tableName, StringBuilder where,
+        Map<String, Object> parameters)
+    {
+        if (!NumberUtils.isCreatable(value)) {
+            return false;
+        }
+
+        Number number = NumberUtils.createNumber(value);
+        where.append(AND_WHERE).append(alias).append(".value = :").append(alias).append("_value");
+        parameters.put(alias + "_value", LONG_PROPERTY.equals(tableName) ? number.longValue() : number.intValue());
+
+        return true;
+    }
+
+    private boolean addDecimalFilter(String value, String alias, String tableName, StringBuilder where,
+        Map<String, Object> parameters)
+    {
+        if (!NumberUtils.isCreatable(value)) {
+            return false;
+        }
+
+        Number number = NumberUtils.createNumber(value);
+        where.append(" and abs(:").append(alias).append("_value - ").append(alias).append(".value) <= 0.000001");
+        parameters.put(alias + "_value",
+            "FloatProperty".equals(tableName) ? (Object) number.floatValue() : (Object) number.doubleValue());
+
+        return true;
+    }
+
+    /**
+     * Same as {@code #livetable_filterStringProperty}.
+     */
+    private void addStringFilter(Filter filter, List<String> values, String alias, StringBuilder where,
+        Map<String, Object> parameters)
+    {
+        String joinOperator = filter.isMatchAll() ? AND : "OR";
+        List<String> matchTypes = getMatchTypes(filter);
+
+        // Group the filter values by match type
+        Map<String, List<String>> valuesByMatchType = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String matchType = i < matchTypes.size() ? matchTypes.get(i) : matchTypes.get(0);
+            valuesByMatchType.computeIfAbsent(matchType, k -> new ArrayList<>()).add(values.get(i));
+        }
+
+        String column = alias + ".value";
+        String parameterPrefix = alias + "_value_";
+        List<String> constraints = new ArrayList<>();
+        int parameterIndex = 1;
+        for (Map.Entry<String, List<String>> entry : valuesByMatchType.entrySet()) {
+            String matchType = entry.getKey();
+            List<String> matchValues = entry.getValue();
+
+            List<String> parameterNames = new ArrayList<>();
+            for (String value : matchValues) {
+                String parameterName = parameterPrefix + parameterIndex++;
+                parameterNames.add(':' + parameterName);
+                parameters.put(parameterName, getFilterParameter(value, matchType));
+            }
+
+            constraints.add(getFilterQuery(column, matchType, joinOperator, parameterNames));
+        }
+
+        where.append(" and (").append(StringUtils.join(constraints, ' ' + joinOperator + ' ')).append(')');
+    }
+
+    private String getFilterQuery(String column, String matchType, String joinOperator, List<String> parameterNames)
+    {
+        List<String> constraints = new ArrayList<>();
+        String separator = ' ' + joinOperator + ' ';
+        if (MATCH_PARTIAL.equals(matchType) || MATCH_PREFIX.equals(matchType)) {
+            parameterNames.forEach(name -> constraints.add("upper(" + column + ") like upper(" + name + ')'));
+        } else if (MATCH_EMPTY.equals(matchType)) {
+            parameterNames
+                .forEach(name -> constraints.add('(' + column + " like " + name + " or " + column + " is null)"));
+        } else if (parameterNames.size() > 1 && !AND.equals(joinOperator)) {
+            return column + " in (" + StringUtils.join(parameterNames, ", ") + ')';
+        } else {
+            parameterNames.forEach(name -> constraints.add(column + " = " + name));
+            separator = " AND ";
+        }
+
+        return StringUtils.join(constraints, separator);
+    }
+
+    private Object getFilterParameter(String value, String matchType)
+    {
+        if (MATCH_PARTIAL.equals(matchType)) {
+            return LIKE + value + LIKE;
+        } else if (MATCH_PREFIX.equals(matchType)) {
+            return value + LIKE;
+        } else if (MATCH_EMPTY.equals(matchType)) {
+            return "";
+        }
+
+        return value;
+    }
+
+    /**
+     * Same as the order part of {@code #gridresultwithfilter_buildQuery}.
+     */
+    private boolean addOrder(LiveDataQuery query, BaseClass xclass, LiveTableQuery liveTableQuery)
+    {
+        if (query.getSort() == null || query.getSort().isEmpty()) {
+            return true;
+        }
+
+        // Only the first sort entry is taken into account
+        SortEntry sortEntry = query.getSort().get(0);
+        String order = sortEntry.getProperty();
+        if (StringUtils.isEmpty(order)) {
+            return true;
+        }
+        if (order.equals(DOC_LOCATION)) {
+            order = DOC_FULLNAME;
+        }
+        String direction = sortEntry.isDescending() ? DESC : ASC;
+
+        if (order.startsWith(DOC_PREFIX)) {
+            String documentField = StringUtils.removeStart(order, DOC_PREFIX);
+            String field = (DOC_PREFIX + documentField.replaceAll(NON_WORD, "")).replace('_', '.');
+            liveTableQuery.order = getOrderClause(field, direction, RAW_DOCUMENT_FIELDS.contains(documentField));
+        } else {
+            PropertyClass propertyClass = (PropertyClass) xclass.get(order);
+            if (propertyClass == null || propertyClass instanceof EmailClass) {
+                return false;
+            }
+
+            // Only single values can be ordered
+            if (!(propertyClass instanceof ListClass && ((ListClass) propertyClass).isMultiSelect())) {
+                String alias = PROPERTY_ALIAS_PREFIX + order.replaceAll(NON_WORD, "");
+                if (!liveTableQuery.filteredProperties.contains(order)) {
+                    liveTableQuery.from.append(", ").append(getTableName(propertyClass)).append(' ').append(alias);
+                    liveTableQuery.where.append(" and ").append(OBJECT_ALIAS).append(".id=").append(alias)
+                        .append(".id.id and ").append(alias).append(".name = :").append(alias).append("_name");
+                    liveTableQuery.parameters.put(alias + "_name", order);
+                }
+
+                boolean raw = propertyClass instanceof NumberClass || propertyClass instanceof BooleanClass
+                    || propertyClass instanceof DateClass || propertyClass instanceof LevelsClass;
+                liveTableQuery.order = getOrderClause(alias + ".value", direction, raw);
+            }
+        }
+
+        return true;
+    }
+
+    private String getOrderClause(String field, String direction, boolean raw)
+    {
+        if (raw) {
+            return " order by " + field + ' ' + direction;
+        }
+
+        // Ignore the case first but then consider it only for equal values
+        return " order by lower(" + field + ") " + direction + ", " + field + ' ' + direction;
+    }
+
+    /**
+     * Same as {@code #livetable_getTableName}.
+     */
+    private String getTableName(PropertyClass propertyClass)
+    {
+        String tableName;
+        if (propertyClass instanceof NumberClass) {
+            String numberType = ((NumberClass) propertyClass).getNumberType();
+            if ("integer".equals(numberType)) {
+                tableName = INTEGER_PROPERTY;
+            } else if ("float".equals(numberType)) {
+                tableName = "FloatProperty";
+            } else if ("double".equals(numberType)) {
+                tableName = "DoubleProperty";
+            } else {
+                tableName = LONG_PROPERTY;
+            }
+        } else if (propertyClass instanceof BooleanClass) {
+            tableName = INTEGER_PROPERTY;
+        } else if (propertyClass instanceof DateClass) {
+            tableName = "DateProperty";
+        } else if (propertyClass instanceof TextAreaClass || propertyClass instanceof UsersClass
+            || propertyClass instanceof GroupsClass) {
+            tableName = LARGE_STRING_PROPERTY;
+        } else if (propertyClass instanceof ListClass && ((ListClass) propertyClass).isMultiSelect()) {
+            tableName =
+                ((ListClass) propertyClass).isRelationalStorage() ? "DBStringListProperty" : "StringListProperty";
+        } else {
+            tableName = STRING_PROPERTY;
+        }
+
+        return tableName;
+    }
+
+    private LiveData execute(LiveTableQuery liveTableQuery, LiveDataQuery query, BaseClass xclass,
+        XWikiContext xcontext) throws QueryException, XWikiException
+    {
+        long offset = query.getOffset() != null ? Math.max(query.getOffset(), 0) : 0;
+        int limit = query.getLimit() != null && query.getLimit() != 0 ? query.getLimit() : DEFAULT_LIMIT;
+
+        List<QueryFilter> queryFilters = getQueryFilters(query);
+
+        Query hqlQuery = this.queryManager.createQuery(liveTableQuery.getStatement(), Query.HQL);
+        hqlQuery.setLimit(limit).setOffset((int) offset).bindValues(liveTableQuery.getParameters());
+        queryFilters.forEach(hqlQuery::addFilter);
+        List<Object> items = hqlQuery.execute();
+
+        long totalRows = count(liveTableQuery, queryFilters);
+        int returnedRows = limit > 0 ? Math.min(items.size(), limit) : items.size();
+
+        List<Map<String, Object>> entries = new ArrayList<>(items.size());
+        EntryContext entryContext = new EntryContext(query, xclass, xcontext);
+        List<DocumentReference> documentReferences = new ArrayList<>(items.size());
+        for (Object item : items) {
+            documentReferences.add(this.currentDocumentReferenceResolver
+                .resolve((String) (item instanceof Object[] ? ((Object[]) item)[0] : item)));
+        }
+        // Check the view right of all the entries at once
+        BitSet viewable = this.authorization.getAllowed(Right.VIEW, documentReferences);
+        for (int i = 0; i < items.size(); i++) {
+            entries.add(getEntry(items.get(i), documentReferences.get(i), viewable.get(i), entryContext));
+        }
+
+        // Same as #livetable_filterObfuscated: when there's a single page of results, the obfuscated entries can be
+        // removed without impacting the pagination.
+        if (totalRows <= returnedRows) {
+            entries.removeIf(entry -> !Boolean.TRUE.equals(entry.get(DOC_VIEWABLE)));
+            totalRows = entries.size() + offset;
+        }
+
+        LiveData liveData = new LiveData();
+        liveData.setCount(totalRows);
+        liveData.getEntries().addAll(entries);
+
+        return liveData;
+    }
+
+    private List<QueryFilter> getQueryFilters(LiveDataQuery query)
+    {
+        List<QueryFilter> queryFilters = new ArrayList<>();
+
+        Object hints = query.getSource().getParameters().get(QUERY_FILTERS);
+        if (hints != null) {
+            ComponentManager componentManager = this.componentManagerProvider.get();
+            for (String hint : StringUtils.split(hints.toString(), ", ")) {
+                try {
+                    queryFilters.add(componentManager.getInstance(QueryFilter.class, hint));
+                } catch (ComponentLookupException e) {
+                    this.logger.warn("Failed to load QueryFilter with component hint [{}]. Root error [{}]", hint,
+                        e.getMessage());
+                }
+            }
+        }
+
+        return queryFilters;
+    }
+
+    private long count(LiveTableQuery liveTableQuery, List<QueryFilter> queryFilters) throws QueryException
+    {
+        Query countQuery = this.queryManager.createQuery(liveTableQuery.getStatement(), Query.HQL);
+        countQuery.bindValues(liveTableQuery.getParameters());
+        queryFilters.forEach(countQuery::addFilter);
+        try {
+            countQuery.addFilter(this.componentManagerProvider.get().getInstance(QueryFilter.class, "count"));
+        } catch (ComponentLookupException e) {
+            throw new QueryException("Failed to load the count query filter", countQuery, e);
+        }
+
+        // Unlike the Velocity implementation, don't hide the failure behind a negative count which would break the
+        // pagination of the results
+        List<Long> results = countQuery.execute();
+
+        return results.get(0);
+    }
+
+    /**
+     * The information shared by all the entries of a result.
+     */
+    private final class EntryContext
+    {
+        private final LiveDataQuery query;
+
+        private final BaseClass xclass;
+
+        private final String className;
+
+        private final XWikiContext xcontext;
+
+        private final boolean hasAdmin;
+
+        private final boolean isAdvancedUser;
+
+        private final String emptyValue;
+
+        private final String defaultURL;
+
+        EntryContext(LiveDataQuery query, BaseClass xclass, XWikiContext xcontext) throws XWikiException
+        {
+            this.query = query;
+            this.xclass = xclass;
+            this.className = (String) query.getSource().getParameters().get(CLASS_NAME);
+            this.xcontext = xcontext;
+
+            XWiki xwiki = xcontext.getWiki();
+            this.hasAdmin = xwiki.getRightService().hasAdminRights(xcontext);
+            // Same as $isAdvancedUser in xwikivars.vm
+            this.isAdvancedUser = (xcontext.getUserReference() == null && authorization.hasAccess(Right.ADMIN))
+                || allUserPropertiesResolver.resolve(CurrentUserReference.INSTANCE).getType() == UserType.ADVANCED;
+
+            String emptyValueKey =
+                Objects.toString(query.getSource().getParameters().get(TRANSLATION_PREFIX), "") + "emptyvalue";
+            this.emptyValue =
+                StringUtils.defaultString(localization.getTranslationPlain(emptyValueKey), emptyValueKey);
+
+            this.defaultURL = xwiki.getURL(currentDocumentReferenceResolver.resolve(""), VIEW, xcontext);
+        }
+    }
+
+    /**
+     * Same as {@code #gridresult_buildRowJSON}, with the "doc_" prefix of the document fields replaced by "doc.".
+     */
+    private Map<String, Object> getEntry(Object item, DocumentReference documentReference, boolean viewable,
+        EntryContext entryContext) throws XWikiException
+    {
+        String docLanguage = item instanceof Object[] ? Objects.toString(((Object[]) item)[1], "") : "";
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        if (!viewable) {
+            entry.put(DOC_VIEWABLE, false);
+            entry.put(DOC_FULLNAME, "obfuscated");
+
+            return entry;
+        }
+
+        XWikiContext xcontext = entryContext.xcontext;
+        XWiki xwiki = xcontext.getWiki();
+
+        boolean hasEdit = this.authorization.hasAccess(Right.EDIT, documentReference);
+        boolean hasDelete = this.authorization.hasAccess(Right.DELETE, documentReference);
+
+        entry.put(DOC_VIEWABLE, true);
+        entry.put(DOC_FULLNAME, this.localSerializer.serialize(documentReference));
+        entry.put("doc.space", this.localSerializer.serialize(documentReference.getParent()));
+        entry.put("doc.url", xwiki.getURL(documentReference, xcontext));
+        entry.put("doc.space_url", xwiki.getURL(documentReference.getParent(), xcontext));
+        entry.put("doc.wiki", documentReference.getWikiReference().getName());
+        entry.put("doc.wiki_url", xwiki.getURL(documentReference.getWikiReference(), xcontext));
+        entry.put("doc.hasadmin", entryContext.hasAdmin);
+        entry.put("doc.hasedit", hasEdit);
+        entry.put("doc.hasdelete", hasDelete);
+        entry.put("doc.copy_url", xwiki.getURL(documentReference, VIEW, "xpage=copy", null, xcontext));
+        entry.put("doc.delete_url", xwiki.getURL(documentReference, "delete", xcontext));
+        entry.put("doc.rename_url", xwiki.getURL(documentReference, VIEW, "xpage=rename&step=1", null, xcontext));
+
+        boolean isTranslation =
+            !docLanguage.isEmpty() && !docLanguage.equals(xwiki.getLanguagePreference(xcontext));
+        entry.put("doc.name", documentReference.getName() + (isTranslation ? " (" + docLanguage + ')' : ""));
+        entry.put("doc.hascopy", true);
+        entry.put("doc.hasrename", hasDelete);
+        entry.put("doc.hasrights", hasEdit && entryContext.isAdvancedUser);
+        if ("WebHome".equals(documentReference.getName())) {
+            // For nested pages, use the page administration.
+            DocumentReference webPreferencesReference =
+                new DocumentReference("WebPreferences", documentReference.getLastSpaceReference());
+            entry.put("doc.rights_url", xwiki.getURL(webPreferencesReference, "admin",
+                "editor=spaceadmin&section=PageRights", null, xcontext));
+        } else {
+            // For terminal pages, use the old rights editor.
+            entry.put("doc.rights_url", xwiki.getURL(documentReference, "edit", "editor=rights", null, xcontext));
+        }
+
+        XWikiDocument itemDoc = xwiki.getDocument(documentReference, xcontext);
+        XWikiDocument translatedDoc = isTranslation ? itemDoc.getTranslatedDocument(docLanguage, xcontext)
+            : itemDoc.getTranslatedDocument(xcontext);
+
+        entry.put("doc.objectCount", itemDoc.getObjectNumbers(entryContext.className));
+        entry.put("doc.edit_url", itemDoc.getURL(itemDoc.getDefaultEditMode(xcontext), xcontext));
+        entry.put("doc.date", xwiki.formatDate(translatedDoc.getDate(), null, xcontext));
+        String plainTitle = translatedDoc.getRenderedTitle(Syntax.PLAIN_1_0, xcontext);
+        entry.put("doc.title", plainTitle);
+        if (!Objects.equals(translatedDoc.getTitle(), plainTitle)) {
+            entry.put("doc.title_raw", translatedDoc.getTitle());
+        }
+        addAuthor(translatedDoc.getAuthors().getOriginalMetadataAuthor(), entry, xcontext);
+        entry.put("doc.creationDate", xwiki.formatDate(translatedDoc.getCreationDate(), null, xcontext));
+        entry.put("doc.creator", xwiki.getPlainUserName(translatedDoc.getCreatorReference(), xcontext));
+        entry.put("doc.hidden", translatedDoc.isHidden());
+
+        for (String property : entryContext.query.getProperties()) {
+            if (!property.startsWith(DOC_PREFIX)) {
+                addPropertyValues(property, itemDoc, entry, entryContext);
+            }
+        }
+
+        return entry;
+    }
+
+    private void addAuthor(UserReference metadataAuthor, Map<String, Object> entry, XWikiContext xcontext)
+        throws XWikiException
+    {
+        XWiki xwiki = xcontext.getWiki();
+
+        // Special handling for guest so that it displays unknown user.
+        DocumentReference authorReference = null;
+        if (metadataAuthor != null && metadataAuthor != GuestUserReference.INSTANCE) {
+            authorReference = this.documentUserReferenceSerializer.serialize(metadataAuthor);
+        }
+        entry.put("doc.author", xwiki.getPlainUserName(authorReference, xcontext));
+
+        // Same as the conversion of the user reference to a string done by Velocity when calling $xwiki.getURL()
+        String author = metadataAuthor != null ? this.userReferenceSerializer.serialize(metadataAuthor) : null;
+        entry.put("doc.author_url", author != null ? xwiki.getURL(author, VIEW, xcontext) : "");
+    }
+
+    /**
+     * Same as {@code #gridresult_buildColumnJSON}.
+     */
+    private void addPropertyValues(String property, XWikiDocument itemDoc, Map<String, Object> entry,
+        EntryContext entryContext)
+    {
+        XWikiContext xcontext = entryContext.xcontext;
+
+        BaseObject fieldObject = itemDoc.getFirstObject(property, xcontext);
+        BaseProperty<?> fieldProperty = fieldObject != null ? (BaseProperty<?>) fieldObject.safeget(property) : null;
+        PropertyClass propertyClass = (PropertyClass) entryContext.xclass.get(property);
+
+        String fieldValue;
+        if (propertyClass instanceof PasswordClass) {
+            fieldValue = "********";
+        } else {
+            fieldValue = fieldProperty != null ? Objects.toString(fieldProperty.getValue(), "") : "";
+        }
+
+        BaseObject displayObject = itemDoc.getXObject(entryContext.xclass.getDocumentReference());
+        String fieldDisplayValue = StringUtils.removeEnd(StringUtils.removeStart(
+            itemDoc.display(property, VIEW, displayObject, xcontext), "{{html clean=\"false\" wiki=\"false\"}}"),
+            "{{/html}}");
+        if (StringUtils.isEmpty(fieldDisplayValue)) {
+            fieldDisplayValue = entryContext.emptyValue;
+        }
+
+        // Only retrieve an URL for a single value DBListClass or PageClass
+        String fieldUrl = "";
+        String propertyType = propertyClass.getClass().getSimpleName();
+        if (("DBListClass".equals(propertyType) || "PageClass".equals(propertyType))
+            && !((ListClass) propertyClass).isMultiSelect()) {
+            fieldUrl = xcontext.getWiki()
+                .getURL(this.currentDocumentReferenceResolver.resolve(fieldValue), VIEW, xcontext);
+            if (fieldUrl.equals(entryContext.defaultURL)) {
+                fieldUrl = "";
+            }
+        }
+
+        entry.put(property, fieldDisplayValue);
+        entry.put(property + "_value", fieldValue);
+        entry.put(property + "_url", fieldUrl);
+    }
+}
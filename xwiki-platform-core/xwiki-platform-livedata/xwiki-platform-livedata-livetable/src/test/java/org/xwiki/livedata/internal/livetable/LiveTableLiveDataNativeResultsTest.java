@@ -0,0 +1,254 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.livedata.internal.livetable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.extension.xar.internal.doc.InstalledExtensionDocumentTree;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.livedata.LiveDataQuery.Constraint;
+import org.xwiki.livedata.LiveDataQuery.Filter;
+import org.xwiki.livedata.LiveDataQuery.SortEntry;
+import org.xwiki.livedata.LiveDataQuery.Source;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.objects.classes.BaseClass;
+import com.xpn.xwiki.objects.classes.DateClass;
+import com.xpn.xwiki.objects.classes.NumberClass;
+import com.xpn.xwiki.objects.classes.StringClass;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link LiveTableLiveDataNativeResults}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class LiveTableLiveDataNativeResultsTest
+{
+    @InjectMockComponents
+    private LiveTableLiveDataNativeResults nativeResults;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
+    @MockComponent
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private InstalledExtensionDocumentTree installedExtensionDocumentTree;
+
+    private BaseClass xclass;
+
+    private LiveDataQuery query;
+
+    @BeforeEach
+    void before()
+    {
+        this.xclass = mock(BaseClass.class);
+
+        StringClass statusClass = mock(StringClass.class);
+        when(this.xclass.get("status")).thenReturn(statusClass);
+
+        NumberClass ageClass = mock(NumberClass.class);
+        when(ageClass.getNumberType()).thenReturn("integer");
+        when(this.xclass.get("age")).thenReturn(ageClass);
+
+        when(this.xclass.get("birthDate")).thenReturn(mock(DateClass.class));
+
+        this.query = new LiveDataQuery();
+        this.query.setSource(new Source());
+        this.query.getSource().setParameter("className", "Space.PersonClass");
+    }
+
+    private void mockXClass() throws Exception
+    {
+        XWikiContext xcontext = mock(XWikiContext.class);
+        when(this.xcontextProvider.get()).thenReturn(xcontext);
+        when(xcontext.getWikiReference()).thenReturn(new WikiReference("wiki"));
+        XWiki xwiki = mock(XWiki.class);
+        when(xcontext.getWiki()).thenReturn(xwiki);
+
+        DocumentReference classReference = new DocumentReference("wiki", "Space", "PersonClass");
+        when(this.currentDocumentReferenceResolver.resolve("Space.PersonClass")).thenReturn(classReference);
+        when(xwiki.getXClass(classReference, xcontext)).thenReturn(this.xclass);
+        when(this.xclass.getPropertyList()).thenReturn(List.of("status", "age", "birthDate"));
+    }
+
+    @Test
+    void getWithCustomizedLiveTableResultsMacros() throws Exception
+    {
+        mockXClass();
+        DocumentReference macrosReference = new DocumentReference("wiki", "XWiki", "LiveTableResultsMacros");
+        when(this.installedExtensionDocumentTree.isExtensionPage(any())).thenReturn(true);
+        when(this.installedExtensionDocumentTree.isCustomizedExtensionPage(macrosReference)).thenReturn(true);
+
+        this.query.setProperties(List.of("doc.title"));
+
+        assertFalse(this.nativeResults.get(this.query).isPresent());
+        verifyNoInteractions(this.queryManager);
+    }
+
+    @Test
+    void getWithLiveTableResultsNotFromExtension() throws Exception
+    {
+        mockXClass();
+
+        this.query.setProperties(List.of("doc.title"));
+
+        assertFalse(this.nativeResults.get(this.query).isPresent());
+        verifyNoInteractions(this.queryManager);
+    }
+
+    @Test
+    void getWhenCountFails() throws Exception
+    {
+        mockXClass();
+        when(this.installedExtensionDocumentTree.isExtensionPage(any())).thenReturn(true);
+
+        Query resultsQuery = mock(Query.class, RETURNS_SELF);
+        when(resultsQuery.execute()).thenReturn(List.of());
+        Query countQuery = mock(Query.class, RETURNS_SELF);
+        QueryException exception = new QueryException("Count failed", countQuery, null);
+        when(countQuery.execute()).thenThrow(exception);
+        when(this.queryManager.createQuery(anyString(), any())).thenReturn(resultsQuery, countQuery);
+
+        ComponentManager componentManager = mock(ComponentManager.class);
+        when(this.componentManagerProvider.get()).thenReturn(componentManager);
+        when(componentManager.getInstance(QueryFilter.class, "count")).thenReturn(mock(QueryFilter.class));
+
+        this.query.setProperties(List.of("doc.title"));
+
+        // The failure is not hidden behind a negative count
+        assertEquals(exception, assertThrows(QueryException.class, () -> this.nativeResults.get(this.query)));
+    }
+
+    @Test
+    void getWithCustomResultPage() throws Exception
+    {
+        this.query.getSource().setParameter("resultPage", "Panels.LiveTableResults");
+        this.query.setProperties(List.of("doc.title"));
+
+        assertFalse(this.nativeResults.get(this.query).isPresent());
+    }
+
+    @Test
+    void buildQuery()
+    {
+        this.query.setProperties(List.of("doc.title", "status", "age"));
+        this.query.setFilters(
+            List.of(new Filter("status", "contains", "act"), new Filter("doc.title", "contains", "Alice")));
+        this.query.setSort(List.of(new SortEntry("age", true)));
+
+        LiveTableLiveDataNativeResults.LiveTableQuery liveTableQuery =
+            this.nativeResults.buildQuery(this.query, this.xclass).get();
+
+        assertEquals(", BaseObject as obj , StringProperty as prop_status, IntegerProperty prop_age"
+            + " where obj.name=doc.fullName and obj.className = :className"
+            + " and doc.fullName not in (:classTemplate1, :classTemplate2) "
+            + " and upper(str(doc.title)) like upper(:doc_title_filter)"
+            + " and obj.id = prop_status.id.id and prop_status.id.name = :prop_status_id_name"
+            + " and (upper(prop_status.value) like upper(:prop_status_value_1))"
+            + " and obj.id=prop_age.id.id and prop_age.name = :prop_age_name"
+            + " order by prop_age.value desc", liveTableQuery.getStatement());
+
+        Map<String, Object> parameters = liveTableQuery.getParameters();
+        assertEquals("Space.PersonClass", parameters.get("className"));
+        assertEquals("Space.PersonClassTemplate", parameters.get("classTemplate1"));
+        assertEquals("Space.PersonTemplate", parameters.get("classTemplate2"));
+        assertEquals("%Alice%", parameters.get("doc_title_filter"));
+        assertEquals("status", parameters.get("prop_status_id_name"));
+        assertEquals("%act%", parameters.get("prop_status_value_1"));
+        assertEquals("age", parameters.get("prop_age_name"));
+    }
+
+    @Test
+    void buildQueryWithConstraintWithoutValue()
+    {
+        this.query.setProperties(List.of("status"));
+        Filter filter = new Filter("status", "contains", "act");
+        // The constraint without value must not change the match type of the other constraints
+        filter.getConstraints().add(0, new Constraint(null, "startsWith"));
+        this.query.setFilters(List.of(filter));
+
+        LiveTableLiveDataNativeResults.LiveTableQuery liveTableQuery =
+            this.nativeResults.buildQuery(this.query, this.xclass).get();
+
+        assertEquals(", BaseObject as obj , StringProperty as prop_status"
+            + " where obj.name=doc.fullName and obj.className = :className"
+            + " and doc.fullName not in (:classTemplate1, :classTemplate2) "
+            + " and obj.id = prop_status.id.id and prop_status.id.name = :prop_status_id_name"
+            + " and (upper(prop_status.value) like upper(:prop_status_value_1))", liveTableQuery.getStatement());
+        assertEquals("%act%", liveTableQuery.getParameters().get("prop_status_value_1"));
+    }
+
+    @Test
+    void buildQueryWithUnsupportedFilter()
+    {
+        this.query.setProperties(List.of("birthDate"));
+        this.query.setFilters(List.of(new Filter("birthDate", "between", "2020-01-01/2021-01-01")));
+
+        assertEquals(Optional.empty(), this.nativeResults.buildQuery(this.query, this.xclass));
+    }
+
+    @Test
+    void buildQueryWithSpecialColumn()
+    {
+        this.query.setProperties(List.of("doc.title", "_actions"));
+
+        assertEquals(Optional.empty(), this.nativeResults.buildQuery(this.query, this.xclass));
+    }
+}
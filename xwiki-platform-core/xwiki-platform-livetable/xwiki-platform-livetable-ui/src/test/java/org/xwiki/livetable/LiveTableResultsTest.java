@@ -20,6 +20,7 @@
 package org.xwiki.livetable;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -34,11 +35,19 @@
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.xwiki.extension.xar.internal.doc.InstalledExtensionDocumentTree;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.livedata.LiveDataQuery.Source;
+import org.xwiki.livedata.internal.livetable.LiveTableLiveDataNativeResults;
+import org.xwiki.localization.ContextualLocalizationManager;
 import org.xwiki.mail.GeneralMailConfiguration;
 import org.xwiki.mail.MailSender;
 import org.xwiki.mail.script.MailScriptServiceComponentList;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.script.ModelScriptService;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
 import org.xwiki.query.internal.ScriptQuery;
 import org.xwiki.query.script.QueryManagerScriptService;
 import org.xwiki.rendering.syntax.Syntax;
@@ -51,6 +60,9 @@
 import org.xwiki.test.page.XWikiSyntax20ComponentList;
 import org.xwiki.user.GuestUserReference;
 import org.xwiki.user.SuperAdminUserReference;
+import org.xwiki.user.UserProperties;
+import org.xwiki.user.UserPropertiesResolver;
+import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceComponentList;
 import org.xwiki.user.internal.converter.CurrentUserReferenceConverter;
 import org.xwiki.user.internal.converter.DocumentUserReferenceConverter;
@@ -78,6 +90,7 @@
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -99,7 +112,8 @@
     GuestUserReferenceConverter.class,
     DocumentUserReferenceConverter.class,
     CurrentUserReferenceConverter.class,
-    DocumentReferenceConverter.class
+    DocumentReferenceConverter.class,
+    LiveTableLiveDataNativeResults.class
 })
 class LiveTableResultsTest extends PageTest
 {
@@ -779,6 +793,80 @@ void authorSuperAdmin() throws Exception
         assertEquals("/xwiki/bin/view/XWiki/superadmin", rows.get(0).get("doc_author_url"));
     }
 
+    static Stream<UserReference> provideAuthors()
+    {
+        return Stream.of(SuperAdminUserReference.INSTANCE, GuestUserReference.INSTANCE);
+    }
+
+    /**
+     * Verify that the Java implementation of the live table results displays the author like the Velocity one.
+     */
+    @ParameterizedTest
+    @MethodSource("provideAuthors")
+    void authorSameAsNativeResults(UserReference author) throws Exception
+    {
+        UserScriptService userScriptService =
+            this.componentManager.registerMockComponent(ScriptService.class, "user", UserScriptService.class, false);
+        when(userScriptService.getGuestUserReference()).thenReturn(GuestUserReference.INSTANCE);
+
+        DocumentReference myClassReference = new DocumentReference("xwiki", "Space", "MyClass");
+        XWikiDocument xClassDocument = new XWikiDocument(myClassReference);
+        xClassDocument.getXClass().addTextField("name", "Name", 30);
+        this.xwiki.saveDocument(xClassDocument, this.context);
+
+        XWikiDocument xObjectDocument = new XWikiDocument(new DocumentReference("xwiki", "Space", "MyObject"));
+        xObjectDocument.newXObject(myClassReference, this.context);
+        xObjectDocument.getAuthors().setOriginalMetadataAuthor(author);
+        this.xwiki.saveDocument(xObjectDocument, this.context);
+
+        setColumns("doc.name");
+        setClassName("Space.MyClass");
+
+        doReturn("SuperAdmin").when(this.xwiki)
+            .getPlainUserName(new DocumentReference("xwiki", "XWiki", "superadmin"), this.context);
+        doReturn("Unknown User").when(this.xwiki).getPlainUserName((DocumentReference) null, this.context);
+
+        when(this.queryService.hql(anyString())).thenReturn(this.query);
+        when(this.query.setLimit(anyInt())).thenReturn(this.query);
+        when(this.query.setOffset(anyInt())).thenReturn(this.query);
+        when(this.query.bindValues(any(Map.class))).thenReturn(this.query);
+        when(this.query.count()).thenReturn(1L);
+        when(this.query.execute()).thenReturn(singletonList("Space.MyObject"));
+
+        renderPage();
+
+        Map<String, Object> velocityRow = getRows().get(0);
+
+        // Compute the same results in Java
+        QueryManager queryManager = this.componentManager.registerMockComponent(QueryManager.class);
+        Query nativeQuery = mock(Query.class, RETURNS_SELF);
+        when(queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(nativeQuery);
+        when(nativeQuery.execute()).thenReturn(singletonList("Space.MyObject"), singletonList(1L));
+        this.componentManager.registerMockComponent(QueryFilter.class, "count");
+        InstalledExtensionDocumentTree installedExtensionDocumentTree =
+            this.componentManager.registerMockComponent(InstalledExtensionDocumentTree.class);
+        when(installedExtensionDocumentTree.isExtensionPage(any())).thenReturn(true);
+        UserPropertiesResolver allUserPropertiesResolver =
+            this.componentManager.registerMockComponent(UserPropertiesResolver.class, "all");
+        when(allUserPropertiesResolver.resolve(any())).thenReturn(mock(UserProperties.class));
+        this.componentManager.registerMockComponent(ContextualLocalizationManager.class);
+        BitSet viewable = new BitSet();
+        viewable.set(0);
+        when(this.oldcore.getMockContextualAuthorizationManager().getAllowed(eq(Right.VIEW), any()))
+            .thenReturn(viewable);
+
+        LiveDataQuery liveDataQuery = new LiveDataQuery();
+        liveDataQuery.setSource(new Source());
+        liveDataQuery.getSource().setParameter("className", "Space.MyClass");
+        liveDataQuery.setProperties(List.of("doc.name"));
+        LiveTableLiveDataNativeResults nativeResults =
+            this.componentManager.getInstance(LiveTableLiveDataNativeResults.class);
+        Map<String, Object> nativeEntry = nativeResults.get(liveDataQuery).get().getEntries().get(0);
+
+        assertEquals(velocityRow.get("doc_author"), nativeEntry.get("doc.author"));
+        assertEquals(velocityRow.get("doc_author_url"), nativeEntry.get("doc.author_url"));
+    }
+
     //
     // Helper methods
     //
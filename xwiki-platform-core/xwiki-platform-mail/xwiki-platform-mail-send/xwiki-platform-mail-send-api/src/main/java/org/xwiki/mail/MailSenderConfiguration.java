@@ -23,6 +23,7 @@
 import java.util.Properties;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Represents all XWiki configuration options for the Mail Sending feature.
@@ -121,4 +122,26 @@ default int getSendQueueCapacity()
     {
         return 1000;
     }
+
+    /**
+     * @return the number of threads preparing the mails in parallel. The mails of a given batch are always prepared by
+     *         the same thread, in order
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default int getPrepareThreads()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the number of threads sending the mails in parallel, each thread using its own connection to the SMTP
+     *         server. Note that the {@link #getSendWaitTime() throttling} is shared by all the threads
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default int getSendThreads()
+    {
+        return 1;
+    }
 }
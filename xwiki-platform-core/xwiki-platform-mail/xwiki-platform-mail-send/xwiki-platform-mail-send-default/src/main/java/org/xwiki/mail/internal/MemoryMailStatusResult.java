@@ -19,8 +19,10 @@
  */
 package org.xwiki.mail.internal;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -40,7 +42,7 @@ public class MemoryMailStatusResult extends AbstractMailStatusResult
 {
     private abstract class AbstractMailStatusIterator implements Iterator<MailStatus>
     {
-        private final Iterator<MailStatus> it = statusMap.values().iterator();
+        private final Iterator<MailStatus> it = getStatuses().iterator();
         private MailStatus nextStatus;
 
         abstract boolean match(MailStatus status);
@@ -83,8 +85,11 @@ public void remove()
      *
      * Note that we keep the order in which messages are passed (i.e. the first status result will contain the first
      * mail sent, etc).
+     * <p>
+     * The map is updated concurrently when several mail sender threads are sending the mails of the same batch, so
+     * it's only accessed while holding the lock of this object.
      */
-    private Map<String, MailStatus> statusMap = new LinkedHashMap<>();
+    private final Map<String, MailStatus> statusMap = new LinkedHashMap<>();
 
     /**
      * Retrieve the status for the given message identifier.
@@ -92,7 +97,7 @@ public void remove()
      * @param uniqueMessageId the unique id of the message.
      * @return the mail status for the given message, or null if none were found.
      */
-    public MailStatus getStatus(String uniqueMessageId)
+    public synchronized MailStatus getStatus(String uniqueMessageId)
     {
         return this.statusMap.get(uniqueMessageId);
     }
@@ -102,15 +107,23 @@ public MailStatus getStatus(String uniqueMessageId)
      *
      * @param status the new status. Also contains the message id representing the target message
      */
-    public void setStatus(MailStatus status)
+    public synchronized void setStatus(MailStatus status)
     {
         this.statusMap.put(status.getMessageId(), status);
     }
 
+    /**
+     * @return a snapshot of the statuses, which can be iterated while mails are still being sent
+     */
+    private synchronized List<MailStatus> getStatuses()
+    {
+        return new ArrayList<>(this.statusMap.values());
+    }
+
     @Override
     public Iterator<MailStatus> getAll()
     {
-        return this.statusMap.values().iterator();
+        return getStatuses().iterator();
     }
 
     @Override
@@ -103,6 +103,8 @@ public class DefaultMailSenderConfiguration implements MailSenderConfiguration
 
     private static final String PREPARE_QUEUE_CAPACITY_PROPERTY = "prepareQueueCapacity";
     private static final String SEND_QUEUE_CAPACITY_PROPERTY = "sendQueueCapacity";
+    private static final String PREPARE_THREADS_PROPERTY = "prepareThreads";
+    private static final String SEND_THREADS_PROPERTY = "sendThreads";
 
     /**
      * The default size of the prepare queue.
@@ -349,6 +351,25 @@ public int getSendQueueCapacity()
             SEND_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public int getPrepareThreads()
+    {
+        return getThreads(PREPARE_THREADS_PROPERTY);
+    }
+
+    @Override
+    public int getSendThreads()
+    {
+        return getThreads(SEND_THREADS_PROPERTY);
+    }
+
+    private int getThreads(String property)
+    {
+        Integer threads = this.xwikiPropertiesSource.getProperty(PREFIX + property, 1);
+
+        return threads != null ? Math.max(threads, 1) : 1;
+    }
+
     private boolean isMainWiki()
     {
         return this.wikiDescriptorManager.isMainWiki(this.wikiDescriptorManager.getCurrentWikiId());
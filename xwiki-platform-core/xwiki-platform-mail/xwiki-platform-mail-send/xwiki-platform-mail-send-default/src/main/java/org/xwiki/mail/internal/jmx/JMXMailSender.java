@@ -0,0 +1,88 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.jmx;
+
+import java.util.List;
+
+import org.xwiki.mail.internal.thread.MailQueueManager;
+import org.xwiki.mail.internal.thread.PrepareMailQueueItem;
+import org.xwiki.mail.internal.thread.SendMailQueueItem;
+
+/**
+ * Implementation of the JMXMailSender MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class JMXMailSender implements JMXMailSenderMBean
+{
+    private final MailQueueManager<PrepareMailQueueItem> prepareMailQueueManager;
+
+    private final MailQueueManager<SendMailQueueItem> sendMailQueueManager;
+
+    private final List<Thread> prepareMailThreads;
+
+    private final List<Thread> sendMailThreads;
+
+    /**
+     * @param prepareMailQueueManager the queue of the mail items waiting to be prepared
+     * @param sendMailQueueManager the queue of the mails waiting to be sent
+     * @param prepareMailThreads the Mail Prepare Threads
+     * @param sendMailThreads the Mail Sender Threads
+     */
+    public JMXMailSender(MailQueueManager<PrepareMailQueueItem> prepareMailQueueManager,
+        MailQueueManager<SendMailQueueItem> sendMailQueueManager, List<Thread> prepareMailThreads,
+        List<Thread> sendMailThreads)
+    {
+        this.prepareMailQueueManager = prepareMailQueueManager;
+        this.sendMailQueueManager = sendMailQueueManager;
+        this.prepareMailThreads = prepareMailThreads;
+        this.sendMailThreads = sendMailThreads;
+    }
+
+    @Override
+    public int getPrepareQueueSize()
+    {
+        return this.prepareMailQueueManager.getQueueSize();
+    }
+
+    @Override
+    public int getSendQueueSize()
+    {
+        return this.sendMailQueueManager.getQueueSize();
+    }
+
+    @Override
+    public int getPrepareThreads()
+    {
+        return countAlive(this.prepareMailThreads);
+    }
+
+    @Override
+    public int getSendThreads()
+    {
+        return countAlive(this.sendMailThreads);
+    }
+
+    private int countAlive(List<Thread> threads)
+    {
+        return (int) threads.stream().filter(Thread::isAlive).count();
+    }
+}
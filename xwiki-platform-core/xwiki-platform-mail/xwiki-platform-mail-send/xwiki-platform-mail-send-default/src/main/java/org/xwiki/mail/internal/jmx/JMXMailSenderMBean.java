@@ -0,0 +1,49 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.jmx;
+
+/**
+ * Interface of the {@link JMXMailSender} MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public interface JMXMailSenderMBean
+{
+    /**
+     * @return the number of mail items (batches) waiting to be prepared
+     */
+    int getPrepareQueueSize();
+
+    /**
+     * @return the number of prepared mails waiting to be sent
+     */
+    int getSendQueueSize();
+
+    /**
+     * @return the number of running Mail Prepare Threads
+     */
+    int getPrepareThreads();
+
+    /**
+     * @return the number of running Mail Sender Threads
+     */
+    int getSendThreads();
+}
@@ -93,4 +93,38 @@ default boolean addMessageToQueue(T mailQueueItem, long timeout, TimeUnit unit)
      * @return true if the removal was successful, false otherwise
      */
     boolean removeMessageFromQueue(T mailQueueItem);
+
+    /**
+     * Retrieves and removes the next mail on the queue, waiting up to the passed timeout if the queue is empty. Unlike
+     * {@link #peekMessage()} followed by {@link #removeMessageFromQueue(MailQueueItem)}, it's safe to call it from
+     * several threads consuming the same queue since each mail is returned to a single caller.
+     *
+     * @param timeout how long to wait before giving up, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the {@code timeout} parameter
+     * @return the next mail on the queue or {@code null} if the queue stayed empty during the whole timeout
+     * @throws InterruptedException if interrupted while waiting
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default T takeMessage(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        T mailQueueItem = peekMessage();
+        if (mailQueueItem != null && removeMessageFromQueue(mailQueueItem)) {
+            return mailQueueItem;
+        }
+
+        unit.sleep(timeout);
+
+        return null;
+    }
+
+    /**
+     * @return the number of mails waiting on the queue
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default int getQueueSize()
+    {
+        return hasMessage() ? 1 : 0;
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.thread;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * Throttle the mails sent by all the Mail Sender Threads so that, globally, no more than one mail is sent every
+ * {@link org.xwiki.mail.MailSenderConfiguration#getSendWaitTime() send wait time}.
+ * <p>
+ * Each sender reserves the next free slot and only waits for the time left until that slot, outside of any lock. This
+ * means that the time spent sending a mail counts as part of the wait time and that several senders never wait for
+ * each other longer than needed.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = MailRateLimiter.class)
+@Singleton
+public class MailRateLimiter
+{
+    /**
+     * The time (as returned by {@link System#nanoTime()}) from which the next mail can be sent.
+     */
+    private long nextSlot = System.nanoTime();
+
+    /**
+     * Wait until the current thread is allowed to send a mail.
+     *
+     * @param interval the minimum time between two mails, in milliseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(long interval) throws InterruptedException
+    {
+        if (interval > 0) {
+            long delay = reserve(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(interval));
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Reserve the next free slot.
+     *
+     * @param now the current time, in nanoseconds
+     * @param interval the minimum time between two mails, in nanoseconds
+     * @return the time to wait before the reserved slot, in nanoseconds
+     */
+    synchronized long reserve(long now, long interval)
+    {
+        // Don't accumulate credit while the senders are idle, so that a burst of mails is still throttled
+        long slot = Math.max(this.nextSlot, now);
+        this.nextSlot = slot + interval;
+
+        return slot - now;
+    }
+}
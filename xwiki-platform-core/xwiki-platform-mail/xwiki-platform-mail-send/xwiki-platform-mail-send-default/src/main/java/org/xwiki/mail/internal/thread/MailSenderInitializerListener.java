@@ -22,17 +22,24 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.bridge.event.ApplicationReadyEvent;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.component.phase.Disposable;
+import org.xwiki.mail.MailSenderConfiguration;
+import org.xwiki.mail.internal.jmx.JMXMailSender;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.event.Event;
 
@@ -40,6 +47,9 @@
  * Used to trigger the mails Thread used to prepare and send mails. Note that we want application to be ready before
  * starting the mail threads since sending mail require access to the configuration which is usually defined in wiki
  * pages.
+ * <p>
+ * The number of Mail Prepare and Mail Sender Threads is controlled by
+ * {@link MailSenderConfiguration#getPrepareThreads()} and {@link MailSenderConfiguration#getSendThreads()}.
  *
  * @version $Id$
  * @since 7.4.5
@@ -64,6 +74,8 @@ public class MailSenderInitializerListener implements EventListener, Disposable
      */
     private static final Logger SHUTDOWN_LOGGER = LoggerFactory.getLogger("org.xwiki.shutdown");
 
+    private static final String MBEAN_NAME = "type=Mail,name=sender";
+
     @Inject
     @Named("prepare")
     private MailRunnable prepareMailRunnable;
@@ -72,9 +84,26 @@ public class MailSenderInitializerListener implements EventListener, Disposable
     @Named("send")
     private MailRunnable sendMailRunnable;
 
-    private Thread prepareMailThread;
+    @Inject
+    private MailQueueManager<PrepareMailQueueItem> prepareMailQueueManager;
+
+    @Inject
+    private MailQueueManager<SendMailQueueItem> sendMailQueueManager;
+
+    @Inject
+    private MailSenderConfiguration configuration;
 
-    private Thread sendMailThread;
+    @Inject
+    private ComponentManager componentManager;
+
+    @Inject
+    private Logger logger;
+
+    private final List<Thread> prepareMailThreads = new CopyOnWriteArrayList<>();
+
+    private final List<Thread> sendMailThreads = new CopyOnWriteArrayList<>();
+
+    private JMXBeanRegistration jmxRegistration;
 
     @Override
     public String getName()
@@ -91,18 +120,56 @@ public List<Event> getEvents()
     @Override
     public void onEvent(Event event, Object o, Object o1)
     {
-        // Step 1: Start the Mail Prepare Thread
-        this.prepareMailThread = new Thread(this.prepareMailRunnable);
-        this.prepareMailThread.setName("Mail Prepare Thread");
-        this.prepareMailThread.setDaemon(true);
-        this.prepareMailThread.start();
-
-        // Step 2: Start the Mail Sender Thread
-        this.sendMailThread = new Thread(this.sendMailRunnable);
-        this.sendMailThread.setName("Mail Sender Thread");
-        this.sendMailThread.setDaemon(true);
-        this.sendMailThread.start();
+        // Step 1: Start the Mail Prepare Threads
+        startMailThreads(this.prepareMailRunnable, "Mail Prepare Thread", this.configuration.getPrepareThreads(),
+            this.prepareMailThreads);
 
+        // Step 2: Start the Mail Sender Threads
+        startMailThreads(this.sendMailRunnable, "Mail Sender Thread", this.configuration.getSendThreads(),
+            this.sendMailThreads);
+
+        // Step 3: Expose the state of the queues through JMX (when available)
+        registerMBean();
+    }
+
+    private void startMailThreads(MailRunnable runnable, String name, int count, List<Thread> threads)
+    {
+        for (int i = 1; i <= count; ++i) {
+            Thread thread = new Thread(runnable);
+            // Keep the historical name when there is a single thread
+            thread.setName(count > 1 ? name + ' ' + i : name);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    private void registerMBean()
+    {
+        // JMX support is optional
+        if (this.componentManager.hasComponent(JMXBeanRegistration.class)) {
+            try {
+                this.jmxRegistration = this.componentManager.getInstance(JMXBeanRegistration.class);
+                this.jmxRegistration.registerMBean(new JMXMailSender(this.prepareMailQueueManager,
+                    this.sendMailQueueManager, this.prepareMailThreads, this.sendMailThreads), MBEAN_NAME);
+            } catch (ComponentLookupException e) {
+                this.logger.warn("Failed to register the mail sender MBean. Root cause: [{}]",
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    private void stopMailThreads(MailRunnable runnable, List<Thread> threads) throws InterruptedException
+    {
+        runnable.stopProcessing();
+        // Make sure the Threads go out of sleep if they're sleeping so that they stop immediately.
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        // Wait till the threads go away
+        for (Thread thread : threads) {
+            thread.join();
+        }
     }
 
     /**
@@ -112,32 +179,28 @@ public void onEvent(Event event, Object o, Object o1)
      */
     private void stopMailThreads() throws InterruptedException
     {
-        // Step 1: Stop the Mail Sender Thread
-
-        if (this.sendMailThread != null) {
-            this.sendMailRunnable.stopProcessing();
-            // Make sure the Thread goes out of sleep if it's sleeping so that it stops immediately.
-            this.sendMailThread.interrupt();
-            // Wait till the thread goes away
-            this.sendMailThread.join();
-            SHUTDOWN_LOGGER.debug(String.format("Mail Prepare Thread has been stopped"));
+        // Step 1: Stop the Mail Sender Threads
+
+        if (!this.sendMailThreads.isEmpty()) {
+            stopMailThreads(this.sendMailRunnable, this.sendMailThreads);
+            SHUTDOWN_LOGGER.debug("Mail Sender Threads have been stopped");
         }
 
-        // Step 2: Stop the Mail Prepare Thread
+        // Step 2: Stop the Mail Prepare Threads
 
-        if (this.prepareMailThread != null) {
-            this.prepareMailRunnable.stopProcessing();
-            // Make sure the Thread goes out of sleep if it's sleeping so that it stops immediately.
-            this.prepareMailThread.interrupt();
-            // Wait till the thread goes away
-            this.prepareMailThread.join();
-            SHUTDOWN_LOGGER.debug(String.format("Mail Sender Thread has been stopped"));
+        if (!this.prepareMailThreads.isEmpty()) {
+            stopMailThreads(this.prepareMailRunnable, this.prepareMailThreads);
+            SHUTDOWN_LOGGER.debug("Mail Prepare Threads have been stopped");
         }
     }
 
     @Override
     public void dispose() throws ComponentLifecycleException
     {
+        if (this.jmxRegistration != null) {
+            this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+        }
+
         try {
             stopMailThreads();
         } catch (InterruptedException e) {
@@ -46,6 +46,8 @@
 /**
  * Runnable that regularly check for mail items on a Prepare Queue, and for each mail item there, generate the message
  * to send and persist it and put that reference on the Send Queue for sending.
+ * <p>
+ * The same instance can be executed by several Mail Prepare Threads at the same time.
  *
  * @version $Id$
  * @since 6.4
@@ -72,19 +74,15 @@ public void run()
     {
         do {
             try {
-                // Handle next message in the queue
-                if (this.prepareMailQueueManager.hasMessage()) {
-                    // Important: only remove the mail item after the message has been created and put on the sender
-                    // queue.
-                    PrepareMailQueueItem mailItem = this.prepareMailQueueManager.peekMessage();
-                    try {
-                        prepareMail(mailItem);
-                    } finally {
-                        this.prepareMailQueueManager.removeMessageFromQueue(mailItem);
-                    }
+                // Handle next message in the queue.
+                // Note: the mail item is taken from the queue so that it's prepared by a single Mail Prepare Thread.
+                // Since a mail item holds a whole batch, the messages of a batch are always put on the sender queue
+                // in order, even when several Mail Prepare Threads are running. The timeout allows to regularly check
+                // if the thread should stop.
+                PrepareMailQueueItem mailItem = this.prepareMailQueueManager.takeMessage(100L, TimeUnit.MILLISECONDS);
+                if (mailItem != null) {
+                    prepareMail(mailItem);
                 }
-                // Note: a short pause to catch thread interruptions and to be kind on CPU.
-                Thread.sleep(100L);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 // Thread has been interrupted, exit
@@ -20,6 +20,7 @@
 package org.xwiki.mail.internal.thread;
 
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -42,6 +43,10 @@
 
 /**
  * Runnable that regularly check for mails on a Queue, and for each mail tries to send it.
+ * <p>
+ * The same instance can be executed by several Mail Sender Threads at the same time: each thread keeps its own
+ * connection to the SMTP server and the throttling configured with
+ * {@link org.xwiki.mail.MailSenderConfiguration#getSendWaitTime()} is shared by all of them.
  *
  * @version $Id$
  * @since 6.4
@@ -64,25 +69,38 @@ public class SendMailRunnable extends AbstractMailRunnable
     @Inject
     private Provider<XWikiContext> contextProvider;
 
-    private Transport currentTransport;
+    @Inject
+    private MailRateLimiter rateLimiter;
 
-    private Session currentSession;
+    /**
+     * The connection to the SMTP server of a Mail Sender Thread.
+     *
+     * @version $Id$
+     * @since 16.8.0RC1
+     */
+    protected static class SMTPConnection
+    {
+        private Transport transport;
 
-    private int count;
+        private Session session;
+
+        private int count;
+    }
 
     @Override
     public void run()
     {
+        SMTPConnection connection = new SMTPConnection();
         try {
             // Make sure we initialize an execution context.
             prepareContext();
 
-            runInternal();
+            runInternal(connection);
         } catch (ExecutionContextException e) {
             // Not much to do but log.
             logger.error("Failed to initialize the send mail thread's execution context", e);
         } finally {
-            closeTransport();
+            closeTransport(connection);
         }
     }
 
@@ -96,33 +114,31 @@ private void prepareContext() throws ExecutionContextException
     private void prepareContextForQueueItem(SendMailQueueItem mailItem)
     {
         // Set the current wiki in the context. This is needed for example to be able to locate the configuration
-        // properties when processing the mail queue items (in waitSendWaitTime()).
+        // properties when processing the mail queue items (when throttling the mails).
         XWikiContext xcontext = this.contextProvider.get();
         xcontext.setWikiId(mailItem.getWikiId());
     }
 
-    private void runInternal()
+    private void runInternal(SMTPConnection connection)
     {
         do {
             try {
-                // Handle next message in the queue
-                if (this.sendMailQueueManager.hasMessage()) {
-                    // Important: only remove the mail item from the queue after the mail has been sent as
-                    // otherwise, MailSender.waitTillSent() may return before the mail is actually sent!
-                    SendMailQueueItem mailItem = this.sendMailQueueManager.peekMessage();
-                    try {
-                        sendMail(mailItem);
-                    } finally {
-                        this.sendMailQueueManager.removeMessageFromQueue(mailItem);
-                    }
-                    // Email throttling: Wait before processing the next mail queue item
-                    // Note: it's important that we wait after the previous item has been removed from the queue in
-                    // order to let users know as soon as possible that their mail has been sent (otherwise when sending
-                    // a synchronous mail, the user would have to wait the send wait time!).
-                    waitSendWaitTime();
+                // Handle next message in the queue.
+                // Note: the mail item is taken from the queue so that it's sent by a single Mail Sender Thread.
+                // MailSender.waitTillSent() relies on the status of the listener so it won't return before the mail
+                // is actually sent. The timeout allows to regularly check if the thread should stop.
+                SendMailQueueItem mailItem = this.sendMailQueueManager.takeMessage(50L, TimeUnit.MILLISECONDS);
+                if (mailItem != null) {
+                    prepareContextForQueueItem(mailItem);
+
+                    // Email throttling: wait for the next slot shared by all the Mail Sender Threads.
+                    // Note: it's important that we wait before sending the mail and not after in order to let users
+                    // know as soon as possible that their mail has been sent (otherwise when sending a synchronous
+                    // mail, the user would have to wait the send wait time!).
+                    this.rateLimiter.acquire(this.configuration.getSendWaitTime());
+
+                    sendMail(mailItem, connection);
                 }
-                // Note: a short pause to catch thread interruptions and to be kind on CPU.
-                Thread.sleep(50L);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 // Thread has been interrupted, exit
@@ -139,11 +155,11 @@ private void runInternal()
      * Send the mail.
      *
      * @param item the queue item containing all the data for sending the mail
+     * @param connection the connection to the SMTP server of the current thread
+     * @since 16.8.0RC1
      */
-    protected void sendMail(SendMailQueueItem item)
+    protected void sendMail(SendMailQueueItem item, SMTPConnection connection)
     {
-        prepareContextForQueueItem(item);
-
         MailListener listener = item.getListener();
 
         ExtendedMimeMessage message;
@@ -162,20 +178,20 @@ protected void sendMail(SendMailQueueItem item)
             // the current Transport, get a new one and reconnect.
             // Also do that every 100 mails sent.
             // TODO: explain why!
-            if (item.getSession() != this.currentSession || (this.count % 100) == 0) {
-                closeTransport();
-                this.currentSession = item.getSession();
-                this.currentTransport = this.currentSession.getTransport("smtp");
-                this.currentTransport.connect();
-            } else if (!this.currentTransport.isConnected()) {
-                this.currentTransport.connect();
+            if (item.getSession() != connection.session || (connection.count % 100) == 0) {
+                closeTransport(connection);
+                connection.session = item.getSession();
+                connection.transport = connection.session.getTransport("smtp");
+                connection.transport.connect();
+            } else if (!connection.transport.isConnected()) {
+                connection.transport.connect();
             }
 
             // Step 3: Send the mail
             // Unlike the static send method, the sendMessage method does not call the saveChanges method on the
             // message; this prevent the MessageID header to be changed.
-            this.currentTransport.sendMessage(message, message.getAllRecipients());
-            this.count++;
+            connection.transport.sendMessage(message, message.getAllRecipients());
+            connection.count++;
 
             // Step 4: Notify the user of the success if a listener has been provided
             // Note that the listener is in charge of deleting the message from the mail content store.
@@ -190,17 +206,11 @@ protected void sendMail(SendMailQueueItem item)
         }
     }
 
-    private void waitSendWaitTime() throws InterruptedException
-    {
-        long sendWaitTime = this.configuration.getSendWaitTime();
-        Thread.sleep(sendWaitTime);
-    }
-
-    private void closeTransport()
+    private void closeTransport(SMTPConnection connection)
     {
-        if (this.currentTransport != null) {
+        if (connection.transport != null) {
             try {
-                this.currentTransport.close();
+                connection.transport.close();
             } catch (MessagingException e) {
                 this.logger.warn("Failed to close JavaMail Transport connection. Reason [{}]",
                     ExceptionUtils.getRootCauseMessage(e));
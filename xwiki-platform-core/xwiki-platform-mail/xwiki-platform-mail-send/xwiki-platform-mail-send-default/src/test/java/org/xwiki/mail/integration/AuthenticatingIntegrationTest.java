@@ -56,6 +56,7 @@
 import org.xwiki.mail.internal.configuration.DefaultMailSenderConfiguration;
 import org.xwiki.mail.internal.factory.attachment.AttachmentMimeBodyPartFactory;
 import org.xwiki.mail.internal.factory.text.TextMimeBodyPartFactory;
+import org.xwiki.mail.internal.thread.MailRateLimiter;
 import org.xwiki.mail.internal.thread.MailSenderInitializerListener;
 import org.xwiki.mail.internal.thread.PrepareMailQueueManager;
 import org.xwiki.mail.internal.thread.PrepareMailRunnable;
@@ -98,6 +99,7 @@
     DefaultMailSender.class,
     MemoryMailListener.class,
     SendMailRunnable.class,
+    MailRateLimiter.class,
     PrepareMailRunnable.class,
     PrepareMailQueueManager.class,
     SendMailQueueManager.class,
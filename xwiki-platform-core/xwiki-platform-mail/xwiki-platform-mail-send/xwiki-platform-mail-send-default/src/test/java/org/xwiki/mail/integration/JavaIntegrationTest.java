@@ -22,9 +22,12 @@
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -56,6 +59,8 @@
 import org.xwiki.mail.MailListener;
 import org.xwiki.mail.MailSender;
 import org.xwiki.mail.MailSenderConfiguration;
+import org.xwiki.mail.MailState;
+import org.xwiki.mail.MailStatusResult;
 import org.xwiki.mail.MimeBodyPartFactory;
 import org.xwiki.mail.internal.DefaultMailSender;
 import org.xwiki.mail.internal.FileSystemMailContentStore;
@@ -63,6 +68,8 @@
 import org.xwiki.mail.internal.factory.attachment.AttachmentMimeBodyPartFactory;
 import org.xwiki.mail.internal.factory.html.HTMLMimeBodyPartFactory;
 import org.xwiki.mail.internal.factory.text.TextMimeBodyPartFactory;
+import org.xwiki.mail.internal.thread.MailRateLimiter;
+import org.xwiki.mail.internal.thread.MailRunnable;
 import org.xwiki.mail.internal.thread.MailSenderInitializerListener;
 import org.xwiki.mail.internal.thread.PrepareMailQueueManager;
 import org.xwiki.mail.internal.thread.PrepareMailRunnable;
@@ -86,7 +93,9 @@
 import com.xpn.xwiki.api.Attachment;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -107,6 +116,7 @@
     DefaultMailSender.class,
     MemoryMailListener.class,
     SendMailRunnable.class,
+    MailRateLimiter.class,
     PrepareMailRunnable.class,
     PrepareMailQueueManager.class,
     SendMailQueueManager.class,
@@ -272,6 +282,58 @@ public void sendTextMail() throws Exception
         // messages ;) But we checked that we received 9 emails above so that's good enough.
     }
 
+    @Test
+    public void sendMailsWithSeveralSenderThreads() throws Exception
+    {
+        // Start more sender threads, in addition to the one started by the listener, so that the mails of the same
+        // batch are sent concurrently
+        MailRunnable sendMailRunnable = this.componentManager.getInstance(MailRunnable.class, "send");
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            Thread thread = new Thread(sendMailRunnable);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            Session session = Session.getInstance(this.configuration.getAllProperties());
+
+            List<MimeMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 20; ++i) {
+                MimeMessage message = new MimeMessage(session);
+                message.setSubject("subject " + i);
+                message.setRecipient(RecipientType.TO, new InternetAddress("john@doe.com"));
+                message.setText("some text here");
+                message.saveChanges();
+                messages.add(message);
+            }
+
+            MailListener memoryMailListener = this.componentManager.getInstance(MailListener.class, "memory");
+            this.sender.sendAsynchronously(messages, session, memoryMailListener);
+
+            // Make sure no processed mail is lost when the sender threads update the status concurrently
+            MailStatusResult result = memoryMailListener.getMailStatusResult();
+            result.waitTillProcessed(30000L);
+
+            assertTrue(result.isProcessed());
+            assertEquals(20, result.getProcessedMailCount());
+            assertFalse(result.getAllErrors().hasNext(), "There should not be any error");
+            int sent = 0;
+            for (Iterator<?> it = result.getByState(MailState.SEND_SUCCESS); it.hasNext(); it.next()) {
+                sent++;
+            }
+            assertEquals(20, sent);
+            assertEquals(20, this.greenMail.getReceivedMessages().length);
+        } finally {
+            sendMailRunnable.stopProcessing();
+            for (Thread thread : threads) {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+    }
+
     @Test
     public void sendHTMLAndCalendarInvitationMail() throws Exception
     {
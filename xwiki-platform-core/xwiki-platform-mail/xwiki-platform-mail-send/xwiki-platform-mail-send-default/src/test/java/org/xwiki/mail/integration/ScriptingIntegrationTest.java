@@ -53,6 +53,7 @@
 import org.xwiki.mail.internal.FileSystemMailContentStore;
 import org.xwiki.mail.internal.MemoryMailListener;
 import org.xwiki.mail.internal.factory.text.TextMimeBodyPartFactory;
+import org.xwiki.mail.internal.thread.MailRateLimiter;
 import org.xwiki.mail.internal.thread.MailSenderInitializerListener;
 import org.xwiki.mail.internal.thread.PrepareMailQueueManager;
 import org.xwiki.mail.internal.thread.PrepareMailRunnable;
@@ -106,6 +107,7 @@
     MemoryMailListener.class,
     DefaultSessionFactory.class,
     SendMailRunnable.class,
+    MailRateLimiter.class,
     PrepareMailRunnable.class,
     PrepareMailQueueManager.class,
     SendMailQueueManager.class,
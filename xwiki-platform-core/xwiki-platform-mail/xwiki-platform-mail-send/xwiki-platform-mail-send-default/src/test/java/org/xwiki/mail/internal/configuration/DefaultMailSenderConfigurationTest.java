@@ -291,4 +291,17 @@ public void getPortWhenMailConfigDoesntExist()
 
         assertEquals(25, this.configuration.getPort());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getThreads()
+    {
+        assertEquals(1, this.configuration.getPrepareThreads());
+        assertEquals(1, this.configuration.getSendThreads());
+
+        when(this.xwikiPropertiesSource.getProperty("mail.sender.prepareThreads", 1)).thenReturn(2);
+        when(this.xwikiPropertiesSource.getProperty("mail.sender.sendThreads", 1)).thenReturn(0);
+
+        assertEquals(2, this.configuration.getPrepareThreads());
+        assertEquals(1, this.configuration.getSendThreads());
+    }
+}
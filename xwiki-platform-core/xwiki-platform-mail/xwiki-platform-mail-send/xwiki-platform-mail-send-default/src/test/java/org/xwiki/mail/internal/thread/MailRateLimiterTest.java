@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.thread;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link MailRateLimiter}.
+ *
+ * @version $Id$
+ */
+class MailRateLimiterTest
+{
+    private final MailRateLimiter rateLimiter = new MailRateLimiter();
+
+    @Test
+    void reserve()
+    {
+        long now = System.nanoTime();
+
+        // The first mail can be sent right away, the next ones have to wait for their slot
+        assertEquals(0, this.rateLimiter.reserve(now, 100));
+        assertEquals(100, this.rateLimiter.reserve(now, 100));
+        assertEquals(150, this.rateLimiter.reserve(now + 50, 100));
+
+        // No credit is accumulated while idle
+        assertEquals(0, this.rateLimiter.reserve(now + 1000, 100));
+        assertEquals(100, this.rateLimiter.reserve(now + 1000, 100));
+    }
+
+    @Test
+    void acquireWithoutInterval() throws InterruptedException
+    {
+        this.rateLimiter.acquire(0);
+        this.rateLimiter.acquire(0);
+
+        // Not throttling doesn't reserve any slot
+        assertEquals(0, this.rateLimiter.reserve(System.nanoTime(), 100));
+    }
+}
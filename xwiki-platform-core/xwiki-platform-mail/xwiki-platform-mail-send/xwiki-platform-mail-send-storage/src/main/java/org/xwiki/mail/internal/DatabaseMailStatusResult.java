@@ -48,7 +48,7 @@ public class DatabaseMailStatusResult extends AbstractMailStatusResult
 
     private MailStatusStore mailStatusStore;
 
-    private String batchId;
+    private volatile String batchId;
 
     /**
      * Constructor initializing the DatabaseMailStatusResult with MailStatusStore.
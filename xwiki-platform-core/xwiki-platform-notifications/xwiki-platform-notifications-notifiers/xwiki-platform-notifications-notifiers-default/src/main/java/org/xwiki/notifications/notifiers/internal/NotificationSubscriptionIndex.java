@@ -0,0 +1,300 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.NotificationException;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.NotificationFilterPreference;
+import org.xwiki.notifications.filters.NotificationFilterPreferenceManager;
+import org.xwiki.notifications.filters.NotificationFilterType;
+import org.xwiki.notifications.filters.internal.user.EventUserFilter;
+import org.xwiki.notifications.preferences.NotificationPreference;
+import org.xwiki.notifications.preferences.NotificationPreferenceManager;
+import org.xwiki.notifications.preferences.NotificationPreferenceProperty;
+
+/**
+ * In-memory inverted index of the notification subscriptions of the users, used to quickly find the users which might
+ * be listening to a given event instead of evaluating all the filters of every user of the wiki.
+ * <p>
+ * The index is a superset: a user returned by {@link #getCandidates(Event, Collection)} still has to be checked with
+ * {@link UserEventManager#isListening(Event, DocumentReference, NotificationFormat)}, but a user which is not returned
+ * is guaranteed to not be listening to the event. It's built lazily and invalidated by
+ * {@link NotificationSubscriptionIndexListener} when the notification preferences or filter preferences change.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = NotificationSubscriptionIndex.class)
+@Singleton
+public class NotificationSubscriptionIndex
+{
+    /**
+     * What a user subscribed to.
+     */
+    private static final class Subscription
+    {
+        /**
+         * True when the user does not have any notification preference, in which case all events are accepted.
+         */
+        private boolean allEventTypes;
+
+        private final Map<NotificationFormat, Set<String>> eventTypes = new EnumMap<>(NotificationFormat.class);
+
+        private final Map<NotificationFormat, Set<DocumentReference>> followedUsers =
+            new EnumMap<>(NotificationFormat.class);
+
+        private Set<String> getEventTypes(NotificationFormat format)
+        {
+            return this.eventTypes.getOrDefault(format, Set.of());
+        }
+
+        private Set<DocumentReference> getFollowedUsers(NotificationFormat format)
+        {
+            return this.followedUsers.getOrDefault(format, Set.of());
+        }
+    }
+
+    /**
+     * The inverted index for a given notification format.
+     */
+    private static final class FormatIndex
+    {
+        private final NotificationFormat format;
+
+        private final Set<DocumentReference> allEventTypes = new HashSet<>();
+
+        private final Map<String, Set<DocumentReference>> byEventType = new HashMap<>();
+
+        private final Map<DocumentReference, Set<DocumentReference>> byFollowedUser = new HashMap<>();
+
+        private FormatIndex(NotificationFormat format)
+        {
+            this.format = format;
+        }
+
+        private void add(DocumentReference user, Subscription subscription)
+        {
+            if (subscription.allEventTypes) {
+                this.allEventTypes.add(user);
+            }
+            for (String eventType : subscription.getEventTypes(this.format)) {
+                this.byEventType.computeIfAbsent(eventType, k -> new HashSet<>()).add(user);
+            }
+            for (DocumentReference followedUser : subscription.getFollowedUsers(this.format)) {
+                this.byFollowedUser.computeIfAbsent(followedUser, k -> new HashSet<>()).add(user);
+            }
+        }
+
+        private void remove(DocumentReference user, Subscription subscription)
+        {
+            this.allEventTypes.remove(user);
+            for (String eventType : subscription.getEventTypes(this.format)) {
+                remove(this.byEventType, eventType, user);
+            }
+            for (DocumentReference followedUser : subscription.getFollowedUsers(this.format)) {
+                remove(this.byFollowedUser, followedUser, user);
+            }
+        }
+
+        private <K> void remove(Map<K, Set<DocumentReference>> map, K key, DocumentReference user)
+        {
+            Set<DocumentReference> users = map.get(key);
+            if (users != null) {
+                users.remove(user);
+                if (users.isEmpty()) {
+                    map.remove(key);
+                }
+            }
+        }
+
+        private void collect(Event event, Set<DocumentReference> candidates)
+        {
+            candidates.addAll(this.allEventTypes);
+            candidates.addAll(this.byEventType.getOrDefault(event.getType(), Set.of()));
+            if (event.getUser() != null) {
+                candidates.addAll(this.byFollowedUser.getOrDefault(event.getUser(), Set.of()));
+            }
+        }
+    }
+
+    @Inject
+    private NotificationPreferenceManager notificationPreferenceManager;
+
+    @Inject
+    private NotificationFilterPreferenceManager notificationFilterPreferenceManager;
+
+    @Inject
+    private DocumentReferenceResolver<String> referenceResolver;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<DocumentReference, Subscription> subscriptions = new HashMap<>();
+
+    private final Map<NotificationFormat, FormatIndex> formats = new EnumMap<>(NotificationFormat.class);
+
+    /**
+     * Default constructor.
+     */
+    public NotificationSubscriptionIndex()
+    {
+        for (NotificationFormat format : NotificationFormat.values()) {
+            this.formats.put(format, new FormatIndex(format));
+        }
+    }
+
+    /**
+     * @param event the event
+     * @param users the users to check
+     * @return the passed users which might be listening to the event in any notification format
+     */
+    public synchronized Set<DocumentReference> getCandidates(Event event, Collection<DocumentReference> users)
+    {
+        Set<DocumentReference> candidates = new HashSet<>();
+
+        for (DocumentReference user : users) {
+            if (!this.subscriptions.containsKey(user) && !index(user)) {
+                // We don't know what the user subscribed to so it has to go through the complete evaluation
+                candidates.add(user);
+            }
+        }
+
+        Set<DocumentReference> subscribers = new HashSet<>();
+        for (FormatIndex formatIndex : this.formats.values()) {
+            formatIndex.collect(event, subscribers);
+        }
+
+        for (DocumentReference user : users) {
+            if (subscribers.contains(user)) {
+                candidates.add(user);
+            }
+        }
+
+        return candidates;
+    }
+
+    private boolean index(DocumentReference user)
+    {
+        Subscription subscription = new Subscription();
+
+        try {
+            // Same logic as UserEventManager#hasCorrespondingNotificationPreference, without the dates
+            List<NotificationPreference> preferences = this.notificationPreferenceManager.getAllPreferences(user);
+            subscription.allEventTypes = preferences.isEmpty();
+            for (NotificationPreference preference : preferences) {
+                Object eventType = preference.getProperties().get(NotificationPreferenceProperty.EVENT_TYPE);
+                if (eventType != null && preference.getFormat() != null && preference.isNotificationEnabled()) {
+                    subscription.eventTypes.computeIfAbsent(preference.getFormat(), k -> new HashSet<>())
+                        .add(eventType.toString());
+                }
+            }
+
+            // Same logic as UserEventManager#isTriggeredByAFollowedUser, without the dates
+            for (NotificationFilterPreference filterPreference : this.notificationFilterPreferenceManager
+                .getFilterPreferences(user)) {
+                if (isFollowingUser(filterPreference)) {
+                    DocumentReference followedUser = this.referenceResolver.resolve(filterPreference.getUser());
+                    for (NotificationFormat format : filterPreference.getNotificationFormats()) {
+                        subscription.followedUsers.computeIfAbsent(format, k -> new HashSet<>()).add(followedUser);
+                    }
+                }
+            }
+        } catch (NotificationException e) {
+            this.logger.warn("Failed to index the notification subscriptions of user [{}]: {}", user,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return false;
+        }
+
+        this.subscriptions.put(user, subscription);
+        for (FormatIndex formatIndex : this.formats.values()) {
+            formatIndex.add(user, subscription);
+        }
+
+        return true;
+    }
+
+    private boolean isFollowingUser(NotificationFilterPreference filterPreference)
+    {
+        return filterPreference.isEnabled() && EventUserFilter.FILTER_NAME.equals(filterPreference.getFilterName())
+            && filterPreference.getFilterType() == NotificationFilterType.INCLUSIVE
+            && filterPreference.getEventTypes().isEmpty() && StringUtils.isNotEmpty(filterPreference.getUser());
+    }
+
+    /**
+     * Forget what the passed user subscribed to.
+     *
+     * @param user the user whose subscriptions changed
+     */
+    public synchronized void invalidate(DocumentReference user)
+    {
+        Subscription subscription = this.subscriptions.remove(user);
+        if (subscription != null) {
+            for (FormatIndex formatIndex : this.formats.values()) {
+                formatIndex.remove(user, subscription);
+            }
+        }
+    }
+
+    /**
+     * Forget what the users of the passed wiki subscribed to.
+     *
+     * @param wiki the wiki whose preferences changed
+     */
+    public synchronized void invalidate(WikiReference wiki)
+    {
+        List<DocumentReference> users = this.subscriptions.keySet().stream()
+            .filter(user -> user.getWikiReference().equals(wiki)).collect(Collectors.toList());
+        for (DocumentReference user : users) {
+            invalidate(user);
+        }
+    }
+
+    /**
+     * Forget what all the users subscribed to.
+     */
+    public synchronized void invalidateAll()
+    {
+        this.subscriptions.clear();
+        for (NotificationFormat format : NotificationFormat.values()) {
+            this.formats.put(format, new FormatIndex(format));
+        }
+    }
+}
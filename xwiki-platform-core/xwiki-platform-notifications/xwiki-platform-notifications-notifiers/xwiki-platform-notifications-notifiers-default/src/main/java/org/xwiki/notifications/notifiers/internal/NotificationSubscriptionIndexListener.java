@@ -0,0 +1,103 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.filters.NotificationFilterPreference;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceAddOrUpdatedEvent;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceDeletedEvent;
+import org.xwiki.notifications.filters.internal.user.EventUserFilter;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceAddedEvent;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceDeletedEvent;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceUpdatedEvent;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+/**
+ * Keep the {@link NotificationSubscriptionIndex} up to date when the notification preferences change.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component
+@Singleton
+@Named(NotificationSubscriptionIndexListener.NAME)
+public class NotificationSubscriptionIndexListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME =
+        "org.xwiki.notifications.notifiers.internal.NotificationSubscriptionIndexListener";
+
+    @Inject
+    private NotificationSubscriptionIndex index;
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    /**
+     * The default constructor.
+     */
+    public NotificationSubscriptionIndexListener()
+    {
+        super(NAME, new NotificationPreferenceAddedEvent(), new NotificationPreferenceUpdatedEvent(),
+            new NotificationPreferenceDeletedEvent(), new NotificationFilterPreferenceAddOrUpdatedEvent(),
+            new NotificationFilterPreferenceDeletedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        Object owner = source;
+        if (source instanceof NotificationFilterPreference) {
+            // Only the user filters are indexed
+            if (!EventUserFilter.FILTER_NAME.equals(((NotificationFilterPreference) source).getFilterName())) {
+                return;
+            }
+
+            // The owner of a saved filter preference is sent as data
+            owner = data;
+        }
+
+        if (owner instanceof DocumentReference) {
+            this.index.invalidate((DocumentReference) owner);
+        } else if (owner instanceof WikiReference && !isMainWiki((WikiReference) owner)) {
+            // Wiki preferences are inherited by the users of the wiki
+            this.index.invalidate((WikiReference) owner);
+        } else {
+            // Main wiki preferences are inherited by the users of all the wikis, and we can't tell who is impacted
+            // when the owner is unknown
+            this.index.invalidateAll();
+        }
+    }
+
+    private boolean isMainWiki(WikiReference wiki)
+    {
+        return this.wikiDescriptorManager.getMainWikiId().equals(wiki.getName());
+    }
+}
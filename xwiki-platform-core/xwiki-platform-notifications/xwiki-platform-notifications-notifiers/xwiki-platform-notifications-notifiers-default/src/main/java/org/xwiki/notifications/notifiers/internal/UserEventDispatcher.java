@@ -74,8 +74,6 @@
 @Singleton
 public class UserEventDispatcher
 {
-    private static final long BATCH_SIZE = 100;
-
     @Inject
     private UsersCache userCache;
 
@@ -119,6 +117,9 @@
     @Inject
     private DeletedDocumentCleanUpFilterProcessingQueue cleanUpFilterProcessingQueue;
 
+    @Inject
+    private NotificationSubscriptionIndex subscriptionIndex;
+
     @Inject
     private Logger logger;
 
@@ -153,15 +154,15 @@ public void flush() throws Exception
         query.close();
         // Start by oldest events
         query.addSort(Event.FIELD_DATE, Order.ASC);
-        // Limit the result to BATCH_SIZE events to not impact the memory too much
-        query.setLimit(BATCH_SIZE);
+        // Don't limit the result: the event store is expected to stream big results (see SolrEventStore) so that only
+        // a page of events is in memory at a time
 
         // Events to ignore
         List<String> failedEvents = new ArrayList<>();
         query.not().in(Event.FIELD_ID, failedEvents);
 
-        // Keep getting the BATCH_SIZE oldest not pre-filtered events (except the handled ones) until we cannot find any
-        // left
+        // Keep getting the oldest not pre-filtered events (except the handled ones) until we cannot find any left (new
+        // events might be produced while pre-filtering the previous ones)
         do {
             try (EventSearchResult result = this.events.search(query)) {
                 if (result.getSize() == 0) {
@@ -291,12 +292,17 @@ private CompletableFuture<?> dispatch(Event event, DocumentReference user, boole
             result = saveMailEntityEvent(event, entityId);
         }
 
+        cleanUp(event, user);
+
+        return result;
+    }
+
+    private void cleanUp(Event event, DocumentReference user)
+    {
         // FIXME: reuse constant from EventType once it's moved (see https://jira.xwiki.org/browse/XWIKI-21669)
         if (StringUtils.equals(event.getType(), "delete")) {
             this.cleanUpFilterProcessingQueue.addCleanUpTask(user, event.getDocument());
         }
-
-        return result;
     }
 
     private boolean isStatusPrefiltered(Event event, String entityId)
@@ -334,8 +340,15 @@ private CompletableFuture<?> dispatch(Event event, List<DocumentReference> users
     {
         boolean mailEnabled = this.notificationConfiguration.areEmailsEnabled();
 
+        // Only evaluate the filters of the users which might be listening to the event
+        Set<DocumentReference> candidates = this.subscriptionIndex.getCandidates(event, users);
+
         for (DocumentReference user : users) {
-            dispatch(event, user, mailEnabled);
+            if (candidates.contains(user)) {
+                dispatch(event, user, mailEnabled);
+            } else {
+                cleanUp(event, user);
+            }
         }
 
         // Remember we are done pre filtering this event
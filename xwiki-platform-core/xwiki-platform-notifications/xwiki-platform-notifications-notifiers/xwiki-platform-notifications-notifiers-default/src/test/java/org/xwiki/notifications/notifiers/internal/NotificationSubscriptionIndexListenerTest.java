@@ -0,0 +1,133 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.filters.NotificationFilterPreference;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceAddOrUpdatedEvent;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceDeletedEvent;
+import org.xwiki.notifications.filters.internal.user.EventUserFilter;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceUpdatedEvent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link NotificationSubscriptionIndexListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NotificationSubscriptionIndexListenerTest
+{
+    private static final DocumentReference USER = new DocumentReference("subwiki", "XWiki", "User");
+
+    private static final WikiReference SUBWIKI = new WikiReference("subwiki");
+
+    @InjectMockComponents
+    private NotificationSubscriptionIndexListener listener;
+
+    @MockComponent
+    private NotificationSubscriptionIndex index;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.wikiDescriptorManager.getMainWikiId()).thenReturn("xwiki");
+    }
+
+    private NotificationFilterPreference filterPreference(String filterName)
+    {
+        NotificationFilterPreference filterPreference = mock(NotificationFilterPreference.class);
+        when(filterPreference.getFilterName()).thenReturn(filterName);
+
+        return filterPreference;
+    }
+
+    @Test
+    void onUserPreferenceUpdated()
+    {
+        this.listener.onEvent(new NotificationPreferenceUpdatedEvent(), USER, null);
+
+        verify(this.index).invalidate(USER);
+        verify(this.index, never()).invalidateAll();
+    }
+
+    @Test
+    void onWikiPreferenceUpdated()
+    {
+        this.listener.onEvent(new NotificationPreferenceUpdatedEvent(), SUBWIKI, null);
+
+        verify(this.index).invalidate(SUBWIKI);
+        verify(this.index, never()).invalidateAll();
+    }
+
+    @Test
+    void onMainWikiPreferenceUpdated()
+    {
+        this.listener.onEvent(new NotificationPreferenceUpdatedEvent(), new WikiReference("xwiki"), null);
+
+        verify(this.index).invalidateAll();
+        verify(this.index, never()).invalidate(any(WikiReference.class));
+    }
+
+    @Test
+    void onUserFilterPreferenceSaved()
+    {
+        this.listener.onEvent(new NotificationFilterPreferenceAddOrUpdatedEvent(),
+            filterPreference(EventUserFilter.FILTER_NAME), USER);
+
+        verify(this.index).invalidate(USER);
+        verify(this.index, never()).invalidateAll();
+    }
+
+    @Test
+    void onOtherFilterPreferenceSaved()
+    {
+        this.listener.onEvent(new NotificationFilterPreferenceAddOrUpdatedEvent(), filterPreference("other"), USER);
+
+        verifyNoInteractions(this.index);
+    }
+
+    @Test
+    void onFilterPreferenceDeleted()
+    {
+        this.listener.onEvent(new NotificationFilterPreferenceDeletedEvent(), USER, Set.of("NFP_42"));
+
+        verify(this.index).invalidate(USER);
+        verify(this.index, never()).invalidateAll();
+    }
+}
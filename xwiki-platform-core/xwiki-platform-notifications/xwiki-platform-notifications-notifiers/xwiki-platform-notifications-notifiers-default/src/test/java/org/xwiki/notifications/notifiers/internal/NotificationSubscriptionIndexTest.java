@@ -0,0 +1,181 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.NotificationException;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.NotificationFilterPreference;
+import org.xwiki.notifications.filters.NotificationFilterPreferenceManager;
+import org.xwiki.notifications.filters.NotificationFilterType;
+import org.xwiki.notifications.filters.internal.user.EventUserFilter;
+import org.xwiki.notifications.preferences.NotificationPreference;
+import org.xwiki.notifications.preferences.NotificationPreferenceManager;
+import org.xwiki.notifications.preferences.NotificationPreferenceProperty;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link NotificationSubscriptionIndex}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NotificationSubscriptionIndexTest
+{
+    private static final DocumentReference ALICE = new DocumentReference("wiki", "XWiki", "Alice");
+
+    private static final DocumentReference BOB = new DocumentReference("wiki", "XWiki", "Bob");
+
+    private static final DocumentReference CAROL = new DocumentReference("wiki", "XWiki", "Carol");
+
+    private static final DocumentReference DAVE = new DocumentReference("wiki", "XWiki", "Dave");
+
+    private static final List<DocumentReference> USERS = List.of(ALICE, BOB, CAROL, DAVE);
+
+    @InjectMockComponents
+    private NotificationSubscriptionIndex index;
+
+    @MockComponent
+    private NotificationPreferenceManager notificationPreferenceManager;
+
+    @MockComponent
+    private NotificationFilterPreferenceManager notificationFilterPreferenceManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> referenceResolver;
+
+    @BeforeEach
+    void beforeEach() throws NotificationException
+    {
+        // Alice wants alerts about updates
+        NotificationPreference update = preference("update", NotificationFormat.ALERT, true);
+        // Bob disabled updates and wants mails about creations
+        NotificationPreference disabledUpdate = preference("update", NotificationFormat.ALERT, false);
+        NotificationPreference create = preference("create", NotificationFormat.EMAIL, true);
+        when(this.notificationPreferenceManager.getAllPreferences(ALICE)).thenReturn(List.of(update));
+        when(this.notificationPreferenceManager.getAllPreferences(BOB)).thenReturn(List.of(disabledUpdate, create));
+        // Carol has no preference at all
+        when(this.notificationPreferenceManager.getAllPreferences(CAROL)).thenReturn(List.of());
+        // Dave follows Bob
+        when(this.notificationPreferenceManager.getAllPreferences(DAVE)).thenReturn(List.of(disabledUpdate));
+        NotificationFilterPreference followBob = mock(NotificationFilterPreference.class);
+        when(followBob.isEnabled()).thenReturn(true);
+        when(followBob.getFilterName()).thenReturn(EventUserFilter.FILTER_NAME);
+        when(followBob.getFilterType()).thenReturn(NotificationFilterType.INCLUSIVE);
+        when(followBob.getEventTypes()).thenReturn(Set.of());
+        when(followBob.getNotificationFormats()).thenReturn(Set.of(NotificationFormat.ALERT));
+        when(followBob.getUser()).thenReturn("wiki:XWiki.Bob");
+        when(this.referenceResolver.resolve("wiki:XWiki.Bob")).thenReturn(BOB);
+        when(this.notificationFilterPreferenceManager.getFilterPreferences(DAVE)).thenReturn(List.of(followBob));
+    }
+
+    private NotificationPreference preference(String eventType, NotificationFormat format, boolean enabled)
+    {
+        NotificationPreference preference = mock(NotificationPreference.class);
+        Map<NotificationPreferenceProperty, Object> properties =
+            Map.of(NotificationPreferenceProperty.EVENT_TYPE, eventType);
+        when(preference.getProperties()).thenReturn(properties);
+        when(preference.getFormat()).thenReturn(format);
+        when(preference.isNotificationEnabled()).thenReturn(enabled);
+
+        return preference;
+    }
+
+    private Event event(String type, DocumentReference user)
+    {
+        Event event = mock(Event.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getUser()).thenReturn(user);
+
+        return event;
+    }
+
+    @Test
+    void getCandidates()
+    {
+        assertEquals(Set.of(ALICE, CAROL), this.index.getCandidates(event("update", ALICE), USERS));
+        assertEquals(Set.of(BOB, CAROL), this.index.getCandidates(event("create", ALICE), USERS));
+        assertEquals(Set.of(ALICE, CAROL, DAVE), this.index.getCandidates(event("update", BOB), USERS));
+        assertEquals(Set.of(CAROL), this.index.getCandidates(event("other", null), USERS));
+        assertEquals(Set.of(ALICE), this.index.getCandidates(event("update", BOB), List.of(ALICE, BOB)));
+    }
+
+    @Test
+    void getCandidatesWhenFailingToIndex() throws NotificationException
+    {
+        when(this.notificationPreferenceManager.getAllPreferences(ALICE))
+            .thenThrow(new NotificationException("error"));
+
+        assertEquals(Set.of(ALICE, CAROL), this.index.getCandidates(event("other", null), USERS));
+    }
+
+    @Test
+    void invalidate() throws NotificationException
+    {
+        assertEquals(Set.of(CAROL), this.index.getCandidates(event("other", null), USERS));
+        verify(this.notificationPreferenceManager).getAllPreferences(ALICE);
+
+        when(this.notificationPreferenceManager.getAllPreferences(ALICE)).thenReturn(List.of());
+        this.index.invalidate(ALICE);
+
+        assertEquals(Set.of(ALICE, CAROL), this.index.getCandidates(event("other", null), USERS));
+        verify(this.notificationPreferenceManager, times(2)).getAllPreferences(ALICE);
+        verify(this.notificationPreferenceManager).getAllPreferences(BOB);
+
+        this.index.invalidateAll();
+
+        assertEquals(Set.of(ALICE, CAROL), this.index.getCandidates(event("other", null), USERS));
+        verify(this.notificationPreferenceManager, times(2)).getAllPreferences(BOB);
+    }
+
+    @Test
+    void invalidateWiki() throws NotificationException
+    {
+        assertEquals(Set.of(CAROL), this.index.getCandidates(event("other", null), USERS));
+
+        this.index.invalidate(new WikiReference("otherwiki"));
+
+        assertEquals(Set.of(CAROL), this.index.getCandidates(event("other", null), USERS));
+        verify(this.notificationPreferenceManager).getAllPreferences(ALICE);
+
+        this.index.invalidate(new WikiReference("wiki"));
+
+        assertEquals(Set.of(CAROL), this.index.getCandidates(event("other", null), USERS));
+        verify(this.notificationPreferenceManager, times(2)).getAllPreferences(ALICE);
+        verify(this.notificationPreferenceManager, times(2)).getAllPreferences(BOB);
+    }
+}
@@ -20,6 +20,8 @@
 package org.xwiki.notifications.notifiers.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -117,6 +119,9 @@
     @MockComponent
     private RemoteObservationManagerConfiguration remoteObservation;
 
+    @MockComponent
+    private NotificationSubscriptionIndex subscriptionIndex;
+
     private SimpleEventQuery query;
 
     @BeforeEach
@@ -129,6 +134,8 @@ void setup() throws EventStreamException
         when(this.recordableEventDescriptorManager.getRecordableEventDescriptors(true)).thenReturn(
             List.of(descriptor1, descriptor2));
         when(this.remoteObservation.getId()).thenReturn(REMOTE_OBSERVATION_ID);
+        when(this.subscriptionIndex.getCandidates(any(), any()))
+            .then(invocation -> new HashSet<>(invocation.<Collection<DocumentReference>>getArgument(1)));
 
         query = new SimpleEventQuery()
             .eq(Event.FIELD_PREFILTERED, false)
@@ -138,7 +145,6 @@ void setup() throws EventStreamException
             .eq(Event.FIELD_REMOTE_OBSERVATION_ID, null)
             .close()
             .addSort(Event.FIELD_DATE, SortableEventQuery.SortClause.Order.ASC)
-            .setLimit(100)
             .not()
             .in(Event.FIELD_ID, new ArrayList<>());
     }
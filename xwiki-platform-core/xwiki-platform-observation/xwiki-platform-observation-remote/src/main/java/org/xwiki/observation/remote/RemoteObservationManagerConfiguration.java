@@ -56,4 +56,15 @@ default String getId()
     {
         return null;
     }
+
+    /**
+     * @return true if the network adapter should batch and compress the events it sends, false if each event should
+     *     be sent in its own message (the format expected by the cluster members running a version older than
+     *     16.8.0RC1)
+     * @since 16.8.0RC1
+     */
+    default boolean isCompact()
+    {
+        return false;
+    }
 }
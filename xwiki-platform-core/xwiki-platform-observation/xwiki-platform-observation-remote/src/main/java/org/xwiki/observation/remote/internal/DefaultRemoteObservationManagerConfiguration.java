@@ -83,6 +83,12 @@ public String getNetworkAdapter()
         return this.configurationSource.getProperty("observation.remote.networkadapter", "jgroups");
     }
 
+    @Override
+    public boolean isCompact()
+    {
+        return this.configurationSource.getProperty("observation.remote.compact", false);
+    }
+
     @Override
     public String getId()
     {
@@ -19,6 +19,9 @@
  */
 package org.xwiki.observation.remote.internal.jgroups;
 
+import java.io.IOException;
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -85,12 +88,41 @@ public RemoteObservationManager getRemoteObservationManager()
     public void receive(Message msg)
     {
         if (msg instanceof BytesMessage) {
-            RemoteEventData remoteEvent = (RemoteEventData) ((BytesMessage) msg)
-                .getObject(this.classLoaderManager.getURLClassLoader(null, false));
+            BytesMessage bytesMessage = (BytesMessage) msg;
+            ClassLoader classLoader = this.classLoaderManager.getURLClassLoader(null, false);
+
+            if (RemoteEventDataCodec.isEncoded(bytesMessage.getArray(), bytesMessage.getOffset(),
+                bytesMessage.getLength())) {
+                receiveEncoded(bytesMessage, classLoader);
+            } else {
+                RemoteEventData remoteEvent = (RemoteEventData) bytesMessage.getObject(classLoader);
 
-            this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+                receive(remoteEvent);
+            }
+        }
+    }
+
+    private void receiveEncoded(BytesMessage message, ClassLoader classLoader)
+    {
+        List<RemoteEventData> remoteEvents;
+        try {
+            remoteEvents = RemoteEventDataCodec.decode(message.getArray(), message.getOffset(), message.getLength(),
+                classLoader);
+        } catch (IOException | ClassNotFoundException e) {
+            this.logger.error("Failed to read the remote events received from [{}]", message.getSrc(), e);
 
-            getRemoteObservationManager().notify(remoteEvent);
+            return;
         }
+
+        for (RemoteEventData remoteEvent : remoteEvents) {
+            receive(remoteEvent);
+        }
+    }
+
+    private void receive(RemoteEventData remoteEvent)
+    {
+        this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+
+        getRemoteObservationManager().notify(remoteEvent);
     }
 }
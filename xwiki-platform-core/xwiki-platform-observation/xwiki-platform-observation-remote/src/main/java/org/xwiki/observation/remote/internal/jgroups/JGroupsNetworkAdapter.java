@@ -23,8 +23,14 @@
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -47,6 +53,7 @@
 import org.xwiki.observation.remote.NetworkAdapter;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteEventException;
+import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
@@ -65,6 +72,21 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
      */
     public static final String CONFIGURATION_PATH = "observation/remote/jgroups/";
 
+    /**
+     * The maximum number of events sent in the same message.
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * Indicate to the sender thread that it should stop.
+     */
+    private static final RemoteEventData STOP = new RemoteEventData();
+
+    /**
+     * The maximum time to wait for the pending events to be sent when stopping the channels, in seconds.
+     */
+    private static final long STOP_TIMEOUT = 10;
+
     /**
      * Used to lookup the receiver corresponding to the channel identifier.
      */
@@ -77,26 +99,123 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
     @Inject
     private Logger logger;
 
+    /**
+     * Used to know if the events should be sent in compact messages.
+     */
+    @Inject
+    private RemoteObservationManagerConfiguration configuration;
+
     /**
      * The network channels.
      */
     private Map<String, JChannel> channels = new ConcurrentHashMap<>();
 
+    /**
+     * The events waiting to be sent in compact messages.
+     */
+    private final BlockingQueue<RemoteEventData> pendingEvents = new LinkedBlockingQueue<>();
+
+    /**
+     * The thread sending the compact messages.
+     */
+    private Thread senderThread;
+
     @Override
     public void send(RemoteEventData remoteEvent)
     {
         this.logger.debug("Send JGroups remote event [{}]", remoteEvent.toString());
 
-        // Send the message to the whole group
-        Message message = new BytesMessage(null,  remoteEvent);
+        if (this.configuration.isCompact()) {
+            startSender();
+
+            this.pendingEvents.add(remoteEvent);
+        } else {
+            // Send the message to the whole group
+            send(new BytesMessage(null, remoteEvent), remoteEvent);
+        }
+    }
 
+    private void send(Message message, Object content)
+    {
         // Send message to JGroups channels
         for (Map.Entry<String, JChannel> entry : this.channels.entrySet()) {
             try {
                 entry.getValue().send(message);
             } catch (Exception e) {
-                this.logger.error("Failed to send message [{}] to the channel [{}]", remoteEvent.toString(),
-                    entry.getKey(), e);
+                this.logger.error("Failed to send message [{}] to the channel [{}]", content, entry.getKey(), e);
+            }
+        }
+    }
+
+    private synchronized void startSender()
+    {
+        if (this.senderThread == null) {
+            this.senderThread = new Thread(this::sendPendingEvents, "XWiki remote events sender");
+            this.senderThread.setDaemon(true);
+            this.senderThread.start();
+        }
+    }
+
+    private synchronized void stopSender()
+    {
+        if (this.senderThread != null) {
+            this.pendingEvents.add(STOP);
+
+            // Give the sender a chance to send the pending events
+            try {
+                this.senderThread.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            this.senderThread = null;
+        }
+    }
+
+    private void sendPendingEvents()
+    {
+        List<RemoteEventData> batch = new ArrayList<>();
+
+        try {
+            while (true) {
+                batch.add(this.pendingEvents.take());
+                // Send together the events produced while the previous message was being sent
+                this.pendingEvents.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                int stopIndex = batch.indexOf(STOP);
+                if (stopIndex >= 0) {
+                    sendBatch(batch.subList(0, stopIndex));
+
+                    return;
+                }
+
+                sendBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            this.logger.warn("The remote events sender thread was interrupted, [{}] events were not sent",
+                batch.size() + this.pendingEvents.size());
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendBatch(List<RemoteEventData> batch)
+    {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            send(new BytesMessage(null, RemoteEventDataCodec.encode(batch)), batch);
+        } catch (IOException e) {
+            if (batch.size() > 1) {
+                // Make sure a single event which cannot be serialized does not prevent sending the other ones
+                for (RemoteEventData remoteEvent : batch) {
+                    sendBatch(Collections.singletonList(remoteEvent));
+                }
+            } else {
+                this.logger.error("Failed to serialize remote event [{}]", batch.get(0), e);
             }
         }
     }
@@ -226,6 +345,8 @@ private InputStream getChannelConfiguration(String channelId) throws IOException
     @Override
     public void stopAllChannels() throws RemoteEventException
     {
+        stopSender();
+
         for (Map.Entry<String, JChannel> channelEntry : this.channels.entrySet()) {
             channelEntry.getValue().close();
         }
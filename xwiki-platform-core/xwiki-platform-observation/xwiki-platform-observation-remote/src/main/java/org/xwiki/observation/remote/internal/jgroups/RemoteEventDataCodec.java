@@ -0,0 +1,180 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jgroups;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.xwiki.observation.remote.RemoteEventData;
+
+/**
+ * Encode several {@link RemoteEventData} in a single network message.
+ * <p>
+ * All the events of a message are written in the same Java serialization stream, so that the class descriptors and
+ * the objects shared between the events (references, etc.) are written only once. The result is then compressed when
+ * it's big enough for it to be worth it. The message starts with a small header which allows distinguishing it from
+ * the messages produced by JGroups when serializing a single {@link RemoteEventData} (the format used before
+ * 16.8.0RC1).
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public final class RemoteEventDataCodec
+{
+    /**
+     * The first bytes of an encoded message. The first byte of a message serialized by JGroups is the type of the
+     * serialized object, which is always lower than this.
+     */
+    private static final byte[] MAGIC = {'X', 'W'};
+
+    private static final byte VERSION = 1;
+
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private static final int HEADER_SIZE = MAGIC.length + 2;
+
+    /**
+     * The minimum size of the serialized events for the message to be compressed.
+     */
+    private static final int COMPRESSION_THRESHOLD = 512;
+
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream
+    {
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream(InputStream stream, ClassLoader classLoader) throws IOException
+        {
+            super(stream);
+
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            if (this.classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, this.classLoader);
+                } catch (ClassNotFoundException e) {
+                    // Try the standard resolution (primitive types, etc.)
+                }
+            }
+
+            return super.resolveClass(desc);
+        }
+    }
+
+    private RemoteEventDataCodec()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param events the events to send
+     * @return the message content
+     * @throws IOException when failing to serialize the events
+     */
+    public static byte[] encode(Collection<RemoteEventData> events) throws IOException
+    {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(serialized)) {
+            output.writeInt(events.size());
+            for (RemoteEventData event : events) {
+                output.writeObject(event);
+            }
+        }
+
+        boolean compress = serialized.size() >= COMPRESSION_THRESHOLD;
+
+        ByteArrayOutputStream message = new ByteArrayOutputStream(serialized.size() + HEADER_SIZE);
+        message.write(MAGIC);
+        message.write(VERSION);
+        message.write(compress ? FLAG_COMPRESSED : 0);
+        if (compress) {
+            try (DeflaterOutputStream deflater = new DeflaterOutputStream(message)) {
+                serialized.writeTo(deflater);
+            }
+        } else {
+            serialized.writeTo(message);
+        }
+
+        return message.toByteArray();
+    }
+
+    /**
+     * @param array the message content
+     * @param offset the offset of the message content in the array
+     * @param length the length of the message content
+     * @return true if the message content was produced by {@link #encode(Collection)}
+     */
+    public static boolean isEncoded(byte[] array, int offset, int length)
+    {
+        return array != null && length >= HEADER_SIZE && array[offset] == MAGIC[0] && array[offset + 1] == MAGIC[1];
+    }
+
+    /**
+     * @param array the message content
+     * @param offset the offset of the message content in the array
+     * @param length the length of the message content
+     * @param classLoader the class loader to use to resolve the classes of the events
+     * @return the events
+     * @throws IOException when failing to read the events
+     * @throws ClassNotFoundException when the class of an event cannot be found
+     */
+    public static List<RemoteEventData> decode(byte[] array, int offset, int length, ClassLoader classLoader)
+        throws IOException, ClassNotFoundException
+    {
+        if (!isEncoded(array, offset, length)) {
+            throw new IOException("Unsupported message format");
+        }
+
+        byte version = array[offset + MAGIC.length];
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported message format version [%s]", version));
+        }
+
+        byte flags = array[offset + MAGIC.length + 1];
+
+        InputStream stream = new ByteArrayInputStream(array, offset + HEADER_SIZE, length - HEADER_SIZE);
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            stream = new InflaterInputStream(stream);
+        }
+
+        try (ObjectInputStream input = new ClassLoaderObjectInputStream(stream, classLoader)) {
+            int size = input.readInt();
+            List<RemoteEventData> events = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                events.add((RemoteEventData) input.readObject());
+            }
+
+            return events;
+        }
+    }
+}
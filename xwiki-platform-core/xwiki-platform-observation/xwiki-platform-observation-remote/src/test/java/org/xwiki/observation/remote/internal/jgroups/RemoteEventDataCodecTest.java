@@ -0,0 +1,107 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jgroups;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.jgroups.util.Util;
+import org.junit.jupiter.api.Test;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.test.TestEvent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link RemoteEventDataCodec}.
+ * 
+ * @version $Id$
+ */
+class RemoteEventDataCodecTest
+{
+    private static RemoteEventData event(int index)
+    {
+        HashMap<String, Serializable> source = new HashMap<>();
+        source.put("docname", "wiki:Space.Page" + index);
+        source.put("docversion", "1." + index);
+
+        HashMap<String, Serializable> data = new HashMap<>();
+        data.put("contextwiki", "wiki");
+        data.put("contextuser", "XWiki.Admin");
+
+        return new RemoteEventData(new TestEvent(), source, data);
+    }
+
+    @Test
+    void encodeDecode() throws Exception
+    {
+        List<RemoteEventData> events = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            events.add(event(i));
+        }
+
+        byte[] encoded = RemoteEventDataCodec.encode(events);
+
+        assertTrue(RemoteEventDataCodec.isEncoded(encoded, 0, encoded.length));
+
+        List<RemoteEventData> decoded =
+            RemoteEventDataCodec.decode(encoded, 0, encoded.length, getClass().getClassLoader());
+
+        assertEquals(events.size(), decoded.size());
+        for (int i = 0; i < events.size(); ++i) {
+            assertEquals(events.get(i).getEvent(), decoded.get(i).getEvent());
+            assertEquals(events.get(i).getSource(), decoded.get(i).getSource());
+            assertEquals(events.get(i).getData(), decoded.get(i).getData());
+        }
+
+        // Compare with the size of the messages sent one event at a time
+        int size = 0;
+        for (RemoteEventData event : events) {
+            size += Util.objectToByteBuffer(event).length;
+        }
+        assertTrue(encoded.length * 3 < size,
+            String.format("Encoded size [%s] is not small enough compared to [%s]", encoded.length, size));
+    }
+
+    @Test
+    void encodeDecodeSmall() throws Exception
+    {
+        byte[] encoded = RemoteEventDataCodec.encode(List.of(event(0)));
+
+        List<RemoteEventData> decoded = RemoteEventDataCodec.decode(encoded, 0, encoded.length, null);
+
+        assertEquals(1, decoded.size());
+        assertEquals(event(0).getSource(), decoded.get(0).getSource());
+    }
+
+    @Test
+    void isEncoded() throws Exception
+    {
+        byte[] legacy = Util.objectToByteBuffer(event(0));
+
+        assertFalse(RemoteEventDataCodec.isEncoded(legacy, 0, legacy.length));
+        assertFalse(RemoteEventDataCodec.isEncoded(null, 0, 0));
+        assertFalse(RemoteEventDataCodec.isEncoded(new byte[] {'X'}, 0, 1));
+    }
+}
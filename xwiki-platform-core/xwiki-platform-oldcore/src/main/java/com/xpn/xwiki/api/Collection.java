@@ -72,7 +72,7 @@ public Element[] getProperties()
         Property[] properties = new Property[coll.size()];
         int i = 0;
         for (BaseProperty prop : coll) {
-            properties[i++] = new Property(prop, getXWikiContext());
+            properties[i++] = newPropertyApi(prop);
         }
         return properties;
     }
@@ -85,12 +85,21 @@ public Property getProperty(String name)
                 return null;
             }
 
-            return new Property((BaseProperty) prop, getXWikiContext());
+            return newPropertyApi((BaseProperty) prop);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * @param property the property to wrap
+     * @return the API wrapping the passed property
+     */
+    Property newPropertyApi(BaseProperty property)
+    {
+        return new Property(property, getXWikiContext());
+    }
+
     /**
      * @param name the name of the property
      * @return the value of the passed property
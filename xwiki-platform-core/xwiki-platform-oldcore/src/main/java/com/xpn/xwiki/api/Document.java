@@ -216,6 +216,10 @@ public XWikiDocument getDocument()
 
     /**
      * Get a clone of the XWikiDocument wrapped by this API.
+     * <p>
+     * The wrapped document is generally shared (for example with the document cache) so it's only copied the first
+     * time something needs to be modified. Methods which only read the document (including its objects) should use
+     * {@link #doc} directly.
      *
      * @return A clone of the XWikiDocument wrapped by this API.
      */
@@ -1160,7 +1164,7 @@ public int getObjectNumbers(String classname)
      */
     public Map<String, Vector<Object>> getxWikiObjects()
     {
-        Map<DocumentReference, List<BaseObject>> map = this.getDoc().getXObjects();
+        Map<DocumentReference, List<BaseObject>> map = this.doc.getXObjects();
         Map<String, Vector<Object>> resultmap = new HashMap<String, Vector<Object>>();
         for (Map.Entry<DocumentReference, List<BaseObject>> entry : map.entrySet()) {
             List<BaseObject> objects = entry.getValue();
@@ -1192,7 +1196,7 @@ protected Vector<Object> getXObjects(List<BaseObject> objects)
      */
     public Vector<Object> getObjects(String className)
     {
-        List<BaseObject> objects = this.getDoc().getXObjects(this.doc.resolveClassReference(className));
+        List<BaseObject> objects = this.doc.getXObjects(this.doc.resolveClassReference(className));
         return getXObjects(objects);
     }
 
@@ -1205,7 +1209,7 @@ public Vector<Object> getObjects(String className)
     public Object getFirstObject(String fieldname)
     {
         try {
-            BaseObject obj = this.getDoc().getFirstObject(fieldname, getXWikiContext());
+            BaseObject obj = this.doc.getFirstObject(fieldname, getXWikiContext());
             if (obj == null) {
                 return null;
             } else {
@@ -1228,7 +1232,7 @@ public Object getFirstObject(String fieldname)
     public Object getObject(String classname, String key, String value, boolean failover)
     {
         try {
-            BaseObject obj = this.getDoc().getObject(classname, key, value, failover);
+            BaseObject obj = this.doc.getObject(classname, key, value, failover);
             if (obj == null) {
                 return null;
             } else {
@@ -1255,7 +1259,7 @@ public Vector<Object> getObjects(String classname, String key, String value)
             return getObjects(classname);
         }
         try {
-            Vector<BaseObject> allObjects = this.getDoc().getObjects(classname);
+            Vector<BaseObject> allObjects = this.doc.getObjects(classname);
             if (allObjects == null || allObjects.size() == 0) {
                 return result;
             } else {
@@ -1288,7 +1292,7 @@ public Vector<Object> getObjects(String classname, String key, String value)
     public Object getObject(String classname, String key, String value)
     {
         try {
-            BaseObject obj = this.getDoc().getObject(classname, key, value);
+            BaseObject obj = this.doc.getObject(classname, key, value);
             if (obj == null) {
                 return null;
             } else {
@@ -1321,7 +1325,8 @@ public Object getObject(String classname)
     public Object getObject(String classname, boolean create)
     {
         try {
-            BaseObject obj = getDoc().getObject(classname, create, getXWikiContext());
+            // Only copy the document if the object might have to be created
+            BaseObject obj = (create ? getDoc() : this.doc).getObject(classname, create, getXWikiContext());
 
             if (obj == null) {
                 return null;
@@ -1343,7 +1348,7 @@ public Object getObject(String classname, boolean create)
     public Object getObject(String classname, int nb)
     {
         try {
-            BaseObject obj = this.getDoc().getObject(classname, nb);
+            BaseObject obj = this.doc.getObject(classname, nb);
             if (obj == null) {
                 return null;
             } else {
@@ -1362,7 +1367,7 @@ public Object getObject(String classname, int nb)
     public Object getObject(ObjectReference objectReference)
     {
         try {
-            BaseObject obj = this.getDoc().getXObject(objectReference);
+            BaseObject obj = this.doc.getXObject(objectReference);
             return obj == null ? null : newObjectApi(obj, getXWikiContext());
         } catch (Exception e) {
             return null;
@@ -1378,7 +1383,9 @@ public Object getObject(ObjectReference objectReference)
     public Object getObject(ObjectReference objectReference, boolean create)
     {
         try {
-            BaseObject obj = this.getDoc().getXObject(objectReference, create, getXWikiContext());
+            // Only copy the document if the object might have to be created
+            BaseObject obj =
+                (create ? getDoc() : this.doc).getXObject(objectReference, create, getXWikiContext());
             return obj == null ? null : newObjectApi(obj, getXWikiContext());
         } catch (Exception e) {
             return null;
@@ -1387,7 +1394,55 @@ public Object getObject(ObjectReference objectReference, boolean create)
 
     private Object newObjectApi(BaseObject obj, XWikiContext context)
     {
-        return obj.newObjectApi(obj, context);
+        Object object = obj.newObjectApi(obj, context);
+
+        // The object might be shared with the wrapped document so it needs a way to get a modifiable version of itself
+        object.setDocument(this);
+
+        return object;
+    }
+
+    /**
+     * The objects are returned without copying the wrapped document, so they might still belong to the shared
+     * document (generally the one stored in the cache). This method make sure the returned object is one which can be
+     * safely modified.
+     *
+     * @param object the object to modify
+     * @return the object to modify, part of the copy of the document when the passed object belongs to the shared
+     *         document
+     */
+    BaseObject getEditableXObject(BaseObject object)
+    {
+        XWikiDocument editableDoc = getDoc();
+
+        BaseObject editableObject = getCurrentXObject(object);
+        if (editableObject.getOwnerDocument() == this.initialDoc && this.initialDoc != editableDoc) {
+            // The object was removed from the document, modify a detached copy of it
+            editableObject = object.clone();
+            editableObject.setOwnerDocument(editableDoc);
+        }
+
+        return editableObject;
+    }
+
+    /**
+     * Objects retrieved before the wrapped document was copied still belong to the shared document. This method
+     * returns their counterpart in the copy so that the modifications made through another handle are visible.
+     *
+     * @param object the object to read
+     * @return the object to read, part of the copy of the document when the wrapped document was already copied
+     */
+    BaseObject getCurrentXObject(BaseObject object)
+    {
+        if (object.getOwnerDocument() == this.initialDoc && this.initialDoc != this.doc) {
+            BaseObject currentObject = this.doc.getXObject(object.getXClassReference(), object.getNumber());
+
+            if (currentObject != null) {
+                return currentObject;
+            }
+        }
+
+        return object;
     }
 
     public String getXMLContent() throws XWikiException
@@ -1483,7 +1538,7 @@ public Vector<Object> getComments()
 
     public Vector<Object> getComments(boolean asc)
     {
-        return getXObjects(this.getDoc().getComments(asc));
+        return getXObjects(this.doc.getComments(asc));
     }
 
     /**
@@ -2239,7 +2294,7 @@ public java.lang.Object getValue(String fieldName)
     {
         Object object;
         if (this.currentObj == null) {
-            object = new Object(this.getDoc().getFirstObject(fieldName, getXWikiContext()), getXWikiContext());
+            object = new Object(this.doc.getFirstObject(fieldName, getXWikiContext()), getXWikiContext());
         } else {
             object = this.currentObj;
         }
@@ -2836,7 +2891,7 @@ public boolean isProgrammaticContent()
      */
     public boolean removeObject(Object object)
     {
-        return getDoc().removeObject(object.getBaseObject());
+        return getDoc().removeObject(getEditableXObject(object.getBaseObject()));
     }
 
     /**
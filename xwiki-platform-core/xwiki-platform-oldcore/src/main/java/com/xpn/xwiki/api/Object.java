@@ -29,25 +29,64 @@
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseCollection;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseObjectReference;
+import com.xpn.xwiki.objects.BaseProperty;
 
 public class Object extends Collection
 {
+    /**
+     * The document from which the object was retrieved, if any.
+     */
+    private Document document;
+
     public Object(BaseObject obj, XWikiContext context)
     {
         super(obj, context);
     }
 
+    /**
+     * @param document the document from which the object was retrieved
+     */
+    void setDocument(Document document)
+    {
+        this.document = document;
+    }
+
+    @Override
+    protected BaseCollection getCollection()
+    {
+        if (this.document != null) {
+            // Another handle might have copied the wrapped document in which case the object must be read from the copy
+            this.element = this.document.getCurrentXObject((BaseObject) this.element);
+        }
+
+        return super.getCollection();
+    }
+
     protected BaseObject getBaseObject()
     {
         return (BaseObject) getCollection();
     }
 
+    /**
+     * @return the object to modify, which might be a copy of the wrapped object if it's shared with the document cache
+     */
+    BaseObject getEditableBaseObject()
+    {
+        if (this.document != null) {
+            this.element = this.document.getEditableXObject(getBaseObject());
+        }
+
+        return getBaseObject();
+    }
+
     public BaseObject getXWikiObject()
     {
         if (hasProgrammingRights()) {
-            return (BaseObject) getCollection();
+            // The caller might modify the returned object
+            return getEditableBaseObject();
         } else {
             return null;
         }
@@ -60,7 +99,7 @@ public String getGuid()
 
     public void setGuid(String guid)
     {
-        getBaseObject().setGuid(guid);
+        getEditableBaseObject().setGuid(guid);
     }
 
     /**
@@ -120,6 +159,17 @@ public java.lang.Object display(String name, String mode, boolean isolated)
         }
     }
 
+    @Override
+    Property newPropertyApi(BaseProperty property)
+    {
+        Property propertyApi = super.newPropertyApi(property);
+
+        // The property might be shared with the document cache so it needs a way to get a modifiable version of itself
+        propertyApi.setObject(this);
+
+        return propertyApi;
+    }
+
     @Override
     public boolean equals(java.lang.Object arg0)
     {
@@ -134,10 +184,12 @@ public void set(String fieldname, java.lang.Object value)
     {
         XWikiContext xcontext = getXWikiContext();
 
-        getBaseObject().set(fieldname, value, xcontext);
+        BaseObject object = getEditableBaseObject();
+
+        object.set(fieldname, value, xcontext);
 
         // Temporary set as author of the document the current script author (until the document is saved)
-        getBaseObject().getOwnerDocument().setAuthorReference(xcontext.getAuthorReference());
+        object.getOwnerDocument().setAuthorReference(xcontext.getAuthorReference());
     }
 
     @Override
@@ -20,7 +20,9 @@
 package com.xpn.xwiki.api;
 
 import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseProperty;
+import com.xpn.xwiki.objects.PropertyInterface;
 
 /**
  * Property is a single attribute of an XWiki {@link com.xpn.xwiki.api.Object}.
@@ -29,6 +31,11 @@
  */
 public class Property extends Element
 {
+    /**
+     * The object from which the property was retrieved, if any.
+     */
+    private Object object;
+
     /**
      * The Constructor.
      *
@@ -45,16 +52,67 @@ public Property(BaseProperty property, XWikiContext context)
      */
     protected BaseProperty getBaseProperty()
     {
+        if (this.object != null) {
+            // Another handle might have copied the wrapped document in which case the property must be read from the
+            // copy
+            BaseObject currentObject = this.object.getBaseObject();
+            BaseProperty property = (BaseProperty) this.element;
+
+            if (property.getObject() != currentObject) {
+                PropertyInterface currentProperty = currentObject.getField(property.getName());
+
+                if (currentProperty instanceof BaseProperty) {
+                    this.element = (BaseProperty) currentProperty;
+                }
+            }
+        }
+
         return (BaseProperty) this.element;
     }
 
+    /**
+     * @param object the object from which the property was retrieved
+     */
+    void setObject(Object object)
+    {
+        this.object = object;
+    }
+
+    /**
+     * @return the property to modify, which might be a copy of the wrapped property if it's shared with the document
+     *         cache
+     */
+    private BaseProperty getEditableBaseProperty()
+    {
+        if (this.object != null) {
+            BaseObject editableObject = this.object.getEditableBaseObject();
+            BaseProperty property = getBaseProperty();
+
+            if (property.getObject() != editableObject) {
+                PropertyInterface editableProperty = editableObject.getField(property.getName());
+
+                if (editableProperty instanceof BaseProperty) {
+                    this.element = (BaseProperty) editableProperty;
+                } else {
+                    // The property was removed from the object, modify a detached copy of it
+                    BaseProperty detachedProperty = property.clone();
+                    detachedProperty.setObject(editableObject);
+                    this.element = detachedProperty;
+                }
+            }
+        }
+
+        return getBaseProperty();
+    }
+
     /**
      * @return the internal {@link com.xpn.xwiki.objects.BaseProperty} which this Property wraps.
      */
     public BaseProperty getProperty()
     {
         if (hasProgrammingRights()) {
-            return (BaseProperty) this.element;
+            // The caller might modify the returned property
+            return getEditableBaseProperty();
         } else {
             return null;
         }
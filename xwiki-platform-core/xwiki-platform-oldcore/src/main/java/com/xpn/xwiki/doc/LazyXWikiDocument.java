@@ -334,6 +334,18 @@ public XDOM getPreparedXDOM()
         return getDocument().getPreparedXDOM();
     }
 
+    @Override
+    public XDOM getReadOnlyXDOM()
+    {
+        return getDocument().getReadOnlyXDOM();
+    }
+
+    @Override
+    public XDOM getReadOnlyPreparedXDOM()
+    {
+        return getDocument().getReadOnlyPreparedXDOM();
+    }
+
     @Override
     public String getTags(XWikiContext context)
     {
@@ -22,6 +22,7 @@
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -30,6 +31,7 @@
 import java.util.Objects;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -59,6 +61,7 @@
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.stability.Unstable;
 import org.xwiki.text.XWikiToStringBuilder;
 import org.xwiki.tika.internal.TikaUtils;
 
@@ -917,6 +920,44 @@ public InputStream getContentInputStream(XWikiContext xcontext) throws XWikiExce
         return getContentInputStream();
     }
 
+    /**
+     * Copy a portion of the content of this attachment to the passed output. Contrary to skipping bytes in the stream
+     * returned by {@link #getContentInputStream(XWikiContext)}, the content located before the requested offset is not
+     * read when the store supports it (for example when the content is stored in a file).
+     *
+     * @param offset the position of the first byte to copy
+     * @param length the maximum number of bytes to copy
+     * @param output the stream where to write the content
+     * @param xcontext current XWikiContext
+     * @return the number of bytes actually copied
+     * @throws XWikiException when failing to load the content of the attachment
+     * @throws IOException when failing to read the content or write it to the output
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    public long copyContent(long offset, long length, OutputStream output, XWikiContext xcontext)
+        throws XWikiException, IOException
+    {
+        if (this.content == null && xcontext != null) {
+            reloadAttachmentContent(xcontext);
+        } else if (this.content != null) {
+            CountingOutputStream countingOutput = new CountingOutputStream(output);
+            try {
+                return this.content.copyContent(offset, length, countingOutput);
+            } catch (Exception e) {
+                // Bulletproofing: if the content object is corrupted for some reason try to reload it, unless part of
+                // the content was already copied (or the output failed)
+                if (xcontext == null || countingOutput.getByteCount() > 0) {
+                    throw e;
+                }
+
+                reloadAttachmentContent(xcontext);
+            }
+        }
+
+        return this.content != null ? this.content.copyContent(offset, length, output) : 0;
+    }
+
     private InputStream getContentInputStream()
     {
         return this.content != null ? this.content.getContentInputStream() : null;
@@ -24,6 +24,10 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.disk.DiskFileItem;
@@ -32,6 +36,7 @@
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.xwiki.environment.Environment;
+import org.xwiki.stability.Unstable;
 import org.xwiki.store.UnexpectedException;
 
 import com.xpn.xwiki.web.Utils;
@@ -261,6 +266,62 @@ public InputStream getContentInputStream()
         }
     }
 
+    /**
+     * Copy a portion of the binary content of this attachment to the passed output, without reading the bytes located
+     * before the requested offset when the content is stored in a file.
+     *
+     * @param offset the position of the first byte to copy
+     * @param length the maximum number of bytes to copy
+     * @param output the stream where to write the content
+     * @return the number of bytes actually copied
+     * @throws IOException when failing to read the content or write it to the output
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    public long copyContent(long offset, long length, OutputStream output) throws IOException
+    {
+        if (this.file instanceof DiskFileItem && !this.file.isInMemory()) {
+            return copyContent(((DiskFileItem) this.file).getStoreLocation(), offset, length, output);
+        }
+
+        try (InputStream stream = getContentInputStream()) {
+            return IOUtils.copyLarge(stream, output, offset, length);
+        }
+    }
+
+    /**
+     * Copy a portion of a file to the passed output by positioning a {@link FileChannel} on the requested offset and
+     * letting the channel transfer the bytes.
+     *
+     * @param source the file to copy
+     * @param offset the position of the first byte to copy
+     * @param length the maximum number of bytes to copy
+     * @param output the stream where to write the content
+     * @return the number of bytes actually copied
+     * @throws IOException when failing to read the file or write it to the output
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    protected static long copyContent(File source, long offset, long length, OutputStream output) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long end = Math.min(channel.size(), offset + length);
+            // Don't close the target channel, it would close the passed output stream
+            WritableByteChannel target = Channels.newChannel(output);
+
+            long position = offset;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+
+            return Math.max(position - offset, 0);
+        }
+    }
+
     /**
      * Set the content of the attachment by writing to a provided OutputStream. Content is *not* appended, this method
      * clears the content and creates new content. If you want to append content, you can call
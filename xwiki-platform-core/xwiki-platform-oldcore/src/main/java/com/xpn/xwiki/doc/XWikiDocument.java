@@ -5740,7 +5740,7 @@ private Set<EntityReference> getUniqueLinkedEntityReferences(XWikiContext contex
                 references = new LinkedHashSet<>();
 
                 // Document content
-                XDOM dom = getXDOM();
+                XDOM dom = getReadOnlyXDOM();
                 getUniqueLinkedEntityReferences(dom, entityTypes, references);
 
                 // XObjects
@@ -6095,7 +6095,7 @@ private List<String> getIncludedPagesInternal(XWikiContext context)
             return getIncludedPagesForXWiki10Syntax(getContent(), context);
         } else {
             // Find all include macros listed on the page
-            XDOM dom = getXDOM();
+            XDOM dom = getReadOnlyXDOM();
 
             List<String> result = new ArrayList<String>();
             List<MacroBlock> macroBlocks =
@@ -7489,7 +7489,7 @@ private String getDefaultEditModeInternal(XWikiContext context) throws XWikiExce
             // Find all include macros and extract the document names
             // TODO: Is there a good way not to hardcode the macro name? The macro itself shouldn't know
             // its own name since it's a deployment time concern.
-            for (Block macroBlock : getXDOM().getBlocks(new MacroBlockMatcher("include"), Axes.CHILD)) {
+            for (Block macroBlock : getReadOnlyXDOM().getBlocks(new MacroBlockMatcher("include"), Axes.CHILD)) {
                 // Find the document reference to include by checking the macro's "reference" parameter.
                 // For backward-compatibility we also check for a "document" parameter since this is the parameter name
                 // that was used prior to XWiki 3.4M1 when the "reference" one was introduced and thus when the
@@ -8224,7 +8224,7 @@ public List<DocumentSection> getSections() throws XWikiException
             return getSections10();
         } else {
             List<DocumentSection> splitSections = new ArrayList<DocumentSection>();
-            List<HeaderBlock> headers = getFilteredHeaders();
+            List<HeaderBlock> headers = getFilteredHeaders(getReadOnlyXDOM());
 
             int sectionNumber = 1;
             for (HeaderBlock header : headers) {
@@ -8234,8 +8234,9 @@ public List<DocumentSection> getSections() throws XWikiException
                 // Need to do the same thing than 1.0 content here
                 String documentSectionLevel = StringUtils.repeat("1.", header.getLevel().getAsInt() - 1) + "1";
 
+                // Copy the header since it's part of the shared XDOM and creating a new XDOM modifies its blocks
                 DocumentSection docSection = new DocumentSection(sectionNumber++, documentSectionIndex,
-                    documentSectionLevel, renderXDOM(new XDOM(header.getChildren()), getSyntax()));
+                    documentSectionLevel, renderXDOM(new XDOM(header.clone().getChildren()), getSyntax()));
                 splitSections.add(docSection);
             }
 
@@ -8262,9 +8263,10 @@ private XWikiContext getXWikiContext()
     /**
      * Filter the headers from a document XDOM based on xwiki.section.depth property from xwiki.cfg file.
      *
+     * @param xdom the XDOM of the document
      * @return the filtered headers
      */
-    private List<HeaderBlock> getFilteredHeaders()
+    private List<HeaderBlock> getFilteredHeaders(XDOM xdom)
     {
         List<HeaderBlock> filteredHeaders = new ArrayList<HeaderBlock>();
 
@@ -8302,7 +8304,6 @@ private List<HeaderBlock> getFilteredHeaders()
         //
         // Which obviously is not correct...
 
-        final XDOM xdom = getXDOM();
         if (!xdom.getChildren().isEmpty()) {
             Block currentBlock = xdom.getChildren().get(0);
             while (currentBlock != null) {
@@ -8389,10 +8390,11 @@ public String getContentOfSection(int sectionNumber) throws XWikiException
         if (is10Syntax()) {
             content = getContentOfSection10(sectionNumber);
         } else {
-            List<HeaderBlock> headers = getFilteredHeaders();
+            List<HeaderBlock> headers = getFilteredHeaders(getReadOnlyXDOM());
 
             if (headers.size() >= sectionNumber) {
-                SectionBlock section = headers.get(sectionNumber - 1).getSection();
+                // Copy the section since it's part of the shared XDOM and creating a new XDOM modifies its blocks
+                Block section = headers.get(sectionNumber - 1).getSection().clone();
                 content = renderXDOM(new XDOM(Collections.<Block>singletonList(section)), getSyntax());
             }
         }
@@ -8454,7 +8456,8 @@ public String updateDocumentSection(int sectionNumber, String newSectionContent)
             content = updateDocumentSection10(sectionNumber, newSectionContent);
         } else {
             // Get the current section block
-            HeaderBlock header = getFilteredHeaders().get(sectionNumber - 1);
+            // Work on a copy of the XDOM since it's modified
+            HeaderBlock header = getFilteredHeaders(getXDOM()).get(sectionNumber - 1);
 
             XDOM xdom = (XDOM) header.getRoot();
 
@@ -8969,15 +8972,30 @@ private XDOM parseContentNoException()
     @Override
     public XDOM getXDOM()
     {
-        if (this.xdomCache == null) {
-            this.xdomCache = parseContentNoException();
+        return getReadOnlyXDOM().clone();
+    }
+
+    @Override
+    public XDOM getReadOnlyXDOM()
+    {
+        XDOM xdom = this.xdomCache;
+
+        if (xdom == null) {
+            xdom = parseContentNoException();
+            this.xdomCache = xdom;
         }
 
-        return this.xdomCache.clone();
+        return xdom;
     }
 
     @Override
     public XDOM getPreparedXDOM()
+    {
+        return getReadOnlyPreparedXDOM().clone();
+    }
+
+    @Override
+    public XDOM getReadOnlyPreparedXDOM()
     {
         LocalDateTime xdomPrepareDate = this.xdomCachePrepareDate;
         XDOM xdom = this.xdomCache;
@@ -8985,7 +9003,7 @@ public XDOM getPreparedXDOM()
         // If the content is prepared and it's allowed to use the cache, return it
         if (xdomPrepareDate != null) {
             if (getCacheControl().isCacheReadAllowed(xdomPrepareDate)) {
-                return xdom.clone();
+                return xdom;
             }
 
             // Start from scratch if it's not allowed to reuse the already prepared XDOM
@@ -9008,7 +9026,7 @@ public XDOM getPreparedXDOM()
         this.xdomCache = xdom;
         this.xdomCachePrepareDate = xdomPrepareDate;
 
-        return this.xdomCache.clone();
+        return xdom;
     }
 
     private void resetXDOM()
@@ -33,6 +33,7 @@
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryListener;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
@@ -246,6 +247,12 @@ public void removeAll(DocumentReference documentReference)
         }
     }
 
+    @Override
+    public void addCacheEntryListener(CacheEntryListener<C> cacheEntryListener)
+    {
+        this.cache.addCacheEntryListener(cacheEntryListener);
+    }
+
     @Override
     public void dispose()
     {
@@ -21,6 +21,7 @@
 
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryListener;
 import org.xwiki.component.annotation.ComponentRole;
 import org.xwiki.model.reference.DocumentReference;
 
@@ -85,6 +86,14 @@
      */
     void removeAll(DocumentReference documentReference);
 
+    /**
+     * Add the provided listener to be notified about the modifications of the cache entries.
+     *
+     * @param listener the listener
+     * @since 16.8.0RC1
+     */
+    void addCacheEntryListener(CacheEntryListener<C> listener);
+
     /**
      * Release all the resources this cache use.
      */
@@ -23,6 +23,8 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.xwiki.model.reference.DocumentReference;
+
 /**
  * Cached item including any extensions.
  *
@@ -36,6 +38,35 @@
      */
     public String rendered;
 
+    /**
+     * The serialized reference of the space of the document, used to gather statistics.
+     *
+     * @since 16.8.0RC1
+     */
+    public String space;
+
+    /**
+     * The key of the item in the cache, used to track the least recently used items.
+     *
+     * @since 16.8.0RC1
+     */
+    public String key;
+
+    /**
+     * The reference of the document, used to remove the item from the cache.
+     *
+     * @since 16.8.0RC1
+     */
+    public DocumentReference documentReference;
+
+    /**
+     * The elements added to the document reference to build the key of the item in the cache, used to remove the item
+     * from the cache.
+     *
+     * @since 16.8.0RC1
+     */
+    public Object[] cacheKeyExtensions;
+
     /**
      * Map containing all extensions used in cached item.
      */
@@ -21,6 +21,8 @@
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,15 +35,20 @@
 
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.cache.event.CacheEntryListener;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.internal.cache.DocumentCache;
 import com.xpn.xwiki.internal.cache.rendering.CachedItem.UsedExtension;
+import com.xpn.xwiki.internal.cache.rendering.jmx.JMXRenderingCache;
 import com.xpn.xwiki.plugin.XWikiPluginInterface;
 import com.xpn.xwiki.plugin.XWikiPluginManager;
 
@@ -53,7 +60,7 @@
  */
 @Component
 @Singleton
-public class DefaultRenderingCache implements RenderingCache, Initializable
+public class DefaultRenderingCache implements RenderingCache, Initializable, CacheEntryListener<CachedItem>
 {
     /**
      * UTF-8 encoding key.
@@ -65,11 +72,22 @@ public class DefaultRenderingCache implements RenderingCache, Initializable
      */
     private static final String NAME = "core.renderingcache";
 
+    /**
+     * The name under which the statistics of the cache are exposed through JMX.
+     */
+    private static final String MBEAN_NAME = "type=Cache,name=rendering";
+
     /**
      * The name of the parameter used to force cache refresh.
      */
     private static final String PARAMETER_REFRESH = "refresh";
 
+    /**
+     * The estimated size of what is stored in a cache entry in addition to the rendered content itself (key,
+     * extensions, etc.).
+     */
+    private static final long ENTRY_OVERHEAD = 1024;
+
     /**
      * Configuration of the rendering cache.
      */
@@ -93,6 +111,30 @@ public class DefaultRenderingCache implements RenderingCache, Initializable
     @Inject
     private DocumentCache<CachedItem> cache;
 
+    /**
+     * Used to serialize the reference of the space of the cached documents.
+     */
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    /**
+     * Used to expose the statistics of the cache.
+     */
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    /**
+     * The cached items, in access order (least recently used first).
+     */
+    private final LinkedHashMap<String, CachedItem> weights = new LinkedHashMap<>(16, 0.75F, true);
+
+    /**
+     * The estimated size (in bytes) of the cached items.
+     */
+    private long weight;
+
+    private final RenderingCacheStatistics statistics = new RenderingCacheStatistics();
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -109,6 +151,10 @@ public void initialize() throws InitializationException
             } catch (CacheException e) {
                 throw new InitializationException("Failed to initialize core rendering cache", e);
             }
+
+            this.cache.addCacheEntryListener(this);
+
+            this.jmxRegistration.registerMBean(new JMXRenderingCache(this.statistics), MBEAN_NAME);
         }
     }
 
@@ -127,7 +173,16 @@ public String getRenderedContent(DocumentReference documentReference, String sou
                     this.cache.get(documentReference, source, getAction(context), context.getLanguage(),
                         getRequestParameters(context));
                 if (cachedItem != null) {
+                    this.statistics.hit(cachedItem.space);
+
+                    // Remember the item was used
+                    synchronized (this.weights) {
+                        this.weights.get(cachedItem.key);
+                    }
+
                     renderedContent = restoreCachedItem(context, cachedItem);
+                } else {
+                    this.statistics.miss(getSpace(documentReference));
                 }
             }
         }
@@ -135,16 +190,92 @@ public String getRenderedContent(DocumentReference documentReference, String sou
         return renderedContent;
     }
 
+    private String getSpace(DocumentReference documentReference)
+    {
+        return this.serializer.serialize(documentReference.getLastSpaceReference());
+    }
+
     @Override
     public void setRenderedContent(DocumentReference documentReference, String source, String renderedContent,
         XWikiContext context)
     {
         if (this.configuration.isCached(documentReference)) {
-            this.cache.set(buildCachedItem(context, renderedContent), documentReference, source, getAction(context),
-                context.getLanguage(), getRequestParameters(context));
+            CachedItem cachedItem = buildCachedItem(context, renderedContent);
+            cachedItem.space = getSpace(documentReference);
+            cachedItem.documentReference = documentReference;
+            cachedItem.cacheKeyExtensions =
+                new Object[] {source, getAction(context), context.getLanguage(), getRequestParameters(context)};
+
+            this.cache.set(cachedItem, documentReference, cachedItem.cacheKeyExtensions);
+
+            // Make sure the cache does not take more memory than allowed
+            evictOverweight();
+        }
+    }
+
+    /**
+     * @param cachedItem the cached item
+     * @return the estimated size of the cached item in memory, in bytes
+     */
+    private long getWeight(CachedItem cachedItem)
+    {
+        long itemWeight = ENTRY_OVERHEAD;
+
+        if (cachedItem.rendered != null) {
+            // A Java char takes 2 bytes
+            itemWeight += cachedItem.rendered.length() * 2L;
+        }
+
+        return itemWeight;
+    }
+
+    private void evictOverweight()
+    {
+        long maxWeight = this.configuration.getMaxSize();
+
+        while (true) {
+            CachedItem eldestItem;
+
+            synchronized (this.weights) {
+                // Always keep at least the most recent entry, even if it's bigger than the maximum
+                if (this.weight <= maxWeight || this.weights.size() <= 1) {
+                    return;
+                }
+
+                Iterator<Map.Entry<String, CachedItem>> iterator = this.weights.entrySet().iterator();
+                eldestItem = iterator.next().getValue();
+                // Make sure to not loop forever if the cache does not notify the removal
+                this.weight -= getWeight(eldestItem);
+                iterator.remove();
+            }
+
+            this.statistics.evicted(eldestItem.space);
+
+            // Go through the document cache so that it also forgets the key of the removed entry
+            this.cache.remove(eldestItem, eldestItem.documentReference, eldestItem.cacheKeyExtensions);
         }
     }
 
+    /**
+     * @return the estimated size (in bytes) of the rendered content stored in the cache
+     * @since 16.8.0RC1
+     */
+    public long getWeight()
+    {
+        synchronized (this.weights) {
+            return this.weight;
+        }
+    }
+
+    /**
+     * @return the counters about the usage of the cache
+     * @since 16.8.0RC1
+     */
+    public RenderingCacheStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
     /**
      * Create cached item with all dependencies.
      *
@@ -273,5 +404,43 @@ public void flushCache(DocumentReference documentReference)
     public void flushWholeCache()
     {
         this.cache.removeAll();
+
+        synchronized (this.weights) {
+            this.weights.clear();
+            this.weight = 0;
+        }
+    }
+
+    @Override
+    public void cacheEntryAdded(CacheEntryEvent<CachedItem> event)
+    {
+        addWeight(event.getEntry().getKey(), event.getEntry().getValue());
+    }
+
+    @Override
+    public void cacheEntryModified(CacheEntryEvent<CachedItem> event)
+    {
+        addWeight(event.getEntry().getKey(), event.getEntry().getValue());
+    }
+
+    @Override
+    public void cacheEntryRemoved(CacheEntryEvent<CachedItem> event)
+    {
+        synchronized (this.weights) {
+            CachedItem cachedItem = this.weights.remove(event.getEntry().getKey());
+            if (cachedItem != null) {
+                this.weight -= getWeight(cachedItem);
+            }
+        }
+    }
+
+    private void addWeight(String key, CachedItem cachedItem)
+    {
+        cachedItem.key = key;
+
+        synchronized (this.weights) {
+            CachedItem previousItem = this.weights.put(key, cachedItem);
+            this.weight += getWeight(cachedItem) - (previousItem != null ? getWeight(previousItem) : 0);
+        }
     }
 }
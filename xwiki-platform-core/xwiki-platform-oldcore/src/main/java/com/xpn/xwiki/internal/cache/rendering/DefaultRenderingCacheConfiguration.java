@@ -78,6 +78,16 @@ public class DefaultRenderingCacheConfiguration implements RenderingCacheConfigu
      */
     private static final int PROPVALUE_SIZE = 100;
 
+    /**
+     * Name of the property indicating the maximum size (in bytes) of the cache.
+     */
+    private static final String PROPNAME_MAXSIZE = PREFIX + "maxSize";
+
+    /**
+     * The default maximum size (in bytes) of the cache.
+     */
+    private static final long PROPVALUE_MAXSIZE = 50L * 1024 * 1024;
+
     /**
      * xwiki.properties file configurations.
      */
@@ -150,6 +160,12 @@ public int getSize()
         return this.farmConfiguration.getProperty(PROPNAME_SIZE, PROPVALUE_SIZE);
     }
 
+    @Override
+    public long getMaxSize()
+    {
+        return this.farmConfiguration.getProperty(PROPNAME_MAXSIZE, PROPVALUE_MAXSIZE);
+    }
+
     @Override
     public boolean isCached(DocumentReference documentReference)
     {
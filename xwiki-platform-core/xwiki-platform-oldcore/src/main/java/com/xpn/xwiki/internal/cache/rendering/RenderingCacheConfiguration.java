@@ -46,6 +46,12 @@
      */
     int getSize();
 
+    /**
+     * @return the maximum estimated size (in bytes) of the rendered content stored in the cache
+     * @since 16.8.0RC1
+     */
+    long getMaxSize();
+
     /**
      * Indicate if the provided document's rendering result should be cached.
      *
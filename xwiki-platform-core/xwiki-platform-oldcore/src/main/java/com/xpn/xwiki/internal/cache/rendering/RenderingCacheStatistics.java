@@ -0,0 +1,168 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.cache.rendering;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters about the usage of the rendering cache, per space. To limit the memory used by the counters, the spaces
+ * used once the maximum number of spaces is reached are counted together under {@link #OTHER_SPACES}.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class RenderingCacheStatistics
+{
+    /**
+     * The name under which are counted the spaces which could not be counted separately.
+     */
+    public static final String OTHER_SPACES = "*";
+
+    /**
+     * The default maximum number of spaces counted separately.
+     */
+    private static final int DEFAULT_MAX_SPACES = 1000;
+
+    private static final class Counters
+    {
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private final LongAdder evictions = new LongAdder();
+    }
+
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private final int maxSpaces;
+
+    /**
+     * Count separately up to 1000 spaces.
+     */
+    public RenderingCacheStatistics()
+    {
+        this(DEFAULT_MAX_SPACES);
+    }
+
+    /**
+     * @param maxSpaces the maximum number of spaces counted separately
+     */
+    public RenderingCacheStatistics(int maxSpaces)
+    {
+        this.maxSpaces = maxSpaces;
+    }
+
+    private Counters getCounters(String space)
+    {
+        Counters spaceCounters = this.counters.get(space);
+
+        if (spaceCounters == null) {
+            // The limit can be slightly exceeded by concurrent calls, which is fine
+            String key = this.counters.size() < this.maxSpaces ? space : OTHER_SPACES;
+            spaceCounters = this.counters.computeIfAbsent(key, k -> new Counters());
+        }
+
+        return spaceCounters;
+    }
+
+    /**
+     * A rendered content was found in the cache.
+     *
+     * @param space the serialized reference of the space of the document
+     */
+    public void hit(String space)
+    {
+        getCounters(space).hits.increment();
+    }
+
+    /**
+     * A rendered content could not be found in the cache.
+     *
+     * @param space the serialized reference of the space of the document
+     */
+    public void miss(String space)
+    {
+        getCounters(space).misses.increment();
+    }
+
+    /**
+     * A rendered content was removed from the cache to free some memory.
+     *
+     * @param space the serialized reference of the space of the document
+     */
+    public void evicted(String space)
+    {
+        getCounters(space).evictions.increment();
+    }
+
+    /**
+     * @return the serialized references of the spaces for which the cache was used, including {@link #OTHER_SPACES}
+     *         when the maximum number of spaces was reached
+     */
+    public Set<String> getSpaces()
+    {
+        return Collections.unmodifiableSet(this.counters.keySet());
+    }
+
+    /**
+     * @param space the serialized reference of the space
+     * @return the number of rendered contents of the space documents found in the cache
+     */
+    public long getHits(String space)
+    {
+        Counters spaceCounters = this.counters.get(space);
+
+        return spaceCounters != null ? spaceCounters.hits.sum() : 0;
+    }
+
+    /**
+     * @param space the serialized reference of the space
+     * @return the number of rendered contents of the space documents which could not be found in the cache
+     */
+    public long getMisses(String space)
+    {
+        Counters spaceCounters = this.counters.get(space);
+
+        return spaceCounters != null ? spaceCounters.misses.sum() : 0;
+    }
+
+    /**
+     * @param space the serialized reference of the space
+     * @return the number of rendered contents of the space documents removed from the cache to free some memory
+     */
+    public long getEvictions(String space)
+    {
+        Counters spaceCounters = this.counters.get(space);
+
+        return spaceCounters != null ? spaceCounters.evictions.sum() : 0;
+    }
+
+    /**
+     * Reset all the counters.
+     */
+    public void reset()
+    {
+        this.counters.clear();
+    }
+}
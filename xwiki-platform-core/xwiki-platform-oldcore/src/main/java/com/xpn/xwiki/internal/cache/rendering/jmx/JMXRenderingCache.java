@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.cache.rendering.jmx;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import com.xpn.xwiki.internal.cache.rendering.RenderingCacheStatistics;
+
+/**
+ * Implementation of the JMXRenderingCache MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class JMXRenderingCache implements JMXRenderingCacheMBean
+{
+    private final RenderingCacheStatistics statistics;
+
+    /**
+     * @param statistics the statistics of the rendering cache to monitor
+     */
+    public JMXRenderingCache(RenderingCacheStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    private Map<String, Long> getPerSpace(ToLongFunction<String> counter)
+    {
+        Map<String, Long> values = new TreeMap<>();
+        for (String space : this.statistics.getSpaces()) {
+            values.put(space, counter.applyAsLong(space));
+        }
+
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getHits()
+    {
+        return getPerSpace(this.statistics::getHits);
+    }
+
+    @Override
+    public Map<String, Long> getMisses()
+    {
+        return getPerSpace(this.statistics::getMisses);
+    }
+
+    @Override
+    public Map<String, Long> getEvictions()
+    {
+        return getPerSpace(this.statistics::getEvictions);
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        this.statistics.reset();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.cache.rendering.jmx;
+
+import java.util.Map;
+
+/**
+ * Interface of the {@link JMXRenderingCache} MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public interface JMXRenderingCacheMBean
+{
+    /**
+     * @return the number of rendered contents found in the cache, per space
+     */
+    Map<String, Long> getHits();
+
+    /**
+     * @return the number of rendered contents which could not be found in the cache, per space
+     */
+    Map<String, Long> getMisses();
+
+    /**
+     * @return the number of rendered contents removed from the cache to free some memory, per space
+     */
+    Map<String, Long> getEvictions();
+
+    /**
+     * Reset the statistics.
+     */
+    void resetStatistics();
+}
@@ -20,16 +20,33 @@
 package com.xpn.xwiki.internal.filter.output;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.context.concurrent.ContextStoreManager;
 import org.xwiki.filter.FilterDescriptorManager;
 import org.xwiki.filter.FilterEventParameters;
 import org.xwiki.filter.FilterException;
@@ -39,6 +56,9 @@
 import org.xwiki.logging.marker.TranslationMarker;
 import org.xwiki.model.document.DocumentAuthors;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.ObservationContext;
+import org.xwiki.observation.event.BeginEvent;
+import org.xwiki.observation.event.BeginFoldEvent;
 import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceResolver;
 
@@ -46,6 +66,7 @@
 import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.doc.XWikiDocumentArchive;
+import com.xpn.xwiki.internal.context.XWikiContextContextStore;
 
 /**
  * @version $Id$
@@ -66,6 +87,25 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
     private static final TranslationMarker LOG_DOCUMENT_FAILSAVE =
         new TranslationMarker("filter.instance.log.document.failsave", WikiDocumentFilter.LOG_DOCUMENT_ERROR);
 
+    /**
+     * The context elements which are needed to save the documents in another thread.
+     */
+    private static final List<String> SAVE_CONTEXT_ENTRIES = Arrays.asList(XWikiContextContextStore.PROP_WIKI,
+        XWikiContextContextStore.PROP_USER, XWikiContextContextStore.PROP_LOCALE);
+
+    /**
+     * The maximum number of documents waiting to be saved by each thread, to limit the memory used by documents read
+     * faster than they can be saved.
+     */
+    private static final int MAX_PENDING_SAVES_PER_THREAD = 10;
+
+    /**
+     * Matches any fold event (XAR import, extension install, etc.). The ongoing fold events are not visible from the
+     * save threads, so the documents are saved in the reading thread while inside one of them to make sure the
+     * listeners of the save events still see them.
+     */
+    private static final BeginEvent FOLD_EVENTS = event -> event instanceof BeginFoldEvent;
+
     @Inject
     private FilterDescriptorManager filterManager;
 
@@ -79,11 +119,46 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
     @Named("document")
     private UserReferenceResolver<DocumentReference> documentReferenceUserReferenceResolver;
 
+    @Inject
+    private ContextStoreManager contextStore;
+
+    @Inject
+    private ExecutionContextManager contextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private ObservationContext observationContext;
+
     @Inject
     private Logger logger;
 
     private boolean firstVersion;
 
+    /**
+     * The threads saving the documents when parallel saving is enabled.
+     */
+    private ExecutorService[] saveExecutors;
+
+    /**
+     * The documents being saved in other threads, in the order in which they were read.
+     */
+    private final Deque<PendingSave> pendingSaves = new ArrayDeque<>();
+
+    private static final class PendingSave
+    {
+        private final XWikiDocument inputDocument;
+
+        private final Future<Boolean> future;
+
+        private PendingSave(XWikiDocument inputDocument, Future<Boolean> future)
+        {
+            this.inputDocument = inputDocument;
+            this.future = future;
+        }
+    }
+
     private FilterEventParameters currentLocaleParameters;
 
     private FilterEventParameters currentRevisionParameters;
@@ -97,7 +172,16 @@ protected Object createFilter() throws FilterException
     @Override
     public void close() throws IOException
     {
-        // Nothing to close
+        if (this.saveExecutors != null) {
+            try {
+                // Wait for the documents still being saved
+                reportPendingSaves();
+            } catch (FilterException e) {
+                throw new IOException("Failed to save the imported documents", e);
+            } finally {
+                stopSaveExecutors();
+            }
+        }
     }
 
     @Override
@@ -177,104 +261,249 @@ private void maybeSaveDocument() throws FilterException
             return;
         }
 
-        boolean hasJRCSHistory = inputDocument.getDocumentArchive() != null;
+        if (this.properties.getSaveThreads() > 1 && !this.observationContext.isIn(FOLD_EVENTS)) {
+            submitSave(inputDocument, this.firstVersion);
+        } else {
+            // Make sure a previous version of the document is not saved after this one
+            reportPendingSaves();
 
-        XWikiContext xcontext = this.xcontextProvider.get();
+            boolean isnew;
+            try {
+                isnew = saveDocument(inputDocument, this.firstVersion);
+            } catch (Exception e) {
+                onSaveFailure(inputDocument, e);
+
+                return;
+            }
 
+            onSaveSuccess(inputDocument, isnew);
+        }
+    }
+
+    private void submitSave(XWikiDocument inputDocument, boolean inputFirstVersion) throws FilterException
+    {
+        if (this.saveExecutors == null) {
+            this.saveExecutors = new ExecutorService[this.properties.getSaveThreads()];
+            for (int i = 0; i < this.saveExecutors.length; ++i) {
+                this.saveExecutors[i] = Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
+                    .namingPattern("XWiki document import thread " + i).daemon(true).build());
+            }
+        }
+
+        Map<String, Serializable> savedContext;
         try {
-            XWikiDocument databaseDocument =
-                xcontext.getWiki().getDocument(inputDocument.getDocumentReferenceWithLocale(), xcontext);
+            savedContext = this.contextStore.save(SAVE_CONTEXT_ENTRIES);
+        } catch (ComponentLookupException e) {
+            throw new FilterException("Failed to save the context of the document import", e);
+        }
 
-            // Remember if it's a creation or an update
-            boolean isnew = databaseDocument.isNew();
+        // All the versions and locales of a document are always saved by the same thread, in the order they were read
+        int index = Math.floorMod(inputDocument.getDocumentReference().hashCode(), this.saveExecutors.length);
+        Future<Boolean> future = this.saveExecutors[index]
+            .submit(() -> saveDocumentInBackground(inputDocument, inputFirstVersion, savedContext));
+        this.pendingSaves.add(new PendingSave(inputDocument, future));
 
-            // Make sure document's attachments content are loaded from the store
-            databaseDocument.loadAttachmentsContentSafe(xcontext);
+        // Don't read more documents than can be saved
+        while (this.pendingSaves.size() > this.saveExecutors.length * MAX_PENDING_SAVES_PER_THREAD) {
+            reportOldestSave();
+        }
 
-            XWikiDocument document;
-            if (this.firstVersion && this.properties.isPreviousDeleted()) {
-                // We want to replace the existing document
-                document = inputDocument;
+        // Report the saves which are already finished
+        while (!this.pendingSaves.isEmpty() && this.pendingSaves.peek().future.isDone()) {
+            reportOldestSave();
+        }
+    }
 
-                // But it's still an update from outside world point of view
-                document.setOriginalDocument(databaseDocument);
-            } else {
-                // Safer to clone for thread safety and in case the save fail
-                document = databaseDocument.clone();
+    private boolean saveDocumentInBackground(XWikiDocument inputDocument, boolean inputFirstVersion,
+        Map<String, Serializable> savedContext) throws Exception
+    {
+        try {
+            // Initialize a new context similar to the one of the thread reading the input
+            this.contextManager.initialize(new ExecutionContext());
+            this.contextStore.restore(savedContext);
+
+            return saveDocument(inputDocument, inputFirstVersion);
+        } finally {
+            this.execution.removeContext();
+        }
+    }
 
-                // We want to update the existing document
-                document.apply(inputDocument);
+    private void reportPendingSaves() throws FilterException
+    {
+        while (!this.pendingSaves.isEmpty()) {
+            reportOldestSave();
+        }
+    }
 
-                // Get the version from the input document
-                document.setMinorEdit(inputDocument.isMinorEdit());
+    /**
+     * Wait for the oldest save in progress and report its result in the current thread (so that the log ends up in
+     * the job log, if any).
+     */
+    private void reportOldestSave() throws FilterException
+    {
+        PendingSave pendingSave = this.pendingSaves.poll();
 
-                // Copy input document authors if they should be preserved
-                if (this.properties.isAuthorPreserved()) {
-                    setAuthors(document, inputDocument);
-                }
+        try {
+            onSaveSuccess(pendingSave.inputDocument, pendingSave.future.get());
+        } catch (ExecutionException e) {
+            try {
+                onSaveFailure(pendingSave.inputDocument, e.getCause());
+            } catch (FilterException fe) {
+                // Don't save anything more
+                stopSaveExecutors();
+
+                throw fe;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
 
-            // Authors
+            stopSaveExecutors();
 
-            if (!this.properties.isAuthorPreserved()) {
-                if (this.properties.isAuthorSet()) {
-                    setAuthorReference(document, this.properties.getAuthor());
-                } else {
-                    setAuthorReference(document, xcontext.getUserReference());
-                }
-                DocumentAuthors authors = document.getAuthors();
-                authors.setContentAuthor(authors.getEffectiveMetadataAuthor());
-                if (document.isNew()) {
-                    authors.setCreator(authors.getEffectiveMetadataAuthor());
-                }
-            }
+            throw new FilterException("Interrupted while waiting for the save of the imported documents", e);
+        }
+    }
+
+    private void stopSaveExecutors()
+    {
+        // Don't start the saves which are still waiting
+        for (PendingSave pendingSave : this.pendingSaves) {
+            pendingSave.future.cancel(false);
+        }
+        this.pendingSaves.clear();
 
-            // Version related information and save
+        if (this.saveExecutors != null) {
+            for (ExecutorService executor : this.saveExecutors) {
+                executor.shutdown();
+            }
 
-            if (this.properties.isVersionPreserved()) {
-                // Make sure to use metadata coming from the input document
-                document.setVersion(inputDocument.getVersion());
-                document.setDate(inputDocument.getDate());
-                document.setContentUpdateDate(inputDocument.getContentUpdateDate());
-                for (XWikiAttachment attachment : document.getAttachmentList()) {
-                    attachment.setVersion(inputDocument.getAttachment(attachment.getFilename()).getVersion());
-                }
-                if (document.isNew()) {
-                    document.setCreationDate(inputDocument.getCreationDate());
-                    document.setDocumentArchive(inputDocument.getDocumentArchive());
+            // Wait for the saves in progress since interrupting them could leave the database in an inconsistent state
+            boolean interrupted = false;
+            for (ExecutorService executor : this.saveExecutors) {
+                while (!executor.isTerminated()) {
+                    try {
+                        executor.awaitTermination(1, TimeUnit.MINUTES);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
                 }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
 
-                // Make sure the document is stored exactly as is (don't increment version, etc.)
-                document.setMetaDataDirty(false);
-                document.setContentDirty(false);
-                document.getAttachmentList().forEach(a -> a.setMetaDataDirty(false));
+            this.saveExecutors = null;
+        }
+    }
 
-                xcontext.getWiki().saveDocument(document, inputDocument.getComment(), inputDocument.isMinorEdit(),
-                    xcontext);
+    private void onSaveSuccess(XWikiDocument inputDocument, boolean isnew)
+    {
+        if (this.properties.isVerbose()) {
+            if (isnew) {
+                this.logger.info(LOG_DOCUMENT_CREATED, "Created document [{}]",
+                    inputDocument.getDocumentReferenceWithLocale());
             } else {
-                // Forget the input history to let the store do its standard job
-                document.setDocumentArchive((XWikiDocumentArchive) null);
+                this.logger.info(LOG_DOCUMENT_UPDATED, "Updated document [{}]",
+                    inputDocument.getDocumentReferenceWithLocale());
+            }
+        }
+    }
+
+    private void onSaveFailure(XWikiDocument inputDocument, Throwable e) throws FilterException
+    {
+        this.logger.error(LOG_DOCUMENT_FAILSAVE, "Failed to save document [{}]",
+            inputDocument.getDocumentReferenceWithLocale(), e);
+
+        if (this.properties.isStoppedWhenSaveFail()) {
+            throw new FilterException("Failed to save document", e);
+        }
+    }
+
+    /**
+     * @return true if the document did not exist before
+     */
+    private boolean saveDocument(XWikiDocument inputDocument, boolean inputFirstVersion) throws Exception
+    {
+        boolean hasJRCSHistory = inputDocument.getDocumentArchive() != null;
+
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        XWikiDocument databaseDocument =
+            xcontext.getWiki().getDocument(inputDocument.getDocumentReferenceWithLocale(), xcontext);
+
+        // Remember if it's a creation or an update
+        boolean isnew = databaseDocument.isNew();
+
+        // Make sure document's attachments content are loaded from the store
+        databaseDocument.loadAttachmentsContentSafe(xcontext);
 
-                xcontext.getWiki().saveDocument(document, this.properties.getSaveComment(), xcontext);
+        XWikiDocument document;
+        if (inputFirstVersion && this.properties.isPreviousDeleted()) {
+            // We want to replace the existing document
+            document = inputDocument;
+
+            // But it's still an update from outside world point of view
+            document.setOriginalDocument(databaseDocument);
+        } else {
+            // Safer to clone for thread safety and in case the save fail
+            document = databaseDocument.clone();
+
+            // We want to update the existing document
+            document.apply(inputDocument);
+
+            // Get the version from the input document
+            document.setMinorEdit(inputDocument.isMinorEdit());
+
+            // Copy input document authors if they should be preserved
+            if (this.properties.isAuthorPreserved()) {
+                setAuthors(document, inputDocument);
             }
+        }
 
-            if (this.properties.isVerbose()) {
-                if (isnew) {
-                    this.logger.info(LOG_DOCUMENT_CREATED, "Created document [{}]",
-                        document.getDocumentReferenceWithLocale());
-                } else {
-                    this.logger.info(LOG_DOCUMENT_UPDATED, "Updated document [{}]",
-                        document.getDocumentReferenceWithLocale());
-                }
+        // Authors
+
+        if (!this.properties.isAuthorPreserved()) {
+            if (this.properties.isAuthorSet()) {
+                setAuthorReference(document, this.properties.getAuthor());
+            } else {
+                setAuthorReference(document, xcontext.getUserReference());
             }
-        } catch (Exception e) {
-            this.logger.error(LOG_DOCUMENT_FAILSAVE, "Failed to save document [{}]",
-                inputDocument.getDocumentReferenceWithLocale(), e);
+            DocumentAuthors authors = document.getAuthors();
+            authors.setContentAuthor(authors.getEffectiveMetadataAuthor());
+            if (document.isNew()) {
+                authors.setCreator(authors.getEffectiveMetadataAuthor());
+            }
+        }
+
+        // Version related information and save
 
-            if (this.properties.isStoppedWhenSaveFail()) {
-                throw new FilterException("Failed to save document", e);
+        if (this.properties.isVersionPreserved()) {
+            // Make sure to use metadata coming from the input document
+            document.setVersion(inputDocument.getVersion());
+            document.setDate(inputDocument.getDate());
+            document.setContentUpdateDate(inputDocument.getContentUpdateDate());
+            for (XWikiAttachment attachment : document.getAttachmentList()) {
+                attachment.setVersion(inputDocument.getAttachment(attachment.getFilename()).getVersion());
             }
+            if (document.isNew()) {
+                document.setCreationDate(inputDocument.getCreationDate());
+                document.setDocumentArchive(inputDocument.getDocumentArchive());
+            }
+
+            // Make sure the document is stored exactly as is (don't increment version, etc.)
+            document.setMetaDataDirty(false);
+            document.setContentDirty(false);
+            document.getAttachmentList().forEach(a -> a.setMetaDataDirty(false));
+
+            xcontext.getWiki().saveDocument(document, inputDocument.getComment(), inputDocument.isMinorEdit(),
+                xcontext);
+        } else {
+            // Forget the input history to let the store do its standard job
+            document.setDocumentArchive((XWikiDocumentArchive) null);
+
+            xcontext.getWiki().saveDocument(document, this.properties.getSaveComment(), xcontext);
         }
+
+        return isnew;
     }
 
     private void setAuthorReference(XWikiDocument document, DocumentReference authorReference)
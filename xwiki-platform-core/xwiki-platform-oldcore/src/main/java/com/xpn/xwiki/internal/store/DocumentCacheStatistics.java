@@ -0,0 +1,151 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters about the usage of the document cache, mostly useful to size it.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class DocumentCacheStatistics
+{
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadTime = new LongAdder();
+
+    private final AtomicLong maxLoadTime = new AtomicLong();
+
+    /**
+     * A value was found in the cache.
+     */
+    public void hit()
+    {
+        this.hits.increment();
+    }
+
+    /**
+     * A value could not be found in the cache.
+     */
+    public void miss()
+    {
+        this.misses.increment();
+    }
+
+    /**
+     * A value could not be found in the cache but another thread was already loading it.
+     */
+    public void coalesced()
+    {
+        this.coalesced.increment();
+    }
+
+    /**
+     * A value was loaded from the storage.
+     *
+     * @param nanos the time it took to load the value, in nanoseconds
+     */
+    public void loaded(long nanos)
+    {
+        this.loads.increment();
+        this.loadTime.add(nanos);
+        this.maxLoadTime.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return the number of values found in the cache
+     */
+    public long getHits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of values which could not be found in the cache
+     */
+    public long getMisses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of cache misses which waited for a load in progress in another thread
+     */
+    public long getCoalesced()
+    {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return the number of values actually loaded from the storage
+     */
+    public long getLoads()
+    {
+        return this.loads.sum();
+    }
+
+    /**
+     * @return the total time spent loading values from the storage, in nanoseconds
+     */
+    public long getTotalLoadTime()
+    {
+        return this.loadTime.sum();
+    }
+
+    /**
+     * @return the average time it took to load a value from the storage, in nanoseconds
+     */
+    public long getAverageLoadTime()
+    {
+        long count = getLoads();
+
+        return count > 0 ? getTotalLoadTime() / count : 0;
+    }
+
+    /**
+     * @return the longest time it took to load a value from the storage, in nanoseconds
+     */
+    public long getMaxLoadTime()
+    {
+        return this.maxLoadTime.get();
+    }
+
+    /**
+     * Reset all the counters.
+     */
+    public void reset()
+    {
+        this.hits.reset();
+        this.misses.reset();
+        this.coalesced.reset();
+        this.loads.reset();
+        this.loadTime.reset();
+        this.maxLoadTime.set(0);
+    }
+}
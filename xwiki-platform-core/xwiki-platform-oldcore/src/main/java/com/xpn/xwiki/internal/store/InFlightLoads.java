@@ -0,0 +1,208 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keep track of the loads currently in progress so that concurrent requests for the same key wait for the thread
+ * already loading it instead of hitting the underlying storage themselves.
+ * <p>
+ * A thread which is itself in charge of a load never waits for another thread since loading a value can require
+ * loading other values (e.g. the classes of the objects of a document): two threads loading values which depend on
+ * each other would otherwise wait for each other forever.
+ *
+ * @param <V> the type of the loaded values
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class InFlightLoads<V>
+{
+    /**
+     * A load in progress for a given key.
+     *
+     * @param <V> the type of the loaded value
+     * @version $Id$
+     */
+    public static final class Load<V>
+    {
+        private final String key;
+
+        private final Thread owner;
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /**
+         * True while the load is registered as one of the loads of its owner thread.
+         */
+        private boolean owned;
+
+        private Load(String key)
+        {
+            this.key = key;
+            this.owner = Thread.currentThread();
+        }
+
+        /**
+         * @return the key of the loaded value
+         */
+        public String getKey()
+        {
+            return this.key;
+        }
+
+        /**
+         * @return true if the current thread is the one in charge of loading the value
+         */
+        public boolean isOwner()
+        {
+            return this.owner == Thread.currentThread();
+        }
+    }
+
+    /**
+     * The number of loads the current thread is in charge of, shared by all the instances since loading a value of one
+     * kind can require loading values of another kind.
+     */
+    private static final ThreadLocal<int[]> OWNED_LOADS = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final ConcurrentMap<String, Load<V>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Register the current thread as the one loading the value associated with the passed key, unless another thread
+     * is already loading it.
+     *
+     * @param key the key of the value to load
+     * @return the load in progress for the passed key, {@link Load#isOwner()} indicates if the current thread is
+     *         expected to do the actual loading
+     */
+    public Load<V> begin(String key)
+    {
+        Load<V> load = new Load<>(key);
+
+        Load<V> current = this.loads.putIfAbsent(key, load);
+
+        if (current == null) {
+            load.owned = true;
+            OWNED_LOADS.get()[0]++;
+
+            return load;
+        }
+
+        if (!current.isOwner() && OWNED_LOADS.get()[0] > 0) {
+            // The current thread is in charge of another load which the other thread might be waiting for: load the
+            // value without waiting and without registering the load (so its value is not considered current)
+            return load;
+        }
+
+        return current;
+    }
+
+    /**
+     * @param load the load
+     * @return true if the load is still the one registered for its key (i.e. it was not invalidated while loading)
+     */
+    public boolean isCurrent(Load<V> load)
+    {
+        return this.loads.get(load.key) == load;
+    }
+
+    /**
+     * Indicate that the loading is finished and wake up the threads waiting for it.
+     *
+     * @param load the load
+     * @param value the loaded value
+     */
+    public void complete(Load<V> load, V value)
+    {
+        end(load);
+        load.future.complete(value);
+    }
+
+    /**
+     * Indicate that the loading failed and wake up the threads waiting for it.
+     *
+     * @param load the load
+     */
+    public void fail(Load<V> load)
+    {
+        end(load);
+        load.future.complete(null);
+    }
+
+    private void end(Load<V> load)
+    {
+        this.loads.remove(load.key, load);
+
+        // Only the owner thread ends a load
+        if (load.owned) {
+            load.owned = false;
+            OWNED_LOADS.get()[0]--;
+        }
+    }
+
+    /**
+     * Wait for the thread in charge of the passed load to finish it.
+     *
+     * @param load the load to wait for
+     * @return the loaded value or null if the load failed (in which case the caller is expected to load the value
+     *         itself)
+     * @throws InterruptedException when the current thread was interrupted while waiting
+     */
+    public V await(Load<V> load) throws InterruptedException
+    {
+        try {
+            return load.future.get();
+        } catch (ExecutionException e) {
+            // Should never happen since failures are reported as a null value
+            return null;
+        }
+    }
+
+    /**
+     * Forget about the load in progress for the passed key so that the value it produces is not reused by new
+     * requests.
+     *
+     * @param key the key of the value which changed
+     */
+    public void invalidate(String key)
+    {
+        this.loads.remove(key);
+    }
+
+    /**
+     * Forget about all the loads in progress.
+     */
+    public void invalidateAll()
+    {
+        this.loads.clear();
+    }
+
+    /**
+     * @return the number of loads currently in progress
+     */
+    public int size()
+    {
+        return this.loads.size();
+    }
+}
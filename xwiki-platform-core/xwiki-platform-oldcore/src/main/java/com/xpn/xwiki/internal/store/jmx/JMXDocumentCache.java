@@ -0,0 +1,85 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.jmx;
+
+import java.util.concurrent.TimeUnit;
+
+import com.xpn.xwiki.internal.store.DocumentCacheStatistics;
+
+/**
+ * Implementation of the JMXDocumentCache MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class JMXDocumentCache implements JMXDocumentCacheMBean
+{
+    private final DocumentCacheStatistics statistics;
+
+    /**
+     * @param statistics the statistics of the document cache to monitor
+     */
+    public JMXDocumentCache(DocumentCacheStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public long getHits()
+    {
+        return this.statistics.getHits();
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return this.statistics.getMisses();
+    }
+
+    @Override
+    public long getCoalesced()
+    {
+        return this.statistics.getCoalesced();
+    }
+
+    @Override
+    public long getLoads()
+    {
+        return this.statistics.getLoads();
+    }
+
+    @Override
+    public long getAverageLoadTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(this.statistics.getAverageLoadTime());
+    }
+
+    @Override
+    public long getMaxLoadTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(this.statistics.getMaxLoadTime());
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        this.statistics.reset();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.jmx;
+
+/**
+ * Interface of the {@link JMXDocumentCache} MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public interface JMXDocumentCacheMBean
+{
+    /**
+     * @return the number of documents or document existence checks found in the cache
+     */
+    long getHits();
+
+    /**
+     * @return the number of documents or document existence checks which could not be found in the cache
+     */
+    long getMisses();
+
+    /**
+     * @return the number of cache misses which waited for a load in progress in another thread
+     */
+    long getCoalesced();
+
+    /**
+     * @return the number of documents or document existence checks actually loaded from the storage
+     */
+    long getLoads();
+
+    /**
+     * @return the average time it took to load a document or check its existence, in milliseconds
+     */
+    long getAverageLoadTime();
+
+    /**
+     * @return the longest time it took to load a document or check its existence, in milliseconds
+     */
+    long getMaxLoadTime();
+
+    /**
+     * Reset the statistics.
+     */
+    void resetStatistics();
+}
@@ -772,7 +772,7 @@ private XDOM getXDOM(Template template, TemplateContent content) throws Exceptio
         XDOM xdom;
 
         if (content.getSourceSyntax() != null) {
-            xdom = this.parser.parse(content.getContent(), content.getSourceSyntax());
+            xdom = parse(content);
         } else {
             String result = evaluateContent(template, content);
             if (StringUtils.isEmpty(result)) {
@@ -786,6 +786,28 @@ private XDOM getXDOM(Template template, TemplateContent content) throws Exceptio
         return xdom;
     }
 
+    private XDOM parse(TemplateContent content) throws Exception
+    {
+        if (content instanceof DefaultTemplateContent) {
+            DefaultTemplateContent templateContent = (DefaultTemplateContent) content;
+
+            // Check if the content has already been parsed. The template content is reloaded (and thus parsed again)
+            // when the template resource is modified or when the template is evicted from the template cache.
+            XDOM xdom;
+            if (templateContent.compiledContent instanceof XDOM) {
+                xdom = (XDOM) templateContent.compiledContent;
+            } else {
+                xdom = this.parser.parse(content.getContent(), content.getSourceSyntax());
+                templateContent.compiledContent = xdom;
+            }
+
+            // Return a copy since the caller is generally going to transform the XDOM
+            return xdom.clone();
+        }
+
+        return this.parser.parse(content.getContent(), content.getSourceSyntax());
+    }
+
     public XDOM getXDOM(String templateName) throws Exception
     {
         Template template = getTemplate(templateName);
@@ -20,6 +20,7 @@
 package com.xpn.xwiki.internal.velocity;
 
 import java.io.PrintWriter;
+import java.io.StringReader;
 import java.io.StringWriter;
 
 import javax.inject.Inject;
@@ -34,6 +35,7 @@
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.util.ErrorBlockGenerator;
 import org.xwiki.velocity.VelocityManager;
+import org.xwiki.velocity.VelocityTemplate;
 
 import com.xpn.xwiki.XWikiException;
 
@@ -76,7 +78,11 @@ public String evaluateVelocity(String content, String namespace, VelocityContext
                 }
             }
 
-            velocityManager.getVelocityEngine().evaluate(vcontext, writer, namespace, content);
+            // Compiling through the manager allows reusing the result of a previous compilation of the same content
+            VelocityTemplate template =
+                this.velocityManager.compile(StringUtils.defaultString(namespace), new StringReader(content));
+
+            this.velocityManager.getVelocityEngine().evaluate(vcontext, writer, namespace, template);
 
             return writer.toString();
         } catch (Exception e) {
@@ -38,6 +38,7 @@
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
@@ -55,6 +56,9 @@
 import com.xpn.xwiki.doc.XWikiLink;
 import com.xpn.xwiki.doc.XWikiLock;
 import com.xpn.xwiki.internal.store.AbstractXWikiStore;
+import com.xpn.xwiki.internal.store.DocumentCacheStatistics;
+import com.xpn.xwiki.internal.store.InFlightLoads;
+import com.xpn.xwiki.internal.store.jmx.JMXDocumentCache;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.web.Utils;
 
@@ -73,6 +77,8 @@ public class XWikiCacheStore extends AbstractXWikiStore
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiCacheStore.class);
 
+    private static final String MBEAN_NAME = "type=Store,name=documentCache";
+
     /**
      * Used to know if a received event is a local or remote one.
      */
@@ -96,6 +102,9 @@ public class XWikiCacheStore extends AbstractXWikiStore
     @Named("xwikicfg")
     private ConfigurationSource configuration;
 
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     private XWikiStoreInterface store;
 
     private Cache<XWikiDocument> cache;
@@ -107,6 +116,19 @@ public class XWikiCacheStore extends AbstractXWikiStore
      */
     private Cache<Integer> limitSizePropertyCache;
 
+    /**
+     * The documents currently being loaded from the storage, to avoid loading several times the same document when
+     * several threads ask for it at the same time.
+     */
+    private final InFlightLoads<XWikiDocument> documentLoads = new InFlightLoads<>();
+
+    /**
+     * The documents for which existence is currently being checked in the storage.
+     */
+    private final InFlightLoads<Boolean> existLoads = new InFlightLoads<>();
+
+    private final DocumentCacheStatistics statistics = new DocumentCacheStatistics();
+
     /**
      * Default constructor generally used by the Component Manager.
      */
@@ -143,6 +165,8 @@ public void initialize() throws InitializationException
         }
 
         initListener();
+
+        this.jmxRegistration.registerMBean(new JMXDocumentCache(this.statistics), MBEAN_NAME);
     }
 
     @Override
@@ -228,6 +252,7 @@ public void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, XW
             String key = getKey(doc, context);
             getCache().remove(key);
             getPageExistCache().remove(key);
+            invalidateLoads(key);
 
             WikiReference originalWikiReference = doc.getDocumentReference().getWikiReference();
             // Flushing the cache for new document
@@ -238,6 +263,7 @@ public void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, XW
             key = getKey(newDoc, context);
             getCache().remove(key);
             getPageExistCache().remove(key);
+            invalidateLoads(key);
             context.setWikiReference(originalWikiReference);
 
             // Restore the previous XWikiContext
@@ -260,6 +286,7 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
             String key = getKey(doc, context);
             getCache().remove(key);
             getPageExistCache().remove(key);
+            invalidateLoads(key);
 
             /*
              * We do not want to save the document in the cache at this time. If we did, this would introduce the
@@ -277,6 +304,15 @@ public void flushCache()
         getCache().removeAll();
         getPageExistCache().removeAll();
         getLimitSizePropertyCache().removeAll();
+        this.documentLoads.invalidateAll();
+        this.existLoads.invalidateAll();
+    }
+
+    private void invalidateLoads(String key)
+    {
+        // Make sure a load started before the modification is not reused or cached
+        this.documentLoads.invalidate(key);
+        this.existLoads.invalidate(key);
     }
 
     @Override
@@ -307,6 +343,8 @@ public void invalidate(XWikiDocument document)
         if (getPageExistCache() != null) {
             getPageExistCache().remove(key);
         }
+
+        invalidateLoads(key);
     }
 
     /**
@@ -377,6 +415,8 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
             }
 
             if (cachedoc != null) {
+                this.statistics.hit();
+
                 cachedoc.setFromCache(true);
 
                 LOGGER.debug("Document [{}] was retrieved from cache", key);
@@ -384,32 +424,15 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                 Boolean result = getPageExistCache().get(key);
 
                 if (result == Boolean.FALSE) {
-                    LOGGER.debug("Document [{}] doesn't exist in cache, returning an empty one", key);
+                    this.statistics.hit();
 
-                    cachedoc = doc;
-                    cachedoc.setNew(true);
+                    LOGGER.debug("Document [{}] doesn't exist in cache, returning an empty one", key);
 
-                    // Make sure to always return a document with an original version, even for one that does not exist.
-                    // Allow writing more generic code.
-                    cachedoc
-                        .setOriginalDocument(new XWikiDocument(cachedoc.getDocumentReference(), cachedoc.getLocale()));
+                    cachedoc = toNewDocument(doc);
                 } else {
-                    LOGGER.debug("Trying to get Document [{}] from persistent storage", key);
+                    this.statistics.miss();
 
-                    cachedoc = this.store.loadXWikiDoc(doc, context);
-
-                    LOGGER.debug("Document [{}] was retrieved from persistent storage", key);
-
-                    if (cachedoc.isNew()) {
-                        getPageExistCache().set(key, Boolean.FALSE);
-                    } else {
-                        getCache().set(key, cachedoc);
-
-                        // Also update exist cache
-                        getPageExistCache().set(key, Boolean.TRUE);
-                    }
-
-                    LOGGER.debug("Document [{}] was put in cache", key);
+                    cachedoc = loadXWikiDocFromStore(key, doc, context);
                 }
             }
 
@@ -422,6 +445,91 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    private XWikiDocument toNewDocument(XWikiDocument doc)
+    {
+        doc.setNew(true);
+
+        // Make sure to always return a document with an original version, even for one that does not exist.
+        // Allow writing more generic code.
+        doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
+
+        return doc;
+    }
+
+    private XWikiDocument loadXWikiDocFromStore(String key, XWikiDocument doc, XWikiContext context)
+        throws XWikiException
+    {
+        InFlightLoads.Load<XWikiDocument> load = this.documentLoads.begin(key);
+
+        if (!load.isOwner()) {
+            this.statistics.coalesced();
+
+            LOGGER.debug("Waiting for Document [{}] to be loaded by another thread", key);
+
+            XWikiDocument loadedDocument;
+            try {
+                loadedDocument = this.documentLoads.await(load);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                loadedDocument = null;
+            }
+
+            if (loadedDocument == null) {
+                // The other thread failed to load the document, try by ourself
+                return loadXWikiDocFromStore(key, doc, context, null);
+            } else if (loadedDocument.isNew()) {
+                // Don't share the (modifiable) empty document created by the other thread
+                return toNewDocument(doc);
+            }
+
+            loadedDocument.setFromCache(true);
+
+            return loadedDocument;
+        }
+
+        XWikiDocument loadedDocument = null;
+        try {
+            loadedDocument = loadXWikiDocFromStore(key, doc, context, load);
+        } finally {
+            if (loadedDocument != null) {
+                this.documentLoads.complete(load, loadedDocument);
+            } else {
+                this.documentLoads.fail(load);
+            }
+        }
+
+        return loadedDocument;
+    }
+
+    private XWikiDocument loadXWikiDocFromStore(String key, XWikiDocument doc, XWikiContext context,
+        InFlightLoads.Load<XWikiDocument> load) throws XWikiException
+    {
+        LOGGER.debug("Trying to get Document [{}] from persistent storage", key);
+
+        long start = System.nanoTime();
+        XWikiDocument loadedDocument = this.store.loadXWikiDoc(doc, context);
+        this.statistics.loaded(System.nanoTime() - start);
+
+        LOGGER.debug("Document [{}] was retrieved from persistent storage", key);
+
+        // Don't cache a document which was modified while being loaded
+        if (load == null || this.documentLoads.isCurrent(load)) {
+            if (loadedDocument.isNew()) {
+                getPageExistCache().set(key, Boolean.FALSE);
+            } else {
+                getCache().set(key, loadedDocument);
+
+                // Also update exist cache
+                getPageExistCache().set(key, Boolean.TRUE);
+            }
+
+            LOGGER.debug("Document [{}] was put in cache", key);
+        }
+
+        return loadedDocument;
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -436,6 +544,7 @@ public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws
 
             getCache().remove(key);
             getPageExistCache().remove(key);
+            invalidateLoads(key);
             getPageExistCache().set(key, Boolean.FALSE);
         } finally {
             restoreExecutionXContext();
@@ -767,20 +876,69 @@ public boolean exists(XWikiDocument doc, XWikiContext inputxcontext) throws XWik
                 Boolean result = getPageExistCache().get(key);
 
                 if (result != null) {
+                    this.statistics.hit();
+
                     return result;
                 }
             } catch (Exception e) {
             }
 
-            boolean result = this.store.exists(doc, context);
-            getPageExistCache().set(key, Boolean.valueOf(result));
+            this.statistics.miss();
 
-            return result;
+            return existsInStore(key, doc, context);
         } finally {
             restoreExecutionXContext();
         }
     }
 
+    private boolean existsInStore(String key, XWikiDocument doc, XWikiContext context) throws XWikiException
+    {
+        InFlightLoads.Load<Boolean> load = this.existLoads.begin(key);
+
+        if (!load.isOwner()) {
+            this.statistics.coalesced();
+
+            Boolean result;
+            try {
+                result = this.existLoads.await(load);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                result = null;
+            }
+
+            return result != null ? result : existsInStore(key, doc, context, null);
+        }
+
+        Boolean result = null;
+        try {
+            result = existsInStore(key, doc, context, load);
+        } finally {
+            if (result != null) {
+                this.existLoads.complete(load, result);
+            } else {
+                this.existLoads.fail(load);
+            }
+        }
+
+        return result;
+    }
+
+    private boolean existsInStore(String key, XWikiDocument doc, XWikiContext context, InFlightLoads.Load<Boolean> load)
+        throws XWikiException
+    {
+        long start = System.nanoTime();
+        boolean result = this.store.exists(doc, context);
+        this.statistics.loaded(System.nanoTime() - start);
+
+        // Don't cache a result which might have been modified while being checked
+        if (load == null || this.existLoads.isCurrent(load)) {
+            getPageExistCache().set(key, Boolean.valueOf(result));
+        }
+
+        return result;
+    }
+
     public Cache<XWikiDocument> getCache()
     {
         return this.cache;
@@ -801,6 +959,16 @@ public void setPageExistCache(Cache<Boolean> pageExistCache)
         this.pageExistCache = pageExistCache;
     }
 
+    /**
+     * @return the counters related to the usage of the document caches
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    public DocumentCacheStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
     /**
      * @return the cache that handle the limit size properties.
      * @since 11.4RC1
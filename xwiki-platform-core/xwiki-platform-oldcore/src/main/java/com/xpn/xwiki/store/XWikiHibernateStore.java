@@ -31,6 +31,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -48,9 +49,12 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
 import org.hibernate.ObjectNotFoundException;
@@ -127,6 +131,12 @@
 @Singleton
 public class XWikiHibernateStore extends XWikiHibernateBaseStore implements XWikiStoreInterface, Initializable
 {
+    /**
+     * The maximum number of ids passed to a single "in" clause when loading properties in bulk (some databases, like
+     * Oracle, don't support more than 1000 elements).
+     */
+    private static final int PROPERTIES_BATCH_SIZE = 1000;
+
     @Inject
     private Logger logger;
 
@@ -1095,6 +1105,7 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
                             localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
 
                         boolean hasGroups = false;
+                        List<BaseObject> objects = new ArrayList<>();
                         while (it.hasNext()) {
                             BaseObject object = it.next();
                             DocumentReference classReference = object.getXClassReference();
@@ -1129,11 +1140,14 @@ public XWikiDocument loadXWikiDoc(XWikiDocument defaultDocument, XWikiContext in
                                 // Groups objects are handled differently.
                                 hasGroups = true;
                             } else {
-                                loadXWikiCollectionInternal(object, doc, context, false, true);
+                                objects.add(object);
                             }
                             doc.setXObject(object.getNumber(), object);
                         }
 
+                        // Load the properties of all the objects at once instead of several queries per object
+                        loadXWikiObjects(objects, doc, session, context);
+
                         // AFAICT this was added as an emergency patch because loading of objects has proven
                         // too slow and the objects which cause the most overhead are the XWikiGroups objects
                         // as each group object (each group member) would otherwise cost 2 database queries.
@@ -1532,38 +1546,9 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
 
                 // If the class reference is null in the loaded object then skip loading properties
                 if (classReference != null) {
+                    BaseClass bclass = getXClass(object, doc, context);
 
-                    BaseClass bclass = null;
-                    if (!classReference.equals(object.getDocumentReference())) {
-                        // Let's check if the class has a custom mapping
-                        bclass = object.getXClass(context);
-                    } else {
-                        // We need to get it from the document otherwise
-                        // we will go in an endless loop
-                        if (doc != null) {
-                            bclass = doc.getXClass();
-                        }
-                    }
-
-                    List<String> handledProps = new ArrayList<>();
-                    try {
-                        if ((bclass != null) && (bclass.hasCustomMapping()) && context.getWiki().hasCustomMappings()) {
-                            String className =
-                                this.localEntityReferenceSerializer.serialize(bclass.getDocumentReference());
-                            @SuppressWarnings("unchecked")
-                            Map<String, ?> map = (Map<String, ?>) session.load(className, object.getId());
-                            // Let's make sure to look for null fields in the dynamic mapping
-                            bclass.fromValueMap(map, object);
-                            for (String prop : bclass.getCustomMappingPropertyList(context)) {
-                                if (map.get(prop) != null) {
-                                    handledProps.add(prop);
-                                }
-                            }
-                        }
-                    } catch (HibernateException e) {
-                        this.logger.error("Failed loading custom mapping for doc [{}], class [{}], nb [{}]",
-                            object.getDocumentReference(), object.getXClassReference(), object.getNumber(), e);
-                    }
+                    List<String> handledProps = loadCustomMappedProperties(object, bclass, session, context);
 
                     // Load strings, integers, dates all at once
 
@@ -1579,55 +1564,8 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
                             continue;
                         }
                         String classType = (String) result[1];
-                        BaseProperty property = null;
 
-                        try {
-                            property = (BaseProperty) Class.forName(classType).newInstance();
-                            property.setObject(object);
-                            property.setName(name);
-                            loadXWikiProperty(property, context, false);
-                        } catch (Exception e) {
-                            // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
-                            try {
-                                if (property instanceof StringProperty) {
-                                    LargeStringProperty property2 = new LargeStringProperty();
-                                    property2.setObject(object);
-                                    property2.setName(name);
-                                    loadXWikiProperty(property2, context, false);
-                                    property.setValue(property2.getValue());
-
-                                    if (bclass != null) {
-                                        if (bclass.get(name) instanceof TextAreaClass) {
-                                            property = property2;
-                                        }
-                                    }
-
-                                } else if (property instanceof LargeStringProperty) {
-                                    StringProperty property2 = new StringProperty();
-                                    property2.setObject(object);
-                                    property2.setName(name);
-                                    loadXWikiProperty(property2, context, false);
-                                    property.setValue(property2.getValue());
-
-                                    if (bclass != null) {
-                                        if (bclass.get(name) instanceof StringClass) {
-                                            property = property2;
-                                        }
-                                    }
-                                } else {
-                                    throw e;
-                                }
-                            } catch (Throwable e2) {
-                                Object[] args = {object.getName(), object.getClass(),
-                                    Integer.valueOf(object.getNumber() + ""), name};
-                                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
-                                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
-                                    "Exception while loading object [{0}] of class [{1}], number [{2}] and property [{3}]",
-                                    e, args);
-                            }
-                        }
-
-                        object.addField(name, property);
+                        object.addField(name, loadXWikiProperty(object, bclass, name, classType, context));
                     }
                 }
 
@@ -1744,6 +1682,208 @@ public void deleteXWikiCollection(BaseCollection object, XWikiContext inputxcont
         }
     }
 
+    private BaseClass getXClass(BaseCollection object, XWikiDocument doc, XWikiContext context)
+    {
+        BaseClass bclass = null;
+        if (!object.getXClassReference().equals(object.getDocumentReference())) {
+            // Let's check if the class has a custom mapping
+            bclass = object.getXClass(context);
+        } else {
+            // We need to get it from the document otherwise
+            // we will go in an endless loop
+            if (doc != null) {
+                bclass = doc.getXClass();
+            }
+        }
+
+        return bclass;
+    }
+
+    private List<String> loadCustomMappedProperties(BaseCollection object, BaseClass bclass, Session session,
+        XWikiContext context)
+    {
+        List<String> handledProps = new ArrayList<>();
+        try {
+            if ((bclass != null) && (bclass.hasCustomMapping()) && context.getWiki().hasCustomMappings()) {
+                String className = this.localEntityReferenceSerializer.serialize(bclass.getDocumentReference());
+                @SuppressWarnings("unchecked")
+                Map<String, ?> map = (Map<String, ?>) session.load(className, object.getId());
+                // Let's make sure to look for null fields in the dynamic mapping
+                bclass.fromValueMap(map, object);
+                for (String prop : bclass.getCustomMappingPropertyList(context)) {
+                    if (map.get(prop) != null) {
+                        handledProps.add(prop);
+                    }
+                }
+            }
+        } catch (HibernateException e) {
+            this.logger.error("Failed loading custom mapping for doc [{}], class [{}], nb [{}]",
+                object.getDocumentReference(), object.getXClassReference(), object.getNumber(), e);
+        }
+
+        return handledProps;
+    }
+
+    private BaseProperty loadXWikiProperty(BaseCollection object, BaseClass bclass, String name, String classType,
+        XWikiContext context) throws XWikiException
+    {
+        BaseProperty property = null;
+
+        try {
+            property = (BaseProperty) Class.forName(classType).newInstance();
+            property.setObject(object);
+            property.setName(name);
+            loadXWikiProperty(property, context, false);
+        } catch (Exception e) {
+            // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
+            try {
+                if (property instanceof StringProperty) {
+                    LargeStringProperty property2 = new LargeStringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof TextAreaClass) {
+                            property = property2;
+                        }
+                    }
+
+                } else if (property instanceof LargeStringProperty) {
+                    StringProperty property2 = new StringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof StringClass) {
+                            property = property2;
+                        }
+                    }
+                } else {
+                    throw e;
+                }
+            } catch (Throwable e2) {
+                Object[] args = {object.getName(), object.getClass(), Integer.valueOf(object.getNumber() + ""), name};
+                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
+                    "Exception while loading object [{0}] of class [{1}], number [{2}] and property [{3}]", e, args);
+            }
+        }
+
+        return property;
+    }
+
+    /**
+     * Load the properties of all the passed objects using a few bulk queries (one for the list of properties and one
+     * per property type) instead of several queries per object.
+     */
+    private void loadXWikiObjects(List<BaseObject> objects, XWikiDocument doc, Session session, XWikiContext context)
+        throws XWikiException
+    {
+        Map<Long, BaseObject> objectsById = new LinkedHashMap<>();
+        Map<Long, BaseClass> classesById = new HashMap<>();
+        Map<Long, List<String>> handledPropsById = new HashMap<>();
+        for (BaseObject object : objects) {
+            // If the class reference is null in the loaded object then skip loading properties
+            if (object.getXClassReference() != null) {
+                BaseClass bclass = getXClass(object, doc, context);
+
+                objectsById.put(object.getId(), object);
+                classesById.put(object.getId(), bclass);
+                handledPropsById.put(object.getId(), loadCustomMappedProperties(object, bclass, session, context));
+            }
+        }
+
+        if (objectsById.isEmpty()) {
+            return;
+        }
+
+        // Load the name and type of all the properties at once
+        List<Object[]> propertyDescriptors = new ArrayList<>();
+        Map<String, Set<Long>> idsByClassType = new HashMap<>();
+        for (List<Long> ids : ListUtils.partition(new ArrayList<>(objectsById.keySet()), PROPERTIES_BATCH_SIZE)) {
+            Query<Object[]> query = session.createQuery(
+                "select prop.id.id, prop.name, prop.classType from BaseProperty as prop where prop.id.id in (:ids)",
+                Object[].class);
+            query.setParameterList("ids", ids);
+            for (Object[] result : query.list()) {
+                Long id = (Long) result[0];
+                String name = (String) result[1];
+                // No need to load fields already loaded from custom mapping
+                if (!handledPropsById.get(id).contains(name)) {
+                    propertyDescriptors.add(result);
+                    idsByClassType.computeIfAbsent((String) result[2], k -> new LinkedHashSet<>()).add(id);
+                }
+            }
+        }
+
+        // Load the values of all the properties with one query per property type
+        Map<Pair<Long, String>, BaseProperty> properties = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : idsByClassType.entrySet()) {
+            loadXWikiProperties(entry.getKey(), entry.getValue(), properties, session);
+        }
+
+        for (Object[] propertyDescriptor : propertyDescriptors) {
+            Long id = (Long) propertyDescriptor[0];
+            String name = (String) propertyDescriptor[1];
+            String classType = (String) propertyDescriptor[2];
+            BaseObject object = objectsById.get(id);
+
+            BaseProperty property = properties.get(Pair.of(id, name));
+            if (property != null && property.getClass().getName().equals(classType)) {
+                property.setObject(object);
+                initializeLoadedProperty(property);
+            } else {
+                // Fallback on loading the property alone (which also takes care of inconsistent types)
+                property = loadXWikiProperty(object, classesById.get(id), name, classType, context);
+            }
+
+            object.addField(name, property);
+        }
+    }
+
+    private void loadXWikiProperties(String classType, Set<Long> ids, Map<Pair<Long, String>, BaseProperty> properties,
+        Session session)
+    {
+        try {
+            for (List<Long> batch : ListUtils.partition(new ArrayList<>(ids), PROPERTIES_BATCH_SIZE)) {
+                Query<BaseProperty> query = session
+                    .createQuery("select prop from " + classType + " as prop where prop.id.id in (:ids)",
+                        BaseProperty.class);
+                query.setParameterList("ids", batch);
+                for (BaseProperty property : query.list()) {
+                    properties.put(Pair.of(property.getId(), property.getName()), property);
+                }
+            }
+        } catch (Exception e) {
+            // The properties will be loaded one by one
+            this.logger.debug("Failed to load properties of type [{}] in bulk: {}", classType,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private void initializeLoadedProperty(BaseProperty property)
+    {
+        // In Oracle, empty string are converted to NULL. Since an undefined property is not found at all, it is
+        // safe to assume that a retrieved NULL value should actually be an empty string.
+        if (property instanceof BaseStringProperty) {
+            BaseStringProperty stringProperty = (BaseStringProperty) property;
+            if (stringProperty.getValue() == null) {
+                stringProperty.setValue("");
+            }
+        }
+
+        // Make sure lists are not lazily loaded outside of the session
+        if (property instanceof ListProperty) {
+            ((ListProperty) property).getList();
+        }
+
+        property.setValueDirty(false);
+    }
+
     private void loadXWikiProperty(PropertyInterface property, XWikiContext context, boolean bTransaction)
         throws XWikiException
     {
@@ -21,6 +21,8 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -28,6 +30,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,7 +40,6 @@
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -103,8 +105,35 @@ public class DownloadAction extends XWikiAction
     /** The name of the HTTP Header that signals a byte-range request. */
     private static final String RANGE_HEADER_NAME = "Range";
 
-    /** The format of a valid range header. */
-    private static final Pattern RANGE_HEADER_PATTERN = Pattern.compile("bytes=([0-9]+)?-([0-9]+)?");
+    /** The prefix of a range header expressed in bytes. */
+    private static final String RANGE_HEADER_PREFIX = "bytes=";
+
+    /** The format of a valid range, several of them can be listed in the range header, separated by commas. */
+    private static final Pattern RANGE_PATTERN = Pattern.compile("([0-9]+)?-([0-9]+)?");
+
+    /**
+     * The maximum number of ranges accepted in a single request. Requests asking for more ranges are served the full
+     * content to avoid being abused to produce responses much bigger than the attachment itself.
+     */
+    private static final int MAX_RANGES = 16;
+
+    /** The name of the HTTP Header used to send the range of bytes written in a partial response. */
+    private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
+
+    /** The name of the HTTP Header containing the entity tag of the attachment. */
+    private static final String ETAG_HEADER_NAME = "ETag";
+
+    /** The HTTP Header used to send the entity tags the client already has in cache. */
+    private static final String IF_NONE_MATCH_HEADER_NAME = "If-None-Match";
+
+    /** The HTTP Header used to make a range request conditional. */
+    private static final String IF_RANGE_HEADER_NAME = "If-Range";
+
+    /** The line separator used in multipart responses. */
+    private static final String CRLF = "\r\n";
+
+    /** The prefix of the boundary separating the parts of a multipart response. */
+    private static final String BOUNDARY_SEPARATOR = "--";
 
     @Inject
     private TemporaryAttachmentSessionsManager temporaryAttachmentSessionsManager;
@@ -171,15 +200,14 @@ public String render(XWikiContext context) throws XWikiException
                     args);
             }
 
-            long lastModifiedOnClient = request.getDateHeader("If-Modified-Since");
-            long lastModifiedOnServer = attachment.getDate().getTime();
-            if (lastModifiedOnClient != -1 && lastModifiedOnClient >= lastModifiedOnServer) {
+            if (isNotModified(attachment, request)) {
                 response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader(ETAG_HEADER_NAME, getETag(attachment));
                 return null;
             }
 
             // Sending the content of the attachment
-            if (request.getHeader(RANGE_HEADER_NAME) != null) {
+            if (request.getHeader(RANGE_HEADER_NAME) != null && isRangeApplicable(attachment, request)) {
                 try {
                     if (sendPartialContent(attachment, request, response, context)) {
                         return null;
@@ -213,7 +241,7 @@ private void throwNotFoundException(String filename) throws XWikiException
 
     /**
      * Respond to a range request, either with the requested bytes, or with a {@code 416 REQUESTED RANGE NOT
-     * SATISFIABLE} response if the requested byte range falls outside the length of the attachment. If the range
+     * SATISFIABLE} response if the requested byte ranges fall outside the length of the attachment. If the range
      * request header is syntactically invalid, nothing is written, and instead {@code false} is returned, letting the
      * action handler ignore the Range header and treat this as a normal (full) download request.
      *
@@ -229,64 +257,221 @@ private void throwNotFoundException(String filename) throws XWikiException
     private boolean sendPartialContent(final XWikiAttachment attachment, final XWikiRequest request,
         final XWikiResponse response, final XWikiContext context) throws XWikiException, IOException
     {
-        String range = request.getHeader(RANGE_HEADER_NAME);
-        Matcher m = RANGE_HEADER_PATTERN.matcher(range);
-        if (m.matches()) {
-            String startStr = m.group(1);
-            String endStr = m.group(2);
-            Long start = NumberUtils.createLong(startStr);
-            Long end = NumberUtils.createLong(endStr);
-            if (start == null && end != null && end > 0) {
-                // Tail request, output the last <end> bytes
-                start = Math.max(attachment.getContentLongSize(context) - end, 0L);
-                end = attachment.getContentLongSize(context) - 1L;
+        long size = attachment.getContentLongSize(context);
+
+        List<Pair<Long, Long>> ranges = parseRanges(request.getHeader(RANGE_HEADER_NAME), size);
+        if (ranges == null) {
+            return false;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(CONTENT_RANGE_HEADER_NAME, "bytes */" + size);
+        } else if (ranges.size() == 1) {
+            writeByteRange(attachment, ranges.get(0), size, request, response, context);
+        } else {
+            writeByteRanges(attachment, ranges, size, request, response, context);
+        }
+
+        return true;
+    }
+
+    /**
+     * Parse the passed range header.
+     *
+     * @param header the value of the range header
+     * @param size the size of the attachment
+     * @return the satisfiable ranges (first and last byte positions, both inclusive) or {@code null} if the header is
+     *         syntactically invalid
+     */
+    private List<Pair<Long, Long>> parseRanges(String header, long size)
+    {
+        if (!header.startsWith(RANGE_HEADER_PREFIX)) {
+            return null;
+        }
+
+        String[] specs = StringUtils.split(header.substring(RANGE_HEADER_PREFIX.length()), ',');
+        if (specs.length == 0 || specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        List<Pair<Long, Long>> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            Matcher m = RANGE_PATTERN.matcher(spec.trim());
+            if (!m.matches()) {
+                return null;
+            }
+
+            Long start;
+            Long end;
+            try {
+                start = NumberUtils.createLong(m.group(1));
+                end = NumberUtils.createLong(m.group(2));
+            } catch (NumberFormatException e) {
+                // Too big to be a valid position
+                return null;
             }
             if (!isValidRange(start, end)) {
-                return false;
+                return null;
             }
-            if (end == null) {
-                end = attachment.getContentLongSize(context) - 1L;
+
+            if (start == null) {
+                // Tail request, output the last <end> bytes
+                if (end > 0 && size > 0) {
+                    ranges.add(new ImmutablePair<>(Math.max(size - end, 0L), size - 1L));
+                }
+            } else if (start < size) {
+                ranges.add(new ImmutablePair<>(start, end == null ? size - 1L : Math.min(end, size - 1L)));
             }
-            end = Math.min(end, attachment.getContentLongSize(context) - 1L);
-            writeByteRange(attachment, start, end, request, response, context);
-            return true;
         }
-        return false;
+
+        return ranges;
     }
 
     /**
-     * Write a byte range from the attachment to the response, if the requested range is valid and falls within the file
-     * limits.
+     * Write a byte range from the attachment to the response.
      *
      * @param attachment the attachment to get content from
-     * @param start the first byte to write
-     * @param end the last byte to write
+     * @param range the first and last bytes to write
+     * @param size the size of the attachment
      * @param request the current client request
      * @param response the response to write to.
      * @param context the current request context
      * @throws XWikiException if the attachment content cannot be retrieved
      * @throws IOException if the response cannot be written
      */
-    private void writeByteRange(final XWikiAttachment attachment, Long start, Long end, final XWikiRequest request,
-        final XWikiResponse response, final XWikiContext context) throws XWikiException, IOException
+    private void writeByteRange(final XWikiAttachment attachment, Pair<Long, Long> range, long size,
+        final XWikiRequest request, final XWikiResponse response, final XWikiContext context)
+        throws XWikiException, IOException
     {
-        if (start >= 0 && start < attachment.getContentLongSize(context)) {
-            InputStream data = attachment.getContentInputStream(context);
-            data = new BoundedInputStream(data, end + 1);
-            data.skip(start);
-            setCommonHeaders(attachment, request, response, context);
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-            if ((end - start + 1L) < Integer.MAX_VALUE) {
-                setContentLength(response, end - start + 1);
+        long start = range.getLeft();
+        long length = range.getRight() - start + 1L;
+
+        setCommonHeaders(attachment, request, response, context);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        setContentLength(response, length);
+        response.setHeader(CONTENT_RANGE_HEADER_NAME, getContentRange(range, size));
+        // Seek to the beginning of the range instead of reading (and discarding) all the bytes located before it
+        attachment.copyContent(start, length, response.getOutputStream(), context);
+    }
+
+    /**
+     * Write several byte ranges from the attachment to the response, as a {@code multipart/byteranges} content.
+     *
+     * @param attachment the attachment to get content from
+     * @param ranges the first and last bytes of each range to write
+     * @param size the size of the attachment
+     * @param request the current client request
+     * @param response the response to write to.
+     * @param context the current request context
+     * @throws XWikiException if the attachment content cannot be retrieved
+     * @throws IOException if the response cannot be written
+     */
+    private void writeByteRanges(final XWikiAttachment attachment, List<Pair<Long, Long>> ranges, long size,
+        final XWikiRequest request, final XWikiResponse response, final XWikiContext context)
+        throws XWikiException, IOException
+    {
+        String boundary = UUID.randomUUID().toString();
+        String mimetype = attachment.getMimeType(context);
+
+        // Prepare the headers of each part first to be able to announce the total length of the response
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long length = 0;
+        for (Pair<Long, Long> range : ranges) {
+            byte[] partHeader = (CRLF + BOUNDARY_SEPARATOR + boundary + CRLF + "Content-Type: " + mimetype + CRLF
+                + CONTENT_RANGE_HEADER_NAME + ": " + getContentRange(range, size) + CRLF + CRLF)
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            length += partHeader.length + range.getRight() - range.getLeft() + 1L;
+        }
+        byte[] end = (CRLF + BOUNDARY_SEPARATOR + boundary + BOUNDARY_SEPARATOR + CRLF)
+            .getBytes(StandardCharsets.US_ASCII);
+        length += end.length;
+
+        setCommonHeaders(attachment, request, response, context);
+        // Replace the content type set by #setCommonHeaders, the attachment one is indicated in each part
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        setContentLength(response, length);
+
+        OutputStream output = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); ++i) {
+            Pair<Long, Long> range = ranges.get(i);
+            output.write(partHeaders.get(i));
+            attachment.copyContent(range.getLeft(), range.getRight() - range.getLeft() + 1L, output, context);
+        }
+        output.write(end);
+    }
+
+    private String getContentRange(Pair<Long, Long> range, long size)
+    {
+        return "bytes " + range.getLeft() + "-" + range.getRight() + SEPARATOR + size;
+    }
+
+    /**
+     * @param attachment the attachment to send
+     * @param request the current client request
+     * @return {@code true} if the version of the attachment the client has in cache is still valid
+     */
+    private boolean isNotModified(XWikiAttachment attachment, XWikiRequest request)
+    {
+        // If-None-Match takes precedence over If-Modified-Since when both are sent
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH_HEADER_NAME);
+        if (ifNoneMatch != null) {
+            String etag = getETag(attachment);
+            for (String candidate : StringUtils.split(ifNoneMatch, ',')) {
+                String trimmed = candidate.trim();
+                // If-None-Match uses the weak comparison
+                if (trimmed.equals("*") || StringUtils.removeStart(trimmed, "W/").equals(etag)) {
+                    return true;
+                }
             }
-            response.setHeader("Content-Range",
-                "bytes " + start + "-" + end + SEPARATOR + attachment.getContentLongSize(context));
-            IOUtils.copyLarge(data, response.getOutputStream());
-        } else {
-            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+
+            return false;
+        }
+
+        long lastModifiedOnClient = request.getDateHeader("If-Modified-Since");
+        long lastModifiedOnServer = attachment.getDate().getTime();
+
+        return lastModifiedOnClient != -1 && lastModifiedOnClient >= lastModifiedOnServer;
+    }
+
+    /**
+     * @param attachment the attachment to send
+     * @param request the current client request
+     * @return {@code true} if the range header should be taken into account, {@code false} if the version of the
+     *         attachment changed since the client got the beginning of it and the full content should be sent
+     */
+    private boolean isRangeApplicable(XWikiAttachment attachment, XWikiRequest request)
+    {
+        String ifRange = request.getHeader(IF_RANGE_HEADER_NAME);
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range uses the strong comparison, weak entity tags never match
+            return ifRange.equals(getETag(attachment));
+        }
+
+        try {
+            // HTTP dates have a precision of one second
+            return request.getDateHeader(IF_RANGE_HEADER_NAME) / 1000 == attachment.getDate().getTime() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
 
+    /**
+     * @param attachment the attachment to send
+     * @return a strong entity tag identifying the content of the passed attachment
+     */
+    private String getETag(XWikiAttachment attachment)
+    {
+        return "\"" + attachment.getVersion() + '-' + attachment.getDate().getTime() + '-' + attachment.getLongSize()
+            + "\"";
+    }
+
     /**
      * Send the attachment content in the response.
      *
@@ -494,6 +679,7 @@ private void setCommonHeaders(final XWikiAttachment attachment, final XWikiReque
         response.addHeader("Content-disposition", dispType + "; filename*=utf-8''" + ofilename);
 
         response.setDateHeader("Last-Modified", attachment.getDate().getTime());
+        response.setHeader(ETAG_HEADER_NAME, getETag(attachment));
         // Advertise that downloads can be resumed
         response.setHeader("Accept-Ranges", "bytes");
     }
@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.internal.velocity;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.eviction.EntryEvictionConfiguration;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.velocity.VelocityTemplate;
+
+/**
+ * Keep the result of the compilation of Velocity scripts so that the same script (typically the content of a
+ * {@code velocity} macro in a wiki page) is not parsed again at each request.
+ * <p>
+ * The compiled templates are not tied to a specific Velocity engine: the global macros and the macros namespace are
+ * only resolved when the template is evaluated, so the same compiled template can be shared by all engines.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = VelocityTemplateCache.class)
+@Singleton
+public class VelocityTemplateCache implements Initializable, Disposable
+{
+    private static final int MAX_ENTRIES = 1000;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    private Cache<VelocityTemplate> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        CacheConfiguration cacheConfig = new CacheConfiguration();
+        cacheConfig.setConfigurationId("velocity.templates");
+        LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
+        lru.setMaxEntries(MAX_ENTRIES);
+        cacheConfig.put(EntryEvictionConfiguration.CONFIGURATIONID, lru);
+
+        try {
+            this.cache = this.cacheManager.createNewCache(cacheConfig);
+        } catch (Exception e) {
+            throw new InitializationException("Failed to create the Velocity templates cache.", e);
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (this.cache != null) {
+            this.cache.dispose();
+        }
+    }
+
+    private String getKey(String name, String content)
+    {
+        String safeName = name != null ? name : "";
+
+        // Prefix the name with its length to make sure the key is not ambiguous
+        return safeName.length() + ":" + safeName + ":" + DigestUtils.sha256Hex(content);
+    }
+
+    /**
+     * @param name the name under which the template was compiled (used in the error messages)
+     * @param content the source of the template
+     * @return the cached compiled template or {@code null} if it's not in the cache
+     */
+    public VelocityTemplate get(String name, String content)
+    {
+        VelocityTemplate template = this.cache.get(getKey(name, content));
+
+        if (template != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+
+        return template;
+    }
+
+    /**
+     * @param name the name under which the template was compiled (used in the error messages)
+     * @param content the source of the template
+     * @param template the compiled template
+     */
+    public void set(String name, String content, VelocityTemplate template)
+    {
+        this.cache.set(getKey(name, content), template);
+    }
+
+    /**
+     * Remove all the compiled templates from the cache.
+     */
+    public void clear()
+    {
+        this.cache.removeAll();
+    }
+
+    /**
+     * @return the number of templates found in the cache
+     */
+    public long getHits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of templates which could not be found in the cache
+     */
+    public long getMisses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the ratio of templates found in the cache, between 0 and 1
+     */
+    public double getHitRate()
+    {
+        long found = getHits();
+        long total = found + getMisses();
+
+        return total > 0 ? (double) found / total : 0;
+    }
+
+    /**
+     * Reset the statistics.
+     */
+    public void resetStatistics()
+    {
+        this.hits.reset();
+        this.misses.reset();
+    }
+}
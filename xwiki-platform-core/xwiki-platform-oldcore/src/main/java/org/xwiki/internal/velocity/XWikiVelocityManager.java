@@ -19,8 +19,10 @@
  */
 package org.xwiki.internal.velocity;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -32,6 +34,7 @@
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
@@ -102,6 +105,12 @@ public class XWikiVelocityManager extends DefaultVelocityManager implements Init
     @Inject
     private AuthorizationManager authorizationManager;
 
+    /**
+     * Accessed trough a {@link Provider} to create the cache only when it's actually needed.
+     */
+    @Inject
+    private Provider<VelocityTemplateCache> templateCacheProvider;
+
     @Inject
     private Logger logger;
 
@@ -151,6 +160,31 @@ protected ScriptVelocityContext getScriptVelocityContext()
         return velocityContext;
     }
 
+    @Override
+    public VelocityTemplate compile(String name, Reader source) throws XWikiVelocityException
+    {
+        String content;
+        try {
+            content = IOUtils.toString(source);
+        } catch (IOException e) {
+            throw new XWikiVelocityException(String.format("Failed to read the Velocity template [%s]", name), e);
+        }
+
+        // The compiled template does not depend on the Velocity engine (the global macros and the macros namespace are
+        // resolved during the evaluation) so it can be reused as long as the name and the content are the same
+        VelocityTemplateCache templateCache = this.templateCacheProvider.get();
+
+        VelocityTemplate template = templateCache.get(name, content);
+        if (template == null) {
+            // Compilation failures are not cached
+            template = super.compile(name, new StringReader(content));
+
+            templateCache.set(name, content, template);
+        }
+
+        return template;
+    }
+
     private Template getSkinMacrosTemplate()
     {
         Template template = null;
@@ -56,6 +56,7 @@
 import com.xpn.xwiki.user.api.XWikiRightService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -173,6 +174,111 @@ void removeObjectDoesntCauseDataLoss() throws XWikiException
         }
     }
 
+    @Test
+    void modifyObjectRetrievedBeforeCopy() throws XWikiException
+    {
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        xdoc.getXClass().addTextField("key", "Key", 30);
+        BaseObject xobject = xdoc.newXObject(xdoc.getDocumentReference(), this.oldcore.getXWikiContext());
+        xobject.setStringValue("key", "initial");
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+
+        Object object = adoc.getObject(xdoc.getPrefixedFullName());
+        assertEquals("initial", object.getValue("key"));
+
+        // Reading an object should not copy the document
+        assertSame(xdoc, adoc.doc);
+
+        object.set("key", "modified");
+
+        // Let's make sure the original document wasn't changed
+        assertNotSame(xdoc, adoc.doc);
+        assertEquals("initial", xobject.getStringValue("key"));
+
+        // Let's make sure the copy was changed
+        assertEquals("modified", object.getValue("key"));
+        assertEquals("modified", adoc.doc.getXObject(xdoc.getDocumentReference()).getStringValue("key"));
+    }
+
+    @Test
+    void readObjectModifiedThroughAnotherHandle() throws XWikiException
+    {
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        xdoc.getXClass().addTextField("key", "Key", 30);
+        BaseObject xobject = xdoc.newXObject(xdoc.getDocumentReference(), this.oldcore.getXWikiContext());
+        xobject.setStringValue("key", "initial");
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+
+        Object object1 = adoc.getObject(xdoc.getPrefixedFullName());
+        Object object2 = adoc.getObject(xdoc.getPrefixedFullName());
+        Property property2 = object2.getProperty("key");
+        assertEquals("initial", object2.getValue("key"));
+        assertEquals("initial", property2.getValue());
+
+        object1.set("key", "modified");
+
+        // Let's make sure the original document wasn't changed
+        assertNotSame(xdoc, adoc.doc);
+        assertEquals("initial", xobject.getStringValue("key"));
+
+        // Let's make sure the other handles read the copy
+        assertEquals("modified", object2.getValue("key"));
+        assertEquals("modified", property2.getValue());
+        assertEquals("modified", adoc.getObject(xdoc.getPrefixedFullName()).getValue("key"));
+    }
+
+    @Test
+    void modifyThroughProgrammingRightsAccessors() throws XWikiException
+    {
+        when(this.oldcore.getMockRightService().hasProgrammingRights(this.oldcore.getXWikiContext())).thenReturn(true);
+
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        xdoc.getXClass().addTextField("key", "Key", 30);
+        BaseObject xobject = xdoc.newXObject(xdoc.getDocumentReference(), this.oldcore.getXWikiContext());
+        xobject.setStringValue("key", "initial");
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+
+        Object object = adoc.getObject(xdoc.getPrefixedFullName());
+        Property property = object.getProperty("key");
+
+        object.getXWikiObject().setStringValue("key", "object");
+
+        // Let's make sure the original document wasn't changed
+        assertNotSame(xdoc, adoc.doc);
+        assertEquals("initial", xobject.getStringValue("key"));
+        assertEquals("object", adoc.doc.getXObject(xdoc.getDocumentReference()).getStringValue("key"));
+
+        ((BaseProperty) property.getProperty()).setValue("property");
+
+        assertEquals("initial", xobject.getStringValue("key"));
+        assertEquals("property", adoc.doc.getXObject(xdoc.getDocumentReference()).getStringValue("key"));
+    }
+
+    @Test
+    void modifyPropertyRetrievedBeforeCopy() throws XWikiException
+    {
+        when(this.oldcore.getMockRightService().hasProgrammingRights(this.oldcore.getXWikiContext())).thenReturn(true);
+
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        xdoc.getXClass().addTextField("key", "Key", 30);
+        BaseObject xobject = xdoc.newXObject(xdoc.getDocumentReference(), this.oldcore.getXWikiContext());
+        xobject.setStringValue("key", "initial");
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+
+        Property property = adoc.getObject(xdoc.getPrefixedFullName()).getProperty("key");
+
+        ((BaseProperty) property.getProperty()).setValue("property");
+
+        // Let's make sure the original document wasn't changed
+        assertSame(xdoc, xobject.getOwnerDocument());
+        assertEquals("initial", xobject.getStringValue("key"));
+        assertEquals("property", adoc.doc.getXObject(xdoc.getDocumentReference()).getStringValue("key"));
+    }
+
     @Test
     void saveAsAuthorUsesGuestIfDroppedPermissions() throws XWikiException
     {
@@ -57,8 +57,10 @@
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -427,6 +429,65 @@ public void getContentInputStreamFromArchive() throws Exception
         assertSame(content.getContentInputStream(), attachment.getContentInputStream(this.oldCore.getXWikiContext()));
     }
 
+    @Test
+    void copyContentWhenContentIsCorrupted() throws Exception
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(new DocumentReference("wiki", "Space", "Page"));
+
+        when(this.oldCore.getXWikiContext().getWiki().getDocument(document.getDocumentReference(),
+            this.oldCore.getXWikiContext())).thenReturn(document);
+
+        XWikiAttachment attachment = new XWikiAttachment(document, "file.txt");
+        attachment.setVersion("3.5");
+        XWikiAttachmentContent corruptedContent = mock(XWikiAttachmentContent.class);
+        when(corruptedContent.copyContent(anyLong(), anyLong(), any())).thenThrow(new IOException("corrupted"));
+        attachment.setAttachment_content(corruptedContent);
+
+        XWikiAttachment newAttachment = new XWikiAttachment(document, attachment.getFilename());
+        newAttachment.setVersion("5.1");
+        when(document.getAttachment(attachment.getFilename())).thenReturn(newAttachment);
+
+        OutputStream output = mock(OutputStream.class);
+        XWikiAttachmentContent content = mock(XWikiAttachmentContent.class);
+        when(content.copyContent(2, 3, output)).thenReturn(3L);
+
+        XWikiAttachment archivedAttachment = new XWikiAttachment(document, attachment.getFilename());
+        archivedAttachment.setAttachment_content(content);
+
+        XWikiAttachmentArchive archive = mock(XWikiAttachmentArchive.class);
+        when(archive.getRevision(attachment, attachment.getVersion(), this.oldCore.getXWikiContext()))
+            .thenReturn(archivedAttachment);
+
+        AttachmentVersioningStore store = mock(AttachmentVersioningStore.class);
+        when(this.oldCore.getXWikiContext().getWiki().getDefaultAttachmentArchiveStore()).thenReturn(store);
+        when(store.loadArchive(attachment, this.oldCore.getXWikiContext(), true)).thenReturn(archive);
+
+        // The content is reloaded, like when getting the content stream
+        assertEquals(3, attachment.copyContent(2, 3, output, this.oldCore.getXWikiContext()));
+    }
+
+    @Test
+    void copyContentWhenPartiallyCopied() throws Exception
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(new DocumentReference("wiki", "Space", "Page"));
+
+        XWikiAttachment attachment = new XWikiAttachment(document, "file.txt");
+        XWikiAttachmentContent content = mock(XWikiAttachmentContent.class);
+        IOException exception = new IOException("failed");
+        when(content.copyContent(anyLong(), anyLong(), any())).then(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(1);
+            throw exception;
+        });
+        attachment.setAttachment_content(content);
+
+        // The content is not copied again since it would duplicate what was already written
+        assertSame(exception, assertThrows(IOException.class,
+            () -> attachment.copyContent(0, 10, mock(OutputStream.class), this.oldCore.getXWikiContext())));
+        verify(content).copyContent(anyLong(), anyLong(), any());
+    }
+
     @Test
     public void testToString()
     {
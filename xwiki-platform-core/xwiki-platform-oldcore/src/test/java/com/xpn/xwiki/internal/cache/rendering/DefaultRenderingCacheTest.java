@@ -25,10 +25,12 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.jmock.Expectations;
 import org.junit.Assert;
 import org.junit.Test;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.test.internal.MockConfigurationSource;
@@ -37,6 +39,7 @@
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.cache.rendering.CachedItem.UsedExtension;
+import com.xpn.xwiki.internal.cache.rendering.jmx.JMXRenderingCache;
 import com.xpn.xwiki.plugin.XWikiDefaultPlugin;
 import com.xpn.xwiki.plugin.XWikiPluginManager;
 import com.xpn.xwiki.test.AbstractBridgedComponentTestCase;
@@ -103,6 +106,13 @@ protected void registerComponents() throws Exception
         super.registerComponents();
 
         getConfigurationSource().setProperty("core.renderingcache.enabled", true);
+
+        final JMXBeanRegistration jmxRegistration = registerMockComponent(JMXBeanRegistration.class);
+        // @formatter:off
+        getMockery().checking(new Expectations() {{
+            oneOf(jmxRegistration).registerMBean(with(any(JMXRenderingCache.class)), with("type=Cache,name=rendering"));
+        }});
+        //@formatter:on
     }
 
     @Test
@@ -138,6 +148,43 @@ public void testGetSetRenderedContent() throws Exception
     }
 
 
+    @Test
+    public void testEvictWhenTooBig() throws Exception
+    {
+        MockConfigurationSource source = getConfigurationSource();
+
+        source.setProperty("core.renderingcache.documents",
+            Collections.singletonList(this.document.getPrefixedFullName()));
+        source.setProperty("core.renderingcache.maxSize", 3000L);
+
+        String content1 = StringUtils.repeat('a', 500);
+        String content2 = StringUtils.repeat('b', 500);
+
+        this.renderingCache.setRenderedContent(this.document.getDocumentReference(), "source", content1,
+            getContext());
+
+        Assert.assertEquals(2024, ((DefaultRenderingCache) this.renderingCache).getWeight());
+
+        this.parameters.put("param", new String[] {"value"});
+
+        this.renderingCache.setRenderedContent(this.document.getDocumentReference(), "source", content2,
+            getContext());
+
+        Assert.assertEquals(2024, ((DefaultRenderingCache) this.renderingCache).getWeight());
+        Assert.assertEquals(content2,
+            this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source", getContext()));
+
+        this.parameters.remove("param");
+
+        Assert.assertNull(this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source",
+            getContext()));
+
+        RenderingCacheStatistics statistics = ((DefaultRenderingCache) this.renderingCache).getStatistics();
+        Assert.assertEquals(1, statistics.getHits("wiki:space"));
+        Assert.assertEquals(1, statistics.getMisses("wiki:space"));
+        Assert.assertEquals(1, statistics.getEvictions("wiki:space"));
+    }
+
     private static class TestRenderingCacheAware extends XWikiDefaultPlugin implements RenderingCacheAware {
         public TestRenderingCacheAware(String name, String className, XWikiContext context) {
              super(name, className, context);
@@ -0,0 +1,76 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.cache.rendering;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validate {@link RenderingCacheStatistics}.
+ *
+ * @version $Id$
+ */
+class RenderingCacheStatisticsTest
+{
+    @Test
+    void countPerSpace()
+    {
+        RenderingCacheStatistics statistics = new RenderingCacheStatistics();
+
+        statistics.hit("wiki:space1");
+        statistics.hit("wiki:space1");
+        statistics.miss("wiki:space1");
+        statistics.evicted("wiki:space2");
+
+        assertEquals(Set.of("wiki:space1", "wiki:space2"), statistics.getSpaces());
+        assertEquals(2, statistics.getHits("wiki:space1"));
+        assertEquals(1, statistics.getMisses("wiki:space1"));
+        assertEquals(0, statistics.getEvictions("wiki:space1"));
+        assertEquals(1, statistics.getEvictions("wiki:space2"));
+
+        statistics.reset();
+
+        assertEquals(Set.of(), statistics.getSpaces());
+        assertEquals(0, statistics.getHits("wiki:space1"));
+    }
+
+    @Test
+    void countOtherSpacesTogether()
+    {
+        RenderingCacheStatistics statistics = new RenderingCacheStatistics(2);
+
+        statistics.hit("wiki:space1");
+        statistics.hit("wiki:space2");
+        statistics.hit("wiki:space3");
+        statistics.miss("wiki:space4");
+        // The spaces counted separately keep being counted separately
+        statistics.hit("wiki:space1");
+
+        assertEquals(Set.of("wiki:space1", "wiki:space2", RenderingCacheStatistics.OTHER_SPACES),
+            statistics.getSpaces());
+        assertEquals(2, statistics.getHits("wiki:space1"));
+        assertEquals(0, statistics.getHits("wiki:space3"));
+        assertEquals(1, statistics.getHits(RenderingCacheStatistics.OTHER_SPACES));
+        assertEquals(1, statistics.getMisses(RenderingCacheStatistics.OTHER_SPACES));
+    }
+}
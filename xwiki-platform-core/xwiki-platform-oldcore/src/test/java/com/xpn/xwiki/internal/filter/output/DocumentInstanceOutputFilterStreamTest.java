@@ -23,10 +23,14 @@
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
@@ -35,6 +39,7 @@
 import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
 import org.xwiki.model.document.DocumentAuthors;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.ObservationContext;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.syntax.SyntaxType;
 import org.xwiki.user.UserReference;
@@ -49,10 +54,18 @@
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.objects.classes.NumberClass;
 
+import static com.xpn.xwiki.test.mockito.OldcoreMatchers.anyXWikiContext;
+import static com.xpn.xwiki.test.mockito.OldcoreMatchers.anyXWikiDocument;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
 
 /**
  * Validate {@link DocumentInstanceOutputFilterStream}.
@@ -61,6 +74,10 @@
  */
 class DocumentInstanceOutputFilterStreamTest extends AbstractInstanceFilterStreamTest
 {
+    private final List<String> recordedSaves = Collections.synchronizedList(new ArrayList<>());
+
+    private final Set<String> recordedSaveThreads = ConcurrentHashMap.newKeySet();
+
     // Tests
 
     private void assertDocument1PreserveVersion(XWikiDocument document) throws XWikiException, ParseException
@@ -681,4 +698,120 @@ void importDocumentWithRevisionsAndPreserveVersion() throws FilterException, XWi
 
         assertEquals("42.3", document3.getVersion());
     }
+
+    private DocumentInstanceOutputProperties createParallelOutputProperties()
+    {
+        DocumentInstanceOutputProperties outputProperties = new DocumentInstanceOutputProperties();
+
+        outputProperties.setVersionPreserved(true);
+        outputProperties.setVerbose(false);
+        outputProperties.setSaveThreads(2);
+
+        return outputProperties;
+    }
+
+    /**
+     * Record the saved documents instead of saving them, after a delay to make sure the import is finished before.
+     */
+    private void recordSaves()
+    {
+        doAnswer(invocation -> {
+            Thread.sleep(50);
+
+            XWikiDocument document = invocation.getArgument(0);
+            this.recordedSaves.add(document.getLocale() + "/" + document.getVersion());
+            this.recordedSaveThreads.add(Thread.currentThread().getName());
+
+            return null;
+        }).when(this.oldcore.getSpyXWiki()).saveDocument(anyXWikiDocument(), any(String.class), anyBoolean(),
+            anyXWikiContext());
+    }
+
+    private void assertRevisions(DocumentReference reference, String prefix) throws XWikiException
+    {
+        XWikiDocument document = this.oldcore.getSpyXWiki().getDocument(reference, this.oldcore.getXWikiContext());
+
+        assertFalse(document.isNew());
+        assertEquals("42.3", document.getVersion());
+        assertEquals(prefix + "content3", document.getContent());
+
+        Version[] versions = document.getRevisions(this.oldcore.getXWikiContext());
+
+        assertEquals(3, versions.length);
+
+        XWikiDocumentArchive archive = document.getDocumentArchive(this.oldcore.getXWikiContext());
+
+        for (int i = 0; i < versions.length; ++i) {
+            XWikiDocument revision = archive.loadDocument(versions[i], this.oldcore.getXWikiContext());
+
+            assertEquals("42." + (i + 1), revision.getVersion());
+            assertEquals(prefix + "content" + (i + 1), revision.getContent());
+        }
+    }
+
+    @Test
+    void importDocumentWithLocalesAndRevisionsInParallel() throws FilterException, XWikiException
+    {
+        importFromXML("documentwithlocalesandrevisions", createParallelOutputProperties());
+
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+
+        assertRevisions(reference, "");
+        assertRevisions(new DocumentReference(reference, Locale.FRENCH), "fr");
+    }
+
+    @Test
+    void closeWaitsForParallelSaves() throws FilterException
+    {
+        recordSaves();
+
+        importFromXML("documentwithlocalesandrevisions", createParallelOutputProperties());
+
+        // All the revisions and locales of a document are saved in order by the same thread
+        assertEquals(Arrays.asList("/42.1", "/42.2", "/42.3", "fr/42.1", "fr/42.2", "fr/42.3"), this.recordedSaves);
+        assertEquals(1, this.recordedSaveThreads.size());
+        assertTrue(this.recordedSaveThreads.iterator().next().startsWith("XWiki document import thread "));
+    }
+
+    @Test
+    void importInParallelInsideFoldEvent() throws Exception
+    {
+        ObservationContext observationContext =
+            this.oldcore.getMocker().registerMockComponent(ObservationContext.class);
+        when(observationContext.isIn(any())).thenReturn(true);
+
+        recordSaves();
+
+        importFromXML("documentwithrevisions", createParallelOutputProperties());
+
+        // The documents are saved by the reading thread to not lose the ongoing fold events
+        assertEquals(Arrays.asList("/42.1", "/42.2", "/42.3"), this.recordedSaves);
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), this.recordedSaveThreads);
+    }
+
+    @Test
+    void importInParallelWhenSaveFails() throws XWikiException
+    {
+        doThrow(new XWikiException()).when(this.oldcore.getSpyXWiki()).saveDocument(anyXWikiDocument(),
+            any(String.class), anyBoolean(), anyXWikiContext());
+
+        DocumentInstanceOutputProperties outputProperties = createParallelOutputProperties();
+
+        assertThrows(FilterException.class, () -> importFromXML("documentwithrevisions", outputProperties));
+    }
+
+    @Test
+    void importInParallelWhenSaveFailsWithoutStopping() throws FilterException, XWikiException
+    {
+        doThrow(new XWikiException()).when(this.oldcore.getSpyXWiki()).saveDocument(anyXWikiDocument(),
+            any(String.class), anyBoolean(), anyXWikiContext());
+
+        DocumentInstanceOutputProperties outputProperties = createParallelOutputProperties();
+        outputProperties.setStoppedWhenSaveFail(false);
+
+        importFromXML("documentwithrevisions", outputProperties);
+
+        assertTrue(this.oldcore.getSpyXWiki()
+            .getDocument(new DocumentReference("wiki", "space", "page"), this.oldcore.getXWikiContext()).isNew());
+    }
 }
@@ -25,6 +25,7 @@
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 
 import org.apache.velocity.VelocityContext;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +38,7 @@
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.rendering.RenderingException;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.transformation.TransformationManager;
 import org.xwiki.security.authorization.AccessDeniedException;
 import org.xwiki.security.authorization.AuthorizationManager;
@@ -60,6 +62,7 @@
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -199,6 +202,24 @@ void renderWiki() throws Exception
         assertEquals("<p>first line<br/>second line</p>", this.templateManager.render("template"));
     }
 
+    @Test
+    void getXDOMWiki() throws Exception
+    {
+        setTemplateContent("##!source.syntax=xwiki/2.1\nfirst line\\\\second line");
+
+        Template template = this.templateManager.getTemplate("template");
+
+        XDOM xdom1 = this.templateManager.getXDOM(template);
+        assertEquals(1, xdom1.getChildren().size());
+
+        // Modifying the returned XDOM should not affect the next calls
+        xdom1.setChildren(Collections.emptyList());
+
+        XDOM xdom2 = this.templateManager.getXDOM(template);
+        assertNotSame(xdom1, xdom2);
+        assertEquals(1, xdom2.getChildren().size());
+    }
+
     @Test
     void renderClassloaderTemplate() throws Exception
     {
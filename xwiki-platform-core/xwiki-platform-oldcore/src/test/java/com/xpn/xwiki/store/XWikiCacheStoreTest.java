@@ -19,10 +19,19 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheManager;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.internal.reference.UidStringEntityReferenceSerializer;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.ObservationManager;
@@ -31,12 +40,15 @@
 
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.store.jmx.JMXDocumentCache;
 import com.xpn.xwiki.test.MockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.isCacheConfiguration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -54,7 +66,7 @@
  * @version $Id$
  */
 @OldcoreTest
-@ComponentList(UidStringEntityReferenceSerializer.class)
+@ComponentList({ UidStringEntityReferenceSerializer.class, XWikiCacheStore.class })
 class XWikiCacheStoreTest
 {    
     @InjectMockitoOldcore
@@ -79,6 +91,17 @@ void beforeEach() throws Exception
             existCache);
     }
 
+    @Test
+    void initializeRegistersMBean() throws Exception
+    {
+        JMXBeanRegistration jmxRegistration =
+            this.oldcore.getMocker().registerMockComponent(JMXBeanRegistration.class);
+
+        this.oldcore.getMocker().getInstance(XWikiStoreInterface.class, "cache");
+
+        verify(jmxRegistration).registerMBean(any(JMXDocumentCache.class), eq("type=Store,name=documentCache"));
+    }
+
     @Test
     void loadXWikiDoc() throws Exception
     {
@@ -142,4 +165,106 @@ void saveXWikiDocumentFailing() throws XWikiException
         verify(this.cache).remove("4:wiki5:space4:page0:");
         verify(this.existCache).remove("4:wiki5:space4:page0:");
     }
+
+    @Test
+    void loadXWikiDocConcurrently() throws Exception
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+
+        XWikiStoreInterface backendStore = mock(XWikiStoreInterface.class);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(backendStore.loadXWikiDoc(any(), any())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+
+            XWikiDocument document = invocation.getArgument(0);
+            document.setNew(false);
+
+            return document;
+        });
+
+        XWikiCacheStore store = new XWikiCacheStore(backendStore, this.oldcore.getXWikiContext());
+
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<XWikiDocument> first = executor
+                .submit(() -> store.loadXWikiDoc(new XWikiDocument(reference), this.oldcore.getXWikiContext()));
+            loading.await();
+
+            Future<XWikiDocument> second = executor
+                .submit(() -> store.loadXWikiDoc(new XWikiDocument(reference), this.oldcore.getXWikiContext()));
+            // Wait for the second thread to be waiting for the first one
+            while (store.getStatistics().getCoalesced() == 0) {
+                Thread.sleep(10);
+            }
+
+            release.countDown();
+
+            assertSame(first.get(), second.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(backendStore).loadXWikiDoc(any(), any());
+        verify(this.cache).set(eq("4:wiki5:space4:page0:"), any(XWikiDocument.class));
+        verify(this.existCache).set("4:wiki5:space4:page0:", Boolean.TRUE);
+
+        assertEquals(2, store.getStatistics().getMisses());
+        assertEquals(1, store.getStatistics().getCoalesced());
+        assertEquals(1, store.getStatistics().getLoads());
+    }
+
+    @Test
+    void loadXWikiDocReferencingEachOtherConcurrently() throws Exception
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+
+        DocumentReference referenceA = new DocumentReference("wiki", "space", "A");
+        DocumentReference referenceB = new DocumentReference("wiki", "space", "B");
+
+        XWikiStoreInterface backendStore = mock(XWikiStoreInterface.class);
+        XWikiCacheStore store = new XWikiCacheStore(backendStore, this.oldcore.getXWikiContext());
+
+        // Each document needs the other one to be loaded (like a document having an object of the class defined in the
+        // other document)
+        CountDownLatch loading = new CountDownLatch(2);
+        Set<DocumentReference> started = ConcurrentHashMap.newKeySet();
+        when(backendStore.loadXWikiDoc(any(), any())).thenAnswer(invocation -> {
+            XWikiDocument document = invocation.getArgument(0);
+
+            if (started.add(document.getDocumentReference())) {
+                // Make sure both threads are loading their own document before loading the other one
+                loading.countDown();
+                loading.await();
+
+                DocumentReference otherReference =
+                    document.getDocumentReference().equals(referenceA) ? referenceB : referenceA;
+                store.loadXWikiDoc(new XWikiDocument(otherReference), this.oldcore.getXWikiContext());
+            }
+
+            document.setNew(false);
+
+            return document;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<XWikiDocument> documentA = executor
+                .submit(() -> store.loadXWikiDoc(new XWikiDocument(referenceA), this.oldcore.getXWikiContext()));
+            Future<XWikiDocument> documentB = executor
+                .submit(() -> store.loadXWikiDoc(new XWikiDocument(referenceB), this.oldcore.getXWikiContext()));
+
+            assertEquals(referenceA, documentA.get(10, TimeUnit.SECONDS).getDocumentReference());
+            assertEquals(referenceB, documentB.get(10, TimeUnit.SECONDS).getDocumentReference());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The nested loads did not wait for the thread in charge of the document
+        assertEquals(0, store.getStatistics().getCoalesced());
+        assertEquals(4, store.getStatistics().getLoads());
+    }
 }
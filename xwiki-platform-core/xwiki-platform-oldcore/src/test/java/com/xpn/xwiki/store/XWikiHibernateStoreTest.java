@@ -19,17 +19,22 @@
  */
 package com.xpn.xwiki.store;
 
+import java.io.Serializable;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.inject.Named;
 import javax.inject.Provider;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -39,6 +44,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.AdditionalAnswers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.xwiki.bridge.event.ActionExecutingEvent;
@@ -67,19 +73,26 @@
 import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseProperty;
+import com.xpn.xwiki.objects.IntegerProperty;
 import com.xpn.xwiki.objects.LargeStringProperty;
 import com.xpn.xwiki.objects.StringProperty;
+import com.xpn.xwiki.objects.classes.BaseClass;
+import com.xpn.xwiki.objects.classes.TextAreaClass;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -91,6 +104,13 @@
 @ComponentTest
 public class XWikiHibernateStoreTest
 {
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    private static final DocumentReference CLASS_REFERENCE = new DocumentReference("wiki", "Space", "Class");
+
+    private static final String PROPERTIES_QUERY =
+        "select prop.id.id, prop.name, prop.classType from BaseProperty as prop where prop.id.id in (:ids)";
+
     /**
      * A special component manager that mocks automatically all the dependencies of the component under test.
      */
@@ -149,6 +169,10 @@
     @RegisterExtension
     private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
 
+    private final BaseClass xclass = mock(BaseClass.class);
+
+    private final Map<Long, Map<String, BaseProperty>> loadedFields = new HashMap<>();
+
     @BeforeEach
     void setUp(MockitoComponentManager componentManager) throws Exception
     {
@@ -492,4 +516,242 @@ void loadBacklinksFromSubwiki() throws Exception
         verify(this.hibernateStore).beginTransaction();
         verify(this.hibernateStore).endTransaction(false);
     }
+
+    private BaseObject mockObject(long id)
+    {
+        BaseObject object = mock(BaseObject.class);
+        when(object.getId()).thenReturn(id);
+        when(object.getNumber()).thenReturn((int) id);
+        when(object.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(object.getXClassReference()).thenReturn(CLASS_REFERENCE);
+        when(object.getXClass(this.xcontext)).thenReturn(this.xclass);
+        doAnswer(invocation -> this.loadedFields.computeIfAbsent(id, k -> new HashMap<>())
+            .put(invocation.getArgument(0), invocation.getArgument(1))).when(object).addField(anyString(), any());
+
+        return object;
+    }
+
+    private List<BaseObject> mockObjects(int count)
+    {
+        List<BaseObject> objects = new ArrayList<>();
+        for (long id = 1; id <= count; ++id) {
+            objects.add(mockObject(id));
+        }
+
+        return objects;
+    }
+
+    private Query<Object[]> mockPropertiesQuery(Object[]... descriptors)
+    {
+        Query<Object[]> query = mock(Query.class);
+        when(this.session.createQuery(PROPERTIES_QUERY, Object[].class)).thenReturn(query);
+        when(query.list()).thenReturn(Arrays.asList(descriptors));
+
+        return query;
+    }
+
+    private Query<BaseProperty> mockPropertiesQuery(Class<? extends BaseProperty> propertyClass,
+        BaseProperty... properties)
+    {
+        Query<BaseProperty> query = mock(Query.class);
+        when(this.session.createQuery(
+            "select prop from " + propertyClass.getName() + " as prop where prop.id.id in (:ids)", BaseProperty.class))
+                .thenReturn(query);
+        when(query.list()).thenReturn(Arrays.asList(properties));
+
+        return query;
+    }
+
+    private Object[] descriptor(long id, String name, Class<? extends BaseProperty> propertyClass)
+    {
+        return new Object[] {id, name, propertyClass.getName()};
+    }
+
+    private <P extends BaseProperty> P property(P property, long id, String name, Object value)
+    {
+        property.setId(id);
+        property.setName(name);
+        property.setValue(value);
+
+        return property;
+    }
+
+    private void loadXWikiDoc(List<BaseObject> objects) throws Exception
+    {
+        when(this.xcontext.getWikiId()).thenReturn("wiki");
+        when(this.xcontext.getWiki().getXClass(CLASS_REFERENCE, this.xcontext)).thenReturn(this.xclass);
+        when(this.xclass.newCustomClassInstance(true)).thenAnswer(AdditionalAnswers.returnsElementsOf(objects));
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(document.getFullName()).thenReturn("Space.Page");
+        when(document.getDate()).thenReturn(new Date());
+        when(document.getCreationDate()).thenReturn(new Date());
+        when(document.getContentUpdateDate()).thenReturn(new Date());
+        when(document.hasElement(XWikiDocument.HAS_OBJECTS)).thenReturn(true);
+        when(this.session.get(XWikiDocument.class, 42L)).thenReturn(document);
+
+        Query<BaseObject> objectsQuery = mock(Query.class);
+        when(this.session.createQuery("from BaseObject as bobject where bobject.name = :name order by bobject.number",
+            BaseObject.class)).thenReturn(objectsQuery);
+        when(objectsQuery.list()).thenReturn(objects);
+
+        XWikiDocument defaultDocument = mock(XWikiDocument.class);
+        when(defaultDocument.getId()).thenReturn(42L);
+
+        assertSame(document, this.store.loadXWikiDoc(defaultDocument, this.xcontext));
+    }
+
+    @Test
+    void loadXWikiDocLoadsPropertiesByType() throws Exception
+    {
+        Query<Object[]> descriptorsQuery = mockPropertiesQuery(descriptor(1, "name", StringProperty.class),
+            descriptor(1, "age", IntegerProperty.class), descriptor(2, "name", StringProperty.class));
+        StringProperty alice = property(new StringProperty(), 1, "name", "Alice");
+        // Oracle stores empty strings as NULL
+        StringProperty empty = property(new StringProperty(), 2, "name", null);
+        Query<BaseProperty> stringQuery = mockPropertiesQuery(StringProperty.class, alice, empty);
+        IntegerProperty age = property(new IntegerProperty(), 1, "age", 42);
+        Query<BaseProperty> integerQuery = mockPropertiesQuery(IntegerProperty.class, age);
+
+        List<BaseObject> objects = mockObjects(2);
+        loadXWikiDoc(objects);
+
+        assertSame(alice, this.loadedFields.get(1L).get("name"));
+        assertSame(objects.get(0), alice.getObject());
+        assertFalse(alice.isValueDirty());
+        assertSame(age, this.loadedFields.get(1L).get("age"));
+        assertSame(objects.get(0), age.getObject());
+        assertSame(empty, this.loadedFields.get(2L).get("name"));
+        assertSame(objects.get(1), empty.getObject());
+        assertEquals("", empty.getValue());
+
+        verify(descriptorsQuery).setParameterList("ids", Arrays.asList(1L, 2L));
+        verify(stringQuery).setParameterList("ids", Arrays.asList(1L, 2L));
+        verify(integerQuery).setParameterList("ids", Arrays.asList(1L));
+        // Nothing is loaded property by property
+        verify(this.session, never()).load(any(BaseProperty.class), any(Serializable.class));
+    }
+
+    @Test
+    void loadXWikiDocWhenPropertyIsMissingFromBulkResult() throws Exception
+    {
+        mockPropertiesQuery(descriptor(1, "name", StringProperty.class),
+            descriptor(1, "missing", StringProperty.class));
+        StringProperty name = property(new StringProperty(), 1, "name", "Alice");
+        mockPropertiesQuery(StringProperty.class, name);
+
+        doAnswer(invocation -> {
+            invocation.<StringProperty>getArgument(0).setValue("loaded alone");
+            return null;
+        }).when(this.session).load(any(StringProperty.class), any(Serializable.class));
+
+        loadXWikiDoc(mockObjects(1));
+
+        assertSame(name, this.loadedFields.get(1L).get("name"));
+        BaseProperty missing = this.loadedFields.get(1L).get("missing");
+        assertEquals(StringProperty.class, missing.getClass());
+        assertEquals("missing", missing.getName());
+        assertEquals("loaded alone", missing.getValue());
+        verify(this.session).load(same(missing), any(Serializable.class));
+    }
+
+    @Test
+    void loadXWikiDocWhenStringIsStoredAsLargeString() throws Exception
+    {
+        // The properties are declared as String but their values are stored in the LargeString table
+        mockPropertiesQuery(descriptor(1, "summary", StringProperty.class),
+            descriptor(1, "description", StringProperty.class));
+        mockPropertiesQuery(StringProperty.class);
+
+        doThrow(new HibernateException("wrong table")).when(this.session).load(any(StringProperty.class),
+            any(Serializable.class));
+        doAnswer(invocation -> {
+            invocation.<LargeStringProperty>getArgument(0).setValue("long text");
+            return null;
+        }).when(this.session).load(any(LargeStringProperty.class), any(Serializable.class));
+        when(this.xclass.get("description")).thenReturn(mock(TextAreaClass.class));
+
+        loadXWikiDoc(mockObjects(1));
+
+        // The class property decides which type of property is kept
+        BaseProperty summary = this.loadedFields.get(1L).get("summary");
+        assertEquals(StringProperty.class, summary.getClass());
+        assertEquals("long text", summary.getValue());
+        BaseProperty description = this.loadedFields.get(1L).get("description");
+        assertEquals(LargeStringProperty.class, description.getClass());
+        assertEquals("long text", description.getValue());
+    }
+
+    @Test
+    void loadXWikiDocWithCustomMapping() throws Exception
+    {
+        when(this.xclass.hasCustomMapping()).thenReturn(true);
+        when(this.xclass.getDocumentReference()).thenReturn(CLASS_REFERENCE);
+        when(this.xclass.getCustomMappingPropertyList(this.xcontext)).thenReturn(Arrays.asList("title"));
+        when(this.xcontext.getWiki().hasCustomMappings()).thenReturn(true);
+        when(this.localEntityReferenceSerializer.serialize(CLASS_REFERENCE)).thenReturn("Space.Class");
+        Map<String, Object> values = new HashMap<>();
+        values.put("title", "Hello");
+        when(this.session.load("Space.Class", 1L)).thenReturn(values);
+
+        Query<Object[]> descriptorsQuery = mockPropertiesQuery(descriptor(1, "title", StringProperty.class),
+            descriptor(1, "name", StringProperty.class));
+        StringProperty name = property(new StringProperty(), 1, "name", "Alice");
+        mockPropertiesQuery(StringProperty.class, name);
+
+        List<BaseObject> objects = mockObjects(1);
+        loadXWikiDoc(objects);
+
+        verify(this.xclass).fromValueMap(values, objects.get(0));
+        verify(descriptorsQuery).setParameterList("ids", Arrays.asList(1L));
+        // Only the property which is not custom mapped is loaded from the property tables
+        assertEquals(Collections.singletonMap("name", name), this.loadedFields.get(1L));
+    }
+
+    @Test
+    void loadXWikiDocWithMoreObjectsThanQueryParameters() throws Exception
+    {
+        Query<Object[]> descriptorsQuery = mock(Query.class);
+        when(this.session.createQuery(PROPERTIES_QUERY, Object[].class)).thenReturn(descriptorsQuery);
+        Query<BaseProperty> stringQuery = mockPropertiesQuery(StringProperty.class);
+
+        // Each query returns the properties of the identifiers it received
+        List<List<Long>> descriptorsIds = new ArrayList<>();
+        doAnswer(invocation -> descriptorsIds.add(invocation.getArgument(1))).when(descriptorsQuery)
+            .setParameterList(eq("ids"), any(List.class));
+        when(descriptorsQuery.list()).thenAnswer(invocation -> {
+            List<Object[]> descriptors = new ArrayList<>();
+            for (long id : descriptorsIds.get(descriptorsIds.size() - 1)) {
+                descriptors.add(descriptor(id, "name", StringProperty.class));
+            }
+            return descriptors;
+        });
+        List<List<Long>> stringIds = new ArrayList<>();
+        doAnswer(invocation -> stringIds.add(invocation.getArgument(1))).when(stringQuery)
+            .setParameterList(eq("ids"), any(List.class));
+        when(stringQuery.list()).thenAnswer(invocation -> {
+            List<BaseProperty> properties = new ArrayList<>();
+            for (long id : stringIds.get(stringIds.size() - 1)) {
+                properties.add(property(new StringProperty(), id, "name", "value" + id));
+            }
+            return properties;
+        });
+
+        loadXWikiDoc(mockObjects(1001));
+
+        // The list of identifiers is split to not go beyond the database limit
+        assertEquals(2, descriptorsIds.size());
+        assertEquals(1000, descriptorsIds.get(0).size());
+        assertEquals(Arrays.asList(1001L), descriptorsIds.get(1));
+        assertEquals(2, stringIds.size());
+        assertEquals(1000, stringIds.get(0).size());
+        assertEquals(Arrays.asList(1001L), stringIds.get(1));
+        verify(this.session, times(2)).createQuery(PROPERTIES_QUERY, Object[].class);
+
+        assertEquals(1001, this.loadedFields.size());
+        assertEquals("value1", this.loadedFields.get(1L).get("name").getValue());
+        assertEquals("value1001", this.loadedFields.get(1001L).get("name").getValue());
+        verify(this.session, never()).load(any(BaseProperty.class), any(Serializable.class));
+    }
 }
@@ -33,6 +33,7 @@
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.xwiki.context.ExecutionContext;
@@ -61,6 +62,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
@@ -775,6 +777,91 @@ void downloadWhenEmptyRange() throws XWikiException, IOException
         verifyResponseExpectations(d.getTime(), this.fileContent.length);
     }
 
+    @Test
+    void downloadWhenMultipleRanges() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=0-1, 5-6, -2", -1L, DEFAULT_FILE_NAME);
+        StubServletOutputStream ssos = new StubServletOutputStream();
+        when(this.response.getOutputStream()).thenReturn(ssos);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(this.response).setContentType(argThat(type -> type.startsWith("multipart/byteranges; boundary=")));
+
+        String content = ssos.baos.toString();
+        assertTrue(content.contains("Content-Range: bytes 0-1/14\r\n\r\nab\r\n"));
+        assertTrue(content.contains("Content-Range: bytes 5-6/14\r\n\r\nfg\r\n"));
+        assertTrue(content.contains("Content-Range: bytes 12-13/14\r\n\r\nmn\r\n"));
+        verify(this.response).setContentLengthLong(ssos.baos.size());
+    }
+
+    @Test
+    void downloadWhenUnsatisfiableRange() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=20-30, 40-", -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        verify(this.response).setHeader("Content-Range", "bytes */14");
+    }
+
+    @Test
+    void downloadWhenIfNoneMatchSame() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, null, -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        ArgumentCaptor<String> etagCaptor = ArgumentCaptor.forClass(String.class);
+        verify(this.response).setHeader(eq("ETag"), etagCaptor.capture());
+
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", " + etagCaptor.getValue());
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(this.response, times(2)).setHeader("ETag", etagCaptor.getValue());
+    }
+
+    @Test
+    void downloadWhenIfNoneMatchDifferent() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        // The entity tag takes precedence over the modification date
+        setRequestExpectations(DEFAULT_URI, null, null, null, d.getTime(), DEFAULT_FILE_NAME);
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\"");
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response, times(0)).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verifyResponseExpectations(d.getTime(), this.fileContent.length);
+        verifyOutputExpectations(0, this.fileContent.length);
+    }
+
+    @Test
+    void downloadWhenIfRangeDoesNotMatch() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-5", -1L, DEFAULT_FILE_NAME);
+        when(this.request.getHeader("If-Range")).thenReturn("\"other\"");
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response, times(0)).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verifyResponseExpectations(d.getTime(), this.fileContent.length);
+        verifyOutputExpectations(0, this.fileContent.length);
+    }
+
     private static final class StubServletOutputStream extends ServletOutputStream
     {
         public ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.internal.velocity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.velocity.VelocityTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link VelocityTemplateCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class VelocityTemplateCacheTest
+{
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache<VelocityTemplate> cache;
+
+    @InjectMockComponents
+    private VelocityTemplateCache templateCache;
+
+    private final Map<String, VelocityTemplate> entries = new HashMap<>();
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(this.cacheManager.<VelocityTemplate>createNewCache(any(CacheConfiguration.class)))
+            .thenReturn(this.cache);
+        when(this.cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(this.cache)
+            .set(anyString(), any());
+
+        this.templateCache.initialize();
+    }
+
+    @Test
+    void getAndSet()
+    {
+        VelocityTemplate template = mock();
+
+        assertNull(this.templateCache.get("name", "content"));
+
+        this.templateCache.set("name", "content", template);
+
+        assertSame(template, this.templateCache.get("name", "content"));
+        assertNull(this.templateCache.get("name", "other content"));
+        assertNull(this.templateCache.get("other name", "content"));
+        assertNull(this.templateCache.get(null, "content"));
+
+        assertEquals(1, this.templateCache.getHits());
+        assertEquals(4, this.templateCache.getMisses());
+        assertEquals(0.2, this.templateCache.getHitRate());
+
+        this.templateCache.resetStatistics();
+
+        assertEquals(0, this.templateCache.getHits());
+        assertEquals(0, this.templateCache.getMisses());
+        assertEquals(0, this.templateCache.getHitRate());
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.xwiki.query.internal;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -58,7 +60,9 @@ public String filterStatement(String statement, String language)
     @Override
     public List filterResults(List results)
     {
-        List<Object> filteredResults = new LinkedList<>();
+        // Check the rights of all the results at once to share the loading of the common security rules.
+        List<Object> candidates = new ArrayList<>(results.size());
+        List<EntityReference> entityReferences = new ArrayList<>(results.size());
         for (Object result : results) {
             EntityReference entityReference = null;
             if (result instanceof EntityReference) {
@@ -66,10 +70,18 @@ public List filterResults(List results)
             } else if (result instanceof Object[] && ((Object[]) result)[0] instanceof EntityReference) {
                 entityReference = (EntityReference) ((Object[]) result)[0];
             }
-            if (entityReference != null && this.authorization.hasAccess(Right.VIEW, entityReference)) {
-                filteredResults.add(result);
+            if (entityReference != null) {
+                candidates.add(result);
+                entityReferences.add(entityReference);
             }
         }
+
+        BitSet allowed = this.authorization.getAllowed(Right.VIEW, entityReferences);
+
+        List<Object> filteredResults = new LinkedList<>();
+        for (int i = allowed.nextSetBit(0); i >= 0; i = allowed.nextSetBit(i + 1)) {
+            filteredResults.add(candidates.get(i));
+        }
         return filteredResults;
     }
 }
@@ -20,6 +20,10 @@
 package org.xwiki.rendering.async.internal;
 
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +31,7 @@
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.xwiki.cache.Cache;
@@ -41,8 +46,16 @@
 import org.xwiki.component.descriptor.DefaultComponentRole;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
+import org.xwiki.rendering.async.internal.block.BlockAsyncRendererResult;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.MacroMarkerBlock;
+import org.xwiki.rendering.block.RawBlock;
+import org.xwiki.rendering.block.VerbatimBlock;
+import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.security.authorization.AuthorizationManager;
 
 /**
@@ -55,12 +68,42 @@
 @Singleton
 public class AsyncRendererCache implements Initializable, CacheEntryListener<AsyncRendererJobStatus>
 {
+    /**
+     * The name of the property containing the maximum size (in bytes) of the long lived cache.
+     * 
+     * @since 16.8.0RC1
+     */
+    public static final String PROPERTY_LONG_CACHE_MAXSIZE = "rendering.async.cache.maxSize";
+
+    /**
+     * The default maximum size (in bytes) of the long lived cache.
+     * 
+     * @since 16.8.0RC1
+     */
+    public static final long DEFAULT_LONG_CACHE_MAXSIZE = 100L * 1024 * 1024;
+
+    /**
+     * The estimated size of what is stored in a cache entry in addition to the result itself (request, references,
+     * etc.).
+     */
+    private static final long ENTRY_OVERHEAD = 1024;
+
+    /**
+     * The estimated size of a {@link Block} in addition to the text it contains (object header, parent, children
+     * list, parameters map, etc.).
+     */
+    private static final long BLOCK_OVERHEAD = 128;
+
     @Inject
     private AuthorizationManager authorization;
 
     @Inject
     private CacheManager cacheManager;
 
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
     private Cache<AsyncRendererJobStatus> asyncCache;
 
     private Cache<AsyncRendererJobStatus> longCache;
@@ -75,6 +118,15 @@ public class AsyncRendererCache implements Initializable, CacheEntryListener<Asy
 
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /**
+     * The estimated size of the long lived cache entries, in access order (least recently used first).
+     */
+    private final LinkedHashMap<String, Long> longCacheWeights = new LinkedHashMap<>(16, 0.75F, true);
+
+    private long longCacheWeight;
+
+    private long longCacheMaxWeight;
+
     /**
      * @return the lock the lock
      * @since 10.11.5
@@ -117,6 +169,9 @@ public void initialize() throws InitializationException
         }
 
         this.longCache.addCacheEntryListener(this);
+
+        Long maxSize = this.configuration.getProperty(PROPERTY_LONG_CACHE_MAXSIZE, DEFAULT_LONG_CACHE_MAXSIZE);
+        this.longCacheMaxWeight = maxSize != null ? maxSize : DEFAULT_LONG_CACHE_MAXSIZE;
     }
 
     /**
@@ -127,7 +182,16 @@ public AsyncRendererJobStatus getSync(List<String> id)
     {
         String cacheKey = toCacheKey(id);
 
-        return this.longCache.get(cacheKey);
+        AsyncRendererJobStatus status = this.longCache.get(cacheKey);
+
+        if (status != null) {
+            // Remember the entry was used
+            synchronized (this.longCacheWeights) {
+                this.longCacheWeights.get(cacheKey);
+            }
+        }
+
+        return status;
     }
 
     /**
@@ -168,6 +232,9 @@ public void put(AsyncRendererJobStatus status)
             // If cache is enabled, store the status in the long cache
             if (longCacheAllowed) {
                 this.longCache.set(cacheKey, status);
+
+                // Make sure the long cache does not take more memory than allowed
+                evictOverweight();
             }
 
             // Asynchronous statuses are stored in a short lived cache to avoid race condition (result invalidated
@@ -181,6 +248,129 @@ public void put(AsyncRendererJobStatus status)
         }
     }
 
+    /**
+     * @param status the status
+     * @return the estimated size of the status in memory, in bytes
+     */
+    private long getWeight(AsyncRendererJobStatus status)
+    {
+        long weight = ENTRY_OVERHEAD;
+
+        AsyncRendererResult result = status.getResult();
+        if (result != null) {
+            weight += getWeight(result.getResult());
+
+            // The rendered blocks are generally kept too, and they are often much bigger than the rendered result
+            if (result instanceof BlockAsyncRendererResult) {
+                weight += getWeight(((BlockAsyncRendererResult) result).getBlock());
+            }
+        }
+
+        return weight;
+    }
+
+    private long getWeight(String value)
+    {
+        // A Java char takes 2 bytes
+        return value != null ? value.length() * 2L : 0;
+    }
+
+    private long getWeight(Block root)
+    {
+        long weight = 0;
+
+        if (root != null) {
+            // Don't use recursion since the tree can be very deep
+            Deque<Block> blocks = new ArrayDeque<>();
+            blocks.push(root);
+            while (!blocks.isEmpty()) {
+                Block block = blocks.pop();
+
+                weight += BLOCK_OVERHEAD;
+                weight += getTextWeight(block);
+                for (Map.Entry<String, String> parameter : block.getParameters().entrySet()) {
+                    weight += getWeight(parameter.getKey()) + getWeight(parameter.getValue());
+                }
+
+                for (Block child : block.getChildren()) {
+                    blocks.push(child);
+                }
+            }
+        }
+
+        return weight;
+    }
+
+    private long getTextWeight(Block block)
+    {
+        if (block instanceof WordBlock) {
+            return getWeight(((WordBlock) block).getWord());
+        } else if (block instanceof RawBlock) {
+            return getWeight(((RawBlock) block).getRawContent());
+        } else if (block instanceof VerbatimBlock) {
+            return getWeight(((VerbatimBlock) block).getProtectedString());
+        } else if (block instanceof MacroBlock) {
+            return getWeight(((MacroBlock) block).getContent());
+        } else if (block instanceof MacroMarkerBlock) {
+            return getWeight(((MacroMarkerBlock) block).getContent());
+        }
+
+        return 0;
+    }
+
+    private void evictOverweight()
+    {
+        while (true) {
+            String eldestKey;
+
+            synchronized (this.longCacheWeights) {
+                // Always keep at least the most recent entry, even if it's bigger than the maximum
+                if (this.longCacheWeight <= this.longCacheMaxWeight || this.longCacheWeights.size() <= 1) {
+                    return;
+                }
+
+                Iterator<String> iterator = this.longCacheWeights.keySet().iterator();
+                eldestKey = iterator.next();
+                // Make sure to not loop forever if the cache does not notify the removal
+                this.longCacheWeight -= this.longCacheWeights.get(eldestKey);
+                iterator.remove();
+            }
+
+            this.longCache.remove(eldestKey);
+        }
+    }
+
+    /**
+     * @return the estimated size (in bytes) of the entries stored in the long lived cache
+     * @since 16.8.0RC1
+     */
+    public long getLongCacheWeight()
+    {
+        synchronized (this.longCacheWeights) {
+            return this.longCacheWeight;
+        }
+    }
+
+    private void addWeight(String key, AsyncRendererJobStatus status)
+    {
+        long weight = getWeight(status);
+
+        synchronized (this.longCacheWeights) {
+            Long previousWeight = this.longCacheWeights.put(key, weight);
+            this.longCacheWeight += weight - (previousWeight != null ? previousWeight : 0);
+        }
+    }
+
+    private void removeWeight(String key)
+    {
+        synchronized (this.longCacheWeights) {
+            Long weight = this.longCacheWeights.remove(key);
+            if (weight != null) {
+                this.longCacheWeight -= weight;
+            }
+        }
+    }
+
     /**
      * Remove all the entries the cache contains.
      */
@@ -188,6 +378,11 @@ public void flush()
     {
         this.longCache.removeAll();
         this.asyncCache.removeAll();
+
+        synchronized (this.longCacheWeights) {
+            this.longCacheWeights.clear();
+            this.longCacheWeight = 0;
+        }
     }
 
     @Override
@@ -197,6 +392,8 @@ public void cacheEntryAdded(CacheEntryEvent<AsyncRendererJobStatus> event)
         AsyncRendererJobStatus status = entry.getValue();
         String key = entry.getKey();
 
+        addWeight(key, status);
+
         for (EntityReference reference : status.getReferences()) {
             this.referenceMapping.computeIfAbsent(reference, k -> ConcurrentHashMap.newKeySet()).add(key);
         }
@@ -221,6 +418,8 @@ public void cacheEntryRemoved(CacheEntryEvent<AsyncRendererJobStatus> event)
         AsyncRendererJobStatus status = entry.getValue();
         String key = entry.getKey();
 
+        removeWeight(key);
+
         remove(key, status.getReferences(), this.referenceMapping);
         remove(key, status.getRoleTypes(), this.roleTypeMapping);
         remove(key, status.getRoles(), this.roleMapping);
@@ -20,12 +20,16 @@
 package org.xwiki.rendering.async.internal;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.inject.Named;
+
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,10 +38,16 @@
 import org.xwiki.cache.internal.MapCache;
 import org.xwiki.component.descriptor.ComponentRole;
 import org.xwiki.component.descriptor.DefaultComponentRole;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.ObjectReference;
 import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
+import org.xwiki.rendering.async.internal.block.BlockAsyncRendererResult;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.Right;
 import org.xwiki.test.annotation.BeforeComponent;
@@ -48,6 +58,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -66,6 +77,10 @@
     @MockComponent
     private AuthorizationManager authorization;
 
+    @MockComponent
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
     @InjectMockComponents
     private AsyncRendererCache asyncCache;
 
@@ -77,6 +92,8 @@
     public void beforeComponent() throws CacheException
     {
         when(this.cacheManager.<AsyncRendererJobStatus>createNewCache(any())).thenReturn(new MapCache<>());
+        when(this.configuration.getProperty(AsyncRendererCache.PROPERTY_LONG_CACHE_MAXSIZE,
+            AsyncRendererCache.DEFAULT_LONG_CACHE_MAXSIZE)).thenReturn(12000L);
     }
 
     @BeforeEach
@@ -271,4 +288,73 @@ void getAsyncSeveralClients()
 
         assertNull(this.asyncCache.getAsync("2"));
     }
+
+    @Test
+    void evictWhenTooBig()
+    {
+        AsyncRendererJobStatus status1 = newStatus("status1", StringUtils.repeat('a', 2000));
+        AsyncRendererJobStatus status2 = newStatus("status2", StringUtils.repeat('b', 2000));
+        AsyncRendererJobStatus status3 = newStatus("status3", StringUtils.repeat('c', 2000));
+
+        this.asyncCache.put(status1);
+        this.asyncCache.put(status2);
+
+        assertEquals(2 * (1024 + 4000), this.asyncCache.getLongCacheWeight());
+
+        // Make status1 the most recently used entry
+        assertSame(status1, this.asyncCache.getSync(status1.getRequest().getId()));
+
+        this.asyncCache.put(status3);
+
+        assertSame(status1, this.asyncCache.getSync(status1.getRequest().getId()));
+        assertNull(this.asyncCache.getSync(status2.getRequest().getId()));
+        assertSame(status3, this.asyncCache.getSync(status3.getRequest().getId()));
+        assertEquals(2 * (1024 + 4000), this.asyncCache.getLongCacheWeight());
+
+        this.asyncCache.flush();
+
+        assertEquals(0, this.asyncCache.getLongCacheWeight());
+    }
+
+    @Test
+    void evictWhenBlocksTooBig()
+    {
+        AsyncRendererJobStatus status1 = newBlockStatus("status1", 50);
+        AsyncRendererJobStatus status2 = newBlockStatus("status2", 50);
+
+        this.asyncCache.put(status1);
+
+        // The blocks are taken into account even when there is no rendered result
+        long weight = this.asyncCache.getLongCacheWeight();
+        assertTrue(weight > 1024 + 50 * 10, "Unexpected weight " + weight);
+
+        this.asyncCache.put(status2);
+
+        assertNull(this.asyncCache.getSync(status1.getRequest().getId()));
+        assertSame(status2, this.asyncCache.getSync(status2.getRequest().getId()));
+        assertEquals(weight, this.asyncCache.getLongCacheWeight());
+    }
+
+    private AsyncRendererJobStatus newBlockStatus(String id, int paragraphs)
+    {
+        AsyncRendererJobRequest request = new AsyncRendererJobRequest();
+        request.setId(Arrays.asList("entry", id));
+        request.setRenderer(this.renderer);
+
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < paragraphs; ++i) {
+            blocks.add(new ParagraphBlock(List.of(new WordBlock(StringUtils.repeat('w', 50)))));
+        }
+
+        return new AsyncRendererJobStatus(request, new BlockAsyncRendererResult(null, new XDOM(blocks)));
+    }
+
+    private AsyncRendererJobStatus newStatus(String id, String result)
+    {
+        AsyncRendererJobRequest request = new AsyncRendererJobRequest();
+        request.setId(Arrays.asList("entry", id));
+        request.setRenderer(this.renderer);
+
+        return new AsyncRendererJobStatus(request, new AsyncRendererResult(result));
+    }
 }
@@ -174,7 +174,11 @@ protected String evaluateString(VelocityMacroParameters parameters, String conte
                     cleanedContent = filter.before(cleanedContent, velocityContext);
                 }
 
-                velocityEngine.evaluate(velocityContext, writer, key, new StringReader(cleanedContent));
+                // Compile through the manager so that the result of a previous compilation of the same content can be
+                // reused
+                VelocityTemplate template = this.velocityManager.compile(key, new StringReader(cleanedContent));
+
+                velocityEngine.evaluate(velocityContext, writer, key, template);
             }
             result = writer.toString();
 
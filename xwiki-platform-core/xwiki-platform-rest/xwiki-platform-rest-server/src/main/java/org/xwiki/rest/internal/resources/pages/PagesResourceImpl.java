@@ -19,22 +19,36 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
-import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.pages.PagesResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
 
-import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
 
 /**
  * @version $Id$
@@ -43,28 +57,43 @@
 @Named("org.xwiki.rest.internal.resources.pages.PagesResourceImpl")
 public class PagesResourceImpl extends XWikiResource implements PagesResource
 {
+    private static final String QUERY_PAGES =
+        "select doc.name, doc.parent from Document doc where doc.space = :space and doc.language = ''";
+
+    @Inject
+    private ModelFactory factory;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    @Named("explicit")
+    private DocumentReferenceResolver<String> explicitResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
     @Override
     public Pages getPages(String wikiName, String spaceName, Integer start, Integer number,
             String parentFilterExpression, String order, Boolean withPrettyNames)
             throws XWikiRestException
     {
-        String database = Utils.getXWikiContext(componentManager).getWikiId();
+        XWikiContext xcontext = Utils.getXWikiContext(componentManager);
+        String database = xcontext.getWikiId();
         List<String> spaces = parseSpaceSegments(spaceName);
         String spaceId = Utils.getLocalSpaceId(spaces);
 
         Pages pages = objectFactory.createPages();
 
         try {
-            Utils.getXWikiContext(componentManager).setWikiId(wikiName);
-
-            Query query = ("date".equals(order)) ? queryManager.createQuery(
-                    "select doc.name from Document doc where doc.space=:space and language='' order by doc.date desc",
-                    "xwql") : queryManager.getNamedQuery("getSpaceDocsName");
+            xcontext.setWikiId(wikiName);
 
-            /* Use an explicit query to improve performance */
-            List<String> pageNames =
-                    query.addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"))
-                        .bindValue("space", spaceId).setOffset(start).setLimit(number).execute();
+            /* Use an explicit query to improve performance (the parent is needed to filter the pages) */
+            String statement =
+                QUERY_PAGES + ("date".equals(order) ? " order by doc.date desc" : " order by doc.name asc");
+            List<Object[]> rows = queryManager.createQuery(statement, Query.XWQL)
+                .addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"))
+                .bindValue("space", spaceId).setOffset(start).setLimit(number).execute();
 
             Pattern parentFilter = null;
             if (parentFilterExpression != null) {
@@ -75,42 +104,69 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
                 }
             }
 
-            for (String pageName : pageNames) {
-                String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
+            /* We only add pages we have the right to access, check them all at once before loading any of them */
+            List<DocumentReference> references = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                references.add(new DocumentReference(wikiName, spaces, (String) row[0]));
+            }
+            BitSet viewable = this.authorization.getAllowed(Right.VIEW, references);
+
+            // The pages of a space often share the same parent
+            Map<DocumentReference, String> parentIds = new HashMap<>();
+
+            XWiki xwiki = xcontext.getWiki();
+            for (int i = viewable.nextSetBit(0); i >= 0; i = viewable.nextSetBit(i + 1)) {
+                DocumentReference reference = references.get(i);
+
+                // Filter the page before loading it
+                if (parentFilter != null && !parentFilter
+                    .matcher(getParentId((String) rows.get(i)[1], reference, parentIds, xcontext)).matches()) {
+                    continue;
+                }
 
-                if (!Utils.getXWikiApi(componentManager).exists(pageFullName)) {
-                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
-                        spaceId);
+                XWikiDocument document = xwiki.getDocument(reference, xcontext);
+
+                if (document.isNew()) {
+                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.",
+                        reference.getName(), spaceId);
                 } else {
-                    Document doc = Utils.getXWikiApi(componentManager).getDocument(pageFullName);
-
-                    /* We only add pages we have the right to access */
-                    if (doc != null) {
-                        boolean add = true;
-
-                        Document parent = Utils.getParentDocument(doc, Utils.getXWikiApi(componentManager));
-
-                        if (parentFilter != null) {
-                            String parentId = "";
-                            if (parent != null && !parent.isNew()) {
-                                parentId = parent.getPrefixedFullName();
-                            }
-                            add = parentFilter.matcher(parentId).matches();
-                        }
-
-                        if (add) {
-                            pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
-                                    uriInfo.getBaseUri(), doc, Utils.getXWikiApi(componentManager), withPrettyNames));
-                        }
-                    }
+                    pages.getPageSummaries().add(this.factory.toRestPageSummary(uriInfo.getBaseUri(),
+                        document.newDocument(xcontext), withPrettyNames));
                 }
             }
         } catch (Exception e) {
             throw new XWikiRestException(e);
         } finally {
-            Utils.getXWikiContext(componentManager).setWikiId(database);
+            xcontext.setWikiId(database);
         }
 
         return pages;
     }
+
+    /**
+     * @return the prefixed full name of the parent of the page if it exists and can be viewed, the empty string
+     *         otherwise
+     */
+    private String getParentId(String parent, DocumentReference reference, Map<DocumentReference, String> parentIds,
+        XWikiContext xcontext) throws XWikiException
+    {
+        if (StringUtils.isEmpty(parent)) {
+            return "";
+        }
+
+        DocumentReference parentReference = this.explicitResolver.resolve(parent, reference);
+
+        String parentId = parentIds.get(parentReference);
+        if (parentId == null) {
+            if (this.authorization.hasAccess(Right.VIEW, parentReference)
+                && xcontext.getWiki().exists(parentReference, xcontext)) {
+                parentId = this.serializer.serialize(parentReference);
+            } else {
+                parentId = "";
+            }
+            parentIds.put(parentReference, parentId);
+        }
+
+        return parentId;
+    }
 }
@@ -0,0 +1,309 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.pages;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.web.Utils;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.xwiki.security.authorization.Right.VIEW;
+
+/**
+ * Validate {@link PagesResourceImpl}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class PagesResourceImplTest
+{
+    private static final String QUERY_PAGES =
+        "select doc.name, doc.parent from Document doc where doc.space = :space and doc.language = ''";
+
+    private static final String WIKI = "wiki";
+
+    private static final String SPACE = "Space";
+
+    private static final URI BASE_URI = URI.create("/xwiki/rest");
+
+    @InjectMockComponents
+    private PagesResourceImpl pagesResource;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ModelFactory factory;
+
+    @MockComponent
+    @Named("explicit")
+    private DocumentReferenceResolver<String> explicitResolver;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @MockComponent
+    @Named("hidden")
+    private QueryFilter hiddenFilter;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    private XWikiContext xcontext;
+
+    private XWiki xwiki;
+
+    private Query query;
+
+    private final List<Object[]> rows = new ArrayList<>();
+
+    private final Set<DocumentReference> viewablePages = new HashSet<>();
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        this.xcontext = mock(XWikiContext.class);
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        this.componentManager.registerComponent(ComponentManager.class, "context", this.componentManager);
+    }
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        Utils.setComponentManager(this.componentManager);
+
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(BASE_URI);
+        ReflectionUtils.setFieldValue(this.pagesResource, "uriInfo", uriInfo);
+
+        this.xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+        when(this.localSerializer.serialize(any())).thenReturn(SPACE);
+
+        this.query = mock(Query.class, RETURNS_SELF);
+        when(this.queryManager.createQuery(any(), any())).thenReturn(this.query);
+        when(this.query.execute()).thenReturn(this.rows);
+
+        when(this.authorization.getAllowed(any(), anyList())).thenAnswer(invocation -> {
+            List<?> references = invocation.getArgument(1);
+            BitSet allowed = new BitSet();
+            for (int i = 0; i < references.size(); i++) {
+                if (this.viewablePages.contains(references.get(i))) {
+                    allowed.set(i);
+                }
+            }
+            return allowed;
+        });
+    }
+
+    private DocumentReference addPage(String name, String parent, boolean viewable) throws Exception
+    {
+        DocumentReference reference = new DocumentReference(WIKI, SPACE, name);
+        this.rows.add(new Object[] {name, parent});
+        if (viewable) {
+            this.viewablePages.add(reference);
+        }
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        Document apiDocument = mock(Document.class);
+        when(this.xwiki.getDocument(reference, this.xcontext)).thenReturn(document);
+        when(document.newDocument(this.xcontext)).thenReturn(apiDocument);
+
+        PageSummary summary = new PageSummary();
+        summary.setName(name);
+        when(this.factory.toRestPageSummary(BASE_URI, apiDocument, false)).thenReturn(summary);
+
+        return reference;
+    }
+
+    private DocumentReference addParent(String parent, DocumentReference childReference, boolean viewable,
+        boolean exists) throws Exception
+    {
+        DocumentReference parentReference = new DocumentReference(WIKI, SPACE, parent);
+        when(this.explicitResolver.resolve(parent, childReference)).thenReturn(parentReference);
+        when(this.authorization.hasAccess(VIEW, parentReference)).thenReturn(viewable);
+        when(this.xwiki.exists(parentReference, this.xcontext)).thenReturn(exists);
+        when(this.serializer.serialize(parentReference)).thenReturn(WIKI + ':' + SPACE + '.' + parent);
+
+        return parentReference;
+    }
+
+    private List<String> getPageNames(Pages pages)
+    {
+        return pages.getPageSummaries().stream().map(PageSummary::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void getPagesChecksViewRightInBulk() throws Exception
+    {
+        DocumentReference first = addPage("First", "", true);
+        DocumentReference hidden = addPage("Hidden", "", false);
+        DocumentReference last = addPage("Last", "", true);
+
+        Pages pages = this.pagesResource.getPages(WIKI, SPACE, 0, -1, null, null, false);
+
+        assertEquals(asList("First", "Last"), getPageNames(pages));
+        verify(this.authorization).getAllowed(VIEW, asList(first, hidden, last));
+        verify(this.authorization, never()).hasAccess(any(), any());
+        verify(this.xwiki, never()).getDocument(hidden, this.xcontext);
+        verify(this.query).addFilter(this.hiddenFilter);
+        verify(this.query).bindValue("space", SPACE);
+        verify(this.query).setOffset(0);
+        verify(this.query).setLimit(-1);
+        verify(this.xcontext).setWikiId(WIKI);
+    }
+
+    @Test
+    void getPagesWithoutParent() throws Exception
+    {
+        addPage("NoParent", "", true);
+        DocumentReference viewableParentChild = addPage("ViewableParentChild", "ViewableParent", true);
+        addParent("ViewableParent", viewableParentChild, true, true);
+        DocumentReference hiddenParentChild = addPage("HiddenParentChild", "HiddenParent", true);
+        DocumentReference hiddenParent = addParent("HiddenParent", hiddenParentChild, false, true);
+        DocumentReference missingParentChild = addPage("MissingParentChild", "MissingParent", true);
+        addParent("MissingParent", missingParentChild, true, false);
+
+        Pages pages = this.pagesResource.getPages(WIKI, SPACE, 0, -1, "null", null, false);
+
+        // Pages whose parent cannot be viewed or does not exist are reported as having no parent
+        assertEquals(asList("NoParent", "HiddenParentChild", "MissingParentChild"), getPageNames(pages));
+        verify(this.xwiki, never()).exists(hiddenParent, this.xcontext);
+        verify(this.xwiki, never()).getDocument(viewableParentChild, this.xcontext);
+    }
+
+    @Test
+    void getPagesWithParent() throws Exception
+    {
+        DocumentReference firstChild = addPage("FirstChild", "Parent", true);
+        DocumentReference parent = addParent("Parent", firstChild, true, true);
+        DocumentReference secondChild = addPage("SecondChild", "Parent", true);
+        addParent("Parent", secondChild, true, true);
+        DocumentReference otherChild = addPage("OtherChild", "Other", true);
+        addParent("Other", otherChild, true, true);
+        addPage("NoParent", "", true);
+
+        Pages pages = this.pagesResource.getPages(WIKI, SPACE, 0, -1, "wiki:Space\\.Parent", null, false);
+
+        assertEquals(asList("FirstChild", "SecondChild"), getPageNames(pages));
+        // The parent is resolved relatively to the page holding the reference
+        verify(this.explicitResolver).resolve("Parent", firstChild);
+        verify(this.explicitResolver).resolve("Parent", secondChild);
+        // The checks of a parent shared by several pages are done only once
+        verify(this.authorization, times(1)).hasAccess(VIEW, parent);
+        verify(this.xwiki, times(1)).exists(parent, this.xcontext);
+        verify(this.xwiki, never()).getDocument(otherChild, this.xcontext);
+    }
+
+    @Test
+    void getPagesSkipsNewDocuments() throws Exception
+    {
+        addPage("Existing", "", true);
+        DocumentReference missing = addPage("Missing", "", true);
+        when(this.xwiki.getDocument(missing, this.xcontext).isNew()).thenReturn(true);
+
+        Pages pages = this.pagesResource.getPages(WIKI, SPACE, 0, -1, null, null, false);
+
+        assertEquals(asList("Existing"), getPageNames(pages));
+    }
+
+    @Test
+    void getPagesOrderedByName() throws Exception
+    {
+        addPage("A", "", true);
+        addPage("B", "", true);
+        addPage("C", "", true);
+
+        Pages pages = this.pagesResource.getPages(WIKI, SPACE, 10, 3, null, null, false);
+
+        assertEquals(asList("A", "B", "C"), getPageNames(pages));
+        verify(this.queryManager).createQuery(QUERY_PAGES + " order by doc.name asc", Query.XWQL);
+        verify(this.query).setOffset(10);
+        verify(this.query).setLimit(3);
+    }
+
+    @Test
+    void getPagesOrderedByDate() throws Exception
+    {
+        // The query returns the most recent pages first and that order must be kept
+        addPage("Recent", "", true);
+        addPage("Hidden", "", false);
+        addPage("Old", "", true);
+
+        Pages pages = this.pagesResource.getPages(WIKI, SPACE, 0, -1, null, "date", false);
+
+        assertEquals(asList("Recent", "Old"), getPageNames(pages));
+        verify(this.queryManager).createQuery(QUERY_PAGES + " order by doc.date desc", Query.XWQL);
+    }
+}
@@ -124,6 +124,77 @@ public class DefaultSolrConfiguration implements SolrConfiguration
      */
     public static final int SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT = 100000;
 
+    /**
+     * The name of the configuration property containing the number of threads extracting the metadata to index.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final String SOLR_INDEXER_THREADS_PROPERTY = "solr.indexer.threads";
+
+    /**
+     * The default number of threads extracting the metadata to index.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final int SOLR_INDEXER_THREADS_DEFAULT = 1;
+
+    /**
+     * The name of the configuration property containing the maximum size of the attachments to extract the text from.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final String SOLR_ATTACHMENT_MAXBYTES_PROPERTY = "solr.attachment.maxBytes";
+
+    /**
+     * The default maximum size of the attachments to extract the text from.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final long SOLR_ATTACHMENT_MAXBYTES_DEFAULT = 100L * 1024 * 1024;
+
+    /**
+     * The name of the configuration property containing the maximum number of characters extracted from an
+     * attachment.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final String SOLR_ATTACHMENT_MAXCHARACTERS_PROPERTY = "solr.attachment.maxCharacters";
+
+    /**
+     * The default maximum number of characters extracted from an attachment.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final int SOLR_ATTACHMENT_MAXCHARACTERS_DEFAULT = 100 * 1024;
+
+    /**
+     * The name of the configuration property containing the maximum time spent extracting the text of an attachment.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final String SOLR_ATTACHMENT_TIMEOUT_PROPERTY = "solr.attachment.timeout";
+
+    /**
+     * The default maximum time (in seconds) spent extracting the text of an attachment.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final long SOLR_ATTACHMENT_TIMEOUT_DEFAULT = 120;
+
+    /**
+     * The name of the configuration property indicating if the text extracted from the attachments is stored on disk.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final String SOLR_ATTACHMENT_CACHE_PROPERTY = "solr.attachment.cache";
+
+    /**
+     * The default value indicating if the text extracted from the attachments is stored on disk.
+     *
+     * @since 16.8.0RC1
+     */
+    public static final boolean SOLR_ATTACHMENT_CACHE_DEFAULT = true;
+
     /**
      * The name of the configuration property indicating if a synchronization should be run at startup.
      */
@@ -200,6 +271,37 @@ public int getIndexerQueueCapacity()
             SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public int getIndexerThreads()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_THREADS_PROPERTY, SOLR_INDEXER_THREADS_DEFAULT);
+    }
+
+    @Override
+    public long getAttachmentMaxBytes()
+    {
+        return this.configuration.getProperty(SOLR_ATTACHMENT_MAXBYTES_PROPERTY, SOLR_ATTACHMENT_MAXBYTES_DEFAULT);
+    }
+
+    @Override
+    public int getAttachmentMaxCharacters()
+    {
+        return this.configuration.getProperty(SOLR_ATTACHMENT_MAXCHARACTERS_PROPERTY,
+            SOLR_ATTACHMENT_MAXCHARACTERS_DEFAULT);
+    }
+
+    @Override
+    public long getAttachmentExtractionTimeout()
+    {
+        return this.configuration.getProperty(SOLR_ATTACHMENT_TIMEOUT_PROPERTY, SOLR_ATTACHMENT_TIMEOUT_DEFAULT);
+    }
+
+    @Override
+    public boolean isAttachmentTextCacheEnabled()
+    {
+        return this.configuration.getProperty(SOLR_ATTACHMENT_CACHE_PROPERTY, SOLR_ATTACHMENT_CACHE_DEFAULT);
+    }
+
     @Override
     public boolean synchronizeAtStartup()
     {
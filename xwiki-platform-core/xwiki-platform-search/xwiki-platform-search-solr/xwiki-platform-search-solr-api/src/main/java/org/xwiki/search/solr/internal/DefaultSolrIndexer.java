@@ -19,14 +19,17 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
 import org.xwiki.bridge.internal.DocumentContextExecutor;
@@ -44,6 +47,7 @@
 import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.api.IndexingUserConfig;
@@ -52,6 +56,7 @@
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.api.SolrInstance;
 import org.xwiki.search.solr.internal.job.IndexerJob;
+import org.xwiki.search.solr.internal.jmx.JMXSolrIndexer;
 import org.xwiki.search.solr.internal.job.IndexerRequest;
 import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
 import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
@@ -66,7 +71,9 @@
  * <p>
  * This implementation does not directly process the given leaf-references, but adds them to a processing queue, in the
  * order they were received. The {@link Runnable} part of this implementation is the one that sequentially reads and
- * processes the queue.
+ * processes the queue. When several indexer threads are configured, the extraction of the metadata to index is
+ * delegated to a {@link SolrDocumentExtractionPool} while sending and committing the batches is still done by the
+ * {@link Runnable} part.
  * 
  * @version $Id$
  * @since 5.1M2
@@ -250,6 +257,8 @@ public void runInternal()
     private static final IndexQueueEntry INDEX_QUEUE_ENTRY_STOP =
         new IndexQueueEntry((String) null, IndexOperation.STOP);
 
+    private static final String MBEAN_NAME = "type=Solr,name=indexer";
+
     /**
      * Logging framework.
      */
@@ -301,6 +310,9 @@ public void runInternal()
     @Inject
     private Provider<XWikiContext> xWikiContextProvider;
 
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     /**
      * The queue of index operation to perform.
      */
@@ -331,6 +343,26 @@ public void runInternal()
      */
     private volatile int batchSize;
 
+    /**
+     * The length of the not yet sent batch. Only accessed by the index thread.
+     */
+    private int batchLength;
+
+    /**
+     * The threads extracting the documents to index, {@code null} when the extraction is done by the index thread.
+     */
+    private SolrDocumentExtractionPool extractionPool;
+
+    private final LongAdder extractedCount = new LongAdder();
+
+    private final LongAdder failedExtractionCount = new LongAdder();
+
+    private final LongAdder extractionTime = new LongAdder();
+
+    private final LongAdder indexedCount = new LongAdder();
+
+    private final LongAdder commitCount = new LongAdder();
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -338,6 +370,12 @@ public void initialize() throws InitializationException
         this.resolveQueue = new LinkedBlockingQueue<>();
         this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
 
+        // Extract the documents to index in dedicated threads if asked to
+        int extractionThreads = this.configuration.getIndexerThreads();
+        if (extractionThreads > 1) {
+            this.extractionPool = new SolrDocumentExtractionPool(extractionThreads);
+        }
+
         // Launch the resolve thread
         this.resolveThread = new Thread(new Resolver());
         this.resolveThread.setName("XWiki Solr resolve thread");
@@ -351,6 +389,8 @@ public void initialize() throws InitializationException
         this.indexThread.setDaemon(true);
         this.indexThread.start();
         this.indexThread.setPriority(Thread.NORM_PRIORITY - 1);
+
+        this.jmxRegistration.registerMBean(new JMXSolrIndexer(this), MBEAN_NAME);
     }
 
     @Override
@@ -370,6 +410,8 @@ public void dispose() throws ComponentLifecycleException
         // the index queue was full) and just one entry will be added to the queue before the special stop entry.
         this.indexQueue.clear();
         this.indexQueue.offer(INDEX_QUEUE_ENTRY_STOP);
+
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
     }
 
     @Override
@@ -395,6 +437,10 @@ public void run()
             }
         }
 
+        if (this.extractionPool != null) {
+            this.extractionPool.shutdown();
+        }
+
         this.logger.debug("Stop SOLR indexer thread");
     }
 
@@ -407,59 +453,189 @@ public void run()
      */
     private boolean processBatch(IndexQueueEntry queueEntry)
     {
-        int length = 0;
-
         for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.indexQueue.poll()) {
             if (batchEntry == INDEX_QUEUE_ENTRY_STOP) {
                 // Discard the current batch and stop the indexing thread.
                 return false;
             }
 
-            IndexOperation operation = batchEntry.operation;
+            try {
+                if (this.extractionPool != null) {
+                    processEntryInParallel(batchEntry);
+                } else {
+                    processEntry(batchEntry);
+                }
+            } catch (InterruptedException e) {
+                this.logger.warn("The SOLR index thread has been interrupted", e);
+
+                Thread.currentThread().interrupt();
 
-            // For the current contiguous operations queue, group the changes
+                return false;
+            }
+        }
+
+        // Wait for the extractions still in progress
+        if (this.extractionPool != null) {
             try {
-                ExecutionContext executionContext = new ExecutionContext();
-                this.ecim.initialize(executionContext);
-                XWikiContext xcontext = (XWikiContext) executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
-                xcontext.setUserReference(indexingUserConfig.getIndexingUserReference());
-
-                if (IndexOperation.INDEX.equals(operation)) {
-                    LengthSolrInputDocument solrDocument = getSolrDocument(batchEntry.reference);
-                    if (solrDocument != null) {
-                        solrInstance.add(solrDocument);
-                        length += solrDocument.getLength();
-                        ++this.batchSize;
-                    }
-                } else if (IndexOperation.DELETE.equals(operation)) {
-                    if (batchEntry.reference == null) {
-                        solrInstance.deleteByQuery(batchEntry.deleteQuery);
-                    } else {
-                        solrInstance.delete(this.solrRefereceResolver.getId(batchEntry.reference));
-                    }
+                while (!this.extractionPool.isEmpty()) {
+                    add(this.extractionPool.take());
+                }
+            } catch (InterruptedException e) {
+                this.logger.warn("The SOLR index thread has been interrupted", e);
 
-                    ++this.batchSize;
+                Thread.currentThread().interrupt();
+
+                return false;
+            }
+        }
+
+        // Commit what's left
+        if (this.batchSize > 0) {
+            commit();
+        }
+
+        return true;
+    }
+
+    private void processEntry(IndexQueueEntry batchEntry)
+    {
+        IndexOperation operation = batchEntry.operation;
+
+        // For the current contiguous operations queue, group the changes
+        try {
+            if (IndexOperation.INDEX.equals(operation)) {
+                add(extractSolrDocument(batchEntry.reference));
+            } else if (IndexOperation.DELETE.equals(operation)) {
+                delete(batchEntry);
+            }
+        } catch (Throwable e) {
+            this.logger.error("Failed to process entry [{}]", batchEntry, e);
+        }
+    }
+
+    private void processEntryInParallel(IndexQueueEntry batchEntry) throws InterruptedException
+    {
+        if (IndexOperation.INDEX.equals(batchEntry.operation)) {
+            // Don't accumulate too many extracted documents in memory
+            while (this.extractionPool.isFull()) {
+                add(this.extractionPool.take());
+            }
+
+            this.extractionPool.submit(batchEntry.reference, this::extractSolrDocument);
+        } else if (IndexOperation.DELETE.equals(batchEntry.operation)) {
+            // Make sure the deletion is applied after the indexing of the same entities
+            if (batchEntry.reference == null) {
+                while (!this.extractionPool.isEmpty()) {
+                    add(this.extractionPool.take());
+                }
+            } else {
+                while (this.extractionPool.isPending(batchEntry.reference)) {
+                    add(this.extractionPool.take());
                 }
+            }
+
+            try {
+                delete(batchEntry);
             } catch (Throwable e) {
                 this.logger.error("Failed to process entry [{}]", batchEntry, e);
-            } finally {
-                this.execution.removeContext();
             }
+        }
+
+        // Send the documents extracted in the meantime
+        for (SolrDocumentExtractionPool.Result result = this.extractionPool.poll(); result != null;
+            result = this.extractionPool.poll()) {
+            add(result);
+        }
+    }
 
-            // Commit the index changes so that they become available to queries. This is a costly operation and that is
-            // the reason why we perform it at the end of the batch.
-            if (shouldCommit(length, this.batchSize)) {
-                commit();
-                length = 0;
+    private void add(SolrDocumentExtractionPool.Result result)
+    {
+        if (result.getError() != null) {
+            this.logger.error("Failed to process entry [INDEX {}]", result.getReference(), result.getError());
+        } else if (!result.isObsolete()) {
+            try {
+                add(result.getDocument());
+            } catch (Throwable e) {
+                this.logger.error("Failed to process entry [INDEX {}]", result.getReference(), e);
             }
         }
+    }
 
-        // Commit what's left
-        if (this.batchSize > 0) {
+    private void add(LengthSolrInputDocument solrDocument) throws SolrServerException, IOException
+    {
+        if (solrDocument != null) {
+            this.solrInstance.add(solrDocument);
+            this.batchLength += solrDocument.getLength();
+            ++this.batchSize;
+            this.indexedCount.increment();
+
+            commitIfNeeded();
+        }
+    }
+
+    private void delete(IndexQueueEntry batchEntry) throws Exception
+    {
+        try {
+            initializeExecutionContext();
+
+            if (batchEntry.reference == null) {
+                this.solrInstance.deleteByQuery(batchEntry.deleteQuery);
+            } else {
+                this.solrInstance.delete(this.solrRefereceResolver.getId(batchEntry.reference));
+            }
+        } finally {
+            this.execution.removeContext();
+        }
+
+        ++this.batchSize;
+
+        commitIfNeeded();
+    }
+
+    private void commitIfNeeded()
+    {
+        // Commit the index changes so that they become available to queries. This is a costly operation and that is
+        // the reason why we perform it at the end of the batch.
+        if (shouldCommit(this.batchLength, this.batchSize)) {
             commit();
         }
+    }
 
-        return true;
+    private void initializeExecutionContext() throws ExecutionContextException
+    {
+        ExecutionContext executionContext = new ExecutionContext();
+        this.ecim.initialize(executionContext);
+        XWikiContext xcontext = (XWikiContext) executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
+        xcontext.setUserReference(this.indexingUserConfig.getIndexingUserReference());
+    }
+
+    /**
+     * Extract the metadata of the passed entity in a dedicated execution context.
+     *
+     * @param reference the reference to extract metadata from
+     * @return the extracted metadata or {@code null} if the reference type is not supported
+     * @throws Exception when failing to extract the metadata
+     */
+    private LengthSolrInputDocument extractSolrDocument(EntityReference reference) throws Exception
+    {
+        long start = System.nanoTime();
+        try {
+            initializeExecutionContext();
+
+            LengthSolrInputDocument solrDocument = getSolrDocument(reference);
+
+            this.extractedCount.increment();
+
+            return solrDocument;
+        } catch (Exception e) {
+            this.failedExtractionCount.increment();
+
+            throw e;
+        } finally {
+            this.execution.removeContext();
+
+            this.extractionTime.add(System.nanoTime() - start);
+        }
     }
 
     /**
@@ -481,6 +657,8 @@ private void commit()
         }
 
         this.batchSize = 0;
+        this.batchLength = 0;
+        this.commitCount.increment();
     }
 
     /**
@@ -585,7 +763,88 @@ private void addToQueue(EntityReference reference, boolean recurse, IndexOperati
     @Override
     public int getQueueSize()
     {
-        return this.indexQueue.size() + this.resolveQueue.size() + this.batchSize;
+        return this.indexQueue.size() + this.resolveQueue.size() + getExtractionQueueSize() + this.batchSize;
+    }
+
+    /**
+     * @return the number of references waiting to be resolved
+     * @since 16.8.0RC1
+     */
+    public int getResolveQueueSize()
+    {
+        return this.resolveQueue.size();
+    }
+
+    /**
+     * @return the number of resolved entities waiting to be indexed or deleted
+     * @since 16.8.0RC1
+     */
+    public int getIndexQueueSize()
+    {
+        return this.indexQueue.size();
+    }
+
+    /**
+     * @return the number of entities being extracted or waiting for their extraction to be sent to the Solr server
+     * @since 16.8.0RC1
+     */
+    public int getExtractionQueueSize()
+    {
+        return this.extractionPool != null ? this.extractionPool.getPendingCount() : 0;
+    }
+
+    /**
+     * @return the number of threads extracting the entities to index
+     * @since 16.8.0RC1
+     */
+    public int getExtractionThreads()
+    {
+        return this.extractionPool != null ? this.extractionPool.getThreads() : 1;
+    }
+
+    /**
+     * @return the total number of successfully extracted entities
+     * @since 16.8.0RC1
+     */
+    public long getExtractedCount()
+    {
+        return this.extractedCount.sum();
+    }
+
+    /**
+     * @return the total number of entities which could not be extracted
+     * @since 16.8.0RC1
+     */
+    public long getFailedExtractionCount()
+    {
+        return this.failedExtractionCount.sum();
+    }
+
+    /**
+     * @return the total time spent extracting entities, including the failed extractions, in nanoseconds
+     * @since 16.8.0RC1
+     */
+    public long getExtractionTime()
+    {
+        return this.extractionTime.sum();
+    }
+
+    /**
+     * @return the total number of documents sent to the Solr server
+     * @since 16.8.0RC1
+     */
+    public long getIndexedCount()
+    {
+        return this.indexedCount.sum();
+    }
+
+    /**
+     * @return the total number of commits
+     * @since 16.8.0RC1
+     */
+    public long getCommitCount()
+    {
+        return this.commitCount.sum();
     }
 
     @Override
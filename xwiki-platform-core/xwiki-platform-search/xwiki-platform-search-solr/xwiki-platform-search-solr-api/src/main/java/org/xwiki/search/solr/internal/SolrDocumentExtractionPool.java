@@ -0,0 +1,284 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+
+/**
+ * Extract in parallel the Solr documents to index.
+ * <p>
+ * The pool is fed and consumed by a single thread (the indexer thread) which is in charge of sending the extracted
+ * documents to the Solr server and committing them. The order of the operations is only guaranteed per entity
+ * reference: when a reference is submitted again before the previous extraction of the same reference was consumed,
+ * the previous extraction is marked as obsolete.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class SolrDocumentExtractionPool
+{
+    /**
+     * Extract the Solr document of an entity.
+     *
+     * @version $Id$
+     */
+    @FunctionalInterface
+    public interface Extractor
+    {
+        /**
+         * @param reference the reference of the entity to index
+         * @return the extracted document or {@code null} if the entity cannot be indexed
+         * @throws Exception when failing to extract the document
+         */
+        LengthSolrInputDocument extract(EntityReference reference) throws Exception;
+    }
+
+    /**
+     * The result of an extraction.
+     *
+     * @version $Id$
+     */
+    public static final class Result
+    {
+        private final EntityReference reference;
+
+        private final long sequence;
+
+        private final LengthSolrInputDocument document;
+
+        private final Throwable error;
+
+        private boolean obsolete;
+
+        private Result(EntityReference reference, long sequence, LengthSolrInputDocument document, Throwable error)
+        {
+            this.reference = reference;
+            this.sequence = sequence;
+            this.document = document;
+            this.error = error;
+        }
+
+        /**
+         * @return the reference of the extracted entity
+         */
+        public EntityReference getReference()
+        {
+            return this.reference;
+        }
+
+        /**
+         * @return the extracted document or {@code null} if the entity cannot be indexed or the extraction failed
+         */
+        public LengthSolrInputDocument getDocument()
+        {
+            return this.document;
+        }
+
+        /**
+         * @return the error which made the extraction fail, {@code null} if it succeeded
+         */
+        public Throwable getError()
+        {
+            return this.error;
+        }
+
+        /**
+         * @return true if a more recent extraction of the same entity was submitted after this one
+         */
+        public boolean isObsolete()
+        {
+            return this.obsolete;
+        }
+    }
+
+    private final int threads;
+
+    private final ExecutorService executor;
+
+    private final CompletionService<Result> completionService;
+
+    /**
+     * The sequence of the most recent extraction submitted for each reference. Only accessed by the indexer thread.
+     */
+    private final Map<EntityReference, Long> latest = new HashMap<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private long sequence;
+
+    /**
+     * @param threads the number of threads extracting the documents
+     */
+    public SolrDocumentExtractionPool(int threads)
+    {
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("XWiki Solr extraction thread %d").daemon(true)
+                .priority(Thread.NORM_PRIORITY - 1).build());
+        this.completionService = new ExecutorCompletionService<>(this.executor);
+    }
+
+    /**
+     * @return true if enough extractions are already in progress and the caller should consume some results before
+     *         submitting new ones
+     */
+    public boolean isFull()
+    {
+        // Allow each thread to have one extraction waiting in the executor queue
+        return this.pending.get() >= this.threads * 2;
+    }
+
+    /**
+     * @return true if there is no extraction left to consume
+     */
+    public boolean isEmpty()
+    {
+        return this.pending.get() == 0;
+    }
+
+    /**
+     * @param reference the reference of an entity
+     * @return true if an extraction of the passed entity was submitted and not yet consumed
+     */
+    public boolean isPending(EntityReference reference)
+    {
+        return this.latest.containsKey(reference);
+    }
+
+    /**
+     * Start extracting the document of the passed entity in a background thread.
+     *
+     * @param reference the reference of the entity to index
+     * @param extractor the extractor to use
+     */
+    public void submit(EntityReference reference, Extractor extractor)
+    {
+        long currentSequence = ++this.sequence;
+        this.latest.put(reference, currentSequence);
+
+        this.pending.incrementAndGet();
+        this.completionService.submit(() -> extract(reference, currentSequence, extractor));
+    }
+
+    private Result extract(EntityReference reference, long currentSequence, Extractor extractor)
+    {
+        this.running.incrementAndGet();
+        try {
+            return new Result(reference, currentSequence, extractor.extract(reference), null);
+        } catch (Throwable e) {
+            // Make sure the indexer thread is always notified about the end of the extraction
+            return new Result(reference, currentSequence, null, e);
+        } finally {
+            this.running.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the next finished extraction or {@code null} if none is finished yet
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public Result poll() throws InterruptedException
+    {
+        return consume(this.completionService.poll());
+    }
+
+    /**
+     * Wait for the next extraction to finish.
+     *
+     * @return the next finished extraction
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public Result take() throws InterruptedException
+    {
+        return consume(this.completionService.take());
+    }
+
+    private Result consume(Future<Result> future) throws InterruptedException
+    {
+        if (future == null) {
+            return null;
+        }
+
+        this.pending.decrementAndGet();
+
+        Result result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            // Should never happen since extract() does not throw any exception
+            throw new IllegalStateException("Unexpected extraction failure", e);
+        }
+
+        Long latestSequence = this.latest.get(result.reference);
+        if (latestSequence != null && latestSequence == result.sequence) {
+            this.latest.remove(result.reference);
+        } else {
+            result.obsolete = true;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of extractions submitted and not yet consumed
+     */
+    public int getPendingCount()
+    {
+        return this.pending.get();
+    }
+
+    /**
+     * @return the number of extractions currently running
+     */
+    public int getRunningCount()
+    {
+        return this.running.get();
+    }
+
+    /**
+     * @return the number of threads extracting the documents
+     */
+    public int getThreads()
+    {
+        return this.threads;
+    }
+
+    /**
+     * Stop the extraction threads, without waiting for the extractions in progress.
+     */
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+}
@@ -41,6 +41,7 @@
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.event.Event;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.metadata.AttachmentTextExtractor;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -92,6 +93,9 @@ public class SolrIndexEventListener implements EventListener
     @Inject
     private Provider<SolrIndexer> solrIndexer;
 
+    @Inject
+    private Provider<AttachmentTextExtractor> attachmentTextExtractor;
+
     @Override
     public List<Event> getEvents()
     {
@@ -155,6 +159,7 @@ public void onEvent(Event event, Object source, Object data)
                 XWikiAttachment attachment = document.getAttachment(fileName);
 
                 this.solrIndexer.get().delete(attachment.getReference(), false);
+                this.attachmentTextExtractor.get().deleteCache(attachment);
             } else if (event instanceof XObjectUpdatedEvent || event instanceof XObjectAddedEvent) {
                 EntityEvent entityEvent = (EntityEvent) event;
 
@@ -176,6 +181,7 @@ public void onEvent(Event event, Object source, Object data)
                 WikiReference wikiReference = new WikiReference(wikiName);
 
                 this.solrIndexer.get().delete(wikiReference, false);
+                this.attachmentTextExtractor.get().deleteCache(wikiReference);
             } else if (event instanceof GeneralMailConfigurationUpdatedEvent) {
                 // Refresh the index when the mail configuration is changed because the mail configuration is used to
                 // decide if emails shall be indexed or not.
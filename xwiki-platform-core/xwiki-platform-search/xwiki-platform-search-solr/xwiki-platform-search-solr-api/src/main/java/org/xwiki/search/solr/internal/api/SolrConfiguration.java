@@ -98,6 +98,54 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the number of threads extracting in parallel the metadata of the entities to index
+     * @since 16.8.0RC1
+     */
+    default int getIndexerThreads()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the maximum size (in bytes) of the attachments whose content is extracted and indexed, 0 or less for no
+     *         limit
+     * @since 16.8.0RC1
+     */
+    default long getAttachmentMaxBytes()
+    {
+        return -1;
+    }
+
+    /**
+     * @return the maximum number of characters extracted from the content of an attachment, 0 or less for no limit
+     * @since 16.8.0RC1
+     */
+    default int getAttachmentMaxCharacters()
+    {
+        // Same as the default limit of Tika
+        return 100 * 1024;
+    }
+
+    /**
+     * @return the maximum time (in seconds) spent extracting the text of an attachment, 0 or less for no limit
+     * @since 16.8.0RC1
+     */
+    default long getAttachmentExtractionTimeout()
+    {
+        return -1;
+    }
+
+    /**
+     * @return true if the text extracted from the attachments should be stored on disk to not parse again the same
+     *         attachment version when it's indexed again
+     * @since 16.8.0RC1
+     */
+    default boolean isAttachmentTextCacheEnabled()
+    {
+        return false;
+    }
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
@@ -0,0 +1,77 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.xwiki.search.solr.internal.metadata.AttachmentTextExtractor;
+
+/**
+ * Implementation of the JMXAttachmentTextExtractor MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class JMXAttachmentTextExtractor implements JMXAttachmentTextExtractorMBean
+{
+    private final AttachmentTextExtractor extractor;
+
+    /**
+     * @param extractor the extractor to monitor
+     */
+    public JMXAttachmentTextExtractor(AttachmentTextExtractor extractor)
+    {
+        this.extractor = extractor;
+    }
+
+    @Override
+    public Map<String, String> getMediaTypeStatistics()
+    {
+        Map<String, String> statistics = new LinkedHashMap<>();
+        this.extractor.getStatistics().forEach((mediaType, value) -> statistics.put(mediaType, value.toString()));
+
+        return statistics;
+    }
+
+    @Override
+    public long getCacheHits()
+    {
+        return this.extractor.getCacheHits();
+    }
+
+    @Override
+    public long getSkippedCount()
+    {
+        return this.extractor.getSkippedCount();
+    }
+
+    @Override
+    public long getBudgetExceededCount()
+    {
+        return this.extractor.getBudgetExceededCount();
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        this.extractor.resetStatistics();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import java.util.Map;
+
+/**
+ * Interface of the {@link JMXAttachmentTextExtractor} MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public interface JMXAttachmentTextExtractorMBean
+{
+    /**
+     * @return the extraction cost of each media type
+     */
+    Map<String, String> getMediaTypeStatistics();
+
+    /**
+     * @return the number of attachments which text was found in the disk cache
+     */
+    long getCacheHits();
+
+    /**
+     * @return the number of attachments which were not parsed because they were too big
+     */
+    long getSkippedCount();
+
+    /**
+     * @return the number of attachments for which the extraction was stopped because it exceeded the configured budget
+     */
+    long getBudgetExceededCount();
+
+    /**
+     * Reset the extraction statistics.
+     */
+    void resetStatistics();
+}
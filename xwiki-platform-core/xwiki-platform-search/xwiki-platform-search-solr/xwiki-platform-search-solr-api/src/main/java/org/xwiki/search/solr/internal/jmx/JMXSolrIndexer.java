@@ -0,0 +1,98 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import org.xwiki.search.solr.internal.DefaultSolrIndexer;
+
+/**
+ * Implementation of the JMXSolrIndexer MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public class JMXSolrIndexer implements JMXSolrIndexerMBean
+{
+    private final DefaultSolrIndexer indexer;
+
+    /**
+     * @param indexer the indexer to monitor
+     */
+    public JMXSolrIndexer(DefaultSolrIndexer indexer)
+    {
+        this.indexer = indexer;
+    }
+
+    @Override
+    public long getResolveQueueSize()
+    {
+        return this.indexer.getResolveQueueSize();
+    }
+
+    @Override
+    public long getIndexQueueSize()
+    {
+        return this.indexer.getIndexQueueSize();
+    }
+
+    @Override
+    public long getExtractionQueueSize()
+    {
+        return this.indexer.getExtractionQueueSize();
+    }
+
+    @Override
+    public int getExtractionThreads()
+    {
+        return this.indexer.getExtractionThreads();
+    }
+
+    @Override
+    public long getExtractedCount()
+    {
+        return this.indexer.getExtractedCount();
+    }
+
+    @Override
+    public long getFailedExtractionCount()
+    {
+        return this.indexer.getFailedExtractionCount();
+    }
+
+    @Override
+    public long getAverageExtractionTime()
+    {
+        // The extraction time includes the failed extractions
+        long count = getExtractedCount() + getFailedExtractionCount();
+
+        return count > 0 ? this.indexer.getExtractionTime() / count / 1000000 : 0;
+    }
+
+    @Override
+    public long getIndexedCount()
+    {
+        return this.indexer.getIndexedCount();
+    }
+
+    @Override
+    public long getCommitCount()
+    {
+        return this.indexer.getCommitCount();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+/**
+ * Interface of the {@link JMXSolrIndexer} MBean.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+public interface JMXSolrIndexerMBean
+{
+    /**
+     * @return the number of references waiting to be resolved
+     */
+    long getResolveQueueSize();
+
+    /**
+     * @return the number of resolved entities waiting to be indexed or deleted
+     */
+    long getIndexQueueSize();
+
+    /**
+     * @return the number of entities being extracted or waiting for the indexer thread to consume their extraction
+     */
+    long getExtractionQueueSize();
+
+    /**
+     * @return the number of extraction threads
+     */
+    int getExtractionThreads();
+
+    /**
+     * @return the total number of successfully extracted entities
+     */
+    long getExtractedCount();
+
+    /**
+     * @return the total number of entities which could not be extracted
+     */
+    long getFailedExtractionCount();
+
+    /**
+     * @return the average time it took to extract an entity, in milliseconds
+     */
+    long getAverageExtractionTime();
+
+    /**
+     * @return the total number of documents sent to the Solr server
+     */
+    long getIndexedCount();
+
+    /**
+     * @return the total number of commits
+     */
+    long getCommitCount();
+}
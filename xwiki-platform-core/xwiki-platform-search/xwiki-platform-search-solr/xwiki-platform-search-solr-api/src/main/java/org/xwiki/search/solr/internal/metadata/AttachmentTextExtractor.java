@@ -0,0 +1,577 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.slf4j.Logger;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.environment.Environment;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.jmx.JMXAttachmentTextExtractor;
+import org.xwiki.tika.internal.TikaUtils;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+/**
+ * Extract the text to index from the content of the attachments, within the size and time budgets defined in the
+ * configuration.
+ * <p>
+ * The extracted text is optionally stored on disk (one file per attachment, named after the attachment version) so
+ * that re-indexing an attachment which did not change (e.g. when the whole index is rebuilt) does not require parsing
+ * its content again.
+ *
+ * @version $Id$
+ * @since 16.8.0RC1
+ */
+@Component(roles = AttachmentTextExtractor.class)
+@Singleton
+public class AttachmentTextExtractor implements Initializable, Disposable
+{
+    private static final String MBEAN_NAME = "type=Solr,name=attachments";
+
+    private static final String CACHE_DIRECTORY = "cache/solr/attachments";
+
+    private static final String CACHE_EXTENSION = ".txt";
+
+    private static final String UNKNOWN_MEDIA_TYPE = "unknown";
+
+    /**
+     * The cost of extracting the text of the attachments having a given media type.
+     *
+     * @version $Id$
+     */
+    public static final class MediaTypeStatistics
+    {
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final LongAdder time = new LongAdder();
+
+        private final AtomicLong maxTime = new AtomicLong();
+
+        private void extracted(long readBytes, long nanos, boolean failed)
+        {
+            this.count.increment();
+            if (failed) {
+                this.failures.increment();
+            }
+            this.bytes.add(readBytes);
+            this.time.add(nanos);
+            this.maxTime.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * @return the number of attachments parsed
+         */
+        public long getCount()
+        {
+            return this.count.sum();
+        }
+
+        /**
+         * @return the number of attachments which could not be parsed or which exceeded the configured budget
+         */
+        public long getFailures()
+        {
+            return this.failures.sum();
+        }
+
+        /**
+         * @return the number of bytes read from the attachments
+         */
+        public long getBytes()
+        {
+            return this.bytes.sum();
+        }
+
+        /**
+         * @return the total time spent parsing the attachments, in nanoseconds
+         */
+        public long getTime()
+        {
+            return this.time.sum();
+        }
+
+        /**
+         * @return the longest time spent parsing an attachment, in nanoseconds
+         */
+        public long getMaxTime()
+        {
+            return this.maxTime.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            long parsed = getCount();
+
+            return String.format("count=%d, failures=%d, bytes=%d, averageTime=%dms, maxTime=%dms", parsed,
+                getFailures(), getBytes(), parsed > 0 ? TimeUnit.NANOSECONDS.toMillis(getTime() / parsed) : 0,
+                TimeUnit.NANOSECONDS.toMillis(getMaxTime()));
+        }
+    }
+
+    /**
+     * Thrown when the extraction of the text of an attachment exceeds the configured budget.
+     *
+     * @version $Id$
+     */
+    private static final class BudgetExceededException extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException(String message)
+        {
+            super(message);
+        }
+    }
+
+    /**
+     * Count the bytes read by the parser and stop the parsing as soon as the parser tries to read after the configured
+     * deadline.
+     *
+     * @version $Id$
+     */
+    private static final class BudgetInputStream extends FilterInputStream
+    {
+        private final long deadline;
+
+        private long count;
+
+        BudgetInputStream(InputStream in, long deadline)
+        {
+            super(in);
+
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            checkBudget();
+
+            int b = super.read();
+            if (b >= 0) {
+                this.count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            checkBudget();
+
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                this.count += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            checkBudget();
+
+            long skipped = super.skip(n);
+            this.count += skipped;
+
+            return skipped;
+        }
+
+        private void checkBudget() throws BudgetExceededException
+        {
+            checkDeadline(this.deadline);
+        }
+    }
+
+    /**
+     * Stop the parsing as soon as the parser produces text after the configured deadline. Contrary to the reading of
+     * the content, this also covers the parsers which read the whole content before producing the text.
+     *
+     * @version $Id$
+     */
+    private static final class BudgetContentHandler extends ContentHandlerDecorator
+    {
+        private final long deadline;
+
+        BudgetContentHandler(ContentHandler handler, long deadline)
+        {
+            super(handler);
+
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException
+        {
+            checkBudget();
+
+            super.startElement(uri, localName, name, atts);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException
+        {
+            checkBudget();
+
+            super.characters(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException
+        {
+            checkBudget();
+
+            super.ignorableWhitespace(ch, start, length);
+        }
+
+        private void checkBudget() throws SAXException
+        {
+            try {
+                checkDeadline(this.deadline);
+            } catch (BudgetExceededException e) {
+                throw new SAXException(e);
+            }
+        }
+    }
+
+    @Inject
+    private SolrConfiguration configuration;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    @Inject
+    private Logger logger;
+
+    private final ConcurrentMap<String, MediaTypeStatistics> statistics = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder budgetExceeded = new LongAdder();
+
+    private static void checkDeadline(long deadline) throws BudgetExceededException
+    {
+        if (deadline > 0 && System.nanoTime() - deadline > 0) {
+            throw new BudgetExceededException("Extraction timeout reached");
+        }
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.jmxRegistration.registerMBean(new JMXAttachmentTextExtractor(this), MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+    }
+
+    /**
+     * @param attachment the attachment to extract the content from
+     * @return the text representation of the attachment's content, possibly truncated to the configured maximum number
+     *         of characters, or {@code null} if the attachment is too big or its content could not be parsed
+     */
+    public String getText(XWikiAttachment attachment)
+    {
+        long maxBytes = this.configuration.getAttachmentMaxBytes();
+        if (maxBytes > 0 && attachment.getLongSize() > maxBytes) {
+            this.logger.debug("Skipping the content of attachment [{}] because it's bigger than [{}] bytes",
+                attachment.getReference(), maxBytes);
+            this.skipped.increment();
+
+            return null;
+        }
+
+        int maxCharacters = this.configuration.getAttachmentMaxCharacters();
+
+        Path cacheFile = getCacheFile(attachment, maxCharacters);
+        if (cacheFile != null) {
+            String text = readCache(cacheFile);
+            if (text != null) {
+                this.cacheHits.increment();
+
+                return text;
+            }
+        }
+
+        String text = extract(attachment, maxCharacters);
+
+        if (text != null && cacheFile != null) {
+            writeCache(cacheFile, text);
+        }
+
+        return text;
+    }
+
+    private String extract(XWikiAttachment attachment, int maxCharacters)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        String mediaType = StringUtils.defaultIfEmpty(attachment.getMimeType(xcontext), UNKNOWN_MEDIA_TYPE);
+        MediaTypeStatistics mediaTypeStatistics =
+            this.statistics.computeIfAbsent(mediaType, key -> new MediaTypeStatistics());
+
+        long timeout = this.configuration.getAttachmentExtractionTimeout();
+        long start = System.nanoTime();
+        long deadline = timeout > 0 ? start + TimeUnit.SECONDS.toNanos(timeout) : 0;
+
+        BudgetInputStream stream = null;
+        try {
+            Metadata metadata = new Metadata();
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, attachment.getFilename());
+
+            stream = new BudgetInputStream(attachment.getContentInputStream(xcontext), deadline);
+
+            // Limit the size of the extracted text rather than the number of bytes read, which depends on the parser
+            // (e.g. some parsers read the content several times, others don't read it at all)
+            WriteOutContentHandler text = new WriteOutContentHandler(maxCharacters > 0 ? maxCharacters : -1);
+            try {
+                TikaUtils.parse(stream, new BodyContentHandler(new BudgetContentHandler(text, deadline)), metadata);
+            } catch (SAXException e) {
+                if (!text.isWriteLimitReached(e)) {
+                    throw e;
+                }
+            } finally {
+                stream.close();
+            }
+
+            mediaTypeStatistics.extracted(stream.count, System.nanoTime() - start, false);
+
+            return text.toString();
+        } catch (Exception e) {
+            mediaTypeStatistics.extracted(stream != null ? stream.count : 0, System.nanoTime() - start, true);
+
+            if (ExceptionUtils.indexOfType(e, BudgetExceededException.class) >= 0) {
+                this.logger.warn("Stopped extracting the content of attachment [{}] ([{}]): {}",
+                    attachment.getReference(), mediaType, ExceptionUtils.getRootCauseMessage(e));
+                this.budgetExceeded.increment();
+
+                // Remember that this attachment version is too expensive to parse
+                return "";
+            }
+
+            this.logger.error("Failed to retrieve the content of attachment [{}]", attachment.getReference(), e);
+
+            return null;
+        }
+    }
+
+    private Path getCacheFile(XWikiAttachment attachment, int maxCharacters)
+    {
+        if (!this.configuration.isAttachmentTextCacheEnabled() || attachment.getDate() == null) {
+            return null;
+        }
+
+        // The version alone is not enough since the history of an attachment can be reset (e.g. when the document is
+        // deleted and a new document with the same reference is created)
+        String fileName = String.format("%s-%d-%d-%d%s", attachment.getVersion(), attachment.getDate().getTime(),
+            attachment.getLongSize(), maxCharacters, CACHE_EXTENSION);
+
+        return getCacheDirectory(attachment).resolve(fileName);
+    }
+
+    private Path getCacheDirectory(WikiReference wiki)
+    {
+        return this.environment.getPermanentDirectory().toPath().resolve(CACHE_DIRECTORY)
+            .resolve(URLEncoder.encode(wiki.getName(), StandardCharsets.UTF_8));
+    }
+
+    private Path getCacheDirectory(XWikiAttachment attachment)
+    {
+        // The identifier of an attachment is only unique in its wiki
+        return getCacheDirectory(attachment.getReference().getDocumentReference().getWikiReference())
+            .resolve(Long.toString(attachment.getId()));
+    }
+
+    /**
+     * Remove the text extracted from the passed attachment from the disk cache.
+     *
+     * @param attachment the deleted attachment
+     */
+    public void deleteCache(XWikiAttachment attachment)
+    {
+        deleteCacheDirectory(getCacheDirectory(attachment));
+    }
+
+    /**
+     * Remove the text extracted from the attachments of the passed wiki from the disk cache.
+     *
+     * @param wiki the deleted wiki
+     */
+    public void deleteCache(WikiReference wiki)
+    {
+        deleteCacheDirectory(getCacheDirectory(wiki));
+    }
+
+    private void deleteCacheDirectory(Path directory)
+    {
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (IOException e) {
+            this.logger.warn("Failed to delete the cached attachment text [{}]: {}", directory,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private String readCache(Path cacheFile)
+    {
+        try {
+            return Files.readString(cacheFile, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            this.logger.warn("Failed to read the cached attachment text [{}]: {}", cacheFile,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+    }
+
+    private void writeCache(Path cacheFile, String text)
+    {
+        Path directory = cacheFile.getParent();
+
+        try {
+            Files.createDirectories(directory);
+
+            // Only keep the text of the latest known version of the attachment
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, '*' + CACHE_EXTENSION)) {
+                for (Path file : files) {
+                    if (!file.equals(cacheFile)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+
+            // Make sure a concurrent reader never see a partially written file
+            Path temporaryFile = Files.createTempFile(directory, null, ".tmp");
+            try {
+                Files.writeString(temporaryFile, text, StandardCharsets.UTF_8);
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to cache the attachment text [{}]: {}", cacheFile,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * @return the extraction cost of each media type
+     */
+    public Map<String, MediaTypeStatistics> getStatistics()
+    {
+        return new TreeMap<>(this.statistics);
+    }
+
+    /**
+     * @return the number of attachments which text was found in the disk cache
+     */
+    public long getCacheHits()
+    {
+        return this.cacheHits.sum();
+    }
+
+    /**
+     * @return the number of attachments which were not parsed because they were too big
+     */
+    public long getSkippedCount()
+    {
+        return this.skipped.sum();
+    }
+
+    /**
+     * @return the number of attachments for which the extraction was stopped because it exceeded the configured budget
+     */
+    public long getBudgetExceededCount()
+    {
+        return this.budgetExceeded.sum();
+    }
+
+    /**
+     * Reset the extraction statistics.
+     */
+    public void resetStatistics()
+    {
+        this.statistics.clear();
+        this.cacheHits.reset();
+        this.skipped.reset();
+        this.budgetExceeded.reset();
+    }
+}
@@ -85,6 +85,51 @@ public void getIndexerQueueCapacity()
 
     }
 
+    @Test
+    public void getIndexerThreads()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_THREADS_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_THREADS_DEFAULT)).thenReturn(4);
+
+        assertEquals(4, this.configuration.getIndexerThreads());
+    }
+
+    @Test
+    public void getAttachmentMaxBytes()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_ATTACHMENT_MAXBYTES_PROPERTY,
+            DefaultSolrConfiguration.SOLR_ATTACHMENT_MAXBYTES_DEFAULT)).thenReturn(42L);
+
+        assertEquals(42L, this.configuration.getAttachmentMaxBytes());
+    }
+
+    @Test
+    public void getAttachmentMaxCharacters()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_ATTACHMENT_MAXCHARACTERS_PROPERTY,
+            DefaultSolrConfiguration.SOLR_ATTACHMENT_MAXCHARACTERS_DEFAULT)).thenReturn(42);
+
+        assertEquals(42, this.configuration.getAttachmentMaxCharacters());
+    }
+
+    @Test
+    public void getAttachmentExtractionTimeout()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_ATTACHMENT_TIMEOUT_PROPERTY,
+            DefaultSolrConfiguration.SOLR_ATTACHMENT_TIMEOUT_DEFAULT)).thenReturn(42L);
+
+        assertEquals(42L, this.configuration.getAttachmentExtractionTimeout());
+    }
+
+    @Test
+    public void isAttachmentTextCacheEnabled()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_ATTACHMENT_CACHE_PROPERTY,
+            DefaultSolrConfiguration.SOLR_ATTACHMENT_CACHE_DEFAULT)).thenReturn(false);
+
+        assertFalse(this.configuration.isAttachmentTextCacheEnabled());
+    }
+
     @Test
     public void synchronizeAtStartup()
     {
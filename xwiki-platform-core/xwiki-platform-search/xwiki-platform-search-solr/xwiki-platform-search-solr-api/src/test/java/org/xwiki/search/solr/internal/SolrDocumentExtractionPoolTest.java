@@ -0,0 +1,142 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link SolrDocumentExtractionPool}.
+ * 
+ * @version $Id$
+ */
+class SolrDocumentExtractionPoolTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "space", "page");
+
+    private static final DocumentReference OTHER_DOCUMENT = new DocumentReference("wiki", "space", "other");
+
+    private SolrDocumentExtractionPool pool;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        this.pool = new SolrDocumentExtractionPool(2);
+    }
+
+    @AfterEach
+    void afterEach()
+    {
+        this.pool.shutdown();
+    }
+
+    @Test
+    void extract() throws Exception
+    {
+        LengthSolrInputDocument document = new LengthSolrInputDocument();
+
+        this.pool.submit(DOCUMENT, reference -> document);
+
+        assertTrue(this.pool.isPending(DOCUMENT));
+        assertFalse(this.pool.isPending(OTHER_DOCUMENT));
+
+        SolrDocumentExtractionPool.Result result = this.pool.take();
+
+        assertSame(DOCUMENT, result.getReference());
+        assertSame(document, result.getDocument());
+        assertNull(result.getError());
+        assertFalse(result.isObsolete());
+        assertFalse(this.pool.isPending(DOCUMENT));
+        assertTrue(this.pool.isEmpty());
+    }
+
+    @Test
+    void extractFailing() throws Exception
+    {
+        this.pool.submit(DOCUMENT, reference -> {
+            throw new Exception("error");
+        });
+
+        SolrDocumentExtractionPool.Result result = this.pool.take();
+
+        assertNull(result.getDocument());
+        assertNotNull(result.getError());
+        assertFalse(this.pool.isPending(DOCUMENT));
+    }
+
+    @Test
+    void extractSameReferenceTwice() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        LengthSolrInputDocument oldDocument = new LengthSolrInputDocument();
+        LengthSolrInputDocument newDocument = new LengthSolrInputDocument();
+
+        this.pool.submit(DOCUMENT, reference -> {
+            release.await();
+
+            return oldDocument;
+        });
+        this.pool.submit(DOCUMENT, reference -> newDocument);
+
+        // The most recent extraction finishes first
+        SolrDocumentExtractionPool.Result result = this.pool.take();
+        assertSame(newDocument, result.getDocument());
+        assertFalse(result.isObsolete());
+
+        release.countDown();
+
+        result = this.pool.take();
+        assertSame(oldDocument, result.getDocument());
+        assertTrue(result.isObsolete());
+
+        assertTrue(this.pool.isEmpty());
+    }
+
+    @Test
+    void isFull()
+    {
+        CountDownLatch release = new CountDownLatch(1);
+
+        for (int i = 0; i < 4; ++i) {
+            assertFalse(this.pool.isFull());
+
+            this.pool.submit(DOCUMENT, reference -> {
+                release.await();
+
+                return null;
+            });
+        }
+
+        assertTrue(this.pool.isFull());
+
+        release.countDown();
+    }
+}
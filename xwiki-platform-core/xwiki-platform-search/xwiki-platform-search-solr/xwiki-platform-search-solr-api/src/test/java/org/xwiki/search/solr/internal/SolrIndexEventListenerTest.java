@@ -25,17 +25,22 @@
 import org.junit.jupiter.api.Test;
 import org.xwiki.bridge.event.DocumentDeletedEvent;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
 import org.xwiki.mail.GeneralMailConfigurationUpdatedEvent;
+import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.metadata.AttachmentTextExtractor;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
 import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -57,6 +62,9 @@
     @MockComponent
     private SolrIndexer indexer;
 
+    @MockComponent
+    private AttachmentTextExtractor attachmentTextExtractor;
+
     @Test
     void onDocumentDeleted()
     {
@@ -114,4 +122,31 @@ void onGeneralMailConfigurationUpdatedEvent()
         this.listener.onEvent(new GeneralMailConfigurationUpdatedEvent(otherWiki), otherWiki, null);
         verify(this.indexer).index(new WikiReference(otherWiki), true);
     }
+
+    @Test
+    void onAttachmentDeleted()
+    {
+        AttachmentReference attachmentReference =
+            new AttachmentReference("file.txt", new DocumentReference("wiki", "Space", "Page"));
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getReference()).thenReturn(attachmentReference);
+        XWikiDocument originalDocument = mock(XWikiDocument.class);
+        when(originalDocument.getAttachment("file.txt")).thenReturn(attachment);
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+
+        this.listener.onEvent(new AttachmentDeletedEvent("wiki:Space.Page", "file.txt"), document, null);
+
+        verify(this.indexer).delete(attachmentReference, false);
+        verify(this.attachmentTextExtractor).deleteCache(attachment);
+    }
+
+    @Test
+    void onWikiDeleted()
+    {
+        this.listener.onEvent(new WikiDeletedEvent("wiki"), "wiki", null);
+
+        verify(this.indexer).delete(new WikiReference("wiki"), false);
+        verify(this.attachmentTextExtractor).deleteCache(new WikiReference("wiki"));
+    }
 }
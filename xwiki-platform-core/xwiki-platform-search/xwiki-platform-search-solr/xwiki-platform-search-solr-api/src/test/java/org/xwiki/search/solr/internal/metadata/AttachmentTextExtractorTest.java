@@ -0,0 +1,252 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.environment.Environment;
+import org.xwiki.management.JMXBeanRegistration;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link AttachmentTextExtractor}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class AttachmentTextExtractorTest
+{
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    @InjectMockComponents
+    private AttachmentTextExtractor extractor;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private JMXBeanRegistration jmxRegistration;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    private AttachmentReference attachmentReference =
+        new AttachmentReference("file.txt", new DocumentReference("wiki", "Space", "Page"));
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+    }
+
+    private XWikiAttachment mockAttachment(String content, String version) throws Exception
+    {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getReference()).thenReturn(this.attachmentReference);
+        when(attachment.getFilename()).thenReturn(this.attachmentReference.getName());
+        when(attachment.getMimeType(this.xcontext)).thenReturn("text/plain");
+        when(attachment.getId()).thenReturn(42L);
+        when(attachment.getVersion()).thenReturn(version);
+        when(attachment.getDate()).thenReturn(new Date(1000));
+        when(attachment.getLongSize()).thenReturn((long) bytes.length);
+        when(attachment.getContentInputStream(this.xcontext)).thenAnswer(i -> new ByteArrayInputStream(bytes));
+
+        return attachment;
+    }
+
+    @Test
+    void getText() throws Exception
+    {
+        assertEquals("content\n", this.extractor.getText(mockAttachment("content", "1.1")));
+
+        assertEquals(1, this.extractor.getStatistics().get("text/plain").getCount());
+        assertEquals(7, this.extractor.getStatistics().get("text/plain").getBytes());
+    }
+
+    @Test
+    void getTextWhenTooBig() throws Exception
+    {
+        when(this.configuration.getAttachmentMaxBytes()).thenReturn(3L);
+
+        XWikiAttachment attachment = mockAttachment("content", "1.1");
+
+        assertNull(this.extractor.getText(attachment));
+
+        verify(attachment, never()).getContentInputStream(any());
+        assertEquals(1, this.extractor.getSkippedCount());
+    }
+
+    @Test
+    void getTextWhenReadingMoreThanMaxBytes() throws Exception
+    {
+        when(this.configuration.getAttachmentMaxBytes()).thenReturn(10L);
+        when(this.configuration.getAttachmentMaxCharacters()).thenReturn(12);
+
+        // The stored size does not match the actual content, only the extracted text is limited
+        XWikiAttachment attachment = mockAttachment(StringUtils.repeat("content ", 10000), "1.1");
+        when(attachment.getLongSize()).thenReturn(5L);
+
+        assertEquals("content cont", this.extractor.getText(attachment));
+
+        assertEquals(0, this.extractor.getBudgetExceededCount());
+        assertEquals(0, this.extractor.getStatistics().get("text/plain").getFailures());
+    }
+
+    @Test
+    void getTextWhenTimeoutReached() throws Exception
+    {
+        when(this.configuration.getAttachmentExtractionTimeout()).thenReturn(1L);
+
+        XWikiAttachment attachment = mockAttachment("content", "1.1");
+        when(attachment.getContentInputStream(this.xcontext)).thenAnswer(
+            i -> new FilterInputStream(new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)))
+            {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException
+                {
+                    // Simulate a slow parsing
+                    try {
+                        Thread.sleep(1100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    return super.read(b, off, len);
+                }
+            });
+
+        assertEquals("", this.extractor.getText(attachment));
+
+        assertEquals(1, this.extractor.getBudgetExceededCount());
+        assertEquals(1, this.extractor.getStatistics().get("text/plain").getFailures());
+        assertTrue(this.logCapture.getMessage(0)
+            .startsWith("Stopped extracting the content of attachment [" + this.attachmentReference + "]"));
+    }
+
+    @Test
+    void getTextTruncated() throws Exception
+    {
+        when(this.configuration.getAttachmentMaxCharacters()).thenReturn(4);
+
+        assertEquals("cont", this.extractor.getText(mockAttachment("content", "1.1")));
+    }
+
+    @Test
+    void getTextFromCache() throws Exception
+    {
+        when(this.configuration.isAttachmentTextCacheEnabled()).thenReturn(true);
+
+        XWikiAttachment attachment = mockAttachment("content", "1.1");
+
+        assertEquals("content\n", this.extractor.getText(attachment));
+        assertEquals("content\n", this.extractor.getText(attachment));
+
+        verify(attachment, times(1)).getContentInputStream(this.xcontext);
+        assertEquals(1, this.extractor.getCacheHits());
+
+        File attachmentCache = new File(this.permanentDirectory, "cache/solr/attachments/wiki/42");
+        assertEquals(1, attachmentCache.list().length);
+
+        // A new version of the attachment replaces the previous cached text
+        XWikiAttachment newAttachment = mockAttachment("new content", "2.1");
+
+        assertEquals("new content\n", this.extractor.getText(newAttachment));
+
+        assertEquals(1, attachmentCache.list().length);
+        assertFalse(attachmentCache.list()[0].startsWith("1.1-"));
+        assertEquals(1, this.extractor.getCacheHits());
+    }
+
+    @Test
+    void deleteCache() throws Exception
+    {
+        when(this.configuration.isAttachmentTextCacheEnabled()).thenReturn(true);
+
+        XWikiAttachment attachment = mockAttachment("content", "1.1");
+        // Attachments from different wikis can have the same identifier
+        XWikiAttachment otherWikiAttachment = mockAttachment("other content", "1.1");
+        when(otherWikiAttachment.getReference())
+            .thenReturn(new AttachmentReference("file.txt", new DocumentReference("otherwiki", "Space", "Page")));
+
+        assertEquals("content\n", this.extractor.getText(attachment));
+        assertEquals("other content\n", this.extractor.getText(otherWikiAttachment));
+
+        File attachmentCache = new File(this.permanentDirectory, "cache/solr/attachments/wiki/42");
+        File otherWikiAttachmentCache = new File(this.permanentDirectory, "cache/solr/attachments/otherwiki/42");
+        assertTrue(attachmentCache.exists());
+        assertTrue(otherWikiAttachmentCache.exists());
+
+        this.extractor.deleteCache(attachment);
+
+        assertFalse(attachmentCache.exists());
+        assertTrue(otherWikiAttachmentCache.exists());
+
+        this.extractor.deleteCache(new WikiReference("otherwiki"));
+
+        assertFalse(otherWikiAttachmentCache.exists());
+        assertEquals(0, this.extractor.getCacheHits());
+    }
+}
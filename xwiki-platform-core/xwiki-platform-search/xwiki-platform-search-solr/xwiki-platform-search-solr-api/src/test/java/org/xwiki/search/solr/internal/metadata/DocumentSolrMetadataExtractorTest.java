@@ -47,7 +47,9 @@
 import org.mockito.stubbing.Answer;
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
+import org.xwiki.environment.Environment;
 import org.xwiki.mail.GeneralMailConfiguration;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.document.DocumentAuthors;
 import org.xwiki.model.reference.AttachmentReference;
@@ -59,6 +61,7 @@
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.search.solr.internal.SolrSearchCoreUtils;
 import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrFieldNameEncoder;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
@@ -103,7 +106,7 @@
  * @version $Id$
  */
 @ComponentTest
-@ComponentList({SolrSearchCoreUtils.class, SolrLinkSerializer.class})
+@ComponentList({SolrSearchCoreUtils.class, SolrLinkSerializer.class, AttachmentTextExtractor.class})
 @ReferenceComponentList
 class DocumentSolrMetadataExtractorTest
 {
@@ -141,6 +144,15 @@
     @Named("document")
     private SolrReferenceResolver documentSolrReferenceResolver;
 
+    @MockComponent
+    private SolrConfiguration solrConfiguration;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private JMXBeanRegistration jmxRegistration;
+
     private XWikiContext xcontext = mock(XWikiContext.class);
 
     /**
@@ -22,6 +22,7 @@
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -235,25 +236,35 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         SolrDocumentList results = response.getResults();
         long numResults = results.size();
 
-        results.removeIf(result -> {
-            boolean keep = false;
+        // Resolve all the document references first in order to check the rights of all the results at once.
+        List<SolrDocument> candidates = new ArrayList<>(results.size());
+        List<DocumentReference> candidateReferences = new ArrayList<>(results.size());
+        for (SolrDocument result : results) {
             try {
-                DocumentReference resultDocumentReference = this.solrDocumentReferenceResolver.resolve(result);
-
-                keep = isAllowed(resultDocumentReference, usersToCheck);
+                candidateReferences.add(this.solrDocumentReferenceResolver.resolve(result));
+                candidates.add(result);
             } catch (Exception e) {
                 // Don't take any risk of including a result for which we cannot determine the document reference and
                 // thus cannot determine if the given users have access to it or not.
                 this.logger.warn("Removing bad result: {}", result, e);
             }
+        }
 
-            // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
-            // Sorting based on score might be a not so expensive option.
+        BitSet allowed = new BitSet(candidates.size());
+        allowed.set(0, candidates.size());
+        for (DocumentReference user : usersToCheck) {
+            allowed.and(this.authorization.getAllowed(Right.VIEW, user, candidateReferences));
+        }
 
-            // FIXME: What about highlighting, facets and all the other data inside the QueryResponse?
+        results.clear();
+        for (int i = allowed.nextSetBit(0); i >= 0; i = allowed.nextSetBit(i + 1)) {
+            results.add(candidates.get(i));
+        }
+
+        // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
+        // Sorting based on score might be a not so expensive option.
 
-            return !keep;
-        });
+        // FIXME: What about highlighting, facets and all the other data inside the QueryResponse?
 
         long numFilteredResults = numResults - results.size();
 
@@ -263,15 +274,4 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
 
         results.setNumFound(numFound);
     }
-
-    protected boolean isAllowed(DocumentReference resultDocumentReference, List<DocumentReference> usersToCheck)
-    {
-        for (DocumentReference user : usersToCheck) {
-            if (!this.authorization.hasAccess(Right.VIEW, user, resultDocumentReference)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
 }
@@ -19,11 +19,14 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
 
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.stability.Unstable;
 
 /**
  * This API is for checking the access rights of any users on any XWiki entities. It replaces
@@ -75,6 +78,33 @@ void checkAccess(Right right, DocumentReference userReference, EntityReference e
      */
     boolean hasAccess(Right right, DocumentReference userReference, EntityReference entityReference);
 
+    /**
+     * Verifies if the user identified by {@code userReference} has the access identified by {@code right} on each of
+     * the entities identified by {@code entityReferences}. The result is the same as calling
+     * {@link #hasAccess(Right, DocumentReference, EntityReference)} for each entity, but the implementation is free
+     * to share the work (like the loading of the common parents security rules) between the entities. This is
+     * typically used to filter a page of search results.
+     *
+     * @param right the right to check
+     * @param userReference the user to check the right for
+     * @param entityReferences the entities on which to check the right
+     * @return the indexes of the entities on which the user has the specified right
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default BitSet getAllowed(Right right, DocumentReference userReference,
+        List<? extends EntityReference> entityReferences)
+    {
+        BitSet allowed = new BitSet(entityReferences.size());
+        for (int i = 0; i < entityReferences.size(); i++) {
+            if (hasAccess(right, userReference, entityReferences.get(i))) {
+                allowed.set(i);
+            }
+        }
+
+        return allowed;
+    }
+
     /**
      * Register a new custom {@link Right}.
      *
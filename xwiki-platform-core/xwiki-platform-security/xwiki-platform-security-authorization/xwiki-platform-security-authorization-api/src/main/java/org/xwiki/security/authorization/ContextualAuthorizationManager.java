@@ -19,8 +19,12 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.BitSet;
+import java.util.List;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.stability.Unstable;
 
 /**
  * This API is for checking the access rights of current user in the current context. It replaces
@@ -80,4 +84,27 @@
      * @return {@code true} if the user has the specified right on the entity, {@code false} otherwise
      */
     boolean hasAccess(Right right, EntityReference entityReference);
+
+    /**
+     * Verifies if access identified by {@code right} on each of the given entities would be allowed in the current
+     * context. The result is the same as calling {@link #hasAccess(Right, EntityReference)} for each entity, but the
+     * implementation is free to share the work between the entities.
+     *
+     * @param right the right to check
+     * @param entityReferences the entities on which to check the right
+     * @return the indexes of the entities on which the specified right is allowed
+     * @since 16.8.0RC1
+     */
+    @Unstable
+    default BitSet getAllowed(Right right, List<? extends EntityReference> entityReferences)
+    {
+        BitSet allowed = new BitSet(entityReferences.size());
+        for (int i = 0; i < entityReferences.size(); i++) {
+            if (hasAccess(right, entityReferences.get(i))) {
+                allowed.set(i);
+            }
+        }
+
+        return allowed;
+    }
 }
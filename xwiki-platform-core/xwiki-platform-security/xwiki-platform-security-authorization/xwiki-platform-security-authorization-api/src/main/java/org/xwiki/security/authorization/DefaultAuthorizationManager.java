@@ -20,8 +20,11 @@
 package org.xwiki.security.authorization;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -125,6 +128,51 @@ public boolean hasAccess(Right right, DocumentReference userReference, EntityRef
         }
     }
 
+    @Override
+    public BitSet getAllowed(Right right, DocumentReference userReference,
+        List<? extends EntityReference> entityReferences)
+    {
+        BitSet allowed = new BitSet(entityReferences.size());
+
+        if (isSuperAdmin(userReference)) {
+            allowed.set(0, entityReferences.size());
+
+            return allowed;
+        }
+
+        // The pre-conditions don't depend on the entity so there's no need to check them for each entity
+        if (right == null || right == Right.ILLEGAL || (!right.isReadOnly() && xwikiBridge.isWikiReadOnly())
+            || (userReference == null && xwikiBridge.needsAuthentication(right))) {
+            return allowed;
+        }
+
+        UserSecurityReference user = securityReferenceFactory.newUserReference(userReference);
+
+        // Entities without any specific security rule (e.g. the documents of a space) share the access computed for
+        // their closest parent having some rules, no need to get it from the cache again for each of them. The
+        // parents loaded for the first entity of a given space are also found in the cache for its siblings.
+        Map<SecurityReference, SecurityAccess> sharedAccess = new HashMap<>();
+        for (int i = 0; i < entityReferences.size(); i++) {
+            EntityReference entityReference = entityReferences.get(i);
+            try {
+                SecurityAccess securityAccess =
+                    getAccess(user, securityReferenceFactory.newEntityReference(entityReference), sharedAccess);
+
+                RuleState access = securityAccess.get(right);
+                logAccess(access, userReference, entityReference, right, "bulk access inquiry", true);
+                if (access == RuleState.ALLOW) {
+                    allowed.set(i);
+                }
+            } catch (Exception e) {
+                this.logger.error(String.format("Failed to load rights for user [%s] on [%s].",
+                    (userReference == null) ? AuthorizationException.NULL_USER : userReference,
+                    (entityReference == null) ? AuthorizationException.NULL_ENTITY : entityReference), e);
+            }
+        }
+
+        return allowed;
+    }
+
     /**
      * Verifies if the user identified by {@code userReference} has the access identified by {@code right} on the
      * entity identified by {@code entityReference}. Note that some rights may be checked higher in hierarchy of the
@@ -168,7 +216,8 @@ private boolean evaluateSecurityAccess(Right right, DocumentReference userRefere
     {
         SecurityAccess securityAccess = getAccess(
             securityReferenceFactory.newUserReference(userReference),
-            securityReferenceFactory.newEntityReference(entityReference)
+            securityReferenceFactory.newEntityReference(entityReference),
+            null
         );
 
         RuleState access = securityAccess.get(right);
@@ -227,11 +276,13 @@ public void unregister(Right right) throws AuthorizationException
      *
      * @param user The user identity.
      * @param entity The entity.  May be of type DOCUMENT, WIKI, or SPACE.
+     * @param sharedAccess The access already resolved for the other entities of a bulk check, indexed by the
+     *            reference holding the security rules, or {@code null} when checking a single entity.
      * @return the cached access entry.
      * @exception org.xwiki.security.authorization.AuthorizationException if an error occurs
      */
-    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity)
-        throws AuthorizationException
+    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity,
+        Map<SecurityReference, SecurityAccess> sharedAccess) throws AuthorizationException
     {
         for (SecurityReference ref = entity; ref != null; ref = ref.getParentSecurityReference()) {
             if (Right.getEnabledRights(ref.getSecurityType()).isEmpty()) {
@@ -247,6 +298,11 @@ private SecurityAccess getAccess(UserSecurityReference user, SecurityReference e
                 return access;
             }
             if (!entry.isEmpty()) {
+                SecurityAccess shared = sharedAccess != null ? sharedAccess.get(ref) : null;
+                if (shared != null) {
+                    return shared;
+                }
+
                 SecurityAccessEntry accessEntry = securityCache.get(user, ref);
                 if (accessEntry == null) {
                     SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
@@ -259,6 +315,10 @@ private SecurityAccess getAccess(UserSecurityReference user, SecurityReference e
 
                     logger.debug("3. Got entry for user {} on {} from cache: [{}]", user, entity, access);
 
+                    if (sharedAccess != null) {
+                        sharedAccess.put(ref, access);
+                    }
+
                     return access;
                 }
             } 
@@ -151,14 +151,14 @@ public void initialize() throws InitializationException
     private class SecurityCacheEntry
     {
         /**
-         * The cached security entry.
+         * The cached security entry. Volatile since it can be upgraded while other threads read it without lock.
          */
-        private SecurityEntry entry;
+        private volatile SecurityEntry entry;
 
         /**
-         * Parents of this cached entry.
+         * Parents of this cached entry. Volatile since it can be replaced while other threads read it without lock.
          */
-        private Collection<SecurityCacheEntry> parents;
+        private volatile Collection<SecurityCacheEntry> parents;
 
         /**
          * Children of this cached entry.
@@ -166,9 +166,9 @@ public void initialize() throws InitializationException
         private Collection<SecurityCacheEntry> children;
 
         /**
-         * True if this entry has been removed.
+         * True if this entry has been removed. Volatile since it's checked by the lock-free read path.
          */
-        private boolean disposed;
+        private volatile boolean disposed;
 
         /**
          * Create a new cache entry for a security rule, linking it to its parent.
@@ -662,13 +662,30 @@ private SecurityCacheEntry getShadowEntry(SecurityReference userReference, Secur
 
     /**
      * Get a security cache entry from the cache or the internal map. In the latter case, the entry is re-inserted
-     * into the cache. This method can be called without locking, it uses the read lock internally.
+     * into the cache. This method can be called without locking, it uses the read lock internally when the entry
+     * cannot be found directly in the cache.
      *
      * @param key the key of the entry to retrieve
      * @throws IllegalStateException if the entry has been disposed (this should never happen)
      * @return the entry corresponding to the given key, null if none is available in the cache
      */
     private SecurityCacheEntry getInternal(String key)
+    {
+        // Fast path: the cache is thread safe and entries are only disposed after being removed from it, so an entry
+        // found in the cache which is not disposed is a valid result, exactly as if it had been read just before a
+        // concurrent invalidation. This avoids having all the right checks wait for the write lock (which is fair)
+        // each time an entry is invalidated or added.
+        SecurityCacheEntry result = cache.get(key);
+        if (result != null && !result.disposed) {
+            return result;
+        }
+
+        // The entry is either missing or being disposed by another thread: take the slow path, which waits for the
+        // writers and may need to look at the internal entries.
+        return getInternalLocked(key);
+    }
+
+    private SecurityCacheEntry getInternalLocked(String key)
     {
         readLock.lock();
         try {
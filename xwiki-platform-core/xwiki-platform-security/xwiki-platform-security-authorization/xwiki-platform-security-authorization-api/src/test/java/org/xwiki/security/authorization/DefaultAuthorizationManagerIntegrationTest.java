@@ -21,6 +21,7 @@
 package org.xwiki.security.authorization;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -491,6 +492,37 @@ void inheritancePolicyForGlobalFullWikiAccess() throws Exception
             getDoc("docDenyA", "any space", "wikiAllowA"));
     }
 
+    @Test
+    void getAllowed() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        List<EntityReference> entities = List.of(getXDoc("any document", "any space"),
+            getXDoc("any document", "spaceAllowA"), getXDoc("docDenyA", "spaceAllowA"),
+            getXDoc("other document", "spaceAllowA"), getXDoc("docAllowA", "any space"),
+            getDoc("any document", "any space", "wikiNoRules"));
+
+        BitSet expected = new BitSet();
+        expected.set(1, 5);
+        assertEquals(expected, this.authorizationManager.getAllowed(VIEW, getXUser("userA"), entities));
+
+        // The bulk check should give the same result as checking each entity
+        for (Right right : values()) {
+            BitSet allowed = this.authorizationManager.getAllowed(right, getXUser("userA"), entities);
+            for (int i = 0; i < entities.size(); i++) {
+                assertEquals(this.authorizationManager.hasAccess(right, getXUser("userA"), entities.get(i)),
+                    allowed.get(i), String.format("[%s] on [%s]", right, entities.get(i)));
+            }
+        }
+
+        // Superadmin has access to everything
+        assertEquals(entities.size(), this.authorizationManager
+            .getAllowed(VIEW, getUser(AuthorizationManager.SUPERADMIN_USER, "xwiki"), entities).cardinality());
+
+        // No access for illegal right
+        assertTrue(this.authorizationManager.getAllowed(ILLEGAL, getXUser("userA"), entities).isEmpty());
+    }
+
     @Test
     void inheritancePolicyForLocalWikiAccess() throws Exception
     {
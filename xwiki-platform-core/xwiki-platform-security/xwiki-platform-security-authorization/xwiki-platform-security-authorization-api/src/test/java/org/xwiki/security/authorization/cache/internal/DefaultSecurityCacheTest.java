@@ -28,6 +28,10 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -983,4 +987,44 @@ void testAcceptsMainWikiShadowAsUserParent() throws Exception
         // Check that the entry was added
         assertSame(entry, this.securityCache.get(userSecurityReference, documentSecurityReference));
     }
+
+    @Test
+    void getDuringInvalidation() throws Exception
+    {
+        this.securityCache.add(mockSecurityRuleEntry(xwikiRef));
+        SecurityRuleEntry otherEntry = mockSecurityRuleEntry(anotherXspaceRef);
+        this.securityCache.add(otherEntry);
+
+        // Block the invalidation of the space entry while it's holding the write lock
+        CountDownLatch invalidating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean block = new AtomicBoolean();
+        SecurityRuleEntry entry = mock(SecurityRuleEntry.class, "Rules for " + xspaceRef);
+        when(entry.getReference()).then(invocation -> {
+            if (block.compareAndSet(true, false)) {
+                invalidating.countDown();
+                release.await();
+            }
+            return xspaceRef;
+        });
+        this.securityCache.add(entry);
+
+        block.set(true);
+        Thread invalidation = new Thread(() -> this.securityCache.remove(xspaceRef));
+        invalidation.start();
+        invalidating.await();
+
+        try {
+            // Reading an entry already in the cache should not wait for the invalidation to finish
+            CompletableFuture<SecurityRuleEntry> read =
+                CompletableFuture.supplyAsync(() -> this.securityCache.get(anotherXspaceRef));
+            assertSame(otherEntry, read.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            invalidation.join();
+        }
+
+        assertNull(this.securityCache.get(xspaceRef));
+        assertSame(otherEntry, this.securityCache.get(anotherXspaceRef));
+    }
 }
@@ -23,6 +23,7 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.AutoCloseInputStream;
@@ -128,6 +129,16 @@ public InputStream getContentInputStream()
         }
     }
 
+    @Override
+    public long copyContent(long offset, long length, OutputStream output) throws IOException
+    {
+        if (this.getFileItem() != null) {
+            return super.copyContent(offset, length, output);
+        }
+
+        return copyContent(this.storageFile, offset, length, output);
+    }
+
     @Override
     public long getLongSize()
     {
@@ -0,0 +1,66 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.legacy.doc.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validate {@link FilesystemAttachmentContent}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+class FilesystemAttachmentContentTest
+{
+    @XWikiTempDir
+    private File tmpDir;
+
+    @Test
+    void copyContent() throws Exception
+    {
+        File file = new File(this.tmpDir, "file.txt");
+        FileUtils.write(file, "abcdefghijklmn", StandardCharsets.US_ASCII);
+
+        FilesystemAttachmentContent content = new FilesystemAttachmentContent(file);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(3, content.copyContent(5, 3, output));
+        assertEquals("fgh", output.toString(StandardCharsets.US_ASCII));
+
+        // The length is limited to the end of the file
+        output.reset();
+        assertEquals(2, content.copyContent(12, 10, output));
+        assertEquals("mn", output.toString(StandardCharsets.US_ASCII));
+
+        output.reset();
+        assertEquals(0, content.copyContent(20, 10, output));
+        assertEquals(0, output.size());
+    }
+}
@@ -90,27 +90,27 @@ public void onEvent(Event event, Object source, Object data)
             XWikiDocument newDocument = (XWikiDocument) source;
             XWikiDocument previousDocument = newDocument.getOriginalDocument();
 
-            DocumentReference documentReference = newDocument.getDocumentReference();
-
-            // Remove the entity from the cache
-            this.groupsCache.cleanCache(documentReference);
-            this.membersCache.cleanCache(documentReference);
-
-            // Remove the previous and new group members from the cache
             Set<DocumentReference> previousMembers = getMembers(previousDocument);
             Set<DocumentReference> newMembers = getMembers(newDocument);
 
-            invalidate(previousMembers, newMembers);
-            invalidate(newMembers, previousMembers);
+            // The cached memberships only depend on the members listed in the groups, there is nothing to invalidate
+            // when a document is saved without modifying its members (which is the case of most group saves).
+            if (!previousMembers.equals(newMembers)) {
+                // The members of the group and of all the groups containing it (directly or not) changed
+                this.membersCache.cleanCache(newDocument.getDocumentReference());
+
+                // The groups of the added and removed members and of all their own members (directly or not) changed
+                invalidateGroups(previousMembers, newMembers);
+                invalidateGroups(newMembers, previousMembers);
+            }
         }
     }
 
-    private void invalidate(Set<DocumentReference> members1, Set<DocumentReference> members2)
+    private void invalidateGroups(Set<DocumentReference> members1, Set<DocumentReference> members2)
     {
         for (DocumentReference member : members1) {
             if (!members2.contains(member)) {
                 this.groupsCache.cleanCache(member);
-                this.membersCache.cleanCache(member);
             }
         }
     }
@@ -0,0 +1,123 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.user.internal.group;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.mandatory.XWikiGroupsDocumentInitializer;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link GroupCacheInvalidationListener}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+class GroupCacheInvalidationListenerTest
+{
+    private static final DocumentReference GROUP = new DocumentReference("xwiki", "XWiki", "group");
+
+    private static final DocumentReference USER_1 = new DocumentReference("xwiki", "XWiki", "user1");
+
+    private static final DocumentReference USER_2 = new DocumentReference("xwiki", "XWiki", "user2");
+
+    @InjectMockComponents
+    private GroupCacheInvalidationListener listener;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> resolver;
+
+    @MockComponent
+    private GroupsCache groupsCache;
+
+    @MockComponent
+    private MembersCache membersCache;
+
+    private XWikiDocument mockGroup(DocumentReference... members)
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(GROUP);
+
+        List<BaseObject> memberObjects = new ArrayList<>();
+        for (DocumentReference member : members) {
+            BaseObject memberObject = mock(BaseObject.class);
+            when(memberObject.getStringValue("member")).thenReturn(member.getName());
+            when(this.resolver.resolve(member.getName(), GROUP)).thenReturn(member);
+            memberObjects.add(memberObject);
+        }
+        when(document.getXObjects(XWikiGroupsDocumentInitializer.XWIKI_GROUPS_DOCUMENT_REFERENCE))
+            .thenReturn(memberObjects);
+
+        return document;
+    }
+
+    private void update(XWikiDocument previousDocument, XWikiDocument newDocument)
+    {
+        when(newDocument.getOriginalDocument()).thenReturn(previousDocument);
+
+        this.listener.onEvent(new DocumentUpdatedEvent(GROUP), newDocument, null);
+    }
+
+    @Test
+    void onUpdateWithoutMembershipChange()
+    {
+        update(mockGroup(USER_1), mockGroup(USER_1));
+
+        verify(this.groupsCache, never()).cleanCache(any(DocumentReference.class));
+        verify(this.membersCache, never()).cleanCache(any(DocumentReference.class));
+    }
+
+    @Test
+    void onUpdateWithAddedMember()
+    {
+        update(mockGroup(USER_1), mockGroup(USER_1, USER_2));
+
+        verify(this.membersCache).cleanCache(GROUP);
+        verify(this.groupsCache).cleanCache(USER_2);
+        verify(this.groupsCache, never()).cleanCache(USER_1);
+        verify(this.groupsCache, never()).cleanCache(GROUP);
+    }
+
+    @Test
+    void onUpdateWithRemovedMember()
+    {
+        update(mockGroup(USER_1, USER_2), mockGroup(USER_2));
+
+        verify(this.membersCache).cleanCache(GROUP);
+        verify(this.groupsCache).cleanCache(USER_1);
+        verify(this.groupsCache, never()).cleanCache(USER_2);
+    }
+}